@@ -0,0 +1,42 @@
+package graph;
+
+/**
+ * Snapshot of the arcs of a graph in parallel primitive arrays, arc k is left[k]->right[k] with weight[k]. Scans over the snapshot run over plain
+ * arrays instead of linked lists of {@link Edge} objects. Arcs are stored in vertex order, the out arcs of v are first[v]..first[v+1].
+ * 
+ * @author Lincoln
+ */
+public class ArcArrays {
+	public final int[]	left;
+	public final int[]	right;
+	public final int[]	weight;
+	public final int		count;
+	public final int[]	first;
+	
+	public ArcArrays(WeightedDigraph g) {
+		int m = 0;
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			m += g.eOuts(v).size();
+		}
+		count = m;
+		left = new int[m];
+		right = new int[m];
+		weight = new int[m];
+		first = new int[g.numVertices() + 1];
+		int k = 0;
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			first[v] = k;
+			for (Edge e : g.eOuts(v)) {
+				left[k] = e.left;
+				right[k] = e.right;
+				weight[k] = e.weight;
+				k++ ;
+			}
+		}
+		first[g.numVertices()] = k;
+	}
+	
+	public int numVertices() {
+		return first.length - 1;
+	}
+}
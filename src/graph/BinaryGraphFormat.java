@@ -0,0 +1,102 @@
+package graph;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Compact binary encoding of a graph and of a matching, big endian as written by {@link DataOutput}:
+ * <ul>
+ * <li>graph: magic {@link #GRAPH_MAGIC}, number of vertices, number of arcs, then left, right and weight of every arc as ints</li>
+ * <li>matching: number of vertices, number of pairs, then left, right and weight of every matched arc as ints</li>
+ * </ul>
+ * Arcs are stored as they are, an undirected edge is two arcs just like in the X Y W text format.
+ * 
+ * @author Lincoln
+ */
+public class BinaryGraphFormat {
+	/** "MWMG" */
+	public static final int	GRAPH_MAGIC	= 0x4d574d47;
+	
+	private BinaryGraphFormat() {
+	}
+	
+	public static void write(WeightedDigraph g, DataOutput out) throws IOException {
+		int arcs = 0;
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			arcs += g.eOuts(v).size();
+		}
+		out.writeInt(GRAPH_MAGIC);
+		out.writeInt(g.numVertices());
+		out.writeInt(arcs);
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				out.writeInt(e.left);
+				out.writeInt(e.right);
+				out.writeInt(e.weight);
+			}
+		}
+	}
+	
+	/**
+	 * @param in stream positioned at the magic number
+	 * @param maxVertices largest graph accepted, guards against allocating for a corrupt header
+	 * @return the graph
+	 * @throws IOException if the stream ends early or does not hold a valid graph
+	 */
+	public static WeightedDigraph read(DataInput in, int maxVertices) throws IOException {
+		int magic = in.readInt();
+		if (magic != GRAPH_MAGIC) {
+			throw new IOException(String.format("not a binary graph, magic %08x", magic));
+		}
+		int n = in.readInt(), arcs = in.readInt();
+		if (n < 0 || n > maxVertices || arcs < 0) {
+			throw new IOException(String.format("bad graph header: %d vertices %d arcs", n, arcs));
+		}
+		WeightedDigraph g = new WeightedDigraph(n);
+		for (int ii = 0; ii < arcs; ii++ ) {
+			int left = in.readInt(), right = in.readInt(), weight = in.readInt();
+			if (left < 0 || left >= n || right < 0 || right >= n || weight < 0) {
+				throw new IOException(String.format("bad arc %d %d %d in a graph of %d vertices", left, right, weight, n));
+			}
+			g.addEdge(new Edge(left, right, weight));
+		}
+		return g;
+	}
+	
+	public static void write(Matching m, WeightedDigraph g, DataOutput out) throws IOException {
+		int pairs = 0;
+		for (int v = 0; v < m.numVertices(); v++ ) {
+			if (m.isMatched(v) && v < m.mate(v)) {
+				pairs++ ;
+			}
+		}
+		out.writeInt(m.numVertices());
+		out.writeInt(pairs);
+		for (int v = 0; v < m.numVertices(); v++ ) {
+			int w = m.mate(v);
+			if (m.isMatched(v) && v < w) {
+				Edge e = g != null ? g.heaviestArc(v, w) : null;
+				out.writeInt(v);
+				out.writeInt(w);
+				out.writeInt(e != null ? e.weight : 0);
+			}
+		}
+	}
+	
+	public static Matching readMatching(DataInput in, int maxVertices) throws IOException {
+		int n = in.readInt(), pairs = in.readInt();
+		if (n < 0 || n > maxVertices || pairs < 0 || pairs > n / 2) {
+			throw new IOException(String.format("bad matching header: %d vertices %d pairs", n, pairs));
+		}
+		Matching m = new Matching(n);
+		for (int ii = 0; ii < pairs; ii++ ) {
+			int left = in.readInt(), right = in.readInt(), weight = in.readInt();
+			if (left < 0 || left >= n || right < 0 || right >= n) {
+				throw new IOException(String.format("bad pair %d %d in a matching of %d vertices", left, right, n));
+			}
+			m.add(new Edge(left, right, weight));
+		}
+		return m;
+	}
+}
@@ -60,4 +60,8 @@ public class Blossom implements Vertex {
 	public List<Integer> cycle() {
 		return vertices();
 	}
+	
+	public List<Edge> edges() {
+		return edges;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package graph;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads arcs one at a time in the format X Y W (see {@link WeightedDigraph#parse(String)}) so a graph can be streamed without materialising it. Blank
+ * lines are skipped and the reader is closed once the last arc was read.
+ * 
+ * @author Lincoln
+ */
+public class EdgeReader implements Iterator<Edge> {
+	private final BufferedReader	in;
+	private Edge									next;
+	
+	public EdgeReader(BufferedReader in) {
+		this.in = in;
+		advance();
+	}
+	
+	private void advance() {
+		next = null;
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				line = line.trim();
+				if (line.length() > 0) {
+					next = parse(line);
+					return;
+				}
+			}
+			in.close();
+		} catch (IOException e) {
+			throw new RuntimeException("failed reading edges", e);
+		}
+	}
+	
+	/**
+	 * @param line arc in the format X Y W
+	 * @return the arc X->Y with weight W
+	 */
+	public static Edge parse(String line) {
+		String[] fields = line.trim().split("\\s+");
+		if (fields.length != 3) {
+			throw new RuntimeException("expected X Y W but found: " + line);
+		}
+		return new Edge(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]), Integer.parseInt(fields[2]));
+	}
+	
+	@Override
+	public boolean hasNext() {
+		return next != null;
+	}
+	
+	@Override
+	public Edge next() {
+		if (next == null) {
+			throw new NoSuchElementException();
+		}
+		Edge e = next;
+		advance();
+		return e;
+	}
+	
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+}
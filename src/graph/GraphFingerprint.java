@@ -0,0 +1,79 @@
+package graph;
+
+/**
+ * 128-bit content hash of a graph. Every arc (left, right, weight) is hashed on its own and the arc hashes are summed, so the fingerprint does not
+ * depend on the order arcs were added in: it equals a hash over the sorted triples but is computed in one pass without sorting. The number of
+ * vertices is part of the fingerprint.
+ * 
+ * @author Lincoln
+ */
+public final class GraphFingerprint {
+	private static final long	C1	= 0x9e3779b97f4a7c15L;
+	private static final long	C2	= 0xc2b2ae3d27d4eb4fL;
+	private static final long	C3	= 0x165667b19e3779f9L;
+	private static final long	C4	= 0xd6e8feb86659fd93L;
+	
+	private final long				hi, lo;
+	
+	public GraphFingerprint(long hi, long lo) {
+		this.hi = hi;
+		this.lo = lo;
+	}
+	
+	public static GraphFingerprint of(WeightedDigraph g) {
+		long sumHi = 0, sumLo = 0, arcs = 0;
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				long key = ((long) e.left << 32) | (e.right & 0xffffffffL);
+				sumLo += mix(key * C1 + e.weight * C2);
+				sumHi += mix((key ^ C3) * C4 + e.weight * C1 + Long.rotateLeft(key, 29));
+				arcs++ ;
+			}
+		}
+		long lo = mix(sumLo ^ mix(g.numVertices() * C3 + arcs));
+		long hi = mix(sumHi ^ mix(arcs * C2 + g.numVertices()) ^ lo);
+		return new GraphFingerprint(hi, lo);
+	}
+	
+	/**
+	 * MurmurHash3 finalizer
+	 */
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+	
+	public long hi() {
+		return hi;
+	}
+	
+	public long lo() {
+		return lo;
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		if (o instanceof GraphFingerprint) {
+			GraphFingerprint f = (GraphFingerprint) o;
+			return f.hi == hi && f.lo == lo;
+		}
+		return false;
+	}
+	
+	@Override
+	public int hashCode() {
+		return (int) lo;
+	}
+	
+	/**
+	 * @return 32 hex digits
+	 */
+	@Override
+	public String toString() {
+		return String.format("%016x%016x", hi, lo);
+	}
+}
@@ -0,0 +1,274 @@
+package graph;
+
+/**
+ * Cheap statistics of a graph gathered in one pass over its arcs, enough to pick a matching solver: size, density, degree distribution, weight
+ * range, connected components and bipartiteness.
+ *
+ * Components and bipartiteness come from a union-find that also keeps the parity of every vertex relative to its root. An arc between two vertices
+ * of the same component and the same parity closes an odd cycle. Loops are counted but take no part in degrees, components or the 2-coloring since
+ * they never match. Graphs that store both arcs of every edge are recognized by comparing an order independent hash of the arcs with one of the
+ * reversed arcs, degrees and density then count edges rather than arcs.
+ *
+ * @author Lincoln
+ */
+public class GraphStats {
+	private final int			numVertices;
+	private int						numArcs;
+	private int						numLoops;
+	private boolean				symmetric;
+	private int						numActive;
+	private int						minDegree, maxDegree;
+	/** vertices by degree bucket: 0, 1, 2-3, 4-7, ... */
+	private final int[]		histogram;
+	private int						minWeight, maxWeight;
+	private boolean				bipartite	= true;
+	private int						numComponents;
+	private int						largestComponent;
+	/** side of every vertex in a 2-coloring, meaningful when bipartite */
+	private final boolean[]	side;
+
+	/** union-find state, parity is relative to the parent */
+	private final int[]		parent;
+	private final byte[]	parity;
+	private final int[]		size;
+
+	public GraphStats(WeightedDigraph g) {
+		numVertices = g.numVertices();
+		parent = new int[numVertices];
+		parity = new byte[numVertices];
+		size = new int[numVertices];
+		int[] degree = new int[numVertices];
+		for (int v = 0; v < numVertices; v++ ) {
+			parent[v] = v;
+			size[v] = 1;
+		}
+		minWeight = Integer.MAX_VALUE;
+		maxWeight = Integer.MIN_VALUE;
+		long forward = 0, backward = 0;
+
+		for (int v = 0; v < numVertices; v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				numArcs++ ;
+				minWeight = Math.min(minWeight, e.weight);
+				maxWeight = Math.max(maxWeight, e.weight);
+				if (e.left == e.right) {
+					numLoops++ ;
+					continue;
+				}
+				degree[e.left]++ ;
+				degree[e.right]++ ;
+				union(e.left, e.right);
+				forward += mix(((long) e.left << 32) + e.right);
+				backward += mix(((long) e.right << 32) + e.left);
+			}
+		}
+		if (numArcs == 0) {
+			minWeight = maxWeight = 0;
+		}
+		symmetric = numArcs > numLoops && forward == backward;
+
+		histogram = new int[33 - Integer.numberOfLeadingZeros(Math.max(numArcs * 2, 1))];
+		minDegree = numVertices == 0 ? 0 : Integer.MAX_VALUE;
+		side = new boolean[numVertices];
+		for (int v = 0; v < numVertices; v++ ) {
+			int d = symmetric ? degree[v] / 2 : degree[v];
+			histogram[32 - Integer.numberOfLeadingZeros(d)]++ ;
+			minDegree = Math.min(minDegree, d);
+			maxDegree = Math.max(maxDegree, d);
+			if (d > 0) {
+				numActive++ ;
+				int root = find(v);
+				side[v] = parity[v] != 0;
+				if (root == v) {
+					numComponents++ ;
+					largestComponent = Math.max(largestComponent, size[v]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * MurmurHash3 finalizer
+	 */
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * @return root of {@link v}, afterwards parent[v] is the root and parity[v] the parity of v relative to it
+	 */
+	private int find(int v) {
+		int root = v, p = 0;
+		while (parent[root] != root) {
+			p ^= parity[root];
+			root = parent[root];
+		}
+		// path compression, p is the parity of x relative to the root
+		int x = v;
+		while (x != root) {
+			int next = parent[x];
+			int pNext = p ^ parity[x];
+			parent[x] = root;
+			parity[x] = (byte) p;
+			x = next;
+			p = pNext;
+		}
+		return root;
+	}
+
+	private void union(int a, int b) {
+		int ra = find(a), rb = find(b);
+		int pa = parity[a], pb = parity[b];
+		if (ra == rb) {
+			if (pa == pb) {
+				bipartite = false;
+			}
+			return;
+		}
+		// a and b end up on opposite sides
+		if (size[ra] < size[rb]) {
+			int swap = ra;
+			ra = rb;
+			rb = swap;
+		}
+		parent[rb] = ra;
+		parity[rb] = (byte) (pa ^ pb ^ 1);
+		size[ra] += size[rb];
+	}
+
+	public int numVertices() {
+		return numVertices;
+	}
+
+	/**
+	 * @return number of arcs, loops included
+	 */
+	public int numArcs() {
+		return numArcs;
+	}
+
+	public int numLoops() {
+		return numLoops;
+	}
+
+	/**
+	 * @return whether every arc comes with its opposite arc, as {@link WeightedDigraph#insertEdge} stores edges
+	 */
+	public boolean symmetric() {
+		return symmetric;
+	}
+
+	/**
+	 * @return number of edges, loops excluded: opposite arcs count once in a {@link #symmetric()} graph
+	 */
+	public int numEdges() {
+		return symmetric ? (numArcs - numLoops) / 2 : numArcs - numLoops;
+	}
+
+	/**
+	 * @return number of vertices with at least one arc that is not a loop
+	 */
+	public int numActive() {
+		return numActive;
+	}
+
+	/**
+	 * @return edges per vertex pair, mean degree / (n - 1)
+	 */
+	public double density() {
+		return numVertices < 2 ? 0 : (double) numEdges() * 2 / ((double) numVertices * (numVertices - 1));
+	}
+
+	public int minDegree() {
+		return minDegree;
+	}
+
+	public int maxDegree() {
+		return maxDegree;
+	}
+
+	public double meanDegree() {
+		return numVertices == 0 ? 0 : (double) numEdges() * 2 / numVertices;
+	}
+
+	/**
+	 * @return histogram[0] vertices have degree 0, histogram[k] have a degree in [2^(k-1), 2^k)
+	 */
+	public int[] degreeHistogram() {
+		return histogram.clone();
+	}
+
+	/**
+	 * @param maxDegree largest degree counted, a power of two minus one (1, 3, 7, ...)
+	 * @return number of active vertices with a degree of at most {@link maxDegree}
+	 */
+	public int numLowDegree(int maxDegree) {
+		int count = 0;
+		for (int k = 1; k < histogram.length && (1 << k) - 1 <= maxDegree; k++ ) {
+			count += histogram[k];
+		}
+		return count;
+	}
+
+	/**
+	 * @return lightest arc weight, 0 without arcs
+	 */
+	public int minWeight() {
+		return minWeight;
+	}
+
+	/**
+	 * @return heaviest arc weight, 0 without arcs
+	 */
+	public int maxWeight() {
+		return maxWeight;
+	}
+
+	/**
+	 * @return whether every arc has the same weight
+	 */
+	public boolean uniformWeights() {
+		return minWeight == maxWeight;
+	}
+
+	/**
+	 * @return whether the graph without its loops has no odd cycle
+	 */
+	public boolean bipartite() {
+		return bipartite;
+	}
+
+	/**
+	 * @param v vertex id
+	 * @return side of {@link v} in a 2-coloring, arcs only run between sides if the graph is {@link #bipartite()}
+	 */
+	public boolean side(int v) {
+		return side[v];
+	}
+
+	/**
+	 * @return number of connected components, isolated vertices not counted
+	 */
+	public int numComponents() {
+		return numComponents;
+	}
+
+	/**
+	 * @return number of vertices in the largest component
+	 */
+	public int largestComponent() {
+		return largestComponent;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("n %d (%d active), m %d%s, density %.4f, degree %d..%d mean %.1f, weights %d..%d, %s, %d components (largest %d)",
+				numVertices, numActive, numEdges(), symmetric ? " symmetric" : "", density(), minDegree, maxDegree, meanDegree(), minWeight, maxWeight, bipartite ? "bipartite"
+						: "not bipartite", numComponents, largestComponent);
+	}
+}
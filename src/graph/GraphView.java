@@ -0,0 +1,200 @@
+package graph;
+
+import java.util.BitSet;
+
+/**
+ * Filtered view of a graph that shares the arcs of its base instead of copying them. A view selects vertices with a bitset and arcs with a bitset over
+ * the arc indices of the base {@link ArcArrays} and/or an {@link ArcFilter}, an arc is in the view when both ends and the arc itself are selected.
+ * Views are derived from one another with the with* methods, each derived view holds three references so any number of them can be taken from one
+ * large base. The masks are not copied either: changes to a bitset after it was handed to a view show through.
+ * 
+ * The solvers do not read views, they take a {@link WeightedDigraph}: a view reaches them through {@link #toDigraph()}, which copies its arcs.
+ * 
+ * Arcs are visited with a cursor over their indices in the base, without allocating:
+ * 
+ * <pre>
+ * for (int k = view.firstArc(v); k &gt;= 0; k = view.nextArc(v, k)) {
+ * 	... view.right(k), view.weight(k)
+ * }
+ * </pre>
+ * 
+ * @author Lincoln
+ */
+public class GraphView {
+	
+	/**
+	 * Selects arcs by their ends and weight
+	 */
+	public interface ArcFilter {
+		boolean accept(int left, int right, int weight);
+	}
+	
+	private final ArcArrays	base;
+	/** selected vertices, null for all */
+	private final BitSet		vertices;
+	/** selected arc indices, null for all */
+	private final BitSet		arcs;
+	/** null for all arcs */
+	private final ArcFilter	filter;
+	
+	/**
+	 * View of the whole graph, the arcs are copied once into primitive arrays that every derived view shares
+	 */
+	public GraphView(WeightedDigraph g) {
+		this(new ArcArrays(g));
+	}
+	
+	public GraphView(ArcArrays base) {
+		this(base, null, null, null);
+	}
+	
+	private GraphView(ArcArrays base, BitSet vertices, BitSet arcs, ArcFilter filter) {
+		this.base = base;
+		this.vertices = vertices;
+		this.arcs = arcs;
+		this.filter = filter;
+	}
+	
+	/**
+	 * @param vertices vertices to keep, null for all. Replaces the vertex mask of this view
+	 */
+	public GraphView withVertices(BitSet vertices) {
+		return new GraphView(base, vertices, arcs, filter);
+	}
+	
+	/**
+	 * @param arcs indices of the arcs to keep in the base {@link ArcArrays}, null for all. Replaces the arc mask of this view
+	 */
+	public GraphView withArcs(BitSet arcs) {
+		return new GraphView(base, vertices, arcs, filter);
+	}
+	
+	/**
+	 * @param filter arcs to keep, null for all. Replaces the filter of this view
+	 */
+	public GraphView withFilter(ArcFilter filter) {
+		return new GraphView(base, vertices, arcs, filter);
+	}
+	
+	/**
+	 * @return filter keeping the arcs of at least {@link weight}
+	 */
+	public static ArcFilter minWeight(final int weight) {
+		return new ArcFilter() {
+			@Override
+			public boolean accept(int left, int right, int w) {
+				return w >= weight;
+			}
+		};
+	}
+	
+	/**
+	 * @return number of vertex ids of the base, masked vertices included
+	 */
+	public int numVertices() {
+		return base.numVertices();
+	}
+	
+	public boolean contains(int v) {
+		return vertices == null || vertices.get(v);
+	}
+	
+	/**
+	 * @param v vertex id
+	 * @return the smallest selected vertex id not below {@link v}, -1 if there is none
+	 */
+	public int nextVertex(int v) {
+		if (vertices == null) {
+			return v < numVertices() ? v : - 1;
+		}
+		int next = vertices.nextSetBit(v);
+		return next < numVertices() ? next : - 1;
+	}
+	
+	/**
+	 * @param v vertex id
+	 * @return index of the first out arc of {@link v} in the view, -1 if it has none
+	 */
+	public int firstArc(int v) {
+		return contains(v) ? scan(v, base.first[v]) : - 1;
+	}
+	
+	/**
+	 * @param v vertex id
+	 * @param k index of an out arc of {@link v} in the view
+	 * @return index of the next out arc of {@link v} in the view, -1 if {@link k} was the last
+	 */
+	public int nextArc(int v, int k) {
+		return scan(v, k + 1);
+	}
+	
+	private int scan(int v, int k) {
+		int end = base.first[v + 1];
+		if (arcs != null) {
+			k = arcs.nextSetBit(k);
+		}
+		while (k >= 0 && k < end) {
+			if (accept(k)) {
+				return k;
+			}
+			k = arcs != null ? arcs.nextSetBit(k + 1) : k + 1;
+		}
+		return - 1;
+	}
+	
+	private boolean accept(int k) {
+		int right = base.right[k];
+		return contains(right) && (filter == null || filter.accept(base.left[k], right, base.weight[k]));
+	}
+	
+	public int left(int k) {
+		return base.left[k];
+	}
+	
+	public int right(int k) {
+		return base.right[k];
+	}
+	
+	public int weight(int k) {
+		return base.weight[k];
+	}
+	
+	/**
+	 * @return number of out arcs of {@link v} in the view
+	 */
+	public int degree(int v) {
+		int degree = 0;
+		for (int k = firstArc(v); k >= 0; k = nextArc(v, k)) {
+			degree++ ;
+		}
+		return degree;
+	}
+	
+	/**
+	 * @return number of arcs in the view
+	 */
+	public int numArcs() {
+		int count = 0;
+		for (int v = nextVertex(0); v >= 0; v = nextVertex(v + 1)) {
+			count += degree(v);
+		}
+		return count;
+	}
+	
+	/**
+	 * Copy the view into a graph for the solvers, vertex ids are kept. Costs one pass over the view plus the arcs kept, the base is not copied
+	 */
+	public WeightedDigraph toDigraph() {
+		WeightedDigraph g = new WeightedDigraph(numVertices());
+		for (int v = nextVertex(0); v >= 0; v = nextVertex(v + 1)) {
+			for (int k = firstArc(v); k >= 0; k = nextArc(v, k)) {
+				g.addEdge(new Edge(v, base.right[k], base.weight[k]));
+			}
+		}
+		return g;
+	}
+	
+	public ArcArrays base() {
+		return base;
+	}
+}
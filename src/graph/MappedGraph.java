@@ -0,0 +1,227 @@
+package graph;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Undirected adjacency stored in a memory mapped file so graphs larger than the heap (or physical memory) can be searched, the operating system pages
+ * the adjacency in on demand. Only the offsets of the adjacency lists (one long per vertex) are kept on the heap.
+ * 
+ * The file holds the number of vertices, the offsets and then one (neighbor, weight) pair of ints per arc end, every arc X->Y is stored at both X and Y.
+ * The arc entries are mapped in segments of at most {@link #SEGMENT_BYTES}.
+ * 
+ * @author Lincoln
+ */
+public class MappedGraph implements Closeable {
+	/** Bytes per mapped segment, a multiple of the entry size so no entry spans two segments */
+	static final int									SEGMENT_BYTES	= 1 << 30;
+	private static final int					ENTRY_BYTES		= 8;
+	private static final int					HEADER_BYTES	= 8;
+	
+	private final RandomAccessFile		file;
+	private final int									numVertices;
+	/** adjacency of v is the entries first[v]..first[v+1] */
+	private final long[]							first;
+	private final MappedByteBuffer[]	segments;
+	
+	private MappedGraph(RandomAccessFile file, int numVertices, long[] first, MapMode mode) throws IOException {
+		this.file = file;
+		this.numVertices = numVertices;
+		this.first = first;
+		long entriesStart = HEADER_BYTES + 8L * (numVertices + 1);
+		long bytes = first[numVertices] * ENTRY_BYTES;
+		segments = new MappedByteBuffer[(int) ((bytes + SEGMENT_BYTES - 1) / SEGMENT_BYTES)];
+		FileChannel channel = file.getChannel();
+		for (int s = 0; s < segments.length; s++ ) {
+			long start = (long) s * SEGMENT_BYTES;
+			segments[s] = channel.map(mode, entriesStart + start, Math.min(SEGMENT_BYTES, bytes - start));
+			segments[s].order(ByteOrder.nativeOrder());
+		}
+	}
+	
+	/**
+	 * Write the adjacency of a graph to {@link file} in two passes over {@link arcs}
+	 * 
+	 * @param numVertices arcs connect the vertices 0..numVertices-1
+	 * @param arcs arcs of the graph, iterated twice
+	 * @param file adjacency file to create, an existing file is overwritten
+	 * @return the graph mapped for reading
+	 * @throws IOException
+	 */
+	public static MappedGraph build(int numVertices, Iterable<Edge> arcs, File file) throws IOException {
+		long[] first = new long[numVertices + 1];
+		for (Edge e : arcs) {
+			if (e.left < 0 || e.right < 0 || e.left >= numVertices || e.right >= numVertices) {
+				throw new RuntimeException(String.format("arc %s is outside of the %d vertices", e, numVertices));
+			}
+			first[e.left + 1]++ ;
+			first[e.right + 1]++ ;
+		}
+		for (int v = 0; v < numVertices; v++ ) {
+			first[v + 1] += first[v];
+		}
+		
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(0);
+			raf.writeInt(numVertices);
+			raf.writeInt(0);
+			for (long offset : first) {
+				raf.writeLong(offset);
+			}
+			raf.setLength(HEADER_BYTES + 8L * (numVertices + 1) + first[numVertices] * ENTRY_BYTES);
+			
+			MappedGraph g = new MappedGraph(raf, numVertices, first, MapMode.READ_WRITE);
+			long[] next = new long[numVertices];
+			System.arraycopy(first, 0, next, 0, numVertices);
+			for (Edge e : arcs) {
+				g.put(next[e.left]++ , e.right, e.weight);
+				g.put(next[e.right]++ , e.left, e.weight);
+			}
+			return g;
+		} catch (IOException e) {
+			raf.close();
+			throw e;
+		} catch (RuntimeException e) {
+			raf.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Write the adjacency of a file of arcs in the format X Y W, see {@link EdgeReader}
+	 * 
+	 * @param numVertices arcs connect the vertices 0..numVertices-1
+	 * @param arcFile arcs of the graph
+	 * @param file adjacency file to create
+	 * @return the graph mapped for reading
+	 * @throws IOException
+	 */
+	public static MappedGraph build(int numVertices, final File arcFile, File file) throws IOException {
+		return build(numVertices, new Iterable<Edge>() {
+			@Override
+			public Iterator<Edge> iterator() {
+				try {
+					return new EdgeReader(new BufferedReader(new FileReader(arcFile)));
+				} catch (IOException e) {
+					throw new RuntimeException("can't read " + arcFile, e);
+				}
+			}
+		}, file);
+	}
+	
+	/**
+	 * Write the adjacency of an in memory graph
+	 */
+	public static MappedGraph build(WeightedDigraph g, File file) throws IOException {
+		List<Edge> arcs = new ArrayList<Edge>();
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			arcs.addAll(g.eOuts(v));
+		}
+		return build(g.numVertices(), arcs, file);
+	}
+	
+	/**
+	 * Map a previously built adjacency file
+	 * 
+	 * @param file adjacency file written by one of the build methods
+	 * @return the mapped graph
+	 * @throws IOException
+	 */
+	public static MappedGraph open(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			int numVertices = raf.readInt();
+			raf.readInt();
+			long[] first = new long[numVertices + 1];
+			for (int v = 0; v <= numVertices; v++ ) {
+				first[v] = raf.readLong();
+			}
+			return new MappedGraph(raf, numVertices, first, MapMode.READ_ONLY);
+		} catch (IOException e) {
+			raf.close();
+			throw e;
+		}
+	}
+	
+	private void put(long entry, int neighbor, int weight) {
+		long pos = entry * ENTRY_BYTES;
+		MappedByteBuffer segment = segments[(int) (pos / SEGMENT_BYTES)];
+		int offset = (int) (pos % SEGMENT_BYTES);
+		segment.putInt(offset, neighbor);
+		segment.putInt(offset + 4, weight);
+	}
+	
+	public int numVertices() {
+		return numVertices;
+	}
+	
+	/**
+	 * @return number of adjacency entries, twice the number of arcs
+	 */
+	public long numEntries() {
+		return first[numVertices];
+	}
+	
+	/**
+	 * @param v vertex index
+	 * @return index of the first adjacency entry of {@link v}
+	 */
+	public long first(int v) {
+		return first[v];
+	}
+	
+	/**
+	 * @param v vertex index
+	 * @return index one past the last adjacency entry of {@link v}
+	 */
+	public long end(int v) {
+		return first[v + 1];
+	}
+	
+	public int degree(int v) {
+		return (int) (first[v + 1] - first[v]);
+	}
+	
+	/**
+	 * @param entry adjacency entry index
+	 * @return the neighbor of the entry
+	 */
+	public int neighbor(long entry) {
+		long pos = entry * ENTRY_BYTES;
+		return segments[(int) (pos / SEGMENT_BYTES)].getInt((int) (pos % SEGMENT_BYTES));
+	}
+	
+	/**
+	 * @param entry adjacency entry index
+	 * @return the weight of the arc of the entry
+	 */
+	public int weight(long entry) {
+		long pos = entry * ENTRY_BYTES + 4;
+		return segments[(int) (pos / SEGMENT_BYTES)].getInt((int) (pos % SEGMENT_BYTES));
+	}
+	
+	/**
+	 * Write changes to disk. The mapping itself is released once the graph is garbage collected
+	 */
+	@Override
+	public void close() throws IOException {
+		for (MappedByteBuffer segment : segments) {
+			if ( ! segment.isReadOnly()) {
+				segment.force();
+			}
+		}
+		file.close();
+	}
+}
@@ -23,6 +23,7 @@ public class Matching {
 	private int fullWeight; // keeps track of the weight of the matching
 
 	private int	fullCount; //keeps track of the number of matches
+	private MatchingListener listener; //notified of conflicting adds, may be null
 	
 	/** Create an empty matching on {@link numVertices}
 	 * @param numVertices the number of vertices in the corresponding graph used in the matching
@@ -34,13 +35,24 @@ public class Matching {
 		fullCount = 0;
 	}
 	
+	/** Copy the pairs of {@link other}, the listener is not copied
+	 * @param other matching to copy
+	 */
+	public Matching(Matching other){
+		matched = Arrays.copyOf(other.matched, other.matched.length);
+		fullWeight = other.fullWeight;
+		fullCount = other.fullCount;
+	}
+	
 	
 	/** Add an edge, {@link match}, to the matching
 	 * @param match
 	 */
 	public void add(Edge match){
 		if(isMatch(key(match)) || isMatch(key2(match))){
-			System.out.printf("error adding match %s removing matches to both ends\n", match);
+			if(listener != null){
+				listener.onMatchConflict(match.left, match.right);
+			}
 			remove(match.left);
 			remove(match.right);
 			//throw new RuntimeException("adding match to already matched edge");
@@ -219,6 +231,20 @@ public class Matching {
 	public int matches() {
 		return fullCount;
 	}
+	
+	/** Report conflicting adds to {@link listener}
+	 * @param listener the listener or null to stay silent
+	 */
+	public void setListener(MatchingListener listener) {
+		this.listener = listener;
+	}
+	
+	/** Number of vertices the matching was created for
+	 * @return number of vertices
+	 */
+	public int numVertices() {
+		return matched.length - 1;
+	}
 
 
 	public void clear() {
@@ -0,0 +1,37 @@
+package graph;
+
+/**
+ * Empty {@link MatchingListener} to extend when only some events are of interest
+ * 
+ * @author Lincoln
+ */
+public abstract class MatchingAdapter implements MatchingListener {
+	
+	@Override
+	public void onStageStart(int stage, int root) {
+	}
+	
+	@Override
+	public void onAugment(int[] path) {
+	}
+	
+	@Override
+	public void onBlossomShrink(int blossom, int base, int size) {
+	}
+	
+	@Override
+	public void onBlossomExpand(int blossom) {
+	}
+	
+	@Override
+	public void onDualUpdate(long delta4) {
+	}
+	
+	@Override
+	public void onMatchConflict(int left, int right) {
+	}
+	
+	@Override
+	public void onWarning(String message) {
+	}
+}
@@ -0,0 +1,60 @@
+package graph;
+
+/**
+ * Receives the events of a matching solve, attach one with setListener on a solver. Events are only produced when a listener is attached, a solver
+ * without one does no formatting or allocation for them. Hooks are called on the solving thread.
+ * 
+ * @author Lincoln
+ * @see MatchingAdapter
+ * @see PrintingMatchingListener
+ */
+public interface MatchingListener {
+	
+	/**
+	 * A new search for an augmenting path starts
+	 * 
+	 * @param stage number of the search, counting from 0
+	 * @param root vertex the search is grown from or -1 if it is grown from all exposed vertices
+	 */
+	void onStageStart(int stage, int root);
+	
+	/**
+	 * The matching was augmented
+	 * 
+	 * @param path vertices of the augmenting path, from one exposed end to the other
+	 */
+	void onAugment(int[] path);
+	
+	/**
+	 * An odd cycle was shrunk into a blossom
+	 * 
+	 * @param blossom id of the new pseudo vertex
+	 * @param base vertex of the cycle at which it is entered by the matched arc
+	 * @param size number of vertices in the cycle
+	 */
+	void onBlossomShrink(int blossom, int base, int size);
+	
+	/**
+	 * A blossom was expanded back into its cycle
+	 * 
+	 * @param blossom id of the pseudo vertex
+	 */
+	void onBlossomExpand(int blossom);
+	
+	/**
+	 * The duals were changed by delta4 / 4. The steps of the minimum weight solver can be quarter integral, they are passed on exactly.
+	 * 
+	 * @param delta4 the dual step times 4
+	 */
+	void onDualUpdate(long delta4);
+	
+	/**
+	 * A match was added to a {@link Matching} while one of its ends was already matched, the old matches of both ends are removed
+	 */
+	void onMatchConflict(int left, int right);
+	
+	/**
+	 * A recoverable inconsistency inside a solver
+	 */
+	void onWarning(String message);
+}
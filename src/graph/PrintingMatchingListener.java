@@ -0,0 +1,56 @@
+package graph;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Prints every event, the replacement for the debug printing the solvers used to do unconditionally
+ * 
+ * @author Lincoln
+ */
+public class PrintingMatchingListener implements MatchingListener {
+	private final PrintStream	out;
+	
+	public PrintingMatchingListener() {
+		this(System.out);
+	}
+	
+	public PrintingMatchingListener(PrintStream out) {
+		this.out = out;
+	}
+	
+	@Override
+	public void onStageStart(int stage, int root) {
+		out.printf("stage %d from vertex u%d\n", stage, root);
+	}
+	
+	@Override
+	public void onAugment(int[] path) {
+		out.printf("Augmenting along Path p=%s\n", Arrays.toString(path));
+	}
+	
+	@Override
+	public void onBlossomShrink(int blossom, int base, int size) {
+		out.printf("Blossom added : %d with base %d and %d vertices\n", blossom, base, size);
+	}
+	
+	@Override
+	public void onBlossomExpand(int blossom) {
+		out.printf("Blossom expanded : %d\n", blossom);
+	}
+	
+	@Override
+	public void onDualUpdate(long delta4) {
+		out.printf("dual update by %.2f\n", delta4 / 4.0);
+	}
+	
+	@Override
+	public void onMatchConflict(int left, int right) {
+		out.printf("error adding match (%d,%d) removing matches to both ends\n", left, right);
+	}
+	
+	@Override
+	public void onWarning(String message) {
+		out.println(message);
+	}
+}
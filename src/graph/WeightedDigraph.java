@@ -122,6 +122,48 @@ public class WeightedDigraph{
 		nList.add(e);
 	}
 	
+	/**
+	 * Adds an undirected edge between {@link left} and {@link right} as a pair of opposite arcs
+	 * 
+	 * @param left vertex index
+	 * @param right vertex index
+	 * @param weight
+	 */
+	public void insertEdge(int left, int right, int weight) {
+		if (weight < 0) {
+			throw new RuntimeException("Only non-negative weights accepted");
+		}
+		addEdge(new Edge(left, right, weight));
+		if (left != right) {
+			addEdge(new Edge(right, left, weight));
+		}
+	}
+	
+	/**
+	 * Removes every arc between {@link left} and {@link right} in either direction
+	 * 
+	 * @param left vertex index
+	 * @param right vertex index
+	 * @return whether an arc was removed
+	 */
+	public boolean deleteEdge(int left, int right) {
+		boolean removed = removeArcs(left, right);
+		removed |= removeArcs(right, left);
+		return removed;
+	}
+	
+	private boolean removeArcs(int source, int sink) {
+		boolean removed = false;
+		Iterator<Edge> it = adjList[source].iterator();
+		while (it.hasNext()) {
+			if (it.next().right == sink) {
+				it.remove();
+				removed = true;
+			}
+		}
+		return removed;
+	}
+	
 	/**
 	 * Returns the neighbors of {@link v}
 	 * 
@@ -155,6 +197,28 @@ public class WeightedDigraph{
 		return vertexLookup.get(x);
 	}
 	
+	/**
+	 * Returns the heaviest arc between {@link v} and {@link w} in either direction
+	 * 
+	 * @param v vertex index
+	 * @param w vertex index
+	 * @return heaviest arc or null if the vertices are not adjacent
+	 */
+	public Edge heaviestArc(int v, int w) {
+		Edge heaviest = null;
+		for (Edge e : adjList[v]) {
+			if (e.right == w && (heaviest == null || heaviest.weight < e.weight)) {
+				heaviest = e;
+			}
+		}
+		for (Edge e : adjList[w]) {
+			if (e.right == v && (heaviest == null || heaviest.weight < e.weight)) {
+				heaviest = e;
+			}
+		}
+		return heaviest;
+	}
+	
 	public WeightedDigraph liftCycle(PseudoVertex root) {
 		WeightedDigraph g = new WeightedDigraph(this);
 		
@@ -0,0 +1,144 @@
+package graph.algorithms.matching;
+
+import graph.GraphStats;
+import graph.Matching;
+import graph.WeightedDigraph;
+
+/**
+ * Picks the solver from {@link GraphStats} so callers don't have to:
+ * <ul>
+ * <li>weights that are all the same and positive make maximum weight a cardinality problem</li>
+ * <li>up to {@link ExactMaxWeightedMatching#DP_MAX_VERTICES} active vertices the subset dynamic program is fastest</li>
+ * <li>many components that are all that small are solved one by one, see {@link ComponentMatching}</li>
+ * <li>cardinality: Hopcroft-Karp for bipartite graphs ({@link BipartiteMatching}), otherwise the Edmonds search of {@link DynamicMatching}</li>
+ * <li>weight: {@link PrimalDualMatching}, on the {@link MatchingKernel} when at least a tenth of the active vertices are pendant, their
+ * reductions shrink the input of the cubic solver</li>
+ * </ul>
+ * Density does not affect the choice. {@link CompleteGraphMatching} saves work only when the weights come from an oracle and most pairs are never
+ * built, here the graph is already built. {@link PartitionedMatching} does not find the optimum for weights, and for cardinality its repair costs
+ * grow with the cut, which GraphStats do not measure. The engine and the reason for it are reported with the matching.
+ *
+ * @author Lincoln
+ */
+public class AutoMatching {
+	/** share of pendant vertices from which the weighted solve runs on the kernel */
+	static final double			KERNEL_SHARE	= 0.1;
+
+	private final boolean		weighted;
+
+	/**
+	 * What was solved how
+	 */
+	public static class Result {
+		public final Matching				matching;
+		/** whether the deadline passed before the engine finished */
+		public final boolean				timedOut;
+		/** upper bound on optimum - matching, 0 unless timed out */
+		public final double					gap;
+		/** the engine that produced the matching */
+		public final MatchingEngine	engine;
+		/** whether the engine ran on the kernel of the graph */
+		public final boolean				kernelized;
+		/** why the engine was picked */
+		public final String					reason;
+		public final GraphStats			stats;
+
+		Result(DeadlineResult outcome, MatchingEngine engine, boolean kernelized, String reason, GraphStats stats) {
+			matching = outcome.matching;
+			timedOut = outcome.timedOut;
+			gap = outcome.gap;
+			this.engine = engine;
+			this.kernelized = kernelized;
+			this.reason = reason;
+			this.stats = stats;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s%s (%s): size %d weight %d", engine, kernelized ? " on kernel" : "", reason, matching.matches(), matching.weight());
+		}
+	}
+
+	/**
+	 * @param weighted maximize weight instead of cardinality
+	 */
+	public AutoMatching(boolean weighted) {
+		this.weighted = weighted;
+	}
+
+	/**
+	 * @param g graph to match, it is not modified
+	 * @return the matching with the engine that found it
+	 */
+	public Result solve(WeightedDigraph g) {
+		return solve(g, null);
+	}
+
+	/**
+	 * @param g graph to match, it is not modified
+	 * @param deadline when to give up, null for none. Only the engines that poll it stop early, see {@link MatchingEngine#solve(WeightedDigraph, Deadline)}
+	 * @return the matching with the engine that found it
+	 */
+	public Result solve(WeightedDigraph g, Deadline deadline) {
+		GraphStats stats = new GraphStats(g);
+		StringBuilder reason = new StringBuilder();
+		MatchingEngine engine = choose(stats, weighted, reason);
+		boolean kernelized = engine == MatchingEngine.PRIMAL_DUAL && stats.numLowDegree(1) >= KERNEL_SHARE * stats.numActive();
+
+		DeadlineResult outcome;
+		if (deadline != null && deadline.expired()) {
+			outcome = new DeadlineResult(new Matching(g.numVertices()), true, Double.POSITIVE_INFINITY, null);
+		} else if (kernelized) {
+			reason.append(", ").append(stats.numLowDegree(1)).append(" pendant vertices");
+			MatchingKernel kernel = new MatchingKernel(g, true);
+			DeadlineResult solved = new PrimalDualMatching(kernel.kernel()).run(deadline);
+			// the weighted reductions keep the optimum, the lifted matching is as far from it as the kernel matching
+			outcome = new DeadlineResult(kernel.lift(solved.matching), solved.timedOut, solved.gap, null);
+		} else if (engine == MatchingEngine.BIPARTITE) {
+			outcome = new BipartiteMatching(g, stats).run(deadline);
+		} else if (deadline != null) {
+			outcome = engine.solve(g, deadline);
+		} else {
+			outcome = new DeadlineResult(engine.solve(g), false, 0, null);
+		}
+		return new Result(outcome, engine, kernelized, reason.toString(), stats);
+	}
+
+	/**
+	 * @param stats statistics of the graph
+	 * @param weighted maximize weight instead of cardinality
+	 * @param reason receives why the engine fits, may be null
+	 * @return the engine expected to be fastest on the graph
+	 */
+	public static MatchingEngine choose(GraphStats stats, boolean weighted, StringBuilder reason) {
+		if (reason == null) {
+			reason = new StringBuilder();
+		}
+		if (weighted && stats.uniformWeights() && stats.maxWeight() > 0) {
+			reason.append("uniform weights, ");
+			weighted = false;
+		}
+		if (stats.numActive() <= ExactMaxWeightedMatching.DP_MAX_VERTICES) {
+			reason.append(stats.numActive()).append(" active vertices");
+			return weighted ? MatchingEngine.EXACT_WEIGHTED : MatchingEngine.EXACT_CARDINALITY;
+		}
+		if ( ! weighted && stats.bipartite()) {
+			reason.append("bipartite");
+			return MatchingEngine.BIPARTITE;
+		}
+		if (stats.numComponents() > 1 && stats.largestComponent() <= ExactMaxWeightedMatching.DP_MAX_VERTICES) {
+			reason.append(stats.numComponents()).append(" components of at most ").append(stats.largestComponent()).append(" vertices");
+			return weighted ? MatchingEngine.COMPONENT_WEIGHTED : MatchingEngine.COMPONENT_CARDINALITY;
+		}
+		if ( ! weighted) {
+			reason.append("general graph");
+			return MatchingEngine.DYNAMIC;
+		}
+		reason.append("weights ").append(stats.minWeight()).append("..").append(stats.maxWeight());
+		return MatchingEngine.PRIMAL_DUAL;
+	}
+
+	public boolean weighted() {
+		return weighted;
+	}
+}
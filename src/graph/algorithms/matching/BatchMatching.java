@@ -0,0 +1,195 @@
+package graph.algorithms.matching;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import graph.Matching;
+import graph.WeightedDigraph;
+
+/**
+ * Solves many small graphs on a fixed number of worker threads. Every worker owns a {@link Workspace} whose solvers are reset for each graph instead
+ * of being reallocated, workspaces are kept between batches. Results are handed to a {@link Callback} as soon as they
+ * are found, in no particular order.
+ * 
+ * @author Lincoln
+ */
+public class BatchMatching {
+	
+	/**
+	 * Receives the results of a batch, it is called from the worker threads and must be thread safe
+	 */
+	public interface Callback {
+		/**
+		 * @param index position of the graph in the batch
+		 * @param g the graph
+		 * @param matching matching of {@link g}, owned by the callback
+		 */
+		void solved(int index, WeightedDigraph g, Matching matching);
+		
+		/**
+		 * @param index position of the graph in the batch
+		 * @param g the graph
+		 * @param error what the solver threw
+		 */
+		void failed(int index, WeightedDigraph g, RuntimeException error);
+	}
+	
+	/**
+	 * Reusable solvers of one worker, created on first use: {@link PrimalDualMatching} for weight and the Edmonds search of {@link DynamicMatching} over a
+	 * compressed adjacency for cardinality. Their arrays only grow, after the largest graph has been seen a worker stops allocating.
+	 */
+	public static class Workspace {
+		private final boolean					weighted;
+		private PrimalDualMatching		weight;
+		private UndirectedAdjacency		adjacency;
+		private EdmondsSearch					cardinality;
+		
+		/**
+		 * @param weighted maximize weight instead of cardinality
+		 */
+		public Workspace(boolean weighted) {
+			this.weighted = weighted;
+		}
+		
+		public Matching solve(WeightedDigraph g) {
+			if (weighted) {
+				if (weight == null) {
+					weight = new PrimalDualMatching(g);
+				} else {
+					weight.reset(g);
+				}
+				return weight.run();
+			}
+			if (cardinality == null) {
+				adjacency = new UndirectedAdjacency(g);
+				cardinality = new EdmondsSearch(g.numVertices(), adjacency);
+			} else {
+				adjacency.reset(g);
+				cardinality.reset(g.numVertices());
+			}
+			cardinality.greedy();
+			for (int v = 0; v < g.numVertices(); v++ ) {
+				cardinality.augmentFrom(v);
+			}
+			Matching m = new Matching(g.numVertices());
+			for (int v = 0; v < g.numVertices(); v++ ) {
+				int w = cardinality.mate[v];
+				if (w != EdmondsSearch.NONE && v < w) {
+					m.add(g.heaviestArc(v, w));
+				}
+			}
+			return m;
+		}
+	}
+	
+	private final boolean					weighted;
+	private final Workspace[]			workspaces;
+	private final ExecutorService	pool;
+	
+	/**
+	 * @param weighted maximize weight instead of cardinality
+	 * @param numWorkers number of worker threads
+	 */
+	public BatchMatching(boolean weighted, int numWorkers) {
+		if (numWorkers < 1) {
+			throw new RuntimeException("at least one worker is needed");
+		}
+		this.weighted = weighted;
+		workspaces = new Workspace[numWorkers];
+		for (int w = 0; w < numWorkers; w++ ) {
+			workspaces[w] = new Workspace(weighted);
+		}
+		pool = Executors.newFixedThreadPool(numWorkers, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "batch-matching");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+	
+	/**
+	 * Solve every graph of a batch, blocks until all of them are done
+	 * 
+	 * @param graphs the batch, consumed by the workers
+	 * @param callback receives every result
+	 * @return number of graphs in the batch
+	 */
+	public synchronized int solve(Iterable<WeightedDigraph> graphs, Callback callback) {
+		return solve(graphs.iterator(), callback);
+	}
+	
+	public synchronized int solve(final Iterator<WeightedDigraph> graphs, final Callback callback) {
+		final int[] next = new int[1];
+		List<Future<Void>> workers = new ArrayList<Future<Void>>(workspaces.length);
+		for (final Workspace workspace : workspaces) {
+			workers.add(pool.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					while (true) {
+						WeightedDigraph g;
+						int index;
+						synchronized (graphs) {
+							if ( ! graphs.hasNext()) {
+								return null;
+							}
+							g = graphs.next();
+							index = next[0]++ ;
+						}
+						Matching m;
+						try {
+							m = workspace.solve(g);
+						} catch (RuntimeException e) {
+							callback.failed(index, g, e);
+							continue;
+						}
+						callback.solved(index, g, m);
+					}
+				}
+			}));
+		}
+		RuntimeException failure = null;
+		for (Future<Void> worker : workers) {
+			try {
+				worker.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				failure = new RuntimeException("interrupted while waiting for the workers", e);
+			} catch (ExecutionException e) {
+				failure = new RuntimeException("worker failed", e.getCause());
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		synchronized (graphs) {
+			return next[0];
+		}
+	}
+	
+	/**
+	 * @return whether the batch maximizes weight instead of cardinality
+	 */
+	public boolean weighted() {
+		return weighted;
+	}
+	
+	public int numWorkers() {
+		return workspaces.length;
+	}
+	
+	/**
+	 * Stop the worker threads, the instance can't be used afterwards
+	 */
+	public void shutdown() {
+		pool.shutdownNow();
+	}
+}
@@ -0,0 +1,228 @@
+package graph.algorithms.matching;
+
+import java.util.Arrays;
+
+import graph.Edge;
+import graph.GraphStats;
+import graph.Matching;
+import graph.WeightedDigraph;
+
+/**
+ * Maximum cardinality matching of a bipartite graph with Hopcroft-Karp: every phase finds a maximal set of shortest vertex disjoint augmenting paths
+ * with one breadth first search from all exposed left vertices and depth first searches along the layers, O(m sqrt(n)) overall. The sides come from
+ * the 2-coloring of {@link GraphStats}, arcs may point either way.
+ *
+ * @author Lincoln
+ */
+public class BipartiteMatching {
+	private static final int				NONE	= - 1;
+	private static final int				INF		= Integer.MAX_VALUE;
+
+	private final WeightedDigraph		g;
+	private final int								n;
+	/** left side vertices in ascending order */
+	private final int[]							left;
+	/** neighbors of every left vertex, those of v are neighbors[first[v]..first[v+1]) */
+	private final int[]							first, neighbors;
+	private final int[]							mate;
+	/** BFS layer of every left vertex */
+	private final int[]							dist;
+	/** next neighbor to try in the DFS of every left vertex */
+	private final int[]							next;
+	private int											phases;
+
+	public BipartiteMatching(WeightedDigraph g) {
+		this(g, new GraphStats(g));
+	}
+
+	/**
+	 * @param g graph to match
+	 * @param stats statistics of {@link g}, reused for the 2-coloring
+	 */
+	public BipartiteMatching(WeightedDigraph g, GraphStats stats) {
+		if ( ! stats.bipartite()) {
+			throw new RuntimeException("graph is not bipartite");
+		}
+		this.g = g;
+		n = g.numVertices();
+		first = new int[n + 1];
+		int numLeft = 0;
+		for (int v = 0; v < n; v++ ) {
+			if ( ! stats.side(v)) {
+				numLeft++ ;
+			}
+			for (Edge e : g.eOuts(v)) {
+				if ( ! e.isLoop()) {
+					first[(stats.side(e.left) ? e.right : e.left) + 1]++ ;
+				}
+			}
+		}
+		for (int v = 0; v < n; v++ ) {
+			first[v + 1] += first[v];
+		}
+		neighbors = new int[first[n]];
+		int[] fill = Arrays.copyOf(first, n);
+		for (int v = 0; v < n; v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				if ( ! e.isLoop()) {
+					boolean leftFirst = ! stats.side(e.left);
+					neighbors[fill[leftFirst ? e.left : e.right]++ ] = leftFirst ? e.right : e.left;
+				}
+			}
+		}
+		left = new int[numLeft];
+		numLeft = 0;
+		for (int v = 0; v < n; v++ ) {
+			if ( ! stats.side(v)) {
+				left[numLeft++ ] = v;
+			}
+		}
+		mate = new int[n];
+		dist = new int[n];
+		next = new int[n];
+		Arrays.fill(mate, NONE);
+	}
+
+	/**
+	 * @return a maximum cardinality matching over the arcs of the graph
+	 */
+	public Matching run() {
+		return run(null).matching;
+	}
+
+	/**
+	 * Run until the matching is maximum or the deadline passes. The deadline is polled before every phase and every depth first search, an augmenting
+	 * path is always applied whole.
+	 *
+	 * @param deadline when to give up, null for none
+	 * @return the matching, whether it timed out and a bound on the pairs still missing: every augmenting path joins an exposed vertex of each side
+	 */
+	public DeadlineResult run(Deadline deadline) {
+		// greedy start
+		for (int v : left) {
+			for (int ii = first[v]; ii < first[v + 1] && mate[v] == NONE; ii++ ) {
+				int w = neighbors[ii];
+				if (mate[w] == NONE) {
+					mate[v] = w;
+					mate[w] = v;
+				}
+			}
+		}
+		int[] queue = new int[left.length];
+		boolean timedOut = false;
+		while ( ! timedOut) {
+			if (deadline != null && deadline.expired()) {
+				timedOut = true;
+				break;
+			}
+			if ( ! layer(queue)) {
+				break;
+			}
+			phases++ ;
+			for (int v : left) {
+				next[v] = first[v];
+			}
+			for (int v : left) {
+				if (deadline != null && deadline.tick(1)) {
+					timedOut = true;
+					break;
+				}
+				if (mate[v] == NONE) {
+					augment(v);
+				}
+			}
+		}
+
+		Matching m = new Matching(n);
+		int exposedLeft = 0;
+		for (int v : left) {
+			if (mate[v] != NONE) {
+				m.add(g.heaviestArc(v, mate[v]));
+			} else {
+				exposedLeft++ ;
+			}
+		}
+		if ( ! timedOut) {
+			return new DeadlineResult(m, false, 0, null);
+		}
+		int exposedRight = n - left.length - m.matches();
+		return new DeadlineResult(m, true, Math.min(exposedLeft, exposedRight), null);
+	}
+
+	/**
+	 * Breadth first search from the exposed left vertices
+	 *
+	 * @return whether an exposed right vertex was reached
+	 */
+	private boolean layer(int[] queue) {
+		int head = 0, tail = 0;
+		for (int v : left) {
+			if (mate[v] == NONE) {
+				dist[v] = 0;
+				queue[tail++ ] = v;
+			} else {
+				dist[v] = INF;
+			}
+		}
+		boolean found = false;
+		while (head < tail) {
+			int v = queue[head++ ];
+			for (int ii = first[v]; ii < first[v + 1]; ii++ ) {
+				int u = mate[neighbors[ii]];
+				if (u == NONE) {
+					found = true;
+				} else if (dist[u] == INF) {
+					dist[u] = dist[v] + 1;
+					queue[tail++ ] = u;
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Depth first search along the layers, iterative so long paths do not overflow the stack
+	 *
+	 * @return whether an augmenting path from {@link root} was found and applied
+	 */
+	private boolean augment(int root) {
+		int[] path = new int[8];
+		int depth = 0;
+		path[0] = root;
+		while (depth >= 0) {
+			int v = path[depth];
+			if (next[v] == first[v + 1]) {
+				// dead end, never try v again in this phase
+				dist[v] = INF;
+				depth-- ;
+				continue;
+			}
+			int w = neighbors[next[v]++ ];
+			int u = mate[w];
+			if (u == NONE) {
+				// flip the path root .. v w
+				for (int d = depth; d >= 0; d-- ) {
+					int x = path[d];
+					int y = d == depth ? w : neighbors[next[path[d]] - 1];
+					mate[x] = y;
+					mate[y] = x;
+				}
+				return true;
+			}
+			if (dist[u] == dist[v] + 1) {
+				if ( ++ depth == path.length) {
+					path = Arrays.copyOf(path, 2 * depth);
+				}
+				path[depth] = u;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return number of Hopcroft-Karp phases of the last run
+	 */
+	public int phases() {
+		return phases;
+	}
+}
@@ -0,0 +1,233 @@
+package graph.algorithms.matching;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import graph.BinaryGraphFormat;
+import graph.Blossom;
+import graph.Edge;
+import graph.GraphFingerprint;
+import graph.Matching;
+import graph.WeightedDigraph;
+
+/**
+ * Writes solver snapshots to a file in the background so a long solve can be resumed after the process dies. A solver with a checkpointer set
+ * serializes its state at a stage boundary once the interval has passed, the bytes are handed to a writer thread and the solve goes on. Only the
+ * latest snapshot is kept: one that is still waiting when a newer one arrives is dropped. Files are replaced by a rename so a crash mid write leaves
+ * the previous snapshot in place.
+ * 
+ * Every snapshot starts with {@link #MAGIC}, the kind of solver and the {@link GraphFingerprint} of the graph, resuming on another graph fails.
+ * 
+ * @author Lincoln
+ */
+public class Checkpointer implements Closeable {
+	/** "MWMC" */
+	public static final int										MAGIC					= 0x4d574d43;
+	static final byte													MIN_MATCHING	= 1;
+	static final byte													PRIMAL_DUAL		= 2;
+	
+	private final File												file;
+	private final long												intervalNanos;
+	private long															last;
+	private final ExecutorService							writer;
+	/** snapshot waiting for the writer, null if none */
+	private final AtomicReference<byte[]>	pending				= new AtomicReference<byte[]>();
+	private final AtomicLong									written				= new AtomicLong();
+	private volatile IOException							failure;
+	
+	/**
+	 * @param file where snapshots are written
+	 * @param interval time between snapshots, 0 to take one at every stage boundary
+	 * @param unit unit of {@link interval}
+	 */
+	public Checkpointer(File file, long interval, TimeUnit unit) {
+		this.file = file;
+		this.intervalNanos = unit.toNanos(interval);
+		last = System.nanoTime();
+		writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "checkpointer");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+	
+	/**
+	 * @return whether the solver should take a snapshot now
+	 */
+	boolean due() {
+		return System.nanoTime() - last >= intervalNanos;
+	}
+	
+	/**
+	 * Queue a snapshot for writing, the solver must not touch {@link snapshot} afterwards
+	 */
+	void submit(byte[] snapshot) {
+		last = System.nanoTime();
+		if (pending.getAndSet(snapshot) == null) {
+			writer.execute(new Runnable() {
+				@Override
+				public void run() {
+					write(pending.getAndSet(null));
+				}
+			});
+		}
+	}
+	
+	private void write(byte[] snapshot) {
+		File tmp = new File(file.getPath() + ".tmp");
+		try {
+			FileOutputStream out = new FileOutputStream(tmp);
+			try {
+				out.write(snapshot);
+				out.getFD().sync();
+			} finally {
+				out.close();
+			}
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			written.incrementAndGet();
+		} catch (IOException e) {
+			failure = e;
+		}
+	}
+	
+	/**
+	 * @return snapshots written so far
+	 */
+	public long written() {
+		return written.get();
+	}
+	
+	public File file() {
+		return file;
+	}
+	
+	/**
+	 * Wait for the pending snapshot to be written
+	 * 
+	 * @throws IOException the last write failure, if any
+	 */
+	@Override
+	public void close() throws IOException {
+		writer.shutdown();
+		try {
+			writer.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+	
+	/**
+	 * @param file snapshot written by a checkpointer
+	 * @return stream to hand to the resume method of the solver
+	 */
+	public static DataInputStream open(File file) throws IOException {
+		return new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+	}
+	
+	static void writeHeader(DataOutput out, byte kind, WeightedDigraph g) throws IOException {
+		GraphFingerprint fingerprint = GraphFingerprint.of(g);
+		out.writeInt(MAGIC);
+		out.writeByte(kind);
+		out.writeLong(fingerprint.hi());
+		out.writeLong(fingerprint.lo());
+	}
+	
+	static void readHeader(DataInput in, byte kind, WeightedDigraph g) throws IOException {
+		int magic = in.readInt();
+		if (magic != MAGIC) {
+			throw new IOException(String.format("not a snapshot, magic %08x", magic));
+		}
+		byte k = in.readByte();
+		if (k != kind) {
+			throw new IOException(String.format("snapshot of solver kind %d, expected %d", k, kind));
+		}
+		GraphFingerprint fingerprint = new GraphFingerprint(in.readLong(), in.readLong());
+		if ( ! fingerprint.equals(GraphFingerprint.of(g))) {
+			throw new IOException("snapshot was taken on another graph, fingerprint " + fingerprint);
+		}
+	}
+	
+	/**
+	 * Replace the pairs of {@link target} with those of a stored matching, the arcs are taken from {@link g}
+	 */
+	static void readMatching(DataInput in, Matching target, WeightedDigraph g) throws IOException {
+		Matching pairs = BinaryGraphFormat.readMatching(in, target.numVertices());
+		target.clear();
+		for (int v = 0; v < pairs.numVertices(); v++ ) {
+			int w = pairs.mate(v);
+			if (pairs.isMatched(v) && v < w) {
+				Edge arc = v < g.numVertices() && w < g.numVertices() ? g.heaviestArc(v, w) : null;
+				target.add(arc != null ? arc : new Edge(v, w, 0));
+			}
+		}
+	}
+	
+	static void writeBlossom(DataOutput out, Blossom b) throws IOException {
+		out.writeInt(b.id());
+		out.writeInt(b.root());
+		writeInts(out, b.cycle());
+		out.writeInt(b.edges().size());
+		for (Edge e : b.edges()) {
+			out.writeInt(e.left);
+			out.writeInt(e.right);
+			out.writeInt(e.weight);
+		}
+	}
+	
+	static Blossom readBlossom(DataInput in) throws IOException {
+		int id = in.readInt(), root = in.readInt();
+		List<Integer> cycle = readInts(in);
+		int numEdges = in.readInt();
+		if (numEdges < 0) {
+			throw new IOException("bad blossom edge count " + numEdges);
+		}
+		List<Edge> edges = new ArrayList<Edge>(numEdges);
+		for (int ii = 0; ii < numEdges; ii++ ) {
+			int left = in.readInt(), right = in.readInt(), weight = in.readInt();
+			edges.add(new Edge(left, right, weight));
+		}
+		return new Blossom(id, root, cycle, edges);
+	}
+	
+	static void writeInts(DataOutput out, List<Integer> ints) throws IOException {
+		out.writeInt(ints.size());
+		for (int v : ints) {
+			out.writeInt(v);
+		}
+	}
+	
+	static List<Integer> readInts(DataInput in) throws IOException {
+		int count = in.readInt();
+		if (count < 0) {
+			throw new IOException("bad list length " + count);
+		}
+		List<Integer> ints = new ArrayList<Integer>(count);
+		for (int ii = 0; ii < count; ii++ ) {
+			ints.add(in.readInt());
+		}
+		return ints;
+	}
+}
@@ -0,0 +1,365 @@
+package graph.algorithms.matching;
+
+import java.util.Arrays;
+
+import graph.Edge;
+import graph.Matching;
+
+/**
+ * Maximum weight matching of an implicit complete graph on n vertices whose weights come from an oracle. Only a sparse candidate set of pairs is ever
+ * materialized:
+ * <ol>
+ * <li>the candidate generator proposes a few pairs per vertex (for points, the k nearest neighbors)</li>
+ * <li>the candidate graph is solved with {@link PrimalDualMatching}</li>
+ * <li>the pricer looks for pairs outside the candidate set whose dual constraint 2w(i,j) &lt;= d_i + d_j is violated, d being the doubled vertex duals</li>
+ * <li>violated pairs are added to the candidates and the graph is solved again, once none is left the matching is optimal on the complete graph</li>
+ * </ol>
+ * Every round is warm started from the matching and the duals of the previous one, see {@link PrimalDualMatching#warmStart(Matching, long[])}, so it
+ * only redoes the stages for the pairs the new candidates break.
+ * Early duals are loose and can violate a large share of all pairs, so every round only keeps the {@link #setPricingLimit(int) few most violated}
+ * pairs at each vertex. Every round still adds at least one pair as long as any is violated.
+ *
+ * The pricing test leaves out the blossom duals. They are never negative so a pair that passes is dual feasible, a pair inside a blossom may be added
+ * without need but the certificate stays sound: the duals of the last round are feasible for every pair and complementary slack with the matching.
+ *
+ * @author Lincoln
+ */
+public class CompleteGraphMatching {
+	private static final int	NONE	= - 1;
+	/** default number of violated pairs kept per vertex and round */
+	public static final int		PRICING_LIMIT	= 4;
+
+	/**
+	 * Weight of the edge between two vertices, must be symmetric
+	 */
+	public interface WeightOracle {
+		long weight(int i, int j);
+	}
+
+	/**
+	 * Proposes the initial candidate pairs
+	 */
+	public interface CandidateGenerator {
+		/**
+		 * @param v vertex id
+		 * @return vertices worth pairing with {@link v}, v itself and duplicates are ignored
+		 */
+		int[] candidates(int v);
+	}
+
+	/**
+	 * Receives the pairs found by a pricer
+	 */
+	public interface PairSink {
+		void add(int i, int j);
+	}
+
+	/**
+	 * Finds pairs violating the dual constraints
+	 */
+	public interface Pricer {
+		/**
+		 * Report every pair i,j with 2 oracle.weight(i,j) &gt; duals[i] + duals[j]. Pairs already in the candidate set may be reported as well, they are
+		 * skipped. Missing a violated pair voids the optimality certificate.
+		 *
+		 * @param duals doubled vertex duals of the current round
+		 * @param oracle edge weights
+		 * @param sink receives the violated pairs
+		 */
+		void price(long[] duals, WeightOracle oracle, PairSink sink);
+	}
+
+	/**
+	 * Checks all n(n-1)/2 pairs, fine up to a few thousand vertices. Larger instances need a pricer that can bound the weights, see
+	 * {@link GeometricPairing}
+	 */
+	public static final Pricer	FULL_SCAN	= new Pricer() {
+		@Override
+		public void price(long[] duals, WeightOracle oracle, PairSink sink) {
+			for (int i = 0; i < duals.length; i++ ) {
+				for (int j = i + 1; j < duals.length; j++ ) {
+					if (2 * oracle.weight(i, j) > duals[i] + duals[j]) {
+						sink.add(i, j);
+					}
+				}
+			}
+		}
+	};
+
+	private final int					n;
+	private final WeightOracle	oracle;
+	private final Pricer				pricer;
+
+	/** candidate pairs as (long) i &lt;&lt; 32 | j with i &lt; j, sorted */
+	private long[]						keys;
+	private long[]						weights;
+	private int								numCandidates;
+	private int								initialCandidates;
+	private int								rounds;
+	private int								pricingLimit	= PRICING_LIMIT;
+
+	private PrimalDualMatching	solver;
+	private int[]							mate;
+	private long[]						duals;
+
+	/**
+	 * @param n number of vertices
+	 * @param oracle edge weights
+	 * @param candidates initial sparse pairs
+	 */
+	public CompleteGraphMatching(int n, WeightOracle oracle, CandidateGenerator candidates) {
+		this(n, oracle, candidates, FULL_SCAN);
+	}
+
+	/**
+	 * @param n number of vertices
+	 * @param oracle edge weights
+	 * @param candidates initial sparse pairs
+	 * @param pricer finds the violated pairs after every round
+	 */
+	public CompleteGraphMatching(int n, WeightOracle oracle, CandidateGenerator candidates, Pricer pricer) {
+		this.n = n;
+		this.oracle = oracle;
+		this.pricer = pricer;
+		keys = new long[0];
+		weights = new long[0];
+
+		Pairs initial = new Pairs();
+		for (int v = 0; v < n; v++ ) {
+			for (int w : candidates.candidates(v)) {
+				if (w < 0 || w >= n) {
+					throw new RuntimeException(String.format("candidate %d of vertex %d outside of the %d vertices", w, v, n));
+				}
+				initial.add(v, w);
+			}
+		}
+		merge(initial);
+		initialCandidates = numCandidates;
+	}
+
+	/**
+	 * New candidate pairs, loops dropped and each pair stored once
+	 */
+	private class Pairs {
+		long[]	buffer	= new long[16];
+		int			size;
+
+		void add(int i, int j) {
+			if (i == j) {
+				return;
+			}
+			long key = i < j ? (long) i << 32 | j : (long) j << 32 | i;
+			if (Arrays.binarySearch(keys, 0, numCandidates, key) >= 0) {
+				return;
+			}
+			if (size == buffer.length) {
+				buffer = Arrays.copyOf(buffer, 2 * size);
+			}
+			buffer[size++ ] = key;
+		}
+	}
+
+	/**
+	 * Keeps the most violated new pairs of every vertex in a small min-heap on the violation 2w(i,j) - d_i - d_j
+	 */
+	private class Violations implements PairSink {
+		final long[]	duals;
+		final long[]	heapKeys, heapViolations;
+		final int[]		heapSize;
+
+		Violations(long[] duals) {
+			this.duals = duals;
+			heapKeys = new long[n * pricingLimit];
+			heapViolations = new long[n * pricingLimit];
+			heapSize = new int[n];
+		}
+
+		@Override
+		public void add(int i, int j) {
+			if (i == j) {
+				return;
+			}
+			long key = i < j ? (long) i << 32 | j : (long) j << 32 | i;
+			if (Arrays.binarySearch(keys, 0, numCandidates, key) >= 0) {
+				return;
+			}
+			long violation = 2 * oracle.weight(i, j) - duals[i] - duals[j];
+			if (violation > 0) {
+				offer(i, key, violation);
+				offer(j, key, violation);
+			}
+		}
+
+		private void offer(int v, long key, long violation) {
+			int base = v * pricingLimit, size = heapSize[v];
+			int ii;
+			if (size < pricingLimit) {
+				ii = size;
+				heapSize[v]++ ;
+				while (ii > 0 && heapViolations[base + (ii - 1) / 2] > violation) {
+					heapKeys[base + ii] = heapKeys[base + (ii - 1) / 2];
+					heapViolations[base + ii] = heapViolations[base + (ii - 1) / 2];
+					ii = (ii - 1) / 2;
+				}
+			} else if (violation > heapViolations[base]) {
+				// replace the least violated pair
+				ii = 0;
+				while (2 * ii + 1 < size) {
+					int child = 2 * ii + 1;
+					if (child + 1 < size && heapViolations[base + child + 1] < heapViolations[base + child]) {
+						child++ ;
+					}
+					if (heapViolations[base + child] >= violation) {
+						break;
+					}
+					heapKeys[base + ii] = heapKeys[base + child];
+					heapViolations[base + ii] = heapViolations[base + child];
+					ii = child;
+				}
+			} else {
+				return;
+			}
+			heapKeys[base + ii] = key;
+			heapViolations[base + ii] = violation;
+		}
+
+		Pairs pairs() {
+			Pairs pairs = new Pairs();
+			for (int v = 0; v < n; v++ ) {
+				for (int ii = 0; ii < heapSize[v]; ii++ ) {
+					long key = heapKeys[v * pricingLimit + ii];
+					pairs.add((int) (key >>> 32), (int) key);
+				}
+			}
+			return pairs;
+		}
+	}
+
+	/**
+	 * Add the new pairs to the sorted candidate set
+	 *
+	 * @return number of pairs that were not candidates yet
+	 */
+	private int merge(Pairs pairs) {
+		Arrays.sort(pairs.buffer, 0, pairs.size);
+		int unique = 0;
+		for (int ii = 0; ii < pairs.size; ii++ ) {
+			if (unique == 0 || pairs.buffer[unique - 1] != pairs.buffer[ii]) {
+				pairs.buffer[unique++ ] = pairs.buffer[ii];
+			}
+		}
+		long[] mergedKeys = new long[numCandidates + unique];
+		long[] mergedWeights = new long[numCandidates + unique];
+		int a = 0, b = 0, out = 0;
+		while (a < numCandidates || b < unique) {
+			if (b == unique || (a < numCandidates && keys[a] < pairs.buffer[b])) {
+				mergedKeys[out] = keys[a];
+				mergedWeights[out++ ] = weights[a++ ];
+			} else {
+				long key = pairs.buffer[b++ ];
+				mergedKeys[out] = key;
+				mergedWeights[out++ ] = oracle.weight((int) (key >>> 32), (int) key);
+			}
+		}
+		keys = mergedKeys;
+		weights = mergedWeights;
+		numCandidates = out;
+		return unique;
+	}
+
+	/**
+	 * @param limit number of violated pairs kept per vertex and round, at least 1
+	 */
+	public void setPricingLimit(int limit) {
+		if (limit < 1) {
+			throw new RuntimeException("pricing limit must be positive");
+		}
+		pricingLimit = limit;
+	}
+
+	/**
+	 * Solve and price until no violated pair is left
+	 */
+	public void run() {
+		Matching previous = null;
+		while (true) {
+			rounds++ ;
+			int[] left = new int[numCandidates], right = new int[numCandidates];
+			for (int k = 0; k < numCandidates; k++ ) {
+				left[k] = (int) (keys[k] >>> 32);
+				right[k] = (int) keys[k];
+			}
+			solver = new PrimalDualMatching(n, left, right, weights, numCandidates);
+			if (previous != null) {
+				solver.warmStart(previous, duals);
+			}
+			solver.solve();
+			duals = solver.scaledDuals();
+
+			Violations violations = new Violations(duals);
+			pricer.price(duals, oracle, violations);
+			if (merge(violations.pairs()) == 0) {
+				break;
+			}
+			// the candidates only grow, every pair of this round is still a candidate in the next
+			previous = new Matching(n);
+			for (int v = 0; v < n; v++ ) {
+				int w = solver.mate(v);
+				if (w != NONE && v < w) {
+					previous.add(new Edge(v, w));
+				}
+			}
+		}
+		mate = new int[n];
+		for (int v = 0; v < n; v++ ) {
+			mate[v] = solver.mate(v);
+		}
+	}
+
+	/**
+	 * @param v vertex id
+	 * @return the vertex matched to {@link v} or -1 if it is exposed
+	 */
+	public int mate(int v) {
+		return mate == null ? NONE : mate[v];
+	}
+
+	/**
+	 * @return total weight of the matching
+	 */
+	public long weight() {
+		return solver == null ? 0 : solver.weight();
+	}
+
+	/**
+	 * @return doubled vertex duals of the last round, they certify the matching optimal on the complete graph
+	 */
+	public long[] scaledDuals() {
+		return duals == null ? null : Arrays.copyOf(duals, n);
+	}
+
+	/**
+	 * @return number of solve and price rounds
+	 */
+	public int rounds() {
+		return rounds;
+	}
+
+	/**
+	 * @return number of pairs the last round was solved on
+	 */
+	public int numCandidates() {
+		return numCandidates;
+	}
+
+	/**
+	 * @return number of pairs added by pricing
+	 */
+	public int numPriced() {
+		return numCandidates - initialCandidates;
+	}
+
+	public int numVertices() {
+		return n;
+	}
+}
@@ -0,0 +1,136 @@
+package graph.algorithms.matching;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import graph.Edge;
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.ConnectedComponents.Component;
+
+/**
+ * Matches every connected component of a graph on its own and stitches the results into one matching of the original graph. Components are solved in
+ * parallel on a fork-join pool, each with the engine that fits its size:
+ * <ul>
+ * <li>a single arc is matched directly</li>
+ * <li>up to {@link ExactMaxWeightedMatching#DP_MAX_VERTICES} vertices the subset dynamic program of the exact solver is used</li>
+ * <li>larger components go to {@link PrimalDualMatching} or, for cardinality, {@link DynamicMatching}</li>
+ * </ul>
+ * All components share the deadline of {@link #run(Deadline)}, once it passes the components still running stop and the rest return at once, each
+ * with the bound of its solver.
+ *
+ * @author Lincoln
+ */
+public class ComponentMatching {
+	/** Components are handed to tasks in batches of at most this many */
+	private static final int					BATCH	= 64;
+	private static final ForkJoinPool	POOL	= new ForkJoinPool();
+
+	private final WeightedDigraph			g;
+	private final boolean							weighted;
+	private final ForkJoinPool				pool;
+	private Matching									matching;
+
+	/**
+	 * @param g graph to match
+	 * @param weighted maximize weight instead of cardinality
+	 */
+	public ComponentMatching(WeightedDigraph g, boolean weighted) {
+		this(g, weighted, POOL);
+	}
+
+	public ComponentMatching(WeightedDigraph g, boolean weighted, ForkJoinPool pool) {
+		this.g = g;
+		this.weighted = weighted;
+		this.pool = pool;
+	}
+
+	public Matching run() {
+		return run(null).matching;
+	}
+
+	/**
+	 * @param deadline when to give up, null for none
+	 * @return the stitched matching, whether any component timed out and the sum of the gaps of the components
+	 */
+	public DeadlineResult run(Deadline deadline) {
+		ConnectedComponents cc = new ConnectedComponents(g);
+		List<Component> components = cc.components();
+		DeadlineResult[] results = new DeadlineResult[components.size()];
+		pool.invoke(new Batch(components, results, 0, results.length, deadline));
+
+		// stitch the component matchings together using the arcs of the original graph
+		matching = new Matching(g.numVertices());
+		boolean timedOut = false;
+		double gap = 0;
+		for (int c = 0; c < results.length; c++ ) {
+			Component component = components.get(c);
+			Matching local = results[c].matching;
+			for (int v = 0; v < component.size(); v++ ) {
+				int w = local.mate(v);
+				if (local.isMatched(v) && v < w) {
+					matching.add(g.heaviestArc(component.globalId(v), component.globalId(w)));
+				}
+			}
+			timedOut |= results[c].timedOut;
+			gap += results[c].gap;
+		}
+		return new DeadlineResult(matching, timedOut, gap, null);
+	}
+
+	public Matching matching() {
+		return matching;
+	}
+
+	private class Batch extends RecursiveAction {
+		private static final long				serialVersionUID	= 1L;
+		private final List<Component>	components;
+		private final DeadlineResult[]	results;
+		private final int								from, to;
+		private final Deadline					deadline;
+
+		Batch(List<Component> components, DeadlineResult[] results, int from, int to, Deadline deadline) {
+			this.components = components;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+			this.deadline = deadline;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= BATCH) {
+				for (int c = from; c < to; c++ ) {
+					results[c] = solve(components.get(c).graph(), weighted, deadline);
+				}
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Batch(components, results, from, mid, deadline), new Batch(components, results, mid, to, deadline));
+			}
+		}
+	}
+
+	/**
+	 * Match a single connected graph with the engine that fits its size
+	 *
+	 * @param c connected graph
+	 * @param weighted maximize weight instead of cardinality
+	 * @param deadline when to give up, null for none
+	 * @return matching of {@link c}
+	 */
+	static DeadlineResult solve(WeightedDigraph c, boolean weighted, Deadline deadline) {
+		if (c.numVertices() == 2) {
+			Matching m = new Matching(2);
+			m.add(c.heaviestArc(0, 1));
+			return new DeadlineResult(m, false, 0, null);
+		} else if (c.numVertices() <= ExactMaxWeightedMatching.DP_MAX_VERTICES) {
+			return new ExactMaxWeightedMatching(c).run(weighted, deadline);
+		} else if (weighted) {
+			return new PrimalDualMatching(c).run(deadline);
+		} else {
+			DynamicMatching dm = new DynamicMatching(c, null, deadline);
+			return new DeadlineResult(dm.matching(), dm.timedOut(), dm.gap(), null);
+		}
+	}
+}
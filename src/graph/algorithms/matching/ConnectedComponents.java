@@ -0,0 +1,129 @@
+package graph.algorithms.matching;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import graph.Edge;
+import graph.WeightedDigraph;
+
+/**
+ * Splits a graph into its connected components (arcs are treated as undirected). Labelling is linear in the size of the graph, each component is then
+ * copied into a compact subgraph with its vertices relabelled 0..size-1.
+ *
+ * @author Lincoln
+ */
+public class ConnectedComponents {
+	public static final int					NO_COMPONENT	= - 1;
+
+	private final WeightedDigraph		g;
+	/** component label of every vertex id, NO_COMPONENT for ids without arcs */
+	private final int[]							label;
+	/** index of every vertex within its component */
+	private final int[]							local;
+	private final List<Component>		components;
+
+	/**
+	 * A connected component relabelled as its own graph
+	 */
+	public static class Component {
+		private final WeightedDigraph	graph;
+		private final int[]						ids;
+
+		Component(WeightedDigraph graph, int[] ids) {
+			this.graph = graph;
+			this.ids = ids;
+		}
+
+		/**
+		 * @return the component with vertices numbered 0..size()-1
+		 */
+		public WeightedDigraph graph() {
+			return graph;
+		}
+
+		/**
+		 * @param localId vertex id within the component
+		 * @return vertex id in the original graph
+		 */
+		public int globalId(int localId) {
+			return ids[localId];
+		}
+
+		public int size() {
+			return ids.length;
+		}
+	}
+
+	public ConnectedComponents(WeightedDigraph g) {
+		this.g = g;
+		int n = g.numVertices();
+		label = new int[n];
+		local = new int[n];
+		Arrays.fill(label, NO_COMPONENT);
+
+		// breadth first search from every unlabelled vertex, the queue doubles as the member list of the component
+		UndirectedAdjacency adjacency = new UndirectedAdjacency(g);
+		int count = 0;
+		int[] queue = new int[n];
+		boolean[] seen = new boolean[n];
+		List<int[]> members = new ArrayList<int[]>();
+		for (int s = 0; s < n; s++ ) {
+			if (seen[s] || adjacency.degree(s) == 0) {
+				continue;
+			}
+			int size = adjacency.breadthFirst(s, seen, queue, 0);
+			for (int ii = 0; ii < size; ii++ ) {
+				label[queue[ii]] = count;
+				local[queue[ii]] = ii;
+			}
+			members.add(Arrays.copyOf(queue, size));
+			count++ ;
+		}
+
+		components = new ArrayList<Component>(count);
+		for (int[] ids : members) {
+			components.add(new Component(new WeightedDigraph(ids.length), ids));
+		}
+		for (int v = 0; v < n; v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				components.get(label[v]).graph().addEdge(new Edge(local[e.left], local[e.right], e.weight));
+			}
+		}
+	}
+
+	/**
+	 * @return number of components (vertices without arcs are not counted)
+	 */
+	public int count() {
+		return components.size();
+	}
+
+	/**
+	 * @param vid vertex id
+	 * @return component label of {@link vid} or NO_COMPONENT if it has no arcs
+	 */
+	public int component(int vid) {
+		return label[vid];
+	}
+
+	/**
+	 * @param vid vertex id
+	 * @return the id of {@link vid} within its component
+	 */
+	public int localId(int vid) {
+		return local[vid];
+	}
+
+	public Component get(int component) {
+		return components.get(component);
+	}
+
+	public List<Component> components() {
+		return components;
+	}
+
+	public WeightedDigraph graph() {
+		return g;
+	}
+}
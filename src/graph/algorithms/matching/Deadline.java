@@ -0,0 +1,114 @@
+package graph.algorithms.matching;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time a solver has to stop at. Solvers report their work through {@link #tick(int)} which only reads the clock once every
+ * {@link #CHECK_INTERVAL} units of work (arcs scanned, steps taken), so checking after every arc is cheap. Once expired a deadline stays expired.
+ * Any thread may {@link #cancel()} a deadline. Several solver threads may poll one deadline, their work counts can race which only delays a clock
+ * read, expiry is seen by all of them.
+ * 
+ * @author Lincoln
+ */
+public class Deadline {
+	/** units of work between two reads of the clock */
+	public static final int	CHECK_INTERVAL	= 1024;
+	
+	private final long			nanoTime;
+	private final boolean		timed;
+	private final int				checkInterval;
+	private int							work;
+	private volatile boolean	expired;
+	private volatile boolean	cancelled;
+	
+	/**
+	 * @param nanoTime the deadline in {@link System#nanoTime()} time
+	 * @param checkInterval units of work between two reads of the clock
+	 */
+	public Deadline(long nanoTime, int checkInterval) {
+		if (checkInterval < 1) {
+			throw new RuntimeException("check interval must be positive");
+		}
+		this.nanoTime = nanoTime;
+		this.checkInterval = checkInterval;
+		timed = true;
+	}
+	
+	/**
+	 * A deadline without a time limit that only expires when cancelled
+	 */
+	public Deadline() {
+		nanoTime = 0;
+		checkInterval = CHECK_INTERVAL;
+		timed = false;
+	}
+	
+	/**
+	 * @param timeout budget from now on
+	 * @param unit unit of {@link timeout}
+	 * @return a deadline that expires once the budget is spent
+	 */
+	public static Deadline after(long timeout, TimeUnit unit) {
+		return new Deadline(System.nanoTime() + unit.toNanos(timeout), CHECK_INTERVAL);
+	}
+	
+	/**
+	 * @param timeout budget from now on
+	 * @return a deadline that expires once the budget is spent
+	 */
+	public static Deadline after(Duration timeout) {
+		return new Deadline(System.nanoTime() + timeout.toNanos(), CHECK_INTERVAL);
+	}
+	
+	/**
+	 * Account for some work, the clock is only read once enough work has accumulated
+	 * 
+	 * @param units work done since the last call
+	 * @return whether the deadline has passed
+	 */
+	public boolean tick(int units) {
+		if (expired) {
+			return true;
+		}
+		work += units;
+		if (work < checkInterval) {
+			return false;
+		}
+		work = 0;
+		return expired();
+	}
+	
+	/**
+	 * Read the clock now
+	 * 
+	 * @return whether the deadline has passed
+	 */
+	public boolean expired() {
+		if ( ! expired && (cancelled || timed && System.nanoTime() - nanoTime >= 0)) {
+			expired = true;
+		}
+		return expired;
+	}
+	
+	/**
+	 * Expire the deadline now, the solver polling it notices at its next clock read
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+	
+	public boolean isCancelled() {
+		return cancelled;
+	}
+	
+	/**
+	 * @return time left, 0 once expired and Long.MAX_VALUE without a time limit
+	 */
+	public long remaining(TimeUnit unit) {
+		if ( ! timed) {
+			return cancelled ? 0 : Long.MAX_VALUE;
+		}
+		return unit.convert(Math.max(0, nanoTime - System.nanoTime()), TimeUnit.NANOSECONDS);
+	}
+}
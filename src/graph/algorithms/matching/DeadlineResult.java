@@ -0,0 +1,32 @@
+package graph.algorithms.matching;
+
+import graph.Matching;
+
+/**
+ * Outcome of a solve under a {@link Deadline}: the best matching found so far, whether the solver had to stop early and how far from optimal the
+ * matching can be at most.
+ * 
+ * @author Lincoln
+ */
+public class DeadlineResult {
+	/** a valid matching, optimal unless timedOut */
+	public final Matching			matching;
+	/** whether the deadline passed before the solver finished */
+	public final boolean			timedOut;
+	/** upper bound on optimum - matching in the objective of the solver (cardinality or weight), 0 when the solver finished */
+	public final double				gap;
+	/** counters of the solve, null for engines that don't keep them */
+	public final SolverStats	stats;
+	
+	public DeadlineResult(Matching matching, boolean timedOut, double gap, SolverStats stats) {
+		this.matching = matching;
+		this.timedOut = timedOut;
+		this.gap = gap;
+		this.stats = stats;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s matching of size %d weight %d, gap %.1f", timedOut ? "timed out" : "optimal", matching.matches(), matching.weight(), gap);
+	}
+}
@@ -0,0 +1,80 @@
+package graph.algorithms.matching;
+
+import graph.ArcArrays;
+
+/**
+ * Array kernels for the dual arithmetic of the weighted solvers: the largest weight, the repair of duals that violate an arc and updates of a set of
+ * duals by a constant. Every kernel is a plain counted loop over primitive arrays without calls or allocation.
+ * 
+ * The kernels work on duals stored doubled, 2u, so half integral duals stay exact for any int weight. Slacks are doubled as well: 2u_l + 2u_r -
+ * 2w_lr. The minimum weight solver halves slacks, its duals are stored 4u, see {@link #halfSlack(long[], int, int, int)}.
+ * 
+ * @author Lincoln
+ */
+public final class DualKernels {
+	
+	private DualKernels() {
+	}
+	
+	/**
+	 * @return the largest arc weight, 0 for a graph without arcs
+	 */
+	public static int maxWeight(ArcArrays arcs) {
+		int[] weight = arcs.weight;
+		int max = 0;
+		for (int k = 0; k < arcs.count; k++ ) {
+			max = Math.max(max, weight[k]);
+		}
+		return max;
+	}
+	
+	/**
+	 * Lower the dual of the right end of every arc with positive slack until the slack is 0
+	 * 
+	 * @param alpha node duals times scale, updated in place
+	 * @param scale factor the duals are stored with, 2 or 4
+	 * @param arcs arcs of the graph
+	 */
+	public static void lowerToFeasible(long[] alpha, int scale, ArcArrays arcs) {
+		int[] left = arcs.left, right = arcs.right, weight = arcs.weight;
+		for (int k = 0; k < arcs.count; k++ ) {
+			long excess = alpha[left[k]] + alpha[right[k]] - (long) scale * weight[k];
+			if (excess > 0) {
+				alpha[right[k]] -= excess;
+			}
+		}
+	}
+	
+	/**
+	 * Half the slack w_lr - a_l - a_r of an arc, the step that makes the arc tight when both ends move. Half integral duals of different parity
+	 * have odd doubled slacks, so the duals are stored times 4. The slack times 4 is even as long as both ends share their parity.
+	 * 
+	 * @param alpha4 node duals times 4
+	 * @return half the slack times 4
+	 */
+	public static long halfSlack(long[] alpha4, int left, int right, int weight) {
+		long slack4 = 4L * weight - alpha4[left] - alpha4[right];
+		if ((slack4 & 1) != 0) {
+			throw new RuntimeException(String.format("odd slack %d between %d and %d, their duals differ in parity", slack4, left, right));
+		}
+		return slack4 / 2;
+	}
+	
+	/**
+	 * a[ids[k]] += delta for k in 0..count
+	 */
+	public static void add(long[] a, int[] ids, int count, long delta) {
+		for (int k = 0; k < count; k++ ) {
+			a[ids[k]] += delta;
+		}
+	}
+	
+	/**
+	 * a[k] += delta for k in from..to
+	 */
+	public static void add(long[] a, int from, int to, long delta) {
+		for (int k = from; k < to; k++ ) {
+			a[k] += delta;
+		}
+	}
+}
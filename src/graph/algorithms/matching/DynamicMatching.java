@@ -0,0 +1,266 @@
+package graph.algorithms.matching;
+
+import java.util.Arrays;
+
+import graph.Edge;
+import graph.Matching;
+import graph.WeightedDigraph;
+
+/**
+ * Maintains a maximum cardinality matching while edges are inserted into and deleted from the graph.
+ *
+ * Only the vertices an update can affect are searched: inserting an edge searches from its exposed endpoint (or matches both endpoints if they are
+ * exposed), deleting a matched edge searches from the two endpoints it exposed. An edge inserted between two matched vertices needs a single search
+ * grown from all exposed vertices at once. The searches are the {@link EdmondsSearch} over an undirected adjacency the solver keeps itself, arcs may
+ * point either way in the graph.
+ *
+ * @author Lincoln
+ */
+public class DynamicMatching {
+	private static final int				NONE	= EdmondsSearch.NONE;
+
+	private final WeightedDigraph		g;
+	/** distinct neighbors of every vertex, neighbors[v][0..degree[v]) */
+	private final int[][]						neighbors;
+	private final int[]							degree;
+	private final EdmondsSearch			search;
+	private final int[]							mate;
+	private int											size;
+	/** whether the initial solve was cut off by its deadline */
+	private boolean									timedOut;
+	/** bound on the pairs the cut off searches could still have added */
+	private int											gap;
+
+	/**
+	 * @param g graph to match, it is only modified by {@link #insertEdge} and {@link #deleteEdge}
+	 */
+	public DynamicMatching(WeightedDigraph g) {
+		this(g, null);
+	}
+
+	/**
+	 * Start from an existing matching instead of a greedy one, pairs that are not arcs of {@link g} are ignored
+	 *
+	 * @param g graph to match, it is only modified by {@link #insertEdge} and {@link #deleteEdge}
+	 * @param initial matching to augment or null for a greedy start
+	 */
+	public DynamicMatching(WeightedDigraph g, Matching initial) {
+		this(g, initial, null);
+	}
+
+	/**
+	 * Stop the initial solve once the deadline passes, the deadline is polled by every search. A matching that {@link #timedOut()} need not be maximum
+	 * and the updates only keep a maximum matching maximum.
+	 *
+	 * @param g graph to match, it is only modified by {@link #insertEdge} and {@link #deleteEdge}
+	 * @param initial matching to augment or null for a greedy start
+	 * @param deadline when to give up, null for none
+	 */
+	public DynamicMatching(WeightedDigraph g, Matching initial, Deadline deadline) {
+		this.g = g;
+		int n = g.numVertices();
+		neighbors = new int[n][];
+		degree = new int[n];
+		for (int v = 0; v < n; v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				if ( ! e.isLoop()) {
+					degree[e.left]++ ;
+					degree[e.right]++ ;
+				}
+			}
+		}
+		for (int v = 0; v < n; v++ ) {
+			neighbors[v] = new int[Math.max(degree[v], 1)];
+			degree[v] = 0;
+		}
+		for (int v = 0; v < n; v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				if ( ! e.isLoop()) {
+					neighbors[e.left][degree[e.left]++ ] = e.right;
+					neighbors[e.right][degree[e.right]++ ] = e.left;
+				}
+			}
+		}
+		// parallel and opposite arcs give repeated neighbors
+		for (int v = 0; v < n; v++ ) {
+			Arrays.sort(neighbors[v], 0, degree[v]);
+			int unique = 0;
+			for (int ii = 0; ii < degree[v]; ii++ ) {
+				if (unique == 0 || neighbors[v][unique - 1] != neighbors[v][ii]) {
+					neighbors[v][unique++ ] = neighbors[v][ii];
+				}
+			}
+			degree[v] = unique;
+		}
+
+		search = new EdmondsSearch(n, new EdmondsSearch.Adjacency() {
+			@Override
+			public int degree(int v) {
+				return degree[v];
+			}
+
+			@Override
+			public int neighbor(int v, int i) {
+				return neighbors[v][i];
+			}
+		});
+		mate = search.mate;
+
+		// greedy (or given) start, then one search per exposed vertex: a vertex without an augmenting path never gets one later
+		if (initial != null) {
+			for (int v = 0; v < Math.min(n, initial.numVertices()); v++ ) {
+				int w = initial.mate(v);
+				if (initial.isMatched(v) && v < w && w < n && mate[v] == NONE && mate[w] == NONE && indexOf(v, w) >= 0) {
+					search.pair(v, w);
+					size++ ;
+				}
+			}
+		}
+		size += search.greedy();
+		search.deadline = deadline;
+		for (int v = 0; v < n && ! timedOut; v++ ) {
+			if (search.augmentFrom(v)) {
+				size++ ;
+			} else if (search.timedOut) {
+				// only v and the exposed vertices after it can still end an augmenting path, two per path
+				timedOut = true;
+				for (int w = v; w < n; w++ ) {
+					if (mate[w] == NONE) {
+						gap++ ;
+					}
+				}
+				gap /= 2;
+			}
+		}
+		search.deadline = null;
+	}
+
+	private int indexOf(int v, int w) {
+		for (int ii = 0; ii < degree[v]; ii++ ) {
+			if (neighbors[v][ii] == w) {
+				return ii;
+			}
+		}
+		return NONE;
+	}
+
+	private void connect(int v, int w) {
+		if (indexOf(v, w) < 0) {
+			if (degree[v] == neighbors[v].length) {
+				neighbors[v] = Arrays.copyOf(neighbors[v], 2 * degree[v]);
+			}
+			neighbors[v][degree[v]++ ] = w;
+		}
+	}
+
+	private void disconnect(int v, int w) {
+		int ii = indexOf(v, w);
+		if (ii >= 0) {
+			neighbors[v][ii] = neighbors[v][ -- degree[v]];
+		}
+	}
+
+	/**
+	 * Insert an arc into the graph and repair the matching
+	 *
+	 * @param u vertex index
+	 * @param v vertex index
+	 * @param weight
+	 */
+	public void insertEdge(int u, int v, int weight) {
+		g.addEdge(new Edge(u, v, weight));
+		if (u == v) {
+			return;
+		}
+		connect(u, v);
+		connect(v, u);
+		if (mate[u] == NONE && mate[v] == NONE) {
+			search.pair(u, v);
+			size++ ;
+		} else if (mate[u] == NONE) {
+			augmentFrom(u);
+		} else if (mate[v] == NONE) {
+			augmentFrom(v);
+		} else if (mate[u] != v) {
+			// an augmenting path now has to run through (u,v) and may start at any exposed vertex
+			if (search.augmentFromExposed()) {
+				size++ ;
+			}
+		}
+	}
+
+	/**
+	 * Delete every arc between two vertices and repair the matching
+	 *
+	 * @param u vertex index
+	 * @param v vertex index
+	 */
+	public void deleteEdge(int u, int v) {
+		g.deleteEdge(u, v);
+		disconnect(u, v);
+		disconnect(v, u);
+		if (mate[u] == v && u != v) {
+			mate[u] = NONE;
+			mate[v] = NONE;
+			size-- ;
+			// any augmenting path starts at one of the newly exposed vertices
+			if ( ! augmentFrom(u)) {
+				augmentFrom(v);
+			}
+		}
+	}
+
+	private boolean augmentFrom(int r) {
+		if (search.augmentFrom(r)) {
+			size++ ;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return whether the deadline given to the constructor cut the initial solve off
+	 */
+	public boolean timedOut() {
+		return timedOut;
+	}
+
+	/**
+	 * @return upper bound on the maximum cardinality less the size of the initial matching, 0 unless it {@link #timedOut()}
+	 */
+	public int gap() {
+		return gap;
+	}
+
+	/**
+	 * @return number of matched edges
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param v vertex index
+	 * @return the vertex matched to {@link v} or -1 if it is exposed
+	 */
+	public int mate(int v) {
+		return mate[v];
+	}
+
+	/**
+	 * @return the current matching over the arcs of the graph
+	 */
+	public Matching matching() {
+		Matching m = new Matching(g.numVertices());
+		for (int v = 0; v < mate.length; v++ ) {
+			if (mate[v] != NONE && v < mate[v]) {
+				m.add(g.heaviestArc(v, mate[v]));
+			}
+		}
+		return m;
+	}
+
+	public WeightedDigraph graph() {
+		return g;
+	}
+}
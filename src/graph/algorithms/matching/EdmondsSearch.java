@@ -0,0 +1,268 @@
+package graph.algorithms.matching;
+
+import java.util.Arrays;
+
+/**
+ * Edmonds search for augmenting paths with blossom contraction, shared by the cardinality solvers that keep their adjacency in different places.
+ * Trees are grown from one or more exposed vertices at once, a search stops at the first augmenting path and only resets the vertices it labelled so
+ * its cost does not depend on the size of the graph.
+ *
+ * @author Lincoln
+ */
+class EdmondsSearch {
+	static final int				NONE			= - 1;
+	private static final byte		UNLABELED	= 0;
+	private static final byte		EVEN			= 1;
+	private static final byte		ODD				= 2;
+
+	/**
+	 * Undirected adjacency: every edge is listed at both of its ends
+	 */
+	interface Adjacency {
+		int degree(int v);
+
+		/**
+		 * @return the i-th neighbor of {@link v}, 0 &lt;= i &lt; degree(v)
+		 */
+		int neighbor(int v, int i);
+	}
+
+	private final Adjacency	adj;
+	private int							n;
+	/** matched vertex of every vertex, NONE if exposed */
+	int[]										mate;
+	/** polled for every vertex a search scans, a search still running when it passes gives up without augmenting. Null for none. */
+	Deadline								deadline;
+	/** whether the last search gave up at the deadline */
+	boolean									timedOut;
+
+	private byte[]					label;
+	private int[]						parent;
+	private int[]						base;
+	private int[]						root;
+	private int[]						queue;
+	private int[]						touched;
+	private int							numTouched;
+	private boolean[]				inBlossom;
+	private int[]						mark;
+	private int							stamp;
+
+	EdmondsSearch(int n, Adjacency adj) {
+		this.adj = adj;
+		reset(n);
+	}
+
+	/**
+	 * Start over with every vertex exposed, the adjacency may have changed. The work arrays only grow.
+	 *
+	 * @param n number of vertices
+	 */
+	void reset(int n) {
+		this.n = n;
+		if (mate == null || mate.length < n) {
+			mate = new int[n];
+			label = new byte[n];
+			parent = new int[n];
+			base = new int[n];
+			root = new int[n];
+			queue = new int[n];
+			touched = new int[n];
+			inBlossom = new boolean[n];
+			mark = new int[n];
+		}
+		Arrays.fill(mate, 0, n, NONE);
+		Arrays.fill(parent, 0, n, NONE);
+		Arrays.fill(root, 0, n, NONE);
+		Arrays.fill(label, 0, n, UNLABELED);
+		for (int v = 0; v < n; v++ ) {
+			base[v] = v;
+		}
+	}
+
+	void pair(int v, int w) {
+		mate[v] = w;
+		mate[w] = v;
+	}
+
+	/**
+	 * Match every exposed vertex to its first exposed neighbor
+	 *
+	 * @return number of pairs added
+	 */
+	int greedy() {
+		int pairs = 0;
+		for (int v = 0; v < n; v++ ) {
+			for (int ii = 0; ii < adj.degree(v) && mate[v] == NONE; ii++ ) {
+				int w = adj.neighbor(v, ii);
+				if (w != v && mate[w] == NONE) {
+					pair(v, w);
+					pairs++ ;
+				}
+			}
+		}
+		return pairs;
+	}
+
+	/**
+	 * @param r vertex to search from
+	 * @return whether an augmenting path from {@link r} was found and applied, false if r is matched
+	 */
+	boolean augmentFrom(int r) {
+		if (mate[r] != NONE) {
+			return false;
+		}
+		queue[0] = r;
+		return search(1);
+	}
+
+	/**
+	 * Grow trees from all exposed vertices at once, needed when a new edge between two matched vertices may complete a path
+	 *
+	 * @return whether the matching was augmented
+	 */
+	boolean augmentFromExposed() {
+		int numRoots = 0;
+		for (int x = 0; x < n; x++ ) {
+			if (mate[x] == NONE) {
+				queue[numRoots++ ] = x;
+			}
+		}
+		return numRoots > 0 && search(numRoots);
+	}
+
+	/**
+	 * Grow alternating trees from the exposed vertices in queue[0..numRoots) until an augmenting path is found
+	 *
+	 * @param numRoots number of roots at the front of the queue
+	 * @return whether the matching was augmented
+	 */
+	private boolean search(int numRoots) {
+		for (int ii = 0; ii < numRoots; ii++ ) {
+			int r = queue[ii];
+			touch(r);
+			label[r] = EVEN;
+			root[r] = r;
+		}
+		int head = 0, tail = numRoots;
+		boolean augmented = false;
+		timedOut = false;
+		scan: while (head < tail) {
+			int v = queue[head++ ];
+			if (deadline != null && deadline.tick(adj.degree(v) + 1)) {
+				timedOut = true;
+				break;
+			}
+			for (int ii = 0; ii < adj.degree(v); ii++ ) {
+				int w = adj.neighbor(v, ii);
+				if (w == v || base[v] == base[w] || mate[v] == w) {
+					continue;
+				}
+				if (label[w] == UNLABELED) {
+					touch(w);
+					parent[w] = v;
+					if (mate[w] == NONE) {
+						// exposed vertex outside the search
+						flip(w);
+						augmented = true;
+						break scan;
+					}
+					int x = mate[w];
+					touch(x);
+					label[w] = ODD;
+					label[x] = EVEN;
+					root[w] = root[x] = root[v];
+					queue[tail++ ] = x;
+				} else if (label[w] == EVEN) {
+					if (root[w] != root[v]) {
+						// two trees meet: root(v) ... v w ... root(w)
+						flip(mate[v]);
+						flip(mate[w]);
+						pair(v, w);
+						augmented = true;
+						break scan;
+					}
+					tail = shrink(v, w, tail);
+				}
+			}
+		}
+
+		for (int ii = 0; ii < numTouched; ii++ ) {
+			int v = touched[ii];
+			label[v] = UNLABELED;
+			parent[v] = NONE;
+			root[v] = NONE;
+			base[v] = v;
+		}
+		numTouched = 0;
+		return augmented;
+	}
+
+	private void touch(int v) {
+		if (root[v] == NONE && parent[v] == NONE && label[v] == UNLABELED) {
+			touched[numTouched++ ] = v;
+		}
+	}
+
+	/**
+	 * Contract the blossom closed by the arc (v,w) queuing its odd vertices
+	 */
+	private int shrink(int v, int w, int tail) {
+		int b = lca(v, w);
+		for (int ii = 0; ii < numTouched; ii++ ) {
+			inBlossom[touched[ii]] = false;
+		}
+		markPath(v, b, w);
+		markPath(w, b, v);
+		for (int ii = 0; ii < numTouched; ii++ ) {
+			int x = touched[ii];
+			if (inBlossom[base[x]]) {
+				base[x] = b;
+				if (label[x] != EVEN) {
+					label[x] = EVEN;
+					queue[tail++ ] = x;
+				}
+			}
+		}
+		return tail;
+	}
+
+	private int lca(int a, int b) {
+		stamp++ ;
+		while (true) {
+			a = base[a];
+			mark[a] = stamp;
+			if (mate[a] == NONE) {
+				break;
+			}
+			a = parent[mate[a]];
+		}
+		while (true) {
+			b = base[b];
+			if (mark[b] == stamp) {
+				return b;
+			}
+			b = parent[mate[b]];
+		}
+	}
+
+	private void markPath(int v, int b, int child) {
+		while (base[v] != b) {
+			inBlossom[base[v]] = inBlossom[base[mate[v]]] = true;
+			parent[v] = child;
+			child = mate[v];
+			v = parent[mate[v]];
+		}
+	}
+
+	/**
+	 * Flip the alternating path that starts with the unmatched arc (x,parent[x])
+	 */
+	private void flip(int x) {
+		while (x != NONE) {
+			int px = parent[x];
+			int next = mate[px];
+			pair(x, px);
+			x = next;
+		}
+	}
+}
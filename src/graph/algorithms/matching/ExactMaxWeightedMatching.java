@@ -0,0 +1,437 @@
+package graph.algorithms.matching;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import graph.Edge;
+import graph.Matching;
+import graph.WeightedDigraph;
+
+/**
+ * Exact reference solver for small graphs (at most {@link #MAX_VERTICES} vertices).
+ *
+ * Graphs with at most {@link #DP_MAX_VERTICES} vertices are solved with a dynamic program over vertex subsets, larger graphs with a branch-and-bound search
+ * bounded by a fractional matching. Both return every optimal matching when asked to, so the solver can be used as an oracle for the production
+ * algorithms.
+ *
+ * @author Lincoln
+ */
+public class ExactMaxWeightedMatching {
+	/** Largest graph accepted by the solver */
+	public static final int				MAX_VERTICES		= 40;
+	/** Largest graph solved with the subset dynamic program, the table holds 2^n entries */
+	static final int							DP_MAX_VERTICES	= 20;
+	static final long							NO_SOLUTION			= - 1;
+
+	final WeightedDigraph					G;
+	/** number of (non isolated) vertices in the compact representation */
+	final int											n;
+	/** compact index to graph vertex id */
+	final int[]										ids;
+	/** neighbor bitmask of each compact vertex */
+	final long[]									adj;
+	/** heaviest arc between each pair of compact vertices, null when not adjacent */
+	final Edge[][]								arcs;
+	/** neighbors of each compact vertex ordered by decreasing weight */
+	final int[][]									neighbors;
+
+	/** per run state */
+	boolean												weighted;
+	private boolean								enumerate;
+	long[]												dp;
+	private long									best;
+	private final int[]						pairs;
+	private final List<int[]>			found;
+	/** polled at every node of the search, null for none */
+	private Deadline							deadline;
+	/** whether the deadline cut the search off */
+	private boolean								cut;
+
+	public ExactMaxWeightedMatching(WeightedDigraph g) {
+		G = g;
+
+		// only vertices with at least one (non loop) arc take part in the search
+		int[] compact = new int[g.numVertices()];
+		Arrays.fill(compact, - 1);
+		int count = 0;
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				if ( ! e.isLoop()) {
+					if (compact[e.left] < 0) {
+						compact[e.left] = count++ ;
+					}
+					if (compact[e.right] < 0) {
+						compact[e.right] = count++ ;
+					}
+				}
+			}
+		}
+		if (count > MAX_VERTICES) {
+			throw new RuntimeException(String.format("graph has %d vertices, the exact solver accepts at most %d", count, MAX_VERTICES));
+		}
+
+		n = count;
+		ids = new int[n];
+		for (int v = 0; v < compact.length; v++ ) {
+			if (compact[v] >= 0) {
+				ids[compact[v]] = v;
+			}
+		}
+		adj = new long[n];
+		arcs = new Edge[n][n];
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				if (e.isLoop()) {
+					continue;
+				}
+				int l = compact[e.left];
+				int r = compact[e.right];
+				// parallel and opposite arcs collapse into the heaviest one
+				if (arcs[l][r] == null || arcs[l][r].weight < e.weight) {
+					arcs[l][r] = e;
+					arcs[r][l] = e;
+				}
+				adj[l] |= 1L << r;
+				adj[r] |= 1L << l;
+			}
+		}
+		neighbors = new int[n][];
+		for (int v = 0; v < n; v++ ) {
+			neighbors[v] = sortedNeighbors(v);
+		}
+
+		pairs = new int[n];
+		found = new LinkedList<int[]>();
+	}
+
+	private int[] sortedNeighbors(final int v) {
+		Integer[] sorted = new Integer[Long.bitCount(adj[v])];
+		int count = 0;
+		for (long rest = adj[v]; rest != 0; rest &= rest - 1) {
+			sorted[count++ ] = Long.numberOfTrailingZeros(rest);
+		}
+		Arrays.sort(sorted, new java.util.Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Integer.compare(arcs[v][b].weight, arcs[v][a].weight);
+			}
+		});
+		int[] result = new int[count];
+		for (int ii = 0; ii < count; ii++ ) {
+			result[ii] = sorted[ii];
+		}
+		return result;
+	}
+
+	/**
+	 * @return a maximum weight matching
+	 */
+	public Matching runWeighted() {
+		return solve(true, false).get(0);
+	}
+
+	/**
+	 * @return a maximum cardinality matching
+	 */
+	public Matching runUnweighted() {
+		return solve(false, false).get(0);
+	}
+
+	/**
+	 * Search until the optimum is found or the deadline passes, the deadline is polled at every node of the search
+	 *
+	 * @param weighted maximize weight instead of cardinality
+	 * @param deadline when to give up
+	 * @return the best matching found, whether the search was cut off and the bound on the objective less the value of that matching
+	 */
+	public DeadlineResult run(boolean weighted, Deadline deadline) {
+		this.deadline = deadline;
+		List<Matching> matchings;
+		try {
+			matchings = solve(weighted, false);
+		} finally {
+			this.deadline = null;
+		}
+		if ( ! cut) {
+			return new DeadlineResult(matchings.get(0), false, 0, null);
+		}
+		// with the subset table best starts at the optimum, so it is only reached once a matching is found
+		long value = found.isEmpty() ? 0 : best;
+		Matching matching = found.isEmpty() ? new Matching(G.numVertices()) : matchings.get(0);
+		return new DeadlineResult(matching, true, bound(fullMask()) - value, null);
+	}
+
+	/**
+	 * @return every maximum weight matching
+	 */
+	public List<Matching> allWeighted() {
+		return solve(true, true);
+	}
+
+	/**
+	 * @return every maximum cardinality matching
+	 */
+	public List<Matching> allUnweighted() {
+		return solve(false, true);
+	}
+
+	List<Matching> solve(boolean weighted, boolean enumerate) {
+		prepare(weighted);
+		this.enumerate = enumerate;
+		cut = false;
+		found.clear();
+		best = dp != null ? dp[fullSet()] : NO_SOLUTION;
+		search(fullMask(), 0, 0);
+		return toMatchings(found);
+	}
+
+	/**
+	 * Set the objective and build the subset table when the graph is small enough
+	 *
+	 * @param weighted maximize weight instead of cardinality
+	 */
+	void prepare(boolean weighted) {
+		this.weighted = weighted;
+		dp = n <= DP_MAX_VERTICES ? subsetTable() : null;
+	}
+
+	/**
+	 * dp[S] is the weight of the best matching using only the vertices in S. The lowest vertex of S is either left unmatched or matched to one of its
+	 * neighbors in S.
+	 */
+	private long[] subsetTable() {
+		long[] table = new long[1 << n];
+		for (int S = 1; S < table.length; S++ ) {
+			int v = Integer.numberOfTrailingZeros(S);
+			int rest = S & ~ (1 << v);
+			long value = table[rest];
+			for (long nbrs = adj[v] & rest; nbrs != 0; nbrs &= nbrs - 1) {
+				int w = Long.numberOfTrailingZeros(nbrs);
+				value = Math.max(value, weight(v, w) + table[rest & ~ (1 << w)]);
+			}
+			table[S] = value;
+		}
+		return table;
+	}
+
+	private void search(long S, long acc, int depth) {
+		if (deadline != null && deadline.tick(1)) {
+			cut = true;
+			return;
+		}
+		if (S == 0) {
+			record(acc, depth);
+			return;
+		}
+		if (prune(S, acc, best, enumerate) || (dp != null && ! enumerate && ! found.isEmpty())) {
+			return;
+		}
+		int v = Long.numberOfTrailingZeros(S);
+		long rest = S & ~ (1L << v);
+		long open = adj[v] & rest;
+		for (int w : neighbors[v]) {
+			if ((open & (1L << w)) != 0) {
+				pairs[depth] = pair(v, w);
+				search(rest & ~ (1L << w), acc + weight(v, w), depth + 1);
+			}
+		}
+		// finally leave v unmatched
+		search(rest, acc, depth);
+	}
+
+	private void record(long acc, int depth) {
+		if (acc > best) {
+			best = acc;
+			found.clear();
+		}
+		if (acc == best && (enumerate || found.isEmpty())) {
+			found.add(Arrays.copyOf(pairs, depth));
+		}
+	}
+
+	/**
+	 * @param S remaining vertices
+	 * @param acc weight of the matching built so far
+	 * @param incumbent weight of the best matching found so far
+	 * @param keepTies whether matchings tying with the incumbent are still wanted
+	 * @return whether no matching in this branch can be recorded
+	 */
+	boolean prune(long S, long acc, long incumbent, boolean keepTies) {
+		if (incumbent == NO_SOLUTION) {
+			return false;
+		}
+		// the subset table is exact so a branch meeting the optimum is the one being looked for
+		if (dp != null) {
+			return acc + dp[(int) S] < incumbent;
+		}
+		boolean strict = keepTies;
+		// the cheap bound first, the fractional matching only for the branches it can't close
+		long bound = acc + vertexBound(S);
+		if (strict ? bound < incumbent : bound <= incumbent) {
+			return true;
+		}
+		bound = acc + fractionalBound(S);
+		return strict ? bound < incumbent : bound <= incumbent;
+	}
+
+	/**
+	 * Upper bound on the weight of a matching within S. With the subset table the bound is exact, otherwise it is the weight of a maximum fractional
+	 * matching.
+	 */
+	long bound(long S) {
+		return dp != null ? dp[(int) S] : Math.min(vertexBound(S), fractionalBound(S));
+	}
+
+	/**
+	 * Every vertex is given half the weight of its heaviest arc into S, a feasible fractional vertex cover
+	 */
+	private long vertexBound(long S) {
+		long sum = 0;
+		for (long rest = S; rest != 0; rest &= rest - 1) {
+			int v = Long.numberOfTrailingZeros(rest);
+			for (int w : neighbors[v]) {
+				if ((S & (1L << w)) != 0) {
+					sum += weight(v, w);
+					break;
+				}
+			}
+		}
+		// matchings have integer weight so the half can be rounded down
+		return sum / 2;
+	}
+
+	/**
+	 * Weight of a maximum fractional matching within S: half the weight of a maximum matching of the bipartite double cover, where every vertex v has
+	 * a copy v' and every edge vw becomes the edges vw' and wv'. Unlike the vertex bound it is exact on bipartite graphs.
+	 *
+	 * An odd S leaves a vertex exposed in every matching while the fractional matching covers all of S with an odd cycle. For odd S the constraint that
+	 * at most (|S|-1)/2 edges are matched is moved into the objective: for every lambda &gt;= 0 the fractional matching with weights w - lambda plus
+	 * lambda (|S|-1)/2 is a bound as well. It is convex in lambda, a binary search on its slope finds the best one.
+	 */
+	private long fractionalBound(long S) {
+		int k = Long.bitCount(S);
+		int[] vs = new int[k + 1];
+		int count = 0;
+		for (long rest = S; rest != 0; rest &= rest - 1) {
+			vs[ ++ count] = Long.numberOfTrailingZeros(rest);
+		}
+		// doubled bounds, the double cover counts every edge twice
+		long bound = assignment(vs, k, 0);
+		if (k % 2 == 1) {
+			long lo = 0, hi = 0;
+			for (int i = 1; i <= k; i++ ) {
+				for (int j = i + 1; j <= k; j++ ) {
+					hi = Math.max(hi, gain(vs[i], vs[j], 0));
+				}
+			}
+			while (lo < hi) {
+				long mid = (lo + hi) >>> 1;
+				long at = mid * (k - 1) + assignment(vs, k, mid);
+				long next = (mid + 1) * (k - 1) + assignment(vs, k, mid + 1);
+				bound = Math.min(bound, Math.min(at, next));
+				if (next < at) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+		}
+		// matchings have integer weight so the half can be rounded down
+		return bound / 2;
+	}
+
+	/**
+	 * Maximum weight assignment of the double cover of S by the Hungarian method in O(|S|^3) as a minimum cost assignment with cost -gain, pairs that
+	 * are not adjacent cost 0 and stand for unmatched vertices
+	 *
+	 * @param vs vertices of S from index 1 on
+	 * @param k |S|
+	 * @param lambda subtracted from every weight
+	 * @return weight of the assignment, twice the weight of the fractional matching
+	 */
+	private long assignment(int[] vs, int k, long lambda) {
+		long[] u = new long[k + 1], p = new long[k + 1], minv = new long[k + 1];
+		int[] match = new int[k + 1], way = new int[k + 1];
+		boolean[] used = new boolean[k + 1];
+		for (int i = 1; i <= k; i++ ) {
+			match[0] = i;
+			int j0 = 0;
+			Arrays.fill(minv, Long.MAX_VALUE);
+			Arrays.fill(used, false);
+			do {
+				used[j0] = true;
+				int i0 = match[j0], j1 = 0;
+				long delta = Long.MAX_VALUE;
+				for (int j = 1; j <= k; j++ ) {
+					if ( ! used[j]) {
+						long cur = - gain(vs[i0], vs[j], lambda) - u[i0] - p[j];
+						if (cur < minv[j]) {
+							minv[j] = cur;
+							way[j] = j0;
+						}
+						if (minv[j] < delta) {
+							delta = minv[j];
+							j1 = j;
+						}
+					}
+				}
+				for (int j = 0; j <= k; j++ ) {
+					if (used[j]) {
+						u[match[j]] += delta;
+						p[j] -= delta;
+					} else {
+						minv[j] -= delta;
+					}
+				}
+				j0 = j1;
+			} while (match[j0] != 0);
+			do {
+				int j1 = way[j0];
+				match[j0] = match[j1];
+				j0 = j1;
+			} while (j0 != 0);
+		}
+		long sum = 0;
+		for (int j = 1; j <= k; j++ ) {
+			sum += gain(vs[match[j]], vs[j], lambda);
+		}
+		return sum;
+	}
+
+	/**
+	 * @return what matching v and w adds to the weight less lambda, 0 if they are not adjacent or the arc is not worth taking
+	 */
+	private long gain(int v, int w, long lambda) {
+		return (adj[v] & (1L << w)) == 0 ? 0 : Math.max(0, weight(v, w) - lambda);
+	}
+
+	long weight(int v, int w) {
+		return weighted ? arcs[v][w].weight : 1;
+	}
+
+	long fullMask() {
+		return n == Long.SIZE ? - 1L : (1L << n) - 1;
+	}
+
+	int fullSet() {
+		return (1 << n) - 1;
+	}
+
+	static int pair(int v, int w) {
+		return (v << 8) | w;
+	}
+
+	List<Matching> toMatchings(List<int[]> solutions) {
+		List<Matching> matchings = new ArrayList<Matching>(solutions.size());
+		for (int[] solution : solutions) {
+			Matching m = new Matching(G.numVertices());
+			for (int p : solution) {
+				m.add(arcs[p >> 8][p & 0xff]);
+			}
+			matchings.add(m);
+		}
+		return matchings;
+	}
+}
@@ -0,0 +1,87 @@
+package graph.algorithms.matching;
+
+import graph.Edge;
+import graph.MappedGraph;
+import graph.Matching;
+
+/**
+ * Maximum cardinality matching of a graph whose adjacency lives in a memory mapped file, see {@link MappedGraph}. All solver state is kept in
+ * primitive arrays with one entry per vertex while adjacency lists are read from the mapping as the search reaches them.
+ * 
+ * The matching starts greedy, then an {@link EdmondsSearch} is grown from every exposed vertex. A vertex without an augmenting path never gets one
+ * later so every vertex is searched from at most once, and each search only resets the vertices it touched.
+ * 
+ * @author Lincoln
+ */
+public class ExternalMemoryMatching {
+	private static final int		NONE	= EdmondsSearch.NONE;
+	
+	private final MappedGraph		g;
+	private final EdmondsSearch	search;
+	private final int[]					mate;
+	private int									size;
+	
+	public ExternalMemoryMatching(final MappedGraph g) {
+		this.g = g;
+		search = new EdmondsSearch(g.numVertices(), new EdmondsSearch.Adjacency() {
+			@Override
+			public int degree(int v) {
+				return g.degree(v);
+			}
+			
+			@Override
+			public int neighbor(int v, int i) {
+				return g.neighbor(g.first(v) + i);
+			}
+		});
+		mate = search.mate;
+	}
+	
+	/**
+	 * @return a maximum cardinality matching
+	 */
+	public Matching run() {
+		// greedy start reads every adjacency list once, in file order
+		size = search.greedy();
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			if (search.augmentFrom(v)) {
+				size++ ;
+			}
+		}
+		return matching();
+	}
+	
+	/**
+	 * @return number of matched edges
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * @param v vertex index
+	 * @return the vertex matched to {@link v} or -1 if it is exposed
+	 */
+	public int mate(int v) {
+		return mate[v];
+	}
+	
+	/**
+	 * @return the current matching, each pair uses the heaviest arc between its ends
+	 */
+	public Matching matching() {
+		Matching m = new Matching(g.numVertices());
+		for (int v = 0; v < mate.length; v++ ) {
+			if (mate[v] != NONE && v < mate[v]) {
+				int weight = Integer.MIN_VALUE;
+				for (long e = g.first(v); e < g.end(v); e++ ) {
+					if (g.neighbor(e) == mate[v]) {
+						weight = Math.max(weight, g.weight(e));
+					}
+				}
+				m.add(new Edge(v, mate[v], weight));
+			}
+		}
+		return m;
+	}
+}
@@ -0,0 +1,134 @@
+package graph.algorithms.matching;
+
+import graph.algorithms.matching.CompleteGraphMatching.CandidateGenerator;
+import graph.algorithms.matching.CompleteGraphMatching.PairSink;
+import graph.algorithms.matching.CompleteGraphMatching.Pricer;
+import graph.algorithms.matching.CompleteGraphMatching.WeightOracle;
+
+/**
+ * Minimum cost perfect pairing of points under Euclidean distance, solved as a {@link CompleteGraphMatching} without materializing the n^2 pairs.
+ *
+ * Distances are scaled and rounded to integer costs c(i,j) = round(scale * |p_i - p_j|) and the weight of a pair is offset - c(i,j). The offset is
+ * larger than the cost of any alternating path so a maximum weight matching has as many pairs as possible and, among those, least total cost. The k
+ * nearest neighbors of every point are the initial candidates. Pricing uses the cost bound instead of a scan: a pair can only violate
+ * 2w(i,j) &lt;= d_i + d_j if c(i,j) &lt; offset - (d_i + d_min) / 2, so one radius query per point finds every candidate for a violation.
+ * With an odd number of points the exposed point ends with a zero dual, which widens every radius towards a full scan.
+ *
+ * @author Lincoln
+ */
+public class GeometricPairing {
+	private final double[][]						points;
+	private final double								scale;
+	private final long									offset;
+	private final KdTree								tree;
+	private final int										k;
+	private final CompleteGraphMatching	matching;
+
+	/**
+	 * @param points points[i] is the coordinate vector of point i
+	 * @param k number of nearest neighbors proposed per point
+	 * @param scale distances are multiplied by this before rounding to integer costs
+	 */
+	public GeometricPairing(double[][] points, int k, double scale) {
+		this.points = points;
+		this.k = k;
+		this.scale = scale;
+		tree = new KdTree(points);
+
+		// the bounding box diagonal bounds every cost
+		double diagonal2 = 0;
+		for (int d = 0; d < tree.dimension(); d++ ) {
+			double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+			for (double[] p : points) {
+				min = Math.min(min, p[d]);
+				max = Math.max(max, p[d]);
+			}
+			diagonal2 += (max - min) * (max - min);
+		}
+		long maxCost = (long) Math.ceil(scale * Math.sqrt(diagonal2)) + 1;
+		if (maxCost > Long.MAX_VALUE / 4 / Math.max(points.length, 1) / Math.max(points.length, 1)) {
+			throw new RuntimeException("costs too large for " + points.length + " points, lower the scale");
+		}
+		offset = maxCost * Math.max(points.length, 1) + 1;
+
+		matching = new CompleteGraphMatching(points.length, new WeightOracle() {
+			@Override
+			public long weight(int i, int j) {
+				return offset - cost(i, j);
+			}
+		}, new CandidateGenerator() {
+			@Override
+			public int[] candidates(int v) {
+				return tree.nearest(v, GeometricPairing.this.k);
+			}
+		}, new Pricer() {
+			@Override
+			public void price(long[] duals, WeightOracle oracle, PairSink sink) {
+				long dMin = Long.MAX_VALUE;
+				for (long d : duals) {
+					dMin = Math.min(dMin, d);
+				}
+				for (int i = 0; i < duals.length; i++ ) {
+					// round(scale * dist) < bound needs scale * dist < bound + 1/2
+					double bound = offset - (duals[i] + dMin) / 2.0;
+					if (bound <= 0) {
+						continue;
+					}
+					for (int j : tree.within(GeometricPairing.this.points[i], (bound + 1) / GeometricPairing.this.scale)) {
+						if (j > i && 2 * oracle.weight(i, j) > duals[i] + duals[j]) {
+							sink.add(i, j);
+						}
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return scaled and rounded distance between two points
+	 */
+	public long cost(int i, int j) {
+		double sum = 0;
+		for (int d = 0; d < points[i].length; d++ ) {
+			double delta = points[i][d] - points[j][d];
+			sum += delta * delta;
+		}
+		return Math.round(scale * Math.sqrt(sum));
+	}
+
+	/**
+	 * Pair the points, certified optimal once the pricing rounds end
+	 */
+	public void run() {
+		matching.run();
+	}
+
+	/**
+	 * @param v point index
+	 * @return the point paired with {@link v}, -1 for the odd one out
+	 */
+	public int mate(int v) {
+		return matching.mate(v);
+	}
+
+	/**
+	 * @return total scaled cost of the pairing
+	 */
+	public long cost() {
+		long total = 0;
+		for (int v = 0; v < points.length; v++ ) {
+			int w = mate(v);
+			if (w > v) {
+				total += cost(v, w);
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * @return the complete graph matching underneath, for rounds and candidate counts
+	 */
+	public CompleteGraphMatching matching() {
+		return matching;
+	}
+}
@@ -0,0 +1,127 @@
+package graph.algorithms.matching;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import graph.Edge;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.ConnectedComponents.Component;
+
+/**
+ * Splits the vertices of a graph into k balanced parts with a breadth first growing heuristic: vertices are numbered in breadth first order (arcs are
+ * treated as undirected) and consecutive runs of ceil(n/k) vertices form a part. Neighbors end up close in the order, which keeps the number of cut
+ * arcs low on graphs with locality, and the whole split is linear in the size of the graph.
+ *
+ * @author Lincoln
+ */
+public class GraphPartition {
+	private final WeightedDigraph		g;
+	private final int								numParts;
+	/** part of every vertex */
+	private final int[]							part;
+	/** index of every vertex within its part */
+	private final int[]							local;
+	private final List<Component>		parts;
+	private int											cutArcs;
+
+	/**
+	 * @param g graph to split
+	 * @param numParts number of parts k, at least 1
+	 */
+	public GraphPartition(WeightedDigraph g, int numParts) {
+		if (numParts < 1) {
+			throw new RuntimeException("a graph needs at least one part");
+		}
+		this.g = g;
+		this.numParts = numParts;
+		int n = g.numVertices();
+		part = new int[n];
+		local = new int[n];
+
+		// breadth first order over all components
+		UndirectedAdjacency adjacency = new UndirectedAdjacency(g);
+		int[] order = new int[n];
+		boolean[] seen = new boolean[n];
+		int tail = 0;
+		for (int s = 0; s < n; s++ ) {
+			if ( ! seen[s]) {
+				tail = adjacency.breadthFirst(s, seen, order, tail);
+			}
+		}
+
+		int partSize = Math.max(1, (n + numParts - 1) / numParts);
+		int[] sizes = new int[numParts];
+		for (int ii = 0; ii < n; ii++ ) {
+			int v = order[ii];
+			part[v] = Math.min(ii / partSize, numParts - 1);
+			local[v] = sizes[part[v]]++ ;
+		}
+
+		int[][] ids = new int[numParts][];
+		for (int p = 0; p < numParts; p++ ) {
+			ids[p] = new int[sizes[p]];
+		}
+		for (int v = 0; v < n; v++ ) {
+			ids[part[v]][local[v]] = v;
+		}
+		parts = new ArrayList<Component>(numParts);
+		for (int p = 0; p < numParts; p++ ) {
+			parts.add(new Component(new WeightedDigraph(sizes[p]), ids[p]));
+		}
+		for (int v = 0; v < n; v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				if (isCut(e)) {
+					cutArcs++ ;
+				} else {
+					parts.get(part[v]).graph().addEdge(new Edge(local[e.left], local[e.right], e.weight));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param vid vertex id
+	 * @return the part of {@link vid}
+	 */
+	public int part(int vid) {
+		return part[vid];
+	}
+
+	/**
+	 * @param vid vertex id
+	 * @return the id of {@link vid} within its part
+	 */
+	public int localId(int vid) {
+		return local[vid];
+	}
+
+	/**
+	 * @return whether the ends of the arc are in different parts
+	 */
+	public boolean isCut(Edge e) {
+		return part[e.left] != part[e.right];
+	}
+
+	/**
+	 * @param p part index
+	 * @return the arcs inside part {@link p} with its vertices relabelled 0..size-1
+	 */
+	public Component get(int p) {
+		return parts.get(p);
+	}
+
+	public int numParts() {
+		return numParts;
+	}
+
+	/**
+	 * @return number of arcs between different parts
+	 */
+	public int cutArcs() {
+		return cutArcs;
+	}
+
+	public WeightedDigraph graph() {
+		return g;
+	}
+}
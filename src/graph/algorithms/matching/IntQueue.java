@@ -0,0 +1,120 @@
+package graph.algorithms.matching;
+
+import java.util.Arrays;
+
+/**
+ * FIFO queue of non-negative int ids in a growable ring buffer. A bitset records which ids are queued so membership tests are O(1) and an id is queued
+ * at most once. Removing an id from the middle only clears its bit, the stale entry is skipped when it reaches the head.
+ * 
+ * @author Lincoln
+ */
+public class IntQueue {
+	public static final int	NONE	= - 1;
+	
+	private int[]						ring;
+	/** number of entries ever added and polled, positions in the ring are taken modulo its length */
+	private int							head, tail;
+	private int							size;
+	private long[]					queued;
+	/** tail position at which each queued id was added, tells the live entry of an id from stale ones */
+	private int[]						position;
+	
+	/**
+	 * @param capacity expected number of distinct ids, the queue grows beyond it
+	 */
+	public IntQueue(int capacity) {
+		int length = 16;
+		while (length < capacity) {
+			length <<= 1;
+		}
+		ring = new int[length];
+		queued = new long[(capacity >> 6) + 1];
+		position = new int[Math.max(capacity, 1)];
+	}
+	
+	/**
+	 * Append an id unless it is already queued
+	 * 
+	 * @param id non-negative id
+	 * @return whether the id was added
+	 */
+	public boolean add(int id) {
+		if (contains(id)) {
+			return false;
+		}
+		if (id >= position.length) {
+			position = Arrays.copyOf(position, Math.max(id + 1, position.length * 2));
+			queued = Arrays.copyOf(queued, (position.length >> 6) + 1);
+		}
+		if (tail - head == ring.length) {
+			grow();
+		}
+		ring[tail & (ring.length - 1)] = id;
+		position[id] = tail;
+		queued[id >> 6] |= 1L << id;
+		tail++ ;
+		size++ ;
+		return true;
+	}
+	
+	private void grow() {
+		int[] larger = new int[ring.length * 2];
+		for (int ii = head; ii != tail; ii++ ) {
+			larger[ii & (larger.length - 1)] = ring[ii & (ring.length - 1)];
+		}
+		ring = larger;
+	}
+	
+	/**
+	 * @return the oldest queued id or {@link #NONE} if the queue is empty
+	 */
+	public int poll() {
+		while (head != tail) {
+			int p = head++ ;
+			int id = ring[p & (ring.length - 1)];
+			if (contains(id) && position[id] == p) {
+				queued[id >> 6] &= ~ (1L << id);
+				size-- ;
+				return id;
+			}
+		}
+		return NONE;
+	}
+	
+	public boolean contains(int id) {
+		return id >= 0 && (id >> 6) < queued.length && (queued[id >> 6] & (1L << id)) != 0;
+	}
+	
+	/**
+	 * Remove a queued id wherever it is in the queue
+	 * 
+	 * @return whether the id was queued
+	 */
+	public boolean remove(int id) {
+		if ( ! contains(id)) {
+			return false;
+		}
+		queued[id >> 6] &= ~ (1L << id);
+		size-- ;
+		return true;
+	}
+	
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Empty the queue, linear in the number of entries still in the ring
+	 */
+	public void clear() {
+		for (int ii = head; ii != tail; ii++ ) {
+			int id = ring[ii & (ring.length - 1)];
+			queued[id >> 6] &= ~ (1L << id);
+		}
+		head = tail = size = 0;
+	}
+}
@@ -0,0 +1,264 @@
+package graph.algorithms.matching;
+
+import java.util.Arrays;
+
+/**
+ * Static k-d tree over points of any dimension for nearest neighbor and fixed radius queries. The tree is implicit: the points are permuted so the
+ * median of every range [lo,hi) sits at (lo+hi)/2 and splits it along the dimension of widest spread, small ranges are scanned linearly.
+ *
+ * @author Lincoln
+ */
+public class KdTree {
+	/** ranges up to this size are not split further */
+	private static final int		LEAF	= 8;
+
+	private final double[][]		points;
+	private final int						dim;
+	/** point indices in tree order */
+	private final int[]					order;
+	/** split dimension of the range whose median sits at each position */
+	private final byte[]				split;
+
+	/**
+	 * @param points points[i] is the coordinate vector of point i, all of the same length
+	 */
+	public KdTree(double[][] points) {
+		this.points = points;
+		dim = points.length == 0 ? 0 : points[0].length;
+		if (dim > Byte.MAX_VALUE) {
+			throw new RuntimeException("at most " + Byte.MAX_VALUE + " dimensions supported");
+		}
+		order = new int[points.length];
+		for (int ii = 0; ii < order.length; ii++ ) {
+			if (points[ii].length != dim) {
+				throw new RuntimeException("point " + ii + " has " + points[ii].length + " coordinates, expected " + dim);
+			}
+			order[ii] = ii;
+		}
+		split = new byte[points.length];
+		build(0, points.length);
+	}
+
+	private void build(int lo, int hi) {
+		while (hi - lo > LEAF) {
+			int d = widest(lo, hi);
+			int mid = (lo + hi) >>> 1;
+			select(lo, hi, mid, d);
+			split[mid] = (byte) d;
+			// recurse into the smaller half so the stack stays logarithmic
+			if (mid - lo < hi - mid - 1) {
+				build(lo, mid);
+				lo = mid + 1;
+			} else {
+				build(mid + 1, hi);
+				hi = mid;
+			}
+		}
+	}
+
+	private int widest(int lo, int hi) {
+		int best = 0;
+		double bestSpread = - 1;
+		for (int d = 0; d < dim; d++ ) {
+			double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+			for (int ii = lo; ii < hi; ii++ ) {
+				double x = points[order[ii]][d];
+				min = Math.min(min, x);
+				max = Math.max(max, x);
+			}
+			if (max - min > bestSpread) {
+				bestSpread = max - min;
+				best = d;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Quickselect on order[lo..hi) so order[k] holds the k-th smallest coordinate d
+	 */
+	private void select(int lo, int hi, int k, int d) {
+		hi-- ;
+		while (lo < hi) {
+			double pivot = points[order[(lo + hi) >>> 1]][d];
+			int i = lo, j = hi;
+			while (i <= j) {
+				while (points[order[i]][d] < pivot) {
+					i++ ;
+				}
+				while (points[order[j]][d] > pivot) {
+					j-- ;
+				}
+				if (i <= j) {
+					int swap = order[i];
+					order[i++ ] = order[j];
+					order[j-- ] = swap;
+				}
+			}
+			if (k <= j) {
+				hi = j;
+			} else if (k >= i) {
+				lo = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private double distance2(int p, double[] q) {
+		double sum = 0;
+		for (int d = 0; d < dim; d++ ) {
+			double delta = points[p][d] - q[d];
+			sum += delta * delta;
+		}
+		return sum;
+	}
+
+	/**
+	 * @param p point index
+	 * @param k number of neighbors
+	 * @return the (at most) k points closest to point {@link p}, {@link p} itself excluded, nearest first
+	 */
+	public int[] nearest(int p, int k) {
+		k = Math.min(k, points.length - 1);
+		if (k <= 0) {
+			return new int[0];
+		}
+		// max-heap on distance holding the best k found so far
+		int[] heap = new int[k];
+		double[] heapDist = new double[k];
+		int size = nearest(0, points.length, points[p], p, heap, heapDist, 0);
+		int[] sorted = new int[size];
+		for (int ii = size - 1; ii >= 0; ii-- ) {
+			sorted[ii] = heap[0];
+			heap[0] = heap[ii];
+			heapDist[0] = heapDist[ii];
+			siftDown(heap, heapDist, 0, ii);
+		}
+		return sorted;
+	}
+
+	private int nearest(int lo, int hi, double[] q, int exclude, int[] heap, double[] heapDist, int size) {
+		if (hi - lo <= LEAF) {
+			for (int ii = lo; ii < hi; ii++ ) {
+				size = offer(order[ii], q, exclude, heap, heapDist, size);
+			}
+			return size;
+		}
+		int mid = (lo + hi) >>> 1;
+		int d = split[mid];
+		double delta = q[d] - points[order[mid]][d];
+		size = offer(order[mid], q, exclude, heap, heapDist, size);
+		if (delta < 0) {
+			size = nearest(lo, mid, q, exclude, heap, heapDist, size);
+			if (size < heap.length || delta * delta < heapDist[0]) {
+				size = nearest(mid + 1, hi, q, exclude, heap, heapDist, size);
+			}
+		} else {
+			size = nearest(mid + 1, hi, q, exclude, heap, heapDist, size);
+			if (size < heap.length || delta * delta < heapDist[0]) {
+				size = nearest(lo, mid, q, exclude, heap, heapDist, size);
+			}
+		}
+		return size;
+	}
+
+	private int offer(int p, double[] q, int exclude, int[] heap, double[] heapDist, int size) {
+		if (p == exclude) {
+			return size;
+		}
+		double dist = distance2(p, q);
+		if (size < heap.length) {
+			// sift up
+			int ii = size++ ;
+			while (ii > 0 && heapDist[(ii - 1) / 2] < dist) {
+				heap[ii] = heap[(ii - 1) / 2];
+				heapDist[ii] = heapDist[(ii - 1) / 2];
+				ii = (ii - 1) / 2;
+			}
+			heap[ii] = p;
+			heapDist[ii] = dist;
+		} else if (dist < heapDist[0]) {
+			heap[0] = p;
+			heapDist[0] = dist;
+			siftDown(heap, heapDist, 0, size);
+		}
+		return size;
+	}
+
+	private static void siftDown(int[] heap, double[] heapDist, int ii, int size) {
+		int p = heap[ii];
+		double dist = heapDist[ii];
+		while (2 * ii + 1 < size) {
+			int child = 2 * ii + 1;
+			if (child + 1 < size && heapDist[child + 1] > heapDist[child]) {
+				child++ ;
+			}
+			if (heapDist[child] <= dist) {
+				break;
+			}
+			heap[ii] = heap[child];
+			heapDist[ii] = heapDist[child];
+			ii = child;
+		}
+		heap[ii] = p;
+		heapDist[ii] = dist;
+	}
+
+	/**
+	 * @param q query point
+	 * @param radius search radius
+	 * @return every point at distance at most {@link radius} from {@link q} in no particular order
+	 */
+	public int[] within(double[] q, double radius) {
+		Hits hits = new Hits();
+		within(0, points.length, q, radius * radius, hits);
+		return Arrays.copyOf(hits.ids, hits.size);
+	}
+
+	/**
+	 * Output of a radius query, grown as needed
+	 */
+	private static class Hits {
+		int[]	ids	= new int[8];
+		int		size;
+
+		void add(int p) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, 2 * size);
+			}
+			ids[size++ ] = p;
+		}
+	}
+
+	private void within(int lo, int hi, double[] q, double radius2, Hits hits) {
+		if (hi - lo <= LEAF) {
+			for (int ii = lo; ii < hi; ii++ ) {
+				if (distance2(order[ii], q) <= radius2) {
+					hits.add(order[ii]);
+				}
+			}
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		int d = split[mid];
+		double delta = q[d] - points[order[mid]][d];
+		if (distance2(order[mid], q) <= radius2) {
+			hits.add(order[mid]);
+		}
+		if (delta <= 0 || delta * delta <= radius2) {
+			within(lo, mid, q, radius2, hits);
+		}
+		if (delta >= 0 || delta * delta <= radius2) {
+			within(mid + 1, hi, q, radius2, hits);
+		}
+	}
+
+	public int size() {
+		return points.length;
+	}
+
+	public int dimension() {
+		return dim;
+	}
+}
@@ -0,0 +1,249 @@
+package graph.algorithms.matching;
+
+import graph.Matching;
+import graph.WeightedDigraph;
+
+/**
+ * The matching solvers behind one interface, for callers that pick a solver by name. Every engine has a fixed {@link #code()} that stands for it
+ * outside the process, codes of removed engines are not given out again.
+ * 
+ * @author Lincoln
+ */
+public enum MatchingEngine {
+	/** {@link MinMatchingAlg}, not exact since it fails on some nested blossoms */
+	MIN_MATCHING(0, false, false, Integer.MAX_VALUE) {
+		@Override
+		public Matching solve(WeightedDigraph g) {
+			MinMatchingAlg mma = new MinMatchingAlg(g);
+			mma.run();
+			return mma.matching();
+		}
+		
+		@Override
+		public DeadlineResult solve(WeightedDigraph g, Deadline deadline) {
+			return new MinMatchingAlg(g).run(deadline);
+		}
+	},
+	/** {@link ExactMaxWeightedMatching} for maximum weight */
+	EXACT_WEIGHTED(1, true, true, ExactMaxWeightedMatching.MAX_VERTICES) {
+		@Override
+		public Matching solve(WeightedDigraph g) {
+			return new ExactMaxWeightedMatching(g).runWeighted();
+		}
+		
+		@Override
+		public DeadlineResult solve(WeightedDigraph g, Deadline deadline) {
+			return new ExactMaxWeightedMatching(g).run(true, deadline);
+		}
+	},
+	/** {@link ExactMaxWeightedMatching} for maximum cardinality */
+	EXACT_CARDINALITY(2, false, true, ExactMaxWeightedMatching.MAX_VERTICES) {
+		@Override
+		public Matching solve(WeightedDigraph g) {
+			return new ExactMaxWeightedMatching(g).runUnweighted();
+		}
+		
+		@Override
+		public DeadlineResult solve(WeightedDigraph g, Deadline deadline) {
+			return new ExactMaxWeightedMatching(g).run(false, deadline);
+		}
+	},
+	/** {@link ComponentMatching} for maximum weight */
+	COMPONENT_WEIGHTED(3, true, true, Integer.MAX_VALUE) {
+		@Override
+		public Matching solve(WeightedDigraph g) {
+			return new ComponentMatching(g, true).run();
+		}
+		
+		@Override
+		public DeadlineResult solve(WeightedDigraph g, Deadline deadline) {
+			return new ComponentMatching(g, true).run(deadline);
+		}
+	},
+	/** {@link ComponentMatching} for maximum cardinality */
+	COMPONENT_CARDINALITY(4, false, true, Integer.MAX_VALUE) {
+		@Override
+		public Matching solve(WeightedDigraph g) {
+			return new ComponentMatching(g, false).run();
+		}
+		
+		@Override
+		public DeadlineResult solve(WeightedDigraph g, Deadline deadline) {
+			return new ComponentMatching(g, false).run(deadline);
+		}
+	},
+	/** {@link DynamicMatching} */
+	DYNAMIC(5, false, true, Integer.MAX_VALUE) {
+		@Override
+		public Matching solve(WeightedDigraph g) {
+			return new DynamicMatching(g).matching();
+		}
+		
+		@Override
+		public DeadlineResult solve(WeightedDigraph g, Deadline deadline) {
+			DynamicMatching dm = new DynamicMatching(g, null, deadline);
+			return new DeadlineResult(dm.matching(), dm.timedOut(), dm.gap(), null);
+		}
+	},
+	/** {@link PartitionedMatching} over one part per core */
+	PARTITIONED(6, false, true, Integer.MAX_VALUE) {
+		@Override
+		public Matching solve(WeightedDigraph g) {
+			return new PartitionedMatching(g, false, Runtime.getRuntime().availableProcessors()).run();
+		}
+		
+		@Override
+		public DeadlineResult solve(WeightedDigraph g, Deadline deadline) {
+			return new PartitionedMatching(g, false, Runtime.getRuntime().availableProcessors()).run(deadline);
+		}
+	},
+	/** greedy {@link StreamingMatching}, at least half the maximum cardinality */
+	STREAMING_GREEDY(7, false, false, Integer.MAX_VALUE) {
+		@Override
+		public Matching solve(WeightedDigraph g) {
+			StreamingMatching sm = new StreamingMatching(g.numVertices());
+			for (int v = 0; v < g.numVertices(); v++ ) {
+				sm.addAll(g.eOuts(v).iterator());
+			}
+			return sm.matching();
+		}
+	},
+	/** stack based {@link StreamingMatching}, a (1/2 - epsilon) approximation of the maximum weight */
+	STREAMING_WEIGHTED(8, true, false, Integer.MAX_VALUE) {
+		@Override
+		public Matching solve(WeightedDigraph g) {
+			StreamingMatching sm = new StreamingMatching(g.numVertices(), STREAMING_EPSILON);
+			for (int v = 0; v < g.numVertices(); v++ ) {
+				sm.addAll(g.eOuts(v).iterator());
+			}
+			return sm.matching();
+		}
+	},
+	/** {@link PrimalDualMatching}, exact maximum weight with long arithmetic */
+	PRIMAL_DUAL(9, true, true, Integer.MAX_VALUE) {
+		@Override
+		public Matching solve(WeightedDigraph g) {
+			return new PrimalDualMatching(g).run();
+		}
+		
+		@Override
+		public DeadlineResult solve(WeightedDigraph g, Deadline deadline) {
+			return new PrimalDualMatching(g).run(deadline);
+		}
+	},
+	/** {@link BipartiteMatching}, fails on graphs with an odd cycle */
+	BIPARTITE(10, false, true, Integer.MAX_VALUE) {
+		@Override
+		public Matching solve(WeightedDigraph g) {
+			return new BipartiteMatching(g).run();
+		}
+		
+		@Override
+		public DeadlineResult solve(WeightedDigraph g, Deadline deadline) {
+			return new BipartiteMatching(g).run(deadline);
+		}
+	},
+	/** {@link AutoMatching} for maximum cardinality */
+	AUTO_CARDINALITY(11, false, true, Integer.MAX_VALUE) {
+		@Override
+		public Matching solve(WeightedDigraph g) {
+			return new AutoMatching(false).solve(g).matching;
+		}
+		
+		@Override
+		public DeadlineResult solve(WeightedDigraph g, Deadline deadline) {
+			AutoMatching.Result r = new AutoMatching(false).solve(g, deadline);
+			return new DeadlineResult(r.matching, r.timedOut, r.gap, null);
+		}
+	},
+	/** {@link AutoMatching} for maximum weight */
+	AUTO_WEIGHTED(12, true, true, Integer.MAX_VALUE) {
+		@Override
+		public Matching solve(WeightedDigraph g) {
+			return new AutoMatching(true).solve(g).matching;
+		}
+		
+		@Override
+		public DeadlineResult solve(WeightedDigraph g, Deadline deadline) {
+			AutoMatching.Result r = new AutoMatching(true).solve(g, deadline);
+			return new DeadlineResult(r.matching, r.timedOut, r.gap, null);
+		}
+	};
+	
+	static final float		STREAMING_EPSILON	= 0.1f;
+	
+	private final byte		code;
+	private final boolean	weighted;
+	private final boolean	exact;
+	private final int			maxVertices;
+	
+	private MatchingEngine(int code, boolean weighted, boolean exact, int maxVertices) {
+		this.code = (byte) code;
+		this.weighted = weighted;
+		this.exact = exact;
+		this.maxVertices = maxVertices;
+	}
+	
+	/**
+	 * @param g graph to match, it is not modified
+	 * @return the matching found by the engine
+	 */
+	public abstract Matching solve(WeightedDigraph g);
+	
+	/**
+	 * Solve under a deadline. The exact engines and {@link #MIN_MATCHING} poll it as they go and return the best matching so far with a bound on the
+	 * gap, the automatic engines pass it on. The streaming engines only check it before they start and return an empty matching with an unbounded gap
+	 * if it already passed.
+	 * 
+	 * @param g graph to match, it is not modified
+	 * @param deadline when to give up
+	 * @return the matching and whether the deadline cut it short
+	 */
+	public DeadlineResult solve(WeightedDigraph g, Deadline deadline) {
+		if (deadline.expired()) {
+			return new DeadlineResult(new Matching(g.numVertices()), true, Double.POSITIVE_INFINITY, null);
+		}
+		return new DeadlineResult(solve(g), false, 0, null);
+	}
+	
+	/**
+	 * @return the id of the engine on the wire, it never changes when engines are added, reordered or removed
+	 */
+	public byte code() {
+		return code;
+	}
+	
+	/**
+	 * @param code id of an engine, see {@link #code()}
+	 * @return the engine with that id
+	 */
+	public static MatchingEngine forCode(int code) {
+		for (MatchingEngine engine : values()) {
+			if (engine.code == code) {
+				return engine;
+			}
+		}
+		throw new RuntimeException("unknown engine " + code);
+	}
+	
+	/**
+	 * @return whether the engine maximizes weight rather than cardinality
+	 */
+	public boolean weighted() {
+		return weighted;
+	}
+	
+	/**
+	 * @return whether the result is optimal, otherwise it is an approximation
+	 */
+	public boolean exact() {
+		return exact;
+	}
+	
+	/**
+	 * @return whether the engine can solve graphs with {@link numVertices} vertices
+	 */
+	public boolean accepts(int numVertices) {
+		return numVertices <= maxVertices;
+	}
+}
@@ -0,0 +1,284 @@
+package graph.algorithms.matching;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import graph.Edge;
+import graph.Matching;
+import graph.WeightedDigraph;
+
+/**
+ * Shrinks a graph with degree one and degree two reduction rules before it is handed to an exact solver, the steps are recorded so a matching of the
+ * kernel can be lifted back to a matching of the original graph.
+ * <ul>
+ * <li>a vertex without neighbors is dropped</li>
+ * <li>a pendant vertex v with neighbor u is matched to u. For weighted matching this is only done when (v,u) is the heaviest arc at u</li>
+ * <li>for cardinality matching a degree two vertex v with neighbors u and w is folded: v, u and w are replaced by a new vertex adjacent to the
+ * neighbors of u and w. The matching of the folded graph is one smaller than the matching of the graph before the fold (Karp-Sipser, Chen et al.)</li>
+ * </ul>
+ *
+ * @author Lincoln
+ */
+public class MatchingKernel {
+	private static final int										UNMATCHED	= - 1;
+
+	private final WeightedDigraph								g;
+	private final boolean												weighted;
+	/** neighbors and arc weight of every vertex, vertices created by folds are appended */
+	private final List<Map<Integer, Integer>>		adj;
+	private final List<Boolean>									alive;
+	private final ArrayDeque<Integer>						work;
+	/** reductions in the order they were applied */
+	private final List<Step>										steps;
+	private int																	pendants, folds;
+
+	private WeightedDigraph											kernel;
+	/** kernel vertex to vertex id, ids beyond the original graph are folded vertices */
+	private int[]																kernelIds;
+
+	/**
+	 * A pendant match or a fold
+	 */
+	private static class Step {
+		final int				v, u, w, folded;
+		final Set<Integer>	uNeighbors;
+
+		/** pendant v matched to u */
+		Step(int v, int u) {
+			this(v, u, UNMATCHED, UNMATCHED, null);
+		}
+
+		/** v with neighbors u and w folded into folded */
+		Step(int v, int u, int w, int folded, Set<Integer> uNeighbors) {
+			this.v = v;
+			this.u = u;
+			this.w = w;
+			this.folded = folded;
+			this.uNeighbors = uNeighbors;
+		}
+
+		boolean isFold() {
+			return folded != UNMATCHED;
+		}
+	}
+
+	/**
+	 * @param g graph to reduce
+	 * @param weighted whether the kernel will be solved for maximum weight, this restricts the reductions to those preserving the weight
+	 */
+	public MatchingKernel(WeightedDigraph g, boolean weighted) {
+		this.g = g;
+		this.weighted = weighted;
+		int n = g.numVertices();
+		adj = new ArrayList<Map<Integer, Integer>>(n);
+		alive = new ArrayList<Boolean>(n);
+		for (int v = 0; v < n; v++ ) {
+			adj.add(new HashMap<Integer, Integer>());
+			alive.add(g.vertex(v) != null);
+		}
+		for (int v = 0; v < n; v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				if ( ! e.isLoop()) {
+					connect(e.left, e.right, e.weight);
+				}
+			}
+		}
+		work = new ArrayDeque<Integer>();
+		steps = new ArrayList<Step>();
+		reduce();
+		buildKernel();
+	}
+
+	private void connect(int v, int w, int weight) {
+		Integer old = adj.get(v).get(w);
+		if (old == null || old < weight) {
+			adj.get(v).put(w, weight);
+			adj.get(w).put(v, weight);
+		}
+	}
+
+	private void reduce() {
+		for (int v = 0; v < adj.size(); v++ ) {
+			if (alive.get(v) && degree(v) <= 2) {
+				work.add(v);
+			}
+		}
+		while ( ! work.isEmpty()) {
+			int v = work.poll();
+			if ( ! alive.get(v)) {
+				continue;
+			}
+			switch( degree(v) ) {
+				case 0:
+					remove(v);
+					break;
+				case 1:
+					int u = adj.get(v).keySet().iterator().next();
+					if ( ! weighted || adj.get(v).get(u) >= heaviest(u)) {
+						steps.add(new Step(v, u));
+						pendants++ ;
+						remove(v);
+						remove(u);
+					}
+					break;
+				case 2:
+					if ( ! weighted) {
+						fold(v);
+					}
+					break;
+			}
+		}
+	}
+
+	private void fold(int v) {
+		Integer[] nbrs = adj.get(v).keySet().toArray(new Integer[2]);
+		int u = nbrs[0], w = nbrs[1];
+		int x = adj.size();
+		Set<Integer> uNeighbors = new HashSet<Integer>(adj.get(u).keySet());
+		Map<Integer, Integer> xNeighbors = new HashMap<Integer, Integer>(adj.get(u));
+		xNeighbors.putAll(adj.get(w));
+		xNeighbors.remove(v);
+		xNeighbors.remove(u);
+		xNeighbors.remove(w);
+
+		steps.add(new Step(v, u, w, x, uNeighbors));
+		folds++ ;
+		remove(v);
+		remove(u);
+		remove(w);
+		adj.add(new HashMap<Integer, Integer>());
+		alive.add(true);
+		for (int y : xNeighbors.keySet()) {
+			connect(x, y, 1);
+		}
+		work.add(x);
+	}
+
+	/**
+	 * Remove a vertex queuing the neighbors that may have become reducible
+	 */
+	private void remove(int v) {
+		alive.set(v, false);
+		for (int y : adj.get(v).keySet()) {
+			adj.get(y).remove(v);
+			if (degree(y) <= 2) {
+				work.add(y);
+			}
+			if (weighted) {
+				// a lighter pendant arc at y may now be the heaviest
+				for (int z : adj.get(y).keySet()) {
+					if (degree(z) == 1) {
+						work.add(z);
+					}
+				}
+			}
+		}
+		adj.get(v).clear();
+	}
+
+	private int degree(int v) {
+		return adj.get(v).size();
+	}
+
+	private int heaviest(int u) {
+		int max = Integer.MIN_VALUE;
+		for (int weight : adj.get(u).values()) {
+			max = Math.max(max, weight);
+		}
+		return max;
+	}
+
+	private void buildKernel() {
+		int[] kernelIndex = new int[adj.size()];
+		int count = 0;
+		for (int v = 0; v < adj.size(); v++ ) {
+			kernelIndex[v] = alive.get(v) ? count++ : UNMATCHED;
+		}
+		kernel = new WeightedDigraph(count);
+		kernelIds = new int[count];
+		for (int v = 0; v < adj.size(); v++ ) {
+			if (kernelIndex[v] != UNMATCHED) {
+				kernelIds[kernelIndex[v]] = v;
+				for (Map.Entry<Integer, Integer> arc : adj.get(v).entrySet()) {
+					kernel.addEdge(new Edge(kernelIndex[v], kernelIndex[arc.getKey()], arc.getValue()));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the part of the graph the reductions could not resolve, both arcs of every edge are present
+	 */
+	public WeightedDigraph kernel() {
+		return kernel;
+	}
+
+	/**
+	 * Undo the reductions on a matching of the kernel
+	 *
+	 * @param kernelMatching matching of {@link #kernel()}
+	 * @return matching of the original graph
+	 */
+	public Matching lift(Matching kernelMatching) {
+		int[] mate = new int[adj.size()];
+		Arrays.fill(mate, UNMATCHED);
+		for (int k = 0; k < kernelIds.length; k++ ) {
+			if (kernelMatching.isMatched(k)) {
+				mate[kernelIds[k]] = kernelIds[kernelMatching.mate(k)];
+			}
+		}
+
+		// later folds contain vertices of earlier ones so the steps are undone in reverse
+		for (int ii = steps.size() - 1; ii >= 0; ii-- ) {
+			Step s = steps.get(ii);
+			if ( ! s.isFold()) {
+				pair(mate, s.v, s.u);
+			} else {
+				int y = mate[s.folded];
+				if (y == UNMATCHED) {
+					pair(mate, s.v, s.u);
+				} else if (s.uNeighbors.contains(y)) {
+					pair(mate, y, s.u);
+					pair(mate, s.v, s.w);
+				} else {
+					pair(mate, y, s.w);
+					pair(mate, s.v, s.u);
+				}
+				mate[s.folded] = UNMATCHED;
+			}
+		}
+
+		Matching m = new Matching(g.numVertices());
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			if (mate[v] != UNMATCHED && v < mate[v]) {
+				m.add(g.heaviestArc(v, mate[v]));
+			}
+		}
+		return m;
+	}
+
+	private static void pair(int[] mate, int v, int w) {
+		mate[v] = w;
+		mate[w] = v;
+	}
+
+	/**
+	 * @return number of pendant vertices matched by the reductions
+	 */
+	public int pendants() {
+		return pendants;
+	}
+
+	/**
+	 * @return number of degree two folds
+	 */
+	public int folds() {
+		return folds;
+	}
+}
@@ -5,34 +5,41 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.prefs.BackingStoreException;
 
 import javax.management.RuntimeErrorException;
 
+import graph.ArcArrays;
 import graph.Blossom;
 import graph.Edge;
 import graph.Matching;
+import graph.MatchingListener;
 import graph.Vertex;
 import graph.WeightedDigraph;
 
 public class MaxWeightedMatching {
-	private final WeightedDigraph												G;
+	private WeightedDigraph															G;
 	//private final WeightedDigraph												G_j;
-	private final float[]																u;
-	private final float[]																gamma;
-	private final Matching															X;
-	private float																				A;
-	private final int[]																	S, T;
-	private final Queue<Integer>												unscanned;
+	/** node duals u_i times 2, half integral duals stay exact */
+	private long[]																			u;
+	/** blossom duals gamma_k times 4 */
+	private long[]																			gamma;
+	private Matching																		X;
+	/** dual step times 4, so the half of an odd doubled slack stays exact */
+	private long																				A;
+	private int[]																				S, T;
+	private final IntQueue															unscanned;
 	private int																					currentIndex;
 	private int[]																				b;
 	private final HashMap<Integer, LinkedList<Blossom>>	blossoms;
 	private final HashMap<Integer, Blossom>							outerBlossoms;
 	private final List<Integer>													forwPath, backPath;
-	private static final int														INF			= Integer.MAX_VALUE;
+	private static final long														INF			= Long.MAX_VALUE;
 	private static final int														EMPTY		= - 1;
 	private static final int														UNUSED	= - 1;
 	
@@ -40,30 +47,118 @@ public class MaxWeightedMatching {
 		s0, s1_0, s1_1, s1_2, s1_3, s2, s3, s4, Done
 	};
 	
+	private static final String[]	STEP_NAMES;
+	static {
+		Step[] steps = Step.values();
+		STEP_NAMES = new String[steps.length];
+		for (int ii = 0; ii < steps.length; ii++ ) {
+			STEP_NAMES[ii] = steps[ii].name();
+		}
+	}
+	
 	private Step	lastStep;
-	private final int[]	blossomIndices;
+	private int[]	blossomIndices;
+	
+	/** counters and step timers of the last run */
+	private SolverStats	stats;
+	/** notified of solver events, may be null */
+	private MatchingListener	listener;
+	private int	stage;
+	
+	/** primitive copy of the arcs of G for the dual kernels */
+	private ArcArrays	arcs;
 	
 	public MaxWeightedMatching(WeightedDigraph g) {
-		G = g;
-		u = new float[g.numVertices() / 2];
-		gamma = new float[g.numVertices()];
-		S = new int[g.numVertices()];
-		T = new int[g.numVertices()];
 		//G_j = new WeightedDigraph(g.numVertices() / 2);
-		X = new Matching(g.numVertices() / 2);
-		unscanned = (Queue<Integer>) new LinkedList<Integer>();
+		unscanned = new IntQueue(g.numVertices());
 		blossoms = new HashMap<Integer, LinkedList<Blossom>>(g.numVertices());
 		outerBlossoms = new HashMap<Integer, Blossom>(g.numVertices());
 		forwPath = new ArrayList<Integer>();
 		backPath = new ArrayList<Integer>();
-		blossomIndices = new int[g.numVertices()/2];
+		reset(g);
 	}
 	
-	public void run() {
+	/**
+	 * Reuse this instance for another graph. The node arrays only grow, solving many small graphs in a row with one instance does not reallocate
+	 * them. The matching of the previous solve is left untouched, a new one is started.
+	 * 
+	 * @param g graph to match
+	 */
+	public void reset(WeightedDigraph g) {
+		int n = g.numVertices();
+		G = g;
+		if (u == null || u.length < n) {
+			u = new long[n];
+			gamma = new long[n];
+			S = new int[n];
+			T = new int[n];
+			blossomIndices = new int[n / 2];
+		} else {
+			Arrays.fill(gamma, 0, n, 0);
+			Arrays.fill(S, 0, n, 0);
+			Arrays.fill(T, 0, n, 0);
+			Arrays.fill(blossomIndices, 0, n / 2, 0);
+		}
+		X = new Matching(n);
+		if (listener != null) {
+			X.setListener(listener);
+		}
+		unscanned.clear();
+		blossoms.clear();
+		outerBlossoms.clear();
+		forwPath.clear();
+		backPath.clear();
+		A = 0;
+		currentIndex = 0;
+		lastStep = null;
+		stage = 0;
+		stats = null;
+		arcs = null;
+	}
+	
+	public SolverStats run() {
+		solve(null);
+		return stats;
+	}
+	
+	/**
+	 * @param timeout time budget of the solve
+	 * @param unit unit of {@link timeout}
+	 * @return see {@link #run(Deadline)}
+	 */
+	public DeadlineResult run(long timeout, TimeUnit unit) {
+		return run(Deadline.after(timeout, unit));
+	}
+	
+	/**
+	 * Run until the matching is optimal or the deadline passes. The deadline is checked between steps, X only changes by augmentation and the duals
+	 * stay feasible after every step so the solve can stop at any of them.
+	 * 
+	 * @param deadline when to give up
+	 * @return the matching, whether it timed out and the gap between the dual objective and the weight of the matching
+	 */
+	public DeadlineResult run(Deadline deadline) {
+		if (solve(deadline)) {
+			return new DeadlineResult(X, false, 0, stats);
+		}
+		return new DeadlineResult(X, true, Math.max(0, dualObjective() - X.weight()), stats);
+	}
+	
+	/**
+	 * @return whether the solve finished, false if the deadline passed first
+	 */
+	private boolean solve(Deadline deadline) {
+		stats = new SolverStats(STEP_NAMES);
+		stats.solves = 1;
 		Step nextStep = Step.s0;
 		Step currentStep;
 		while (nextStep != Step.Done) {
+			// the duals are only meaningful once step 0 set them
+			if (deadline != null && nextStep != Step.s0 && deadline.tick(1)) {
+				return false;
+			}
 			currentStep = nextStep;
+			long start = System.nanoTime();
 			switch( nextStep ) {
 				case s0:
 					nextStep = step0();
@@ -90,9 +185,39 @@ public class MaxWeightedMatching {
 					nextStep = step4();
 					break;
 			}
+			stats.time(currentStep.ordinal(), System.nanoTime() - start);
 			lastStep = currentStep;
 		}
-		
+		return true;
+	}
+	
+	/**
+	 * Upper bound on the weight of any matching: sum of u_i over vertices with arcs plus gamma_k * floor(|B_k|/2) over the blossoms
+	 */
+	private double dualObjective() {
+		// four times the bound, exact
+		long bound = 0;
+		for (int i = 0; i < G.numVertices(); i++ ) {
+			if (G.eOuts(i).size() > 0) {
+				bound += 2 * u[i];
+			}
+		}
+		Set<Blossom> seen = Collections.newSetFromMap(new IdentityHashMap<Blossom, Boolean>());
+		for (LinkedList<Blossom> list : blossoms.values()) {
+			for (Blossom bl : list) {
+				if (seen.add(bl)) {
+					bound += gamma(bl) * (bl.vertices().size() / 2);
+				}
+			}
+		}
+		return bound / 4.0;
+	}
+	
+	/**
+	 * @return counters and step timers of the last run
+	 */
+	public SolverStats stats() {
+		return stats;
 	}
 	
 	private Step step0() {
@@ -101,21 +226,48 @@ public class MaxWeightedMatching {
 		// Set mu_i = 1/2*max {w_ij}, for each node i in N.
 		// Set A = +inf.
 		// Set X = {empty}. There are no blossoms and no nodes are labeled.
-		int max = 0;
-		for (Vertex v : G.vertices()) {
-			int possibleMax = max(G.eOuts(v));
-			if (max < possibleMax) {
-				max = possibleMax;
-			}
-		}
-		Arrays.fill(u, max / 2);
+		arcs = new ArcArrays(G);
+		int max = DualKernels.maxWeight(arcs);
+		// u_i = max/2, exact for an odd max
+		Arrays.fill(u, 0, G.numVertices(), max);
 		X.clear();
 		A = INF;
 		
 		return Step.s1_0;
 	}
 	
+	/**
+	 * @return the node duals u. Duals above 2^24 are rounded, see {@link #scaledDuals()}
+	 */
+	public float[] duals() {
+		float[] duals = new float[G.numVertices()];
+		for (int i = 0; i < duals.length; i++ ) {
+			duals[i] = u[i] / 2f;
+		}
+		return duals;
+	}
+	
+	/**
+	 * @return the node duals u times 2, exact
+	 */
+	public long[] scaledDuals() {
+		return Arrays.copyOf(u, G.numVertices());
+	}
+	
+	/**
+	 * @param listener notified of solver events and matching conflicts, null to detach
+	 */
+	public void setListener(MatchingListener listener) {
+		this.listener = listener;
+		X.setListener(listener);
+	}
+	
 	private Step step1_0() {
+		if (listener != null) {
+			listener.onStageStart(stage, - 1);
+		}
+		stage++ ;
+		stats.stages++ ;
 		// Apply the label S:{empty} to each exposed node
 		for (Vertex v : G.vertices()) {
 			if ( ! X.isMatched(v)) {
@@ -158,6 +310,7 @@ public class MaxWeightedMatching {
 		// If node b(j) is unlabeled and Whij > 0, set A == min {A, Wij/2} .
 		// When the scanning of node i is complete, return to Step 1.1.
 		List<Edge> arcs = G.eOuts(currentIndex);
+		stats.arcsScanned += arcs.size();
 		for (Edge arc : arcs) {
 			int i = arc.left;
 			int j = arc.right;
@@ -178,7 +331,8 @@ public class MaxWeightedMatching {
 						}
 					} else if (whij(arc) > 0) {
 						// If node b(j) has an S-label and Whij > 0, set A = min {A, Whij/2 } .
-						A = Math.min(A, whij(arc) / 2);
+						// A is kept times 4, Whij/2 times 4 is the doubled slack itself
+						A = Math.min(A, whij(arc));
 					} else {
 						assert false : "whij should not return negative";
 					}
@@ -188,7 +342,7 @@ public class MaxWeightedMatching {
 						label(b[j], T, i, j);
 					} else if (whij(arc) > 0) {
 						// If node b(j) is unlabeled and Whij > 0, set A == min {A, Wij/2} .
-						A = Math.min(A, whij(arc) / 2);
+						A = Math.min(A, whij(arc));
 					} else {
 						assert false : "whij should not return negative";
 					}
@@ -210,10 +364,13 @@ public class MaxWeightedMatching {
 		array[index] = i | (j << 16);
 	}
 	
-	private float whij(Edge arc) {
+	/**
+	 * @return twice the slack of {@link arc}, exact
+	 */
+	private long whij(Edge arc) {
 		// Whij is used to represent
 		// ui + uj - wij
-		return u[arc.left] + u[arc.right] - arc.weight;
+		return u[arc.left] + u[arc.right] - 2L * arc.weight;
 	}
 	
 	private Step step1_3() {
@@ -230,6 +387,7 @@ public class MaxWeightedMatching {
 		
 		// for the unique arc (i, j) in X and incident to node i.
 		List<Edge> arcs = G.eOuts(currentIndex);
+		stats.arcsScanned += arcs.size();
 		for (Edge arc : arcs) {
 			int i = arc.left;
 			int j = arc.right;
@@ -317,6 +475,14 @@ public class MaxWeightedMatching {
 		// determine path by reversing one of the traversal paths and combining them to create
 		// the full augmentingPath
 		List<Integer> augPath = determineAugPath(forwPath, backPath);
+		stats.augmented(augPath.size());
+		if (listener != null) {
+			int[] path = new int[augPath.size()];
+			for (int k = 0; k < path.length; k++ ) {
+				path[k] = augPath.get(k);
+			}
+			listener.onAugment(path);
+		}
 		
 		// foreach vertex v in path
 		// if isBlossomRoot(v)
@@ -432,6 +598,10 @@ public class MaxWeightedMatching {
 		}
 		
 		blossomIndices[bl.ref()] = UNUSED;
+		stats.blossomsExpanded++ ;
+		if (listener != null) {
+			listener.onBlossomExpand(bl.id());
+		}
 	}
 	
 	private List<Blossom> outerBlossoms() {
@@ -518,7 +688,10 @@ public class MaxWeightedMatching {
 		array[i] = EMPTY;
 	}
 	
-	private float gamma(Blossom b) {
+	/**
+	 * @return gamma_k times 4
+	 */
+	private long gamma(Blossom b) {
 		return gamma[b.ref()];
 	}
 	
@@ -532,10 +705,15 @@ public class MaxWeightedMatching {
 	}
 	
 	private Step step4() {
+		stats.dualAdjustments++ ;
 		// TODO Auto-generated method stub
 		throw new RuntimeException("Unimplemented");
 	}
 	
+	public Matching matching() {
+		return X;
+	}
+	
 	private boolean hasTlabel(int i) {
 		return T[i] != EMPTY;
 	}
@@ -543,14 +721,4 @@ public class MaxWeightedMatching {
 	private boolean hasSlabel(int i) {
 		return S[i] != EMPTY;
 	}
-	
-	private int max(List<Edge> edges) {
-		int max = Integer.MIN_VALUE;
-		for (Edge e : edges) {
-			if (e.weight > max) {
-				max = e.weight;
-			}
-		}
-		return max;
-	}
 }
@@ -0,0 +1,61 @@
+package graph.algorithms.matching;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * In process stand-in for a network transport between workers. Every worker has a mailbox, sends never block and receives block until a message
+ * arrives.
+ *
+ * @author Lincoln
+ * @param <M> message type
+ */
+public class MessageBus<M> {
+	private final List<BlockingQueue<M>>	mailboxes;
+	private long													sent;
+
+	/**
+	 * @param numWorkers workers are addressed 0..numWorkers-1
+	 */
+	public MessageBus(int numWorkers) {
+		mailboxes = new ArrayList<BlockingQueue<M>>(numWorkers);
+		for (int ii = 0; ii < numWorkers; ii++ ) {
+			mailboxes.add(new LinkedBlockingQueue<M>());
+		}
+	}
+
+	/**
+	 * @param to receiving worker
+	 * @param message
+	 */
+	public void send(int to, M message) {
+		mailboxes.get(to).add(message);
+		synchronized (this) {
+			sent++ ;
+		}
+	}
+
+	/**
+	 * Wait for the next message of a worker
+	 *
+	 * @param worker receiving worker
+	 * @return the oldest message in the mailbox
+	 * @throws InterruptedException
+	 */
+	public M receive(int worker) throws InterruptedException {
+		return mailboxes.get(worker).take();
+	}
+
+	/**
+	 * @return number of messages sent so far
+	 */
+	public synchronized long sent() {
+		return sent;
+	}
+
+	public int numWorkers() {
+		return mailboxes.size();
+	}
+}
@@ -1,5 +1,9 @@
 package graph.algorithms.matching;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -10,12 +14,15 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Queue;
+import java.util.concurrent.TimeUnit;
 
 import javax.management.RuntimeErrorException;
 
+import graph.BinaryGraphFormat;
 import graph.Blossom;
 import graph.Edge;
 import graph.Matching;
+import graph.MatchingListener;
 import graph.Vertex;
 import graph.WeightedDigraph;
 
@@ -26,87 +33,224 @@ import graph.WeightedDigraph;
  */
 public class MinMatchingAlg {
 	private static final int								NOT_AN_INDEX	= - 1;
+	/** timed steps, see {@link SolverStats} */
+	private static final int								AUXILIARY			= 0;
+	private static final int								SEARCH				= 1;
+	private static final int								BLOSSOM				= 2;
+	private static final int								AUGMENT				= 3;
 	/** Matching storage */
 	// private final int[] mate;
-	private final Matching									matching;
+	private Matching												matching;
 	/** Exposed Vertices */
-	private final int[]											exposed;
+	private int[]														exposed;
 	/** */
-	private final int[]											label;
+	private int[]														label;
+	/** number of vertex and blossom ids of the current graph, the arrays may be longer after a {@link #reset(WeightedDigraph)} */
+	private int															size;
 	
 	// private final int[] blossom; //stores vertices blossom correspondence
 	
 	// private final HashMap<Integer, LinkedList<Integer>> blossoms;
 	private final HashMap<Integer, Blossom>	blossoms;
 	
-	private final boolean[]									marked;							// used for additional searches
+	private boolean[]												marked;							// used for additional searches
 																																
 	/** Original Graph **/
-	private final WeightedDigraph						gOrig;
+	private WeightedDigraph									gOrig;
 	
 	/** The auxiliary digraph **/
 	// private WeightedDigraph A;
 	private final List<Edge>								A;
 	
 	/** Vertex search queue **/
-	private final LinkedList<Integer>				Q;
-	private final boolean[]									seen;								// keep track of visited vertices
+	private final IntQueue									Q;
+	private boolean[]												seen;								// keep track of visited vertices
 	private int															largestBlossom;
 	
-	private boolean													debug					= true; // turn on debug printing
+	private MatchingListener								listener;						// notified of search events, may be null
+	private int															stage;
+	/** counters and step timers of the last run */
+	private SolverStats											stats;
+	/** pairs the blossoms of the current stage took out of the matching, put back when a deadline cuts the stage short */
+	private final List<Edge>								unmatchedInStage		= new ArrayList<Edge>();
+	/** takes snapshots at stage boundaries, may be null */
+	private Checkpointer										checkpointer;
+	/** vertex the next run starts its stages at, set by {@link #resume(DataInput)} */
+	private int															resumeVertex;
 																																
 	/**
 	 * @param g graph to find the minimal matching of
-	 * @param m initial matching
 	 */
 	public MinMatchingAlg(WeightedDigraph g) {
+		this(g, new Matching(g.numVertices()));
+	}
+	
+	/**
+	 * Start from an existing matching instead of the empty one. The matching is used (and modified) in place, pairs that are not arcs of {@link g} are
+	 * dropped first.
+	 * 
+	 * @param g graph to find the minimal matching of
+	 * @param m initial matching
+	 */
+	public MinMatchingAlg(WeightedDigraph g, Matching m) {
 		int graphSzWithMaxBlossoms = g.numVertices() * 2;
-		// mate = new int[graphSzWithMaxBlossoms];
-		matching = new Matching(g.numVertices());
-		exposed = new int[graphSzWithMaxBlossoms];
-		seen = new boolean[graphSzWithMaxBlossoms];
-		label = new int[graphSzWithMaxBlossoms];
-		// blossom = new int[graphSzWithMaxBlossoms];
-		marked = new boolean[graphSzWithMaxBlossoms];
 		A = new ArrayList<Edge>(graphSzWithMaxBlossoms);
 		// blossoms = new HashMap<Integer,LinkedList<Integer>>(graphSzWithMaxBlossoms);
 		blossoms = new HashMap<Integer, Blossom>(graphSzWithMaxBlossoms);
-		largestBlossom = g.numVertices() - 1;
-		
 		// A = new HashSet<Edge>(g.numVertices());
-		Q = new LinkedList<Integer>();
+		Q = new IntQueue(graphSzWithMaxBlossoms);
+		reset(g, m);
+	}
+	
+	/**
+	 * Reuse this instance for another graph. The work arrays only grow, solving many small graphs in a row with one instance does not reallocate them.
+	 * 
+	 * @param g graph to find the minimal matching of
+	 */
+	public void reset(WeightedDigraph g) {
+		reset(g, new Matching(g.numVertices()));
+	}
+	
+	/**
+	 * Reuse this instance for another graph starting from an existing matching, see {@link #MinMatchingAlg(WeightedDigraph, Matching)}
+	 * 
+	 * @param g graph to find the minimal matching of
+	 * @param m initial matching
+	 */
+	public void reset(WeightedDigraph g, Matching m) {
+		int graphSzWithMaxBlossoms = g.numVertices() * 2;
+		// mate = new int[graphSzWithMaxBlossoms];
+		if (m.numVertices() < g.numVertices()) {
+			throw new RuntimeException("initial matching is smaller than the graph");
+		}
+		matching = m;
+		for (int v = 0; v < m.numVertices(); v++ ) {
+			int w = m.mate(v);
+			if (m.isMatched(v) && (v >= g.numVertices() || w >= g.numVertices() || g.heaviestArc(v, w) == null)) {
+				m.remove(v);
+			}
+		}
+		size = graphSzWithMaxBlossoms;
+		if (exposed == null || exposed.length < size) {
+			exposed = new int[size];
+			seen = new boolean[size];
+			label = new int[size];
+			// blossom = new int[graphSzWithMaxBlossoms];
+			marked = new boolean[size];
+		}
+		A.clear();
+		blossoms.clear();
+		Q.clear();
+		largestBlossom = g.numVertices() - 1;
 		gOrig = g;
+		stage = 0;
+		stats = null;
+		unmatchedInStage.clear();
+		resumeVertex = 0;
+		if (listener != null) {
+			matching.setListener(listener);
+		}
+	}
+	
+	public SolverStats run() {
+		solve(null);
+		return stats;
+	}
+	
+	/**
+	 * @param timeout time budget of the solve
+	 * @param unit unit of {@link timeout}
+	 * @return see {@link #run(Deadline)}
+	 */
+	public DeadlineResult run(long timeout, TimeUnit unit) {
+		return run(Deadline.after(timeout, unit));
+	}
+	
+	/**
+	 * Run until the matching is maximum or the deadline passes. The deadline is checked while arcs are scanned, a stage that is cut short is
+	 * discarded so the result is the matching as of the last augmentation.
+	 * 
+	 * @param deadline when to give up
+	 * @return the matching, whether it timed out and the number of augmentations that may still be missing
+	 */
+	public DeadlineResult run(Deadline deadline) {
+		int stoppedAt = solve(deadline);
+		if (stoppedAt == NOT_AN_INDEX) {
+			return new DeadlineResult(matching, false, 0, stats);
+		}
+		
+		// every augmenting path ends in an exposed vertex that was not searched yet, and pairs two exposed vertices
+		int exposedVertices = 0, unsearched = 0;
+		for (int v = 0; v < gOrig.numVertices(); v++ ) {
+			if ( ! matching.isMatched(v) && gOrig.eOuts(v).size() > 0) {
+				exposedVertices++ ;
+				if (v >= stoppedAt) {
+					unsearched++ ;
+				}
+			}
+		}
+		return new DeadlineResult(matching, true, Math.min(unsearched, exposedVertices / 2), stats);
 	}
 	
-	public void run() {
+	/**
+	 * @param deadline when to give up, null to run to the end
+	 * @return the vertex whose stage was cut short by the deadline or NOT_AN_INDEX if the run finished
+	 */
+	private int solve(Deadline deadline) {
+		stats = new SolverStats("auxiliary", "search", "blossom", "augment");
+		stats.solves = 1;
+		long runStart = System.nanoTime();
+		int stoppedAt = NOT_AN_INDEX;
+		int first = resumeVertex;
+		resumeVertex = 0;
+		
 		// for all v in V initialize mate and exposed to NOT_AN_INDEX
 		// Arrays.fill(mate, NOT_AN_INDEX);
-		Arrays.fill(label, NOT_AN_INDEX);
+		Arrays.fill(label, 0, size, NOT_AN_INDEX);
 		
 		// while there is a u in V with considered[u]=0 and mate[u]=0 do
-		stage: for (int u = 0; u < gOrig.numVertices(); u++ ) {
+		stage: for (int u = first; u < gOrig.numVertices(); u++ ) {
 			// if(mate[u] == NOT_AN_INDEX){
 			if (gOrig.vertex(u) == null) {
 				continue;
 			}
 			if (matching.matches() == gOrig.numVertices() / 2) {
 				// we are done
-				return;
+				break;
+			}
+			if (deadline != null && deadline.expired()) {
+				stoppedAt = u;
+				break;
 			}
-			System.out.print(String.format("considering vertex u%d\n", u));
 			if ( ! matching.isMatched(u)) {
+				unmatchedInStage.clear();
+				if (checkpointer != null && checkpointer.due()) {
+					checkpointer.submit(checkpoint(u));
+				}
+				if (listener != null) {
+					listener.onStageStart(stage, u);
+				}
+				stage++ ;
+				stats.stages++ ;
+				long auxStart = System.nanoTime();
 				
 				// considered[u]=1,A={empty}
 				// A = new WeightedDigraph(gOrig.numVertices()/2);
 				A.clear();
 				
 				// forall v in V do exposed[v]=0
-				Arrays.fill(exposed, NOT_AN_INDEX);
+				Arrays.fill(exposed, 0, size, NOT_AN_INDEX);
 				
 				// Construct the auxiliary digraph
 				
 				// for all (v,w) in E do
 				for (int v = 0; v < gOrig.numVertices(); v++ ) {
+					stats.arcsScanned += gOrig.eOuts(v).size();
+					if (deadline != null && deadline.tick(gOrig.eOuts(v).size())) {
+						stoppedAt = u;
+						rollBackStage();
+						break stage;
+					}
 					for (Edge e : gOrig.eOuts(v)) {
 						int w = e.right;
 						assert e.left == v : "vertex correspondence is wrong";
@@ -129,28 +273,33 @@ public class MinMatchingAlg {
 						}
 					}
 				}
-				DEBUG(String.format("Exposed vertices={%s}\n", printExposed()));
+				stats.time(AUXILIARY, System.nanoTime() - auxStart);
 				if (exposed().size() == 0) {
 					continue;
 				}
 				
 				// forall v in V do seen[v]=0
-				Arrays.fill(seen, false);
+				Arrays.fill(seen, 0, size, false);
 				
 				// Q={u}; label[u]=0; if exposed[u]!=0 then augment(u), goto stage;
 				Q.clear();
 				Q.add(u);
-				Arrays.fill(label, NOT_AN_INDEX);// unsure whether it was meant to clear label or just unset label[u] OLD_CODE=label[u] = NOT_AN_INDEX;
+				Arrays.fill(label, 0, size, NOT_AN_INDEX);// unsure whether it was meant to clear label or just unset label[u] OLD_CODE=label[u] = NOT_AN_INDEX;
 				if (isExposed(u)) {
 					augment(u);
-					DEBUG(String.format("new matching %s\n", matching.toString()));
 					continue;
 				}
 				// need to figure out how to handle blossom()
 				
 				// while Q != {empty} do
 				while ( ! Q.isEmpty()) {
-					int v = Q.pop();
+					int v = Q.poll();
+					stats.arcsScanned += A.size();
+					if (deadline != null && deadline.tick(A.size())) {
+						stoppedAt = u;
+						rollBackStage();
+						break stage;
+					}
 					
 					// forall unlabeled nodes w in V such that (v,w) in A
 					for (Edge e : A) {
@@ -159,7 +308,7 @@ public class MinMatchingAlg {
 							
 							// Q=union(Q,w), label[w]=v
 							if ( ! Q.contains(w)) {
-								Q.offer(w);
+								Q.add(w);
 							}else{
 								continue; ///THIS CONTINUE WAS ADDED LATE AT NIGHT
 							}
@@ -170,12 +319,13 @@ public class MinMatchingAlg {
 								int mate = findMate(w);
 								seen[mate] = true;
 							}catch(Exception err){
-								DEBUG(String.format("error marking mate of %d as seen, mate not found\n", w));
+								if (listener != null) {
+									listener.onWarning(String.format("error marking mate of %d as seen, mate not found", w));
+								}
 							}
 							// if exposed[w]!=0 then augment(w) goto stage;
 							if (isExposed(w)) {
 								augment(w);
-								DEBUG(String.format("new matching %s\n", matching.toString()));
 								continue stage;
 							}
 							
@@ -190,11 +340,76 @@ public class MinMatchingAlg {
 				}
 			}
 		}
+		// search is whatever the other steps did not take
+		stats.time(SEARCH, System.nanoTime() - runStart - stats.getTotalNanos());
+		return stoppedAt;
+	}
+	
+	/**
+	 * @return counters and step timers of the last run
+	 */
+	public SolverStats stats() {
+		return stats;
+	}
+	
+	/**
+	 * @param checkpointer takes snapshots at the start of stages, null to stop taking them
+	 */
+	public void setCheckpointer(Checkpointer checkpointer) {
+		this.checkpointer = checkpointer;
+	}
+	
+	/**
+	 * State at the start of the stage of {@link u}: the matching and the blossoms left by earlier stages. Labels are rebuilt by every stage and are
+	 * not stored.
+	 */
+	private byte[] checkpoint(int u) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			Checkpointer.writeHeader(out, Checkpointer.MIN_MATCHING, gOrig);
+			out.writeInt(u);
+			out.writeInt(stage);
+			out.writeInt(largestBlossom);
+			BinaryGraphFormat.write(matching, gOrig, out);
+			out.writeInt(blossoms.size());
+			for (Blossom b : blossoms.values()) {
+				Checkpointer.writeBlossom(out, b);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("cannot write snapshot to memory", e);
+		}
+		return bytes.toByteArray();
+	}
+	
+	/**
+	 * Restore a snapshot taken by a {@link Checkpointer} on the same graph, the next run continues with the stage the snapshot was taken at. A vertex
+	 * that had no augmenting path when its stage ran never gets one later, so the stages before it are not repeated.
+	 * 
+	 * @param in snapshot, see {@link Checkpointer#open(java.io.File)}
+	 * @throws IOException if the snapshot is corrupt or was taken on another graph
+	 */
+	public void resume(DataInput in) throws IOException {
+		Checkpointer.readHeader(in, Checkpointer.MIN_MATCHING, gOrig);
+		int u = in.readInt(), stageCount = in.readInt(), largest = in.readInt();
+		if (u < 0 || u > gOrig.numVertices() || largest < gOrig.numVertices() - 1 || largest > maxBlossomId()) {
+			throw new IOException(String.format("bad snapshot: stage vertex %d, largest blossom %d", u, largest));
+		}
+		Checkpointer.readMatching(in, matching, gOrig);
+		blossoms.clear();
+		int numBlossoms = in.readInt();
+		for (int ii = 0; ii < numBlossoms; ii++ ) {
+			Blossom b = Checkpointer.readBlossom(in);
+			blossoms.put(b.id(), b);
+		}
+		resumeVertex = u;
+		stage = stageCount;
+		largestBlossom = largest;
 	}
 	
 	private List<Integer> exposed() {
 		List<Integer> expList = new LinkedList<Integer>();
-		for (int ii = 0; ii < exposed.length; ii++ ) {
+		for (int ii = 0; ii < size; ii++ ) {
 			if (isExposed(ii)) {
 				expList.add(ii);
 			}
@@ -202,19 +417,6 @@ public class MinMatchingAlg {
 		return expList;
 	}
 	
-	private String printExposed() {
-		StringBuffer p = new StringBuffer();
-		for (int exp : exposed()) {
-			p.append(exp);
-			p.append(",");
-		}
-		if (p.length() > 0) {
-			return p.substring(0, p.length() - 1);
-		} else {
-			return "";
-		}
-	}
-	
 	/**
 	 * @param ii
 	 * @return
@@ -224,12 +426,12 @@ public class MinMatchingAlg {
 	}
 	
 	private void blossom(int v) {
-		
+		long start = System.nanoTime();
 		LinkedList<Integer> cycle = new LinkedList<Integer>();
 		
 		// create a new blossom
 		int blossomId = nextAvailableBlossom();
-		Arrays.fill(marked, false);
+		Arrays.fill(marked, 0, size, false);
 		List<Integer> fix = new ArrayList<Integer>();
 		// find the basis of the blossom adding all of the nodes on the way into the blossom correspondence
 		// this can be done by backtracking the label array until the first common node is found between the two paths
@@ -286,7 +488,7 @@ public class MinMatchingAlg {
 		
 		for (int id : fix) {
 			label[id] = NOT_AN_INDEX;
-			Q.remove((Integer) id);
+			Q.remove(id);
 			relabel(id, blossomId);
 		}
 		
@@ -302,7 +504,11 @@ public class MinMatchingAlg {
 		
 		//remove the valid edges in b from the matching to avoid issues
 		fixMatching(b);
-		DEBUG(String.format("Blossom added : %s\n", b.toString()));
+		if (listener != null) {
+			listener.onBlossomShrink(blossomId, root, cycle.size());
+		}
+		stats.blossomsShrunk++ ;
+		stats.time(BLOSSOM, System.nanoTime() - start);
 	}
 	
 	private int findMate(int z) {
@@ -357,7 +563,7 @@ public class MinMatchingAlg {
 	 * @param newId
 	 */
 	private void relabel(int oldId, int newId) {
-		for (int ii = 0; ii < label.length; ii++ ) {
+		for (int ii = 0; ii < size; ii++ ) {
 			if (label[ii] == oldId) {
 				// set to blossom id
 				label[ii] = newId;
@@ -382,6 +588,7 @@ public class MinMatchingAlg {
 	}
 	
 	private void augment(int u) {
+		long start = System.nanoTime();
 		int w = exposed[u];
 		int v = u;
 		LinkedList<Integer> augmentingPath = new LinkedList<Integer>();
@@ -413,9 +620,18 @@ public class MinMatchingAlg {
 			v = label[v];
 		}
 		
-		System.out.printf("Augmenting along Path p=%s\n", augmentingPath.toString());
+		if (listener != null) {
+			int[] path = new int[augmentingPath.size()];
+			int k = 0;
+			for (int v1 : augmentingPath) {
+				path[k++ ] = v1;
+			}
+			listener.onAugment(path);
+		}
 		
 		matching.augment(toEdges(augmentingPath));
+		stats.augmented(augmentingPath.size());
+		stats.time(AUGMENT, System.nanoTime() - start);
 	}
 	
 	private boolean isBlossom(int v) {
@@ -492,9 +708,13 @@ public class MinMatchingAlg {
 			if(!isBlossom(e.left) && !isBlossom(e.right)){
 				//if(matching.isMatched(e)){
 				try{
-					matching.remove(e);
+					if (matching.remove(e)) {
+						unmatchedInStage.add(e);
+					}
 				}catch(Exception exc){
-					DEBUG(String.format("Error fixing matching, failed to remove e=%s\n",e.toString()));
+					if (listener != null) {
+						listener.onWarning(String.format("Error fixing matching, failed to remove e=%s", e));
+					}
 				}
 				//}
 			}
@@ -502,9 +722,13 @@ public class MinMatchingAlg {
 		// remove connecting edge of cycle
 		Edge connecting = new Edge(b.cycle().get(0), b.cycle().get(b.cycle().size() - 1));
 		try{
-			matching.remove(connecting);
+			if (matching.remove(connecting)) {
+				unmatchedInStage.add(connecting);
+			}
 		}catch(Exception exc){
-			DEBUG(String.format("Error fixing matching, failed to remove e=%s\n",connecting.toString()));			
+			if (listener != null) {
+				listener.onWarning(String.format("Error fixing matching, failed to remove e=%s", connecting));
+			}
 		}
 		}else{
 			for(int v : b.cycle()){
@@ -515,6 +739,16 @@ public class MinMatchingAlg {
 		}
 	}
 	
+	/**
+	 * Put back the pairs the blossoms of a stage that was cut short took out, the matching is then the one the stage started with
+	 */
+	private void rollBackStage() {
+		for (Edge e : unmatchedInStage) {
+			matching.add(e);
+		}
+		unmatchedInStage.clear();
+	}
+	
 	private List<Edge> toEdges(List<Integer> vertices) {
 		if (vertices.size() < 2) {
 			throw new RuntimeException("vertices size must be 2 or greater to convert to edge list");
@@ -533,7 +767,8 @@ public class MinMatchingAlg {
 	}
 	
 	private int maxBlossomId() {
-		return label.length * 2;
+		// blossom ids index the work arrays
+		return size - 1;
 	}
 	
 	public List<Vertex> O() {
@@ -566,10 +801,11 @@ public class MinMatchingAlg {
 		return matching;
 	}
 	
-	private String DEBUG(String s) {
-		if (debug) {
-			System.out.print(s);
-		}
-		return s;
+	/**
+	 * @param listener notified of search events and matching conflicts, null to detach
+	 */
+	public void setListener(MatchingListener listener) {
+		this.listener = listener;
+		matching.setListener(listener);
 	}
 }
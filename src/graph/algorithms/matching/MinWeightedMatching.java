@@ -6,25 +6,66 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import graph.ArcArrays;
 import graph.Edge;
 import graph.Matching;
+import graph.MatchingListener;
 import graph.Vertex;
 import graph.WeightedDigraph;
 
 public class MinWeightedMatching {
 	private final WeightedDigraph g;
 	private final WeightedDigraph G_j;
-	private final float[] alpha;
-	private final float[] gamma;
+	/** vertex duals alpha_i times 4: they start half integral with mixed parity and delta1 halves their slacks */
+	private final long[] alpha;
+	/** odd set duals gamma_k times 8, the dual step -gamma_k/2 stays exact */
+	private final long[] gamma;
+	/** matching and duals of a previous solve to start from, null for a cold start */
+	private Matching previous;
+	private long[] previousAlpha;
+	private int[] idBuffer = new int[0];
+	/** notified of solver events, may be null */
+	private MatchingListener listener;
+	/** counters and step timers of the last run */
+	private SolverStats stats;
 	
 	public MinWeightedMatching(WeightedDigraph g){
 		this.g = g;
-		alpha = new float[g.numVertices()/2];
-		gamma = new float[g.numVertices()];
+		alpha = new long[g.numVertices()];
+		gamma = new long[g.numVertices()];
 		G_j = new WeightedDigraph(g.numVertices()/2);
 	}
 	
-	public void run(){
+	/**
+	 * Warm start from the result of a previous solve, the duals are lowered where they violate an arc and only previous pairs that are still tight are kept
+	 * @param g graph to match
+	 * @param previous matching of the previous solve
+	 * @param alpha vertex duals of the previous solve, see {@link #duals()}
+	 */
+	public MinWeightedMatching(WeightedDigraph g, Matching previous, float[] alpha){
+		this(g);
+		this.previous = previous;
+		this.previousAlpha = new long[alpha.length];
+		for(int i = 0; i < alpha.length; i++){
+			previousAlpha[i] = Math.round(4.0 * alpha[i]);
+		}
+	}
+	
+	/**
+	 * Warm start without the rounding of float duals, see {@link #MinWeightedMatching(WeightedDigraph, Matching, float[])}
+	 * @param g graph to match
+	 * @param previous matching of the previous solve
+	 * @param scaledAlpha vertex duals times 4 of the previous solve, see {@link #scaledDuals()}
+	 */
+	public MinWeightedMatching(WeightedDigraph g, Matching previous, long[] scaledAlpha){
+		this(g);
+		this.previous = previous;
+		this.previousAlpha = scaledAlpha;
+	}
+	
+	public SolverStats run(){
+		stats = new SolverStats("matching", "duals");
+		stats.solves = 1;
 		//Weighted Matching Algorithm
 		//Input: A n x n matrix [c_ij] for nonnegative integers; n is even 
 		//Output: The complete matching M which has the smallest total cost under c_ij
@@ -32,7 +73,7 @@ public class MinWeightedMatching {
 		//begin
 		//   forall v_i in V do a_i:=.5*min(c_{i j})
 		for(Vertex v : g.vertices()){
-			alpha[v.id()] = min(g.eOuts(v))/2;
+			alpha[v.id()] = 2L * min(g.eOuts(v));
 		}
 		
 		//   forall k do \gamma_k:=0
@@ -40,9 +81,13 @@ public class MinWeightedMatching {
 		
 		//   M:=empty;
 		Matching M = new Matching(g.numVertices());
+		if(previousAlpha != null){
+			warmStart(M);
+		}
 		
 		//create the min matching alg instance that will be used to keep track of the algorithm state in every iteration
 		MinMatchingAlg mma = new MinMatchingAlg(G_j, M);
+		mma.setListener(listener);
 		
 	  //  J_b:=empty; (J_b contains all odd sets S_k with \gamma_k<0)
 		// NOTE: unsure what needs to be done with J_b at this time
@@ -59,7 +104,11 @@ public class MinWeightedMatching {
 			
 		//      	 find the maximum matching in G_J starting from the current matching M; //note M is modified by the alg!
 			
-			mma.run();
+			long start = System.nanoTime();
+			stats.addCounters(mma.run());
+			stats.time(0, System.nanoTime() - start);
+			stats.stages++;
+			start = System.nanoTime();
 			
 		//      	 let G_c be the current graph at the conclusion of the (unweighted) maximum matching algorithm for G_J;
 		//      	 let O be the set of outer vertices in G_c
@@ -76,11 +125,12 @@ public class MinWeightedMatching {
 		
 		//	 calculate for possible candidates:
 		Edge edge1 = null, edge2 = null;
+		//	 all deltas are scaled by 4 like alpha
 		//	 delta1:=.5*min(c_{ij}-\alpha_i-\alpha_j for v_i and  v_j \in O not in the same psuedonode)
-		float delta1 = Integer.MAX_VALUE;
+		long delta1 = Long.MAX_VALUE;
 		for(Vertex v : G_j.vertices()){
 			for(Edge e : G_j.eOuts(v)){
-				float possibleD1 = (e.weight-alpha[e.left] -alpha[e.right])/2;
+				long possibleD1 = DualKernels.halfSlack(alpha, e.left, e.right, e.weight);
 				if(possibleD1 < delta1 && mma.inSamePseudoNode(e)){
 					delta1 = possibleD1;
 					edge1 = e;
@@ -89,10 +139,10 @@ public class MinWeightedMatching {
 		}
 		
 		//	 delta2:=c_{ij}-\alpha_i-\alpha_j for v_i \in O, v_j \in V - I - O
-		float delta2 = Integer.MAX_VALUE;
+		long delta2 = Long.MAX_VALUE;
 		for(Vertex v : O){
 			for(Edge e : G_j.eOuts(v)){
-				float possibleD2 = e.weight-alpha[e.left] -alpha[e.right];
+				long possibleD2 = 4L*e.weight-alpha[e.left] -alpha[e.right];
 				Vertex w = G_j.vertex(e.right);
 				if(possibleD2 < delta2 && !O.contains(w) && !I.contains(w)){
 					delta2 = possibleD2;
@@ -102,10 +152,10 @@ public class MinWeightedMatching {
 		}
 		
 		//	 delta3:=min(-gamma_k/2 forall S_k in Psi_I)
-		float delta3 = Integer.MAX_VALUE;
+		long delta3 = Long.MAX_VALUE;
 		Vertex vertex3 = null;
 		for(Vertex v : Psi_I){
-			float possibleD3 = -gamma[v.id()]/2;
+			long possibleD3 = -gamma[v.id()]/4;
 			if(possibleD3 < delta3){
 				delta3 = possibleD3;
 				vertex3 = v;//record the vertex so the corresponding blossom can be shrunk
@@ -115,7 +165,7 @@ public class MinWeightedMatching {
 		assert vertex3 != null : "Expected delta3 to be assigned atleast once in the loop";
 		
 		//   calculate theta_1=min(delta_1,delta_2,delta_3)
-		final float theta1;
+		final long theta1;
 		Edge minEdge;
 		if(delta1 <= delta2 && delta1 <= delta3){//delta1 is smallest
 			theta1 = delta1;
@@ -129,36 +179,112 @@ public class MinWeightedMatching {
 			theta1 = delta3;
 			// no edge added however the corresponding blossom needs to be expanded!!
 			mma.expandBlossom(vertex3);
+			stats.blossomsExpanded++;
+			if(listener != null){
+				listener.onBlossomExpand(vertex3.id());
+			}
 		}
 		
 		
-		//   forall v_j in O do \alpha_j:=alpha_j+theta_1;
-		for(Vertex v : O){
-			alpha[v.id()] += theta1;
+		if(listener != null){
+			listener.onDualUpdate(theta1);
 		}
+		stats.dualAdjustments++;
+		
+		//   forall v_j in O do \alpha_j:=alpha_j+theta_1;
+		DualKernels.add(alpha, ids(O), O.size(), theta1);
 		
 		//   forall v_j in I do \alpha_j:=alpha_j-theta_1;
-		for(Vertex v : I){
-			alpha[v.id()] -= theta1;
-		}
+		DualKernels.add(alpha, ids(I), I.size(), -theta1);
 		
 		//   forall v_j in Psi_O do \gamma_j:=\gamma_j-2*\theta_1;
-		for(Vertex v : Psi_O){
-			gamma[v.id()] -= theta1*2;//we need to be sure this index is globally unique
-		}
+		DualKernels.add(gamma, ids(Psi_O), Psi_O.size(), -theta1*4);//we need to be sure this index is globally unique
 		
 		//   forall v_j in Psi_I do \gamma_j:=\gamma_j+2*\theta_1;
-		for(Vertex v : Psi_I){
-			gamma[v.id()] += theta1*2;
-		}
+		DualKernels.add(gamma, ids(Psi_I), Psi_I.size(), theta1*4);
 		
 		//   recover the maximum proper matching M of (V,J_e) from the maximum matching of G_J;
 		//   let J_b:=\{S_k \in J_b union Psi_o : \gamma_k < 0 \} 
 		//   end 
 		//end
+		stats.time(1, System.nanoTime() - start);
 		}
+		return stats;
+	}
+	
+	/**
+	 * @return counters and step timers of the last run
+	 */
+	public SolverStats stats(){
+		return stats;
 	}
 
+	/**
+	 * Replace the initial duals and empty matching with those of a previous solve
+	 * @param M matching to fill with the previous pairs that are still tight
+	 */
+	private void warmStart(Matching M){
+		System.arraycopy(previousAlpha, 0, alpha, 0, Math.min(previousAlpha.length, alpha.length));
+		// delta1 halves the slack between outer vertices, it stays exact while the exposed vertices start with duals of the same parity
+		for(int i = 0; i < alpha.length; i++){
+			alpha[i] &= ~1L;
+		}
+		
+		// restore alpha_i + alpha_j <= c_ij by lowering one end of every violated arc
+		DualKernels.lowerToFeasible(alpha, 4, new ArcArrays(g));
+		
+		int numVertices = Math.min(previous.numVertices(), g.numVertices());
+		for(int i = 0; i < numVertices; i++){
+			int j = previous.mate(i);
+			if(previous.isMatched(i) && i < j && j < g.numVertices()){
+				Edge e = g.heaviestArc(i, j);
+				if(e != null && alpha[i] + alpha[j] == 4L*e.weight){
+					M.add(e);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return the vertex duals alpha, can be used to warm start a later solve. Duals above 2^24 are rounded, see {@link #scaledDuals()}
+	 */
+	public float[] duals(){
+		float[] duals = new float[alpha.length];
+		for(int i = 0; i < duals.length; i++){
+			duals[i] = alpha[i]/4f;
+		}
+		return duals;
+	}
+	
+	/**
+	 * @return the vertex duals alpha times 4, exact
+	 */
+	public long[] scaledDuals(){
+		return Arrays.copyOf(alpha, alpha.length);
+	}
+	
+	/**
+	 * @param listener notified of solver events, null to detach
+	 */
+	public void setListener(MatchingListener listener){
+		this.listener = listener;
+	}
+	
+	/**
+	 * Copy the ids of a vertex set into a reused buffer for the dual kernels
+	 * @return the buffer, only the first vertices.size() entries are valid
+	 */
+	private int[] ids(List<Vertex> vertices){
+		if(idBuffer.length < vertices.size()){
+			idBuffer = new int[vertices.size()];
+		}
+		int k = 0;
+		for(Vertex v : vertices){
+			idBuffer[k++] = v.id();
+		}
+		return idBuffer;
+	}
+	
 	private int min(List<Edge> edges) {
 		int min = Integer.MAX_VALUE;
 		for(Edge e : edges){
@@ -0,0 +1,151 @@
+package graph.algorithms.matching;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import graph.Matching;
+import graph.WeightedDigraph;
+
+/**
+ * Fork-join version of {@link ExactMaxWeightedMatching}. The top levels of the search tree are split into tasks which share the weight of the best
+ * matching found so far for pruning, each task collects the optimal matchings of its own branch.
+ *
+ * @author Lincoln
+ */
+public class ParallelExactMaxWeightedMatching extends ExactMaxWeightedMatching {
+	/** Branches with fewer remaining vertices are searched sequentially */
+	private static final int					SEQUENTIAL_VERTICES	= 12;
+	private static final ForkJoinPool	POOL								= new ForkJoinPool();
+
+	private final ForkJoinPool				pool;
+	private AtomicLong								incumbent;
+	private boolean										enumerate;
+	private volatile boolean					solved;
+
+	public ParallelExactMaxWeightedMatching(WeightedDigraph g) {
+		this(g, POOL);
+	}
+
+	public ParallelExactMaxWeightedMatching(WeightedDigraph g, ForkJoinPool pool) {
+		super(g);
+		this.pool = pool;
+	}
+
+	@Override
+	List<Matching> solve(boolean weighted, boolean enumerate) {
+		prepare(weighted);
+		this.enumerate = enumerate;
+		solved = false;
+		incumbent = new AtomicLong(dp != null ? dp[fullSet()] : NO_SOLUTION);
+		Solutions result = pool.invoke(new Branch(fullMask(), 0, new int[0]));
+		return toMatchings(result.found);
+	}
+
+	/**
+	 * The optimal matchings of one branch of the search
+	 */
+	private class Solutions {
+		long					best	= NO_SOLUTION;
+		List<int[]>	found	= new LinkedList<int[]>();
+
+		void record(long acc, int[] pairs, int depth) {
+			if (acc > best) {
+				best = acc;
+				found.clear();
+			}
+			if (acc == best && (enumerate || found.isEmpty())) {
+				found.add(Arrays.copyOf(pairs, depth));
+			}
+			raiseIncumbent(acc);
+			if (dp != null && ! enumerate) {
+				solved = true;
+			}
+		}
+
+		void merge(Solutions other) {
+			if (other.best > best) {
+				best = other.best;
+				found = other.found;
+			} else if (other.best == best && enumerate) {
+				found.addAll(other.found);
+			}
+		}
+	}
+
+	private void raiseIncumbent(long acc) {
+		long current;
+		do {
+			current = incumbent.get();
+		} while (acc > current && ! incumbent.compareAndSet(current, acc));
+	}
+
+	private class Branch extends RecursiveTask<Solutions> {
+		private static final long	serialVersionUID	= 1L;
+		private final long				S;
+		private final long				acc;
+		private final int[]				pairs;
+
+		Branch(long S, long acc, int[] pairs) {
+			this.S = S;
+			this.acc = acc;
+			this.pairs = pairs;
+		}
+
+		@Override
+		protected Solutions compute() {
+			Solutions local = new Solutions();
+			if (Long.bitCount(S) <= SEQUENTIAL_VERTICES) {
+				int[] stack = Arrays.copyOf(pairs, pairs.length + Long.bitCount(S) / 2);
+				search(local, S, acc, stack, pairs.length);
+				return local;
+			}
+			if (S == 0 || prune(S, acc, incumbent.get(), enumerate) || solved) {
+				return local;
+			}
+
+			// one task per choice for the lowest remaining vertex
+			int v = Long.numberOfTrailingZeros(S);
+			long rest = S & ~ (1L << v);
+			long open = adj[v] & rest;
+			List<Branch> branches = new ArrayList<Branch>();
+			for (int w : neighbors[v]) {
+				if ((open & (1L << w)) != 0) {
+					int[] extended = Arrays.copyOf(pairs, pairs.length + 1);
+					extended[pairs.length] = pair(v, w);
+					branches.add(new Branch(rest & ~ (1L << w), acc + weight(v, w), extended));
+				}
+			}
+			branches.add(new Branch(rest, acc, pairs));
+			invokeAll(branches);
+			for (Branch b : branches) {
+				local.merge(b.join());
+			}
+			return local;
+		}
+	}
+
+	private void search(Solutions local, long S, long acc, int[] pairs, int depth) {
+		if (S == 0) {
+			local.record(acc, pairs, depth);
+			return;
+		}
+		if (solved || prune(S, acc, Math.max(incumbent.get(), local.best), enumerate)) {
+			return;
+		}
+		int v = Long.numberOfTrailingZeros(S);
+		long rest = S & ~ (1L << v);
+		long open = adj[v] & rest;
+		for (int w : neighbors[v]) {
+			if ((open & (1L << w)) != 0) {
+				pairs[depth] = pair(v, w);
+				search(local, rest & ~ (1L << w), acc + weight(v, w), pairs, depth + 1);
+			}
+		}
+		search(local, rest, acc, pairs, depth);
+	}
+}
@@ -0,0 +1,303 @@
+package graph.algorithms.matching;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import graph.Edge;
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.ConnectedComponents.Component;
+
+/**
+ * Partition and repair matching: the graph is split into k parts ({@link GraphPartition}), every part is matched by its own worker and the workers then
+ * negotiate cut arcs over a {@link MessageBus}:
+ * <ol>
+ * <li>every exposed vertex proposes its heaviest cut arc to the owner of the other end, only towards parts with a higher index</li>
+ * <li>an owner accepts, heaviest first, proposals to exposed vertices that did not propose themselves, so accepted pairs never conflict</li>
+ * </ol>
+ * For cardinality the stitched matching is then repaired into a maximum matching. Each part is already maximum, so every augmenting path left crosses a
+ * cut arc and each one adds a pair the negotiation missed. The repair grows one search forest from all exposed vertices per such pair, its cost is
+ * bounded by the cut rather than by solving the graph again. For weights the part optima plus the accepted cut arcs are returned along with an upper bound on the optimum,
+ * {@link #upperBound()}.
+ *
+ * @author Lincoln
+ */
+public class PartitionedMatching {
+	private static final int	PROPOSE	= 0;
+	private static final int	DONE		= 1;
+
+	/**
+	 * A message between workers
+	 */
+	private static class Message {
+		final int	type;
+		final int	left, right, weight;
+
+		Message(int type, int left, int right, int weight) {
+			this.type = type;
+			this.left = left;
+			this.right = right;
+			this.weight = weight;
+		}
+	}
+
+	private final WeightedDigraph	g;
+	private final boolean					weighted;
+	private final int							numParts;
+
+	private GraphPartition				partition;
+	private MessageBus<Message>		bus;
+	private Matching							matching;
+	private int										stitched, repaired;
+	private long									partWeight, cutHeaviest;
+	/** whether the deadline cut a part solve or the repair off */
+	private boolean								timedOut;
+
+	/**
+	 * @param g graph to match
+	 * @param weighted maximize weight instead of cardinality
+	 * @param numParts number of parts and worker threads
+	 */
+	public PartitionedMatching(WeightedDigraph g, boolean weighted, int numParts) {
+		this.g = g;
+		this.weighted = weighted;
+		this.numParts = numParts;
+	}
+
+	public Matching run() {
+		return run(null).matching;
+	}
+
+	/**
+	 * @param deadline polled by the part solvers and the repair, null for none
+	 * @return the matching and whether the deadline cut it short. For cardinality the gap bounds the pairs still missing by half the exposed
+	 *         vertices, for weights it is {@link #upperBound()} less the weight of the matching.
+	 */
+	public DeadlineResult run(final Deadline deadline) {
+		partition = new GraphPartition(g, numParts);
+		partWeight = cutHeaviest = 0;
+		repaired = 0;
+		timedOut = false;
+		bus = new MessageBus<Message>(numParts);
+
+		// cut arcs touching each part, both directions
+		final List<List<Edge>> cut = new ArrayList<List<Edge>>(numParts);
+		for (int p = 0; p < numParts; p++ ) {
+			cut.add(new ArrayList<Edge>());
+		}
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				if (partition.isCut(e)) {
+					cut.get(partition.part(e.left)).add(e);
+					cut.get(partition.part(e.right)).add(e);
+				}
+			}
+		}
+
+		// every worker waits on the others so they all need a thread at once
+		ExecutorService workers = Executors.newFixedThreadPool(numParts);
+		CompletionService<List<Edge>> done = new ExecutorCompletionService<List<Edge>>(workers);
+		List<Future<List<Edge>>> results = new ArrayList<Future<List<Edge>>>(numParts);
+		for (int p = 0; p < numParts; p++ ) {
+			final int part = p;
+			results.add(done.submit(new Callable<List<Edge>>() {
+				@Override
+				public List<Edge> call() throws InterruptedException {
+					return work(part, cut.get(part), deadline);
+				}
+			}));
+		}
+		matching = new Matching(g.numVertices());
+		try {
+			// in order of completion, a failed worker never sends DONE so its peers wait until the pool is shut down
+			for (int p = 0; p < numParts; p++ ) {
+				done.take().get();
+			}
+			for (Future<List<Edge>> result : results) {
+				for (Edge e : result.get()) {
+					matching.add(g.heaviestArc(e.left, e.right));
+				}
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException("interrupted while waiting for the workers", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("worker failed", e.getCause());
+		} finally {
+			workers.shutdownNow();
+		}
+		stitched = matching.matches();
+
+		if ( ! weighted) {
+			timedOut = ! repair(deadline);
+		}
+		if ( ! timedOut) {
+			return new DeadlineResult(matching, false, 0, null);
+		}
+		long gap = weighted ? upperBound() - matching.weight() : (g.numVertices() - 2 * matching.matches()) / 2;
+		return new DeadlineResult(matching, true, gap, null);
+	}
+
+	/**
+	 * Augment the stitched matching along the paths through cut arcs until it is maximum. The parts need not be maximum, the search is grown from all
+	 * exposed vertices.
+	 *
+	 * @return whether the matching is maximum, false if the deadline passed first
+	 */
+	private boolean repair(Deadline deadline) {
+		EdmondsSearch search = new EdmondsSearch(g.numVertices(), new UndirectedAdjacency(g));
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			if (matching.isMatched(v) && v < matching.mate(v)) {
+				search.pair(v, matching.mate(v));
+			}
+		}
+		search.deadline = deadline;
+		while (search.augmentFromExposed()) {
+			repaired++ ;
+		}
+		if (repaired > 0) {
+			matching = new Matching(g.numVertices());
+			for (int v = 0; v < g.numVertices(); v++ ) {
+				int w = search.mate[v];
+				if (w != EdmondsSearch.NONE && v < w) {
+					matching.add(g.heaviestArc(v, w));
+				}
+			}
+		}
+		return ! search.timedOut;
+	}
+
+	/**
+	 * Match one part and negotiate its cut arcs
+	 *
+	 * @return pairs of the part and accepted cut arcs, in original vertex ids
+	 */
+	private List<Edge> work(int p, List<Edge> cutArcs, Deadline deadline) throws InterruptedException {
+		Component c = partition.get(p);
+		// a cardinality part cut short is made up for by the repair, a weighted one by its gap in the bound
+		DeadlineResult solved = weighted ? new PrimalDualMatching(c.graph()).run(deadline) : null;
+		Matching local = weighted ? solved.matching : new DynamicMatching(c.graph(), null, deadline).matching();
+		List<Edge> pairs = new ArrayList<Edge>();
+		for (int v = 0; v < c.size(); v++ ) {
+			if (local.isMatched(v) && v < local.mate(v)) {
+				pairs.add(new Edge(c.globalId(v), c.globalId(local.mate(v)), 0));
+			}
+		}
+
+		// propose the heaviest cut arc of every exposed vertex towards higher parts
+		boolean[] proposed = new boolean[c.size()];
+		Edge[] best = new Edge[c.size()];
+		for (Edge e : cutArcs) {
+			int mine = partition.part(e.left) == p ? e.left : e.right;
+			int other = mine == e.left ? e.right : e.left;
+			int v = partition.localId(mine);
+			if ( ! local.isMatched(v) && partition.part(other) > p && (best[v] == null || best[v].weight < e.weight)) {
+				best[v] = e;
+			}
+		}
+		for (int v = 0; v < c.size(); v++ ) {
+			if (best[v] != null) {
+				int other = best[v].left == c.globalId(v) ? best[v].right : best[v].left;
+				bus.send(partition.part(other), new Message(PROPOSE, c.globalId(v), other, best[v].weight));
+				proposed[v] = true;
+			}
+		}
+		for (int q = 0; q < numParts; q++ ) {
+			if (q != p) {
+				bus.send(q, new Message(DONE, p, q, 0));
+			}
+		}
+
+		// collect the proposals of every lower part then accept heaviest first
+		List<Message> proposals = new ArrayList<Message>();
+		for (int done = 0; done < numParts - 1;) {
+			Message m = bus.receive(p);
+			if (m.type == DONE) {
+				done++ ;
+			} else {
+				proposals.add(m);
+			}
+		}
+		Collections.sort(proposals, new Comparator<Message>() {
+			@Override
+			public int compare(Message a, Message b) {
+				return b.weight < a.weight ? - 1 : (b.weight == a.weight ? 0 : 1);
+			}
+		});
+		boolean[] accepted = new boolean[c.size()];
+		for (Message m : proposals) {
+			int v = partition.localId(m.right);
+			if ( ! local.isMatched(v) && ! proposed[v] && ! accepted[v]) {
+				accepted[v] = true;
+				pairs.add(new Edge(m.left, m.right, m.weight));
+			}
+		}
+
+		if (weighted) {
+			int[] heaviest = new int[c.size()];
+			for (Edge e : cutArcs) {
+				int v = partition.localId(partition.part(e.left) == p ? e.left : e.right);
+				heaviest[v] = Math.max(heaviest[v], e.weight);
+			}
+			long cutHeaviest = 0;
+			for (int v = 0; v < c.size(); v++ ) {
+				cutHeaviest += heaviest[v];
+			}
+			addBound(local.weight() + (long) Math.ceil(solved.gap), cutHeaviest, solved.timedOut);
+		}
+		return pairs;
+	}
+
+	private synchronized void addBound(long partWeight, long cutHeaviest, boolean timedOut) {
+		this.partWeight += partWeight;
+		this.cutHeaviest += cutHeaviest;
+		this.timedOut |= timedOut;
+	}
+
+	public Matching matching() {
+		return matching;
+	}
+
+	/**
+	 * Every edge of a maximum weight matching lies inside a part or is a cut arc. The part edges weigh at most the part optima and each cut arc at most
+	 * half the heaviest cut arcs at its two ends.
+	 *
+	 * @return for weighted matching an upper bound on the weight of a maximum weight matching
+	 */
+	public synchronized long upperBound() {
+		return partWeight + cutHeaviest / 2;
+	}
+
+	/**
+	 * @return number of pairs before the final augmenting path search
+	 */
+	public int stitched() {
+		return stitched;
+	}
+
+	/**
+	 * @return number of augmenting paths the repair of a cardinality matching found
+	 */
+	public int repaired() {
+		return repaired;
+	}
+
+	public GraphPartition partition() {
+		return partition;
+	}
+
+	/**
+	 * @return number of messages exchanged by the workers
+	 */
+	public long messages() {
+		return bus.sent();
+	}
+}
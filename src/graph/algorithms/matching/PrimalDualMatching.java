@@ -0,0 +1,1079 @@
+package graph.algorithms.matching;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import graph.Edge;
+import graph.Matching;
+import graph.WeightedDigraph;
+
+/**
+ * Maximum weight matching of a general graph by Edmonds' primal-dual blossom algorithm in the O(n^3) form of Galil (the layout follows Van Rantwijk's
+ * well known implementation). Weights are longs and every dual is kept doubled, 2u_i for vertices and 2z_k for blossoms, so with integer weights all
+ * arithmetic is exact and the duals at the end certify the matching optimal: u_i + u_j + sum of z_k over the blossoms holding i and j is at least
+ * w_ij for every edge, with equality on matched edges.
+ *
+ * Edges are indexed 0..m-1, edge k has the endpoints 2k (left) and 2k+1 (right). Loops are dropped, parallel edges are allowed.
+ *
+ * A solve can start from the matching and duals of a previous solve on a similar graph, see {@link #warmStart(Matching, long[])}. Only the stages
+ * for the pairs that did not survive the change are run again. {@link #run(Deadline)} stops between stages once a deadline passes and reports how far
+ * the matching can be from optimal. With a {@link Checkpointer} set the state is saved between stages and {@link #resume(DataInput)} continues a solve
+ * that was killed from the last snapshot.
+ *
+ * @author Lincoln
+ */
+public class PrimalDualMatching {
+	private static final int	NONE	= - 1;
+	/** label values */
+	private static final int	FREE	= 0;
+	private static final int	S			= 1;
+	private static final int	T			= 2;
+	/** marks a blossom visited by scanBlossom */
+	private static final int	BREADCRUMB	= 4;
+
+	private WeightedDigraph				g;
+	private int										n, m;
+	/** vertex of every endpoint */
+	private int[]									endpoint;
+	private long[]								weight;
+	/** endpoints opposite to the vertices, those of v are neighborEnd[neighborFirst[v]..neighborFirst[v+1]) */
+	private int[]									neighborFirst, neighborEnd;
+
+	/** endpoint each vertex is matched to, NONE if exposed */
+	private int[]									mate;
+	/** label of every vertex and top level blossom */
+	private int[]									label;
+	/** endpoint through which the label was assigned */
+	private int[]									labelEnd;
+	/** top level blossom of every vertex */
+	private int[]									inBlossom;
+	private int[]									blossomParent;
+	/** sub-blossoms of a blossom in cycle order starting with the base */
+	private int[][]								blossomChilds;
+	private int[]									blossomBase;
+	/** blossomEndps[b][i] is the endpoint of the edge between blossomChilds[b][i] and the next child */
+	private int[][]								blossomEndps;
+	/** least slack edge to a different S-blossom */
+	private int[]									bestEdge;
+	/** least slack edges from a non trivial S-blossom to every other S-blossom it touches, null if not computed */
+	private int[][]								blossomBestEdges;
+	private int[]									unusedBlossoms;
+	private int										numUnused;
+	/** 2u_i for vertices, 2z_k for blossoms */
+	private long[]								dual;
+	/** edges known to be tight */
+	private boolean[]							allowEdge;
+	/** S vertices to scan */
+	private int[]									queue;
+	private int										queueSize;
+	private boolean								solved;
+	/** whether the duals and the start matching are set up, a solve cut short by a deadline continues from them */
+	private boolean								started;
+	/** matching and doubled duals to start the next solve from, null for a cold start */
+	private Matching							startMatching;
+	private long[]								startDuals;
+	/** takes snapshots at stage boundaries, may be null */
+	private Checkpointer					checkpointer;
+
+	/**
+	 * @param g graph to match, each arc is an edge
+	 */
+	public PrimalDualMatching(WeightedDigraph g) {
+		reset(g);
+	}
+
+	/**
+	 * @param numVertices edges connect the vertices 0..numVertices-1
+	 * @param left left end of every edge
+	 * @param right right end of every edge
+	 * @param weight weight of every edge
+	 * @param count number of edges
+	 */
+	public PrimalDualMatching(int numVertices, int[] left, int[] right, long[] weight, int count) {
+		for (int k = 0; k < count; k++ ) {
+			if (left[k] < 0 || left[k] >= numVertices || right[k] < 0 || right[k] >= numVertices) {
+				throw new RuntimeException(String.format("edge %d-%d outside of the %d vertices", left[k], right[k], numVertices));
+			}
+		}
+		allocate(numVertices, count);
+		for (int k = 0; k < count; k++ ) {
+			addEdge(left[k], right[k], weight[k]);
+		}
+		index();
+	}
+
+	/**
+	 * Reuse this instance for another graph. The work arrays only grow, solving many small graphs in a row with one instance does not reallocate them.
+	 *
+	 * @param g graph to match, each arc is an edge
+	 */
+	public void reset(WeightedDigraph g) {
+		int count = 0;
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			count += g.eOuts(v).size();
+		}
+		allocate(g.numVertices(), count);
+		this.g = g;
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				addEdge(e.left, e.right, e.weight);
+			}
+		}
+		index();
+	}
+
+	/**
+	 * Clear the edges and make room for a graph of the given size
+	 */
+	private void allocate(int numVertices, int maxEdges) {
+		g = null;
+		n = numVertices;
+		m = 0;
+		solved = false;
+		started = false;
+		startMatching = null;
+		startDuals = null;
+		if (weight == null || weight.length < maxEdges) {
+			endpoint = new int[2 * maxEdges];
+			neighborEnd = new int[2 * maxEdges];
+			weight = new long[maxEdges];
+			allowEdge = new boolean[maxEdges];
+		}
+		if (mate == null || mate.length < n) {
+			neighborFirst = new int[n + 1];
+			mate = new int[n];
+			label = new int[2 * n];
+			labelEnd = new int[2 * n];
+			inBlossom = new int[n];
+			blossomParent = new int[2 * n];
+			blossomChilds = new int[2 * n][];
+			blossomBase = new int[2 * n];
+			blossomEndps = new int[2 * n][];
+			bestEdge = new int[2 * n];
+			blossomBestEdges = new int[2 * n][];
+			unusedBlossoms = new int[n];
+			dual = new long[2 * n];
+			queue = new int[Math.max(n, 1)];
+		} else {
+			Arrays.fill(neighborFirst, 0, n + 1, 0);
+		}
+	}
+
+	/**
+	 * Add an edge, loops are dropped
+	 */
+	private void addEdge(int left, int right, long w) {
+		if (left != right) {
+			endpoint[2 * m] = left;
+			endpoint[2 * m + 1] = right;
+			weight[m++ ] = w;
+			neighborFirst[left + 1]++ ;
+			neighborFirst[right + 1]++ ;
+		}
+	}
+
+	/**
+	 * Sort the endpoints by vertex once all edges are added
+	 */
+	private void index() {
+		for (int v = 0; v < n; v++ ) {
+			neighborFirst[v + 1] += neighborFirst[v];
+		}
+		int[] next = Arrays.copyOf(neighborFirst, n);
+		for (int k = 0; k < m; k++ ) {
+			neighborEnd[next[endpoint[2 * k]]++ ] = 2 * k + 1;
+			neighborEnd[next[endpoint[2 * k + 1]]++ ] = 2 * k;
+		}
+	}
+
+	private long slack(int k) {
+		return dual[endpoint[2 * k]] + dual[endpoint[2 * k + 1]] - 2 * weight[k];
+	}
+
+	/**
+	 * @return the vertices of a blossom, b itself if it is a vertex
+	 */
+	private int[] leaves(int b) {
+		if (b < n) {
+			return new int[] { b };
+		}
+		int[] out = new int[8];
+		int count = 0;
+		int[] stack = new int[8];
+		int top = 0;
+		stack[top++ ] = b;
+		while (top > 0) {
+			int x = stack[ -- top];
+			if (x < n) {
+				if (count == out.length) {
+					out = Arrays.copyOf(out, 2 * count);
+				}
+				out[count++ ] = x;
+			} else {
+				int[] childs = blossomChilds[x];
+				// pushed in reverse so the leaves come out in child order
+				for (int ii = childs.length - 1; ii >= 0; ii-- ) {
+					if (top == stack.length) {
+						stack = Arrays.copyOf(stack, 2 * top);
+					}
+					stack[top++ ] = childs[ii];
+				}
+			}
+		}
+		return Arrays.copyOf(out, count);
+	}
+
+	private void enqueue(int v) {
+		if (queueSize == queue.length) {
+			queue = Arrays.copyOf(queue, 2 * queueSize);
+		}
+		queue[queueSize++ ] = v;
+	}
+
+	/**
+	 * @return a[j] where a negative j counts from the end
+	 */
+	private static int at(int[] a, int j) {
+		return a[j < 0 ? j + a.length : j];
+	}
+
+	private static int indexOf(int[] a, int x) {
+		for (int ii = 0; ii < a.length; ii++ ) {
+			if (a[ii] == x) {
+				return ii;
+			}
+		}
+		throw new RuntimeException("blossom child not found");
+	}
+
+	/**
+	 * Label the top level blossom of w with t reached through endpoint p, an S label queues its vertices and a T label labels the mate of the base S
+	 */
+	private void assignLabel(int w, int t, int p) {
+		int b = inBlossom[w];
+		label[w] = label[b] = t;
+		labelEnd[w] = labelEnd[b] = p;
+		bestEdge[w] = bestEdge[b] = NONE;
+		if (t == S) {
+			for (int v : leaves(b)) {
+				enqueue(v);
+			}
+		} else if (t == T) {
+			int base = blossomBase[b];
+			assignLabel(endpoint[mate[base]], S, mate[base] ^ 1);
+		}
+	}
+
+	/**
+	 * Trace back from the S vertices v and w towards the roots of their trees
+	 *
+	 * @return the base of the new blossom if both reach a common blossom, NONE if they reach different roots (an augmenting path)
+	 */
+	private int scanBlossom(int v, int w) {
+		List<Integer> path = new ArrayList<Integer>();
+		int base = NONE;
+		while (v != NONE || w != NONE) {
+			int b = inBlossom[v];
+			if ((label[b] & BREADCRUMB) != 0) {
+				base = blossomBase[b];
+				break;
+			}
+			path.add(b);
+			label[b] = S | BREADCRUMB;
+			if (labelEnd[b] == NONE) {
+				// reached a root
+				v = NONE;
+			} else {
+				v = endpoint[labelEnd[b]];
+				b = inBlossom[v];
+				v = endpoint[labelEnd[b]];
+			}
+			if (w != NONE) {
+				int swap = v;
+				v = w;
+				w = swap;
+			}
+		}
+		for (int b : path) {
+			label[b] = S;
+		}
+		return base;
+	}
+
+	/**
+	 * Contract the cycle closed by edge k through the blossom with the given base into a new S-blossom
+	 */
+	private void addBlossom(int base, int k) {
+		int v = endpoint[2 * k], w = endpoint[2 * k + 1];
+		int bb = inBlossom[base], bv = inBlossom[v], bw = inBlossom[w];
+		int b = unusedBlossoms[ -- numUnused];
+		blossomBase[b] = base;
+		blossomParent[b] = NONE;
+		blossomParent[bb] = b;
+		List<Integer> path = new ArrayList<Integer>(), endps = new ArrayList<Integer>();
+		// from v back to the base
+		while (bv != bb) {
+			blossomParent[bv] = b;
+			path.add(bv);
+			endps.add(labelEnd[bv]);
+			v = endpoint[labelEnd[bv]];
+			bv = inBlossom[v];
+		}
+		path.add(bb);
+		Collections.reverse(path);
+		Collections.reverse(endps);
+		endps.add(2 * k);
+		// from w back to the base
+		while (bw != bb) {
+			blossomParent[bw] = b;
+			path.add(bw);
+			endps.add(labelEnd[bw] ^ 1);
+			w = endpoint[labelEnd[bw]];
+			bw = inBlossom[w];
+		}
+		blossomChilds[b] = toArray(path);
+		blossomEndps[b] = toArray(endps);
+		label[b] = S;
+		labelEnd[b] = labelEnd[bb];
+		dual[b] = 0;
+		for (int x : leaves(b)) {
+			if (label[inBlossom[x]] == T) {
+				// T vertices inside the blossom become S and have to be scanned
+				enqueue(x);
+			}
+			inBlossom[x] = b;
+		}
+
+		// least slack edges to the other S-blossoms
+		int[] bestEdgeTo = new int[2 * n];
+		Arrays.fill(bestEdgeTo, NONE);
+		for (int child : blossomChilds[b]) {
+			int[][] lists;
+			if (blossomBestEdges[child] == null) {
+				int[] childLeaves = leaves(child);
+				lists = new int[childLeaves.length][];
+				for (int ii = 0; ii < childLeaves.length; ii++ ) {
+					int x = childLeaves[ii];
+					lists[ii] = new int[neighborFirst[x + 1] - neighborFirst[x]];
+					for (int jj = 0; jj < lists[ii].length; jj++ ) {
+						lists[ii][jj] = neighborEnd[neighborFirst[x] + jj] / 2;
+					}
+				}
+			} else {
+				lists = new int[][] { blossomBestEdges[child] };
+			}
+			for (int[] list : lists) {
+				for (int e : list) {
+					int i = endpoint[2 * e], j = endpoint[2 * e + 1];
+					if (inBlossom[j] == b) {
+						j = i;
+					}
+					int bj = inBlossom[j];
+					if (bj != b && label[bj] == S && (bestEdgeTo[bj] == NONE || slack(e) < slack(bestEdgeTo[bj]))) {
+						bestEdgeTo[bj] = e;
+					}
+				}
+			}
+			blossomBestEdges[child] = null;
+			bestEdge[child] = NONE;
+		}
+		int count = 0;
+		for (int e : bestEdgeTo) {
+			if (e != NONE) {
+				count++ ;
+			}
+		}
+		int[] best = new int[count];
+		count = 0;
+		bestEdge[b] = NONE;
+		for (int e : bestEdgeTo) {
+			if (e != NONE) {
+				best[count++ ] = e;
+				if (bestEdge[b] == NONE || slack(e) < slack(bestEdge[b])) {
+					bestEdge[b] = e;
+				}
+			}
+		}
+		blossomBestEdges[b] = best;
+	}
+
+	private static int[] toArray(List<Integer> list) {
+		int[] a = new int[list.size()];
+		for (int ii = 0; ii < a.length; ii++ ) {
+			a[ii] = list.get(ii);
+		}
+		return a;
+	}
+
+	/**
+	 * Turn the sub-blossoms of b back into top level blossoms
+	 *
+	 * @param endStage true between stages, zero dual sub-blossoms are then expanded as well
+	 */
+	private void expandBlossom(int b, boolean endStage) {
+		for (int s : blossomChilds[b]) {
+			blossomParent[s] = NONE;
+			if (s < n) {
+				inBlossom[s] = s;
+			} else if (endStage && dual[s] == 0) {
+				expandBlossom(s, endStage);
+			} else {
+				for (int x : leaves(s)) {
+					inBlossom[x] = s;
+				}
+			}
+		}
+		if ( ! endStage && label[b] == T) {
+			// relabel the sub-blossoms on the even length path from the entry child to the base
+			int[] childs = blossomChilds[b], endps = blossomEndps[b];
+			int entryChild = inBlossom[endpoint[labelEnd[b] ^ 1]];
+			int j = indexOf(childs, entryChild);
+			int jStep, endpTrick;
+			if ((j & 1) != 0) {
+				// odd, go forward and wrap
+				j -= childs.length;
+				jStep = 1;
+				endpTrick = 0;
+			} else {
+				jStep = - 1;
+				endpTrick = 1;
+			}
+			int p = labelEnd[b];
+			while (j != 0) {
+				label[endpoint[p ^ 1]] = FREE;
+				label[endpoint[at(endps, j - endpTrick) ^ endpTrick ^ 1]] = FREE;
+				assignLabel(endpoint[p ^ 1], T, p);
+				allowEdge[at(endps, j - endpTrick) / 2] = true;
+				j += jStep;
+				p = at(endps, j - endpTrick) ^ endpTrick;
+				allowEdge[p / 2] = true;
+				j += jStep;
+			}
+			int bv = at(childs, j);
+			label[endpoint[p ^ 1]] = label[bv] = T;
+			labelEnd[endpoint[p ^ 1]] = labelEnd[bv] = p;
+			bestEdge[bv] = NONE;
+			j += jStep;
+			// the other sub-blossoms get a T label if one of their vertices was reached from outside
+			while (at(childs, j) != entryChild) {
+				bv = at(childs, j);
+				if (label[bv] == S) {
+					j += jStep;
+					continue;
+				}
+				int reached = NONE;
+				for (int x : leaves(bv)) {
+					if (label[x] != FREE) {
+						reached = x;
+						break;
+					}
+				}
+				if (reached != NONE) {
+					label[reached] = FREE;
+					label[endpoint[mate[blossomBase[bv]]]] = FREE;
+					assignLabel(reached, T, labelEnd[reached]);
+				}
+				j += jStep;
+			}
+		}
+		label[b] = labelEnd[b] = NONE;
+		blossomChilds[b] = blossomEndps[b] = null;
+		blossomBase[b] = NONE;
+		blossomBestEdges[b] = null;
+		bestEdge[b] = NONE;
+		unusedBlossoms[numUnused++ ] = b;
+	}
+
+	/**
+	 * Swap matched and unmatched edges on the even path through blossom b from vertex v to the base, v becomes the new base
+	 */
+	private void augmentBlossom(int b, int v) {
+		int t = v;
+		while (blossomParent[t] != b) {
+			t = blossomParent[t];
+		}
+		if (t >= n) {
+			augmentBlossom(t, v);
+		}
+		int[] childs = blossomChilds[b], endps = blossomEndps[b];
+		int i = indexOf(childs, t), j = i;
+		int jStep, endpTrick;
+		if ((i & 1) != 0) {
+			j -= childs.length;
+			jStep = 1;
+			endpTrick = 0;
+		} else {
+			jStep = - 1;
+			endpTrick = 1;
+		}
+		while (j != 0) {
+			j += jStep;
+			t = at(childs, j);
+			int p = at(endps, j - endpTrick) ^ endpTrick;
+			if (t >= n) {
+				augmentBlossom(t, endpoint[p]);
+			}
+			j += jStep;
+			t = at(childs, j);
+			if (t >= n) {
+				augmentBlossom(t, endpoint[p ^ 1]);
+			}
+			mate[endpoint[p]] = p ^ 1;
+			mate[endpoint[p ^ 1]] = p;
+		}
+		// rotate so the new base comes first
+		int[] rotatedChilds = new int[childs.length], rotatedEndps = new int[endps.length];
+		for (int ii = 0; ii < childs.length; ii++ ) {
+			rotatedChilds[ii] = childs[(i + ii) % childs.length];
+			rotatedEndps[ii] = endps[(i + ii) % endps.length];
+		}
+		blossomChilds[b] = rotatedChilds;
+		blossomEndps[b] = rotatedEndps;
+		blossomBase[b] = blossomBase[rotatedChilds[0]];
+	}
+
+	/**
+	 * Augment along the path through edge k between two S vertices of different trees
+	 */
+	private void augmentMatching(int k) {
+		for (int side = 0; side < 2; side++ ) {
+			int s = endpoint[2 * k + side];
+			int p = 2 * k + 1 - side;
+			while (true) {
+				int bs = inBlossom[s];
+				if (bs >= n) {
+					augmentBlossom(bs, s);
+				}
+				mate[s] = p;
+				if (labelEnd[bs] == NONE) {
+					// reached the root
+					break;
+				}
+				int t = endpoint[labelEnd[bs]];
+				int bt = inBlossom[t];
+				s = endpoint[labelEnd[bt]];
+				int j = endpoint[labelEnd[bt] ^ 1];
+				if (bt >= n) {
+					augmentBlossom(bt, j);
+				}
+				mate[j] = labelEnd[bt];
+				p = labelEnd[bt] ^ 1;
+			}
+		}
+	}
+
+	/**
+	 * Compute the matching and the duals, later calls return right away
+	 */
+	public void solve() {
+		solve(null);
+	}
+
+	/**
+	 * @param deadline checked before every stage, null for none
+	 * @return whether the solve finished, false if the deadline passed first. The next call goes on with the stage that was cut off.
+	 */
+	private boolean solve(Deadline deadline) {
+		if (solved) {
+			return true;
+		}
+		if ( ! started) {
+			started = true;
+			start();
+		}
+
+		// one stage per augmentation
+		for (int stage = 0; stage < n; stage++ ) {
+			// between stages the duals are feasible and the matching is valid
+			if (deadline != null && deadline.expired()) {
+				return false;
+			}
+			if (checkpointer != null && checkpointer.due()) {
+				checkpointer.submit(checkpoint());
+			}
+			Arrays.fill(label, 0, 2 * n, FREE);
+			Arrays.fill(bestEdge, 0, 2 * n, NONE);
+			Arrays.fill(blossomBestEdges, n, 2 * n, null);
+			Arrays.fill(allowEdge, 0, m, false);
+			queueSize = 0;
+			for (int v = 0; v < n; v++ ) {
+				if (mate[v] == NONE && label[inBlossom[v]] == FREE) {
+					assignLabel(v, S, NONE);
+				}
+			}
+
+			boolean augmented = false;
+			while (true) {
+				// grow the forest along tight edges
+				while (queueSize > 0 && ! augmented) {
+					int v = queue[ -- queueSize];
+					for (int ii = neighborFirst[v]; ii < neighborFirst[v + 1]; ii++ ) {
+						int p = neighborEnd[ii];
+						int k = p / 2;
+						int w = endpoint[p];
+						if (inBlossom[v] == inBlossom[w]) {
+							continue;
+						}
+						long kSlack = 0;
+						if ( ! allowEdge[k]) {
+							kSlack = slack(k);
+							if (kSlack <= 0) {
+								allowEdge[k] = true;
+							}
+						}
+						if (allowEdge[k]) {
+							if (label[inBlossom[w]] == FREE) {
+								assignLabel(w, T, p ^ 1);
+							} else if (label[inBlossom[w]] == S) {
+								int base = scanBlossom(v, w);
+								if (base != NONE) {
+									addBlossom(base, k);
+								} else {
+									augmentMatching(k);
+									augmented = true;
+									break;
+								}
+							} else if (label[w] == FREE) {
+								// w is inside a T-blossom but was not reached yet
+								label[w] = T;
+								labelEnd[w] = p ^ 1;
+							}
+						} else if (label[inBlossom[w]] == S) {
+							int b = inBlossom[v];
+							if (bestEdge[b] == NONE || kSlack < slack(bestEdge[b])) {
+								bestEdge[b] = k;
+							}
+						} else if (label[w] == FREE) {
+							if (bestEdge[w] == NONE || kSlack < slack(bestEdge[w])) {
+								bestEdge[w] = k;
+							}
+						}
+					}
+				}
+				if (augmented) {
+					break;
+				}
+
+				// no tight edge left, change the duals
+				int deltaType = 1;
+				long delta = Long.MAX_VALUE;
+				for (int v = 0; v < n; v++ ) {
+					delta = Math.min(delta, dual[v]);
+				}
+				int deltaEdge = NONE, deltaBlossom = NONE;
+				for (int v = 0; v < n; v++ ) {
+					if (label[inBlossom[v]] == FREE && bestEdge[v] != NONE) {
+						long d = slack(bestEdge[v]);
+						if (d < delta) {
+							delta = d;
+							deltaType = 2;
+							deltaEdge = bestEdge[v];
+						}
+					}
+				}
+				for (int b = 0; b < 2 * n; b++ ) {
+					if (blossomParent[b] == NONE && label[b] == S && bestEdge[b] != NONE) {
+						long kSlack = slack(bestEdge[b]);
+						// the slack between two S-blossoms is even, halving it is exact
+						assert kSlack % 2 == 0 : "odd slack between S-blossoms";
+						long d = kSlack / 2;
+						if (d < delta) {
+							delta = d;
+							deltaType = 3;
+							deltaEdge = bestEdge[b];
+						}
+					}
+				}
+				for (int b = n; b < 2 * n; b++ ) {
+					if (blossomBase[b] >= 0 && blossomParent[b] == NONE && label[b] == T && dual[b] < delta) {
+						delta = dual[b];
+						deltaType = 4;
+						deltaBlossom = b;
+					}
+				}
+
+				for (int v = 0; v < n; v++ ) {
+					if (label[inBlossom[v]] == S) {
+						dual[v] -= delta;
+					} else if (label[inBlossom[v]] == T) {
+						dual[v] += delta;
+					}
+				}
+				for (int b = n; b < 2 * n; b++ ) {
+					if (blossomBase[b] >= 0 && blossomParent[b] == NONE) {
+						if (label[b] == S) {
+							dual[b] += delta;
+						} else if (label[b] == T) {
+							dual[b] -= delta;
+						}
+					}
+				}
+
+				if (deltaType == 1) {
+					// a vertex dual reached zero, the matching is optimal
+					break;
+				} else if (deltaType == 2) {
+					allowEdge[deltaEdge] = true;
+					int i = endpoint[2 * deltaEdge], j = endpoint[2 * deltaEdge + 1];
+					enqueue(label[inBlossom[i]] == FREE ? j : i);
+				} else if (deltaType == 3) {
+					allowEdge[deltaEdge] = true;
+					enqueue(endpoint[2 * deltaEdge]);
+				} else {
+					expandBlossom(deltaBlossom, false);
+				}
+			}
+			if ( ! augmented) {
+				break;
+			}
+
+			// blossoms whose dual dropped to zero are not needed any more
+			for (int b = n; b < 2 * n; b++ ) {
+				if (blossomParent[b] == NONE && blossomBase[b] >= 0 && label[b] == S && dual[b] == 0) {
+					expandBlossom(b, true);
+				}
+			}
+		}
+		solved = true;
+		return true;
+	}
+
+	/**
+	 * Cold start duals and an empty matching, or those of {@link #warmStart(Matching, long[])}
+	 */
+	private void start() {
+		long maxWeight = 0;
+		for (int k = 0; k < m; k++ ) {
+			maxWeight = Math.max(maxWeight, weight[k]);
+		}
+		// the work arrays may be larger than the graph after a reset
+		Arrays.fill(mate, 0, n, NONE);
+		Arrays.fill(labelEnd, 0, 2 * n, NONE);
+		Arrays.fill(blossomParent, 0, 2 * n, NONE);
+		Arrays.fill(blossomBase, 0, 2 * n, NONE);
+		Arrays.fill(blossomBestEdges, 0, 2 * n, null);
+		for (int v = 0; v < n; v++ ) {
+			inBlossom[v] = v;
+			blossomBase[v] = v;
+			unusedBlossoms[v] = n + v;
+			// u_i = maxWeight/2
+			dual[v] = maxWeight;
+		}
+		numUnused = n;
+		if (startDuals != null) {
+			warm();
+		}
+	}
+
+	/**
+	 * Start the next solve from the result of a previous solve instead of from scratch. The previous duals are raised where an edge of this graph
+	 * violates them and the previous pairs that are still tight edges are kept.
+	 *
+	 * @param previous matching of the previous solve, may cover fewer or more vertices than this graph
+	 * @param scaledDuals {@link #scaledDuals()} of the previous solve, vertices past its end start like a cold start
+	 */
+	public void warmStart(Matching previous, long[] scaledDuals) {
+		startMatching = previous;
+		startDuals = scaledDuals;
+		solved = false;
+		started = false;
+	}
+
+	/**
+	 * Replace the cold start duals and the empty matching with those of {@link #warmStart(Matching, long[])}. The solve relies on the exposed vertices
+	 * sharing the smallest vertex dual: it stops when that dual reaches 0. So the exposed vertices are raised to the largest exposed dual and the
+	 * pairs with a vertex below it are given up, which may raise it again.
+	 */
+	private void warm() {
+		for (int v = 0; v < Math.min(n, startDuals.length); v++ ) {
+			dual[v] = Math.max(0, startDuals[v]);
+		}
+		// d_i + d_j >= 2w_ij, raise one end of every violated edge
+		for (int k = 0; k < m; k++ ) {
+			long kSlack = slack(k);
+			if (kSlack < 0) {
+				dual[endpoint[2 * k + 1]] -= kSlack;
+			}
+		}
+		for (int v = 0; v < Math.min(n, startMatching.numVertices()); v++ ) {
+			int w = startMatching.mate(v);
+			if ( ! startMatching.isMatched(v) || w <= v || w >= n) {
+				continue;
+			}
+			for (int ii = neighborFirst[v]; ii < neighborFirst[v + 1]; ii++ ) {
+				int p = neighborEnd[ii];
+				if (endpoint[p] == w && slack(p / 2) == 0) {
+					mate[v] = p;
+					mate[w] = p ^ 1;
+					break;
+				}
+			}
+		}
+
+		long exposedDual = 0;
+		for (int v = 0; v < n; v++ ) {
+			if (mate[v] == NONE) {
+				exposedDual = Math.max(exposedDual, dual[v]);
+			}
+		}
+		boolean dropped = true;
+		while (dropped) {
+			dropped = false;
+			for (int v = 0; v < n; v++ ) {
+				if (mate[v] != NONE && dual[v] < exposedDual) {
+					int w = endpoint[mate[v]];
+					mate[v] = mate[w] = NONE;
+					exposedDual = Math.max(exposedDual, dual[w]);
+					dropped = true;
+				}
+			}
+		}
+		for (int v = 0; v < n; v++ ) {
+			if (mate[v] == NONE) {
+				dual[v] = exposedDual;
+			}
+		}
+	}
+
+	/**
+	 * @param checkpointer takes snapshots at the start of stages, null to stop taking them
+	 */
+	public void setCheckpointer(Checkpointer checkpointer) {
+		if (g == null && checkpointer != null) {
+			throw new RuntimeException("solver was built from edge arrays, a snapshot needs the graph");
+		}
+		this.checkpointer = checkpointer;
+	}
+
+	/**
+	 * State at the start of a stage: the matching, the doubled duals, the labels and the blossom forest
+	 */
+	private byte[] checkpoint() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			Checkpointer.writeHeader(out, Checkpointer.PRIMAL_DUAL, g);
+			out.writeInt(n);
+			out.writeInt(m);
+			write(out, mate, n);
+			write(out, label, 2 * n);
+			write(out, labelEnd, 2 * n);
+			write(out, inBlossom, n);
+			write(out, blossomParent, 2 * n);
+			write(out, blossomBase, 2 * n);
+			for (int b = 0; b < 2 * n; b++ ) {
+				out.writeLong(dual[b]);
+			}
+			for (int b = n; b < 2 * n; b++ ) {
+				if (blossomBase[b] >= 0) {
+					out.writeInt(blossomChilds[b].length);
+					write(out, blossomChilds[b], blossomChilds[b].length);
+					write(out, blossomEndps[b], blossomEndps[b].length);
+				}
+			}
+			out.writeInt(numUnused);
+			write(out, unusedBlossoms, numUnused);
+		} catch (IOException e) {
+			throw new RuntimeException("cannot write snapshot to memory", e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Restore a snapshot taken by a {@link Checkpointer} on the same graph, the next solve continues with the stage the snapshot was taken at. Unlike
+	 * {@link #warmStart(Matching, long[])} the blossoms and their duals are kept, so no stage is repeated.
+	 *
+	 * @param in snapshot, see {@link Checkpointer#open(java.io.File)}
+	 * @throws IOException if the snapshot is corrupt or was taken on another graph
+	 */
+	public void resume(DataInput in) throws IOException {
+		if (g == null) {
+			throw new RuntimeException("solver was built from edge arrays, a snapshot needs the graph");
+		}
+		Checkpointer.readHeader(in, Checkpointer.PRIMAL_DUAL, g);
+		int vertices = in.readInt(), edges = in.readInt();
+		if (vertices != n || edges != m) {
+			throw new IOException(String.format("bad snapshot: %d vertices and %d edges, expected %d and %d", vertices, edges, n, m));
+		}
+		read(in, mate, n, NONE, 2 * m - 1);
+		read(in, label, 2 * n, FREE, T);
+		read(in, labelEnd, 2 * n, NONE, 2 * m - 1);
+		read(in, inBlossom, n, 0, 2 * n - 1);
+		read(in, blossomParent, 2 * n, NONE, 2 * n - 1);
+		read(in, blossomBase, 2 * n, NONE, n - 1);
+		for (int b = 0; b < 2 * n; b++ ) {
+			dual[b] = in.readLong();
+		}
+		Arrays.fill(blossomBestEdges, 0, 2 * n, null);
+		for (int b = n; b < 2 * n; b++ ) {
+			blossomChilds[b] = blossomEndps[b] = null;
+			if (blossomBase[b] >= 0) {
+				int count = in.readInt();
+				if (count < 3 || count > n) {
+					throw new IOException(String.format("bad snapshot: blossom %d of %d sub-blossoms", b, count));
+				}
+				blossomChilds[b] = new int[count];
+				blossomEndps[b] = new int[count];
+				read(in, blossomChilds[b], count, 0, 2 * n - 1);
+				read(in, blossomEndps[b], count, 0, 2 * m - 1);
+			}
+		}
+		numUnused = in.readInt();
+		if (numUnused < 0 || numUnused > n) {
+			throw new IOException("bad snapshot: " + numUnused + " unused blossoms");
+		}
+		read(in, unusedBlossoms, numUnused, n, 2 * n - 1);
+		startMatching = null;
+		startDuals = null;
+		solved = false;
+		started = true;
+	}
+
+	private static void write(DataOutput out, int[] a, int count) throws IOException {
+		for (int ii = 0; ii < count; ii++ ) {
+			out.writeInt(a[ii]);
+		}
+	}
+
+	/**
+	 * Read {@link count} ints into {@link a}, each must lie in min..max
+	 */
+	private static void read(DataInput in, int[] a, int count, int min, int max) throws IOException {
+		for (int ii = 0; ii < count; ii++ ) {
+			a[ii] = in.readInt();
+			if (a[ii] < min || a[ii] > max) {
+				throw new IOException(String.format("bad snapshot: %d outside of %d..%d", a[ii], min, max));
+			}
+		}
+	}
+
+	/**
+	 * @param v vertex id
+	 * @return the vertex matched to {@link v} or -1 if it is exposed
+	 */
+	public int mate(int v) {
+		solve();
+		return mate[v] == NONE ? NONE : endpoint[mate[v]];
+	}
+
+	/**
+	 * @return edge index of the edge {@link v} is matched by, -1 if it is exposed
+	 */
+	public int matchedEdge(int v) {
+		solve();
+		return mate[v] == NONE ? NONE : mate[v] / 2;
+	}
+
+	/**
+	 * @return total weight of the matching
+	 */
+	public long weight() {
+		solve();
+		long total = 0;
+		for (int v = 0; v < n; v++ ) {
+			if (mate[v] != NONE && v < endpoint[mate[v]]) {
+				total += weight[mate[v] / 2];
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * @return number of matched pairs
+	 */
+	public int size() {
+		solve();
+		int pairs = 0;
+		for (int v = 0; v < n; v++ ) {
+			if (mate[v] != NONE && v < endpoint[mate[v]]) {
+				pairs++ ;
+			}
+		}
+		return pairs;
+	}
+
+	/**
+	 * @return the vertex duals times 2, w_ij &lt;= (d_i + d_j) / 2 holds for every edge between two vertices that share no blossom
+	 */
+	public long[] scaledDuals() {
+		solve();
+		return Arrays.copyOf(dual, n);
+	}
+
+	/**
+	 * @return the matching over the arcs of the graph given to the constructor
+	 */
+	public Matching run() {
+		if (g == null) {
+			throw new RuntimeException("solver was built from edge arrays, use mate(v)");
+		}
+		solve();
+		return matching();
+	}
+
+	/**
+	 * Run until the matching is optimal or the deadline passes. The deadline is checked between stages, where the matching is valid and the duals
+	 * are feasible, so the dual objective bounds the optimum. A later call goes on from where this one stopped.
+	 *
+	 * @param deadline when to give up
+	 * @return the matching, whether it timed out and the gap between the dual objective and the weight of the matching
+	 */
+	public DeadlineResult run(Deadline deadline) {
+		if (g == null) {
+			throw new RuntimeException("solver was built from edge arrays, use mate(v)");
+		}
+		if (solve(deadline)) {
+			return new DeadlineResult(matching(), false, 0, null);
+		}
+		Matching matching = matching();
+		return new DeadlineResult(matching, true, Math.max(0, dualObjective() / 2.0 - matching.weight()), null);
+	}
+
+	/**
+	 * @return the current pairs over the arcs of the graph, without solving
+	 */
+	private Matching matching() {
+		Matching matching = new Matching(n);
+		for (int v = 0; v < n; v++ ) {
+			if (mate[v] != NONE && v < endpoint[mate[v]]) {
+				matching.add(g.heaviestArc(v, endpoint[mate[v]]));
+			}
+		}
+		return matching;
+	}
+
+	/**
+	 * @return twice the dual objective, sum of u_i plus sum of z_k * floor(|B_k| / 2) over the blossoms in use
+	 */
+	private long dualObjective() {
+		long total = 0;
+		int[] leaves = new int[2 * n];
+		for (int v = 0; v < n; v++ ) {
+			total += dual[v];
+			for (int b = blossomParent[v]; b != NONE; b = blossomParent[b]) {
+				leaves[b]++ ;
+			}
+		}
+		for (int b = n; b < 2 * n; b++ ) {
+			if (blossomBase[b] >= 0) {
+				total += 2 * dual[b] * (leaves[b] / 2);
+			}
+		}
+		return total;
+	}
+
+	public int numVertices() {
+		return n;
+	}
+
+	public int numEdges() {
+		return m;
+	}
+}
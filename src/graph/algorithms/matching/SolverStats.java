@@ -0,0 +1,202 @@
+package graph.algorithms.matching;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and per step timers of a solve, returned by the run() method of the solvers. The solving thread updates the counters directly, a stats
+ * object can also aggregate many solves with {@link #add(SolverStats)} and be exported over JMX with {@link #register(String)}.
+ * 
+ * @author Lincoln
+ */
+public class SolverStats implements SolverStatsMBean {
+	public static final String	DOMAIN	= "graph.algorithms.matching";
+	
+	private final String[]			stepNames;
+	long												solves;
+	long												stages;
+	long												augmentations;
+	long												augmentingPathVertices;
+	long												longestAugmentingPath;
+	long												blossomsShrunk;
+	long												blossomsExpanded;
+	long												dualAdjustments;
+	long												arcsScanned;
+	private final long[]				stepNanos;
+	
+	/**
+	 * @param stepNames names of the timed steps of the solver, times are recorded by step index
+	 */
+	public SolverStats(String... stepNames) {
+		this.stepNames = stepNames;
+		stepNanos = new long[stepNames.length];
+	}
+	
+	/**
+	 * Count an augmentation
+	 * 
+	 * @param pathVertices number of vertices on the augmenting path
+	 */
+	void augmented(int pathVertices) {
+		augmentations++ ;
+		augmentingPathVertices += pathVertices;
+		longestAugmentingPath = Math.max(longestAugmentingPath, pathVertices);
+	}
+	
+	/**
+	 * @param step index of the step in the names given to the constructor
+	 * @param nanos time spent in one execution of the step
+	 */
+	void time(int step, long nanos) {
+		stepNanos[step] += nanos;
+	}
+	
+	/**
+	 * Add the counters and timers of another solve with the same steps
+	 */
+	public synchronized void add(SolverStats other) {
+		if ( ! Arrays.equals(stepNames, other.stepNames)) {
+			throw new RuntimeException("can't add the stats of a solver with different steps");
+		}
+		solves += other.solves;
+		addCounters(other);
+		for (int ii = 0; ii < stepNanos.length; ii++ ) {
+			stepNanos[ii] += other.stepNanos[ii];
+		}
+	}
+	
+	/**
+	 * Add the counters of another solve without counting it as a solve, used for solvers that run other solvers
+	 */
+	synchronized void addCounters(SolverStats other) {
+		stages += other.stages;
+		augmentations += other.augmentations;
+		augmentingPathVertices += other.augmentingPathVertices;
+		longestAugmentingPath = Math.max(longestAugmentingPath, other.longestAugmentingPath);
+		blossomsShrunk += other.blossomsShrunk;
+		blossomsExpanded += other.blossomsExpanded;
+		dualAdjustments += other.dualAdjustments;
+		arcsScanned += other.arcsScanned;
+	}
+	
+	/**
+	 * Export under graph.algorithms.matching:type=SolverStats,name={@link name} on the platform MBean server
+	 */
+	public void register(String name) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName(name));
+		} catch (JMException e) {
+			throw new RuntimeException("failed to register solver stats " + name, e);
+		}
+	}
+	
+	public static void unregister(String name) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(name));
+		} catch (JMException e) {
+			throw new RuntimeException("failed to unregister solver stats " + name, e);
+		}
+	}
+	
+	private static ObjectName objectName(String name) throws JMException {
+		return new ObjectName(DOMAIN + ":type=SolverStats,name=" + ObjectName.quote(name));
+	}
+	
+	@Override
+	public synchronized long getSolves() {
+		return solves;
+	}
+	
+	@Override
+	public synchronized long getStages() {
+		return stages;
+	}
+	
+	@Override
+	public synchronized long getAugmentations() {
+		return augmentations;
+	}
+	
+	@Override
+	public synchronized long getAugmentingPathVertices() {
+		return augmentingPathVertices;
+	}
+	
+	@Override
+	public synchronized long getLongestAugmentingPath() {
+		return longestAugmentingPath;
+	}
+	
+	@Override
+	public synchronized long getBlossomsShrunk() {
+		return blossomsShrunk;
+	}
+	
+	@Override
+	public synchronized long getBlossomsExpanded() {
+		return blossomsExpanded;
+	}
+	
+	@Override
+	public synchronized long getDualAdjustments() {
+		return dualAdjustments;
+	}
+	
+	@Override
+	public synchronized long getArcsScanned() {
+		return arcsScanned;
+	}
+	
+	@Override
+	public String[] getStepNames() {
+		return stepNames.clone();
+	}
+	
+	@Override
+	public synchronized long[] getStepNanos() {
+		return stepNanos.clone();
+	}
+	
+	/**
+	 * @param step name of a step
+	 * @return nanoseconds spent in the step
+	 */
+	public synchronized long stepNanos(String step) {
+		for (int ii = 0; ii < stepNames.length; ii++ ) {
+			if (stepNames[ii].equals(step)) {
+				return stepNanos[ii];
+			}
+		}
+		throw new RuntimeException("unknown step " + step);
+	}
+	
+	@Override
+	public synchronized long getTotalNanos() {
+		long total = 0;
+		for (long nanos : stepNanos) {
+			total += nanos;
+		}
+		return total;
+	}
+	
+	@Override
+	public synchronized void reset() {
+		solves = stages = augmentations = augmentingPathVertices = longestAugmentingPath = 0;
+		blossomsShrunk = blossomsExpanded = dualAdjustments = arcsScanned = 0;
+		Arrays.fill(stepNanos, 0);
+	}
+	
+	@Override
+	public synchronized String toString() {
+		StringBuilder s = new StringBuilder();
+		s.append(String.format("solves=%d stages=%d augmentations=%d (path vertices %d, longest %d) blossoms shrunk=%d expanded=%d duals=%d arcs=%d", solves,
+				stages, augmentations, augmentingPathVertices, longestAugmentingPath, blossomsShrunk, blossomsExpanded, dualAdjustments, arcsScanned));
+		for (int ii = 0; ii < stepNames.length; ii++ ) {
+			s.append(String.format(" %s=%dns", stepNames[ii], stepNanos[ii]));
+		}
+		return s.toString();
+	}
+}
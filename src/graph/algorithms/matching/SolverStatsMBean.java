@@ -0,0 +1,34 @@
+package graph.algorithms.matching;
+
+/**
+ * JMX view of {@link SolverStats}
+ * 
+ * @author Lincoln
+ */
+public interface SolverStatsMBean {
+	long getSolves();
+	
+	long getStages();
+	
+	long getAugmentations();
+	
+	long getAugmentingPathVertices();
+	
+	long getLongestAugmentingPath();
+	
+	long getBlossomsShrunk();
+	
+	long getBlossomsExpanded();
+	
+	long getDualAdjustments();
+	
+	long getArcsScanned();
+	
+	String[] getStepNames();
+	
+	long[] getStepNanos();
+	
+	long getTotalNanos();
+	
+	void reset();
+}
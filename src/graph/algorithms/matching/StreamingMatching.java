@@ -0,0 +1,170 @@
+package graph.algorithms.matching;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import graph.Edge;
+import graph.Matching;
+
+/**
+ * Semi-streaming matching: arcs are seen once, in any order, and only O(n) words of state are kept so the graph never has to fit in memory.
+ * <ul>
+ * <li>cardinality: greedy maximal matching, at least half the size of a maximum matching</li>
+ * <li>weighted: the local-ratio stack algorithm of Paz and Schwartzman. Every vertex keeps a potential phi, an arc (u,v,w) with w > (1+epsilon)(phi_u
+ * + phi_v) is pushed with its gain w - phi_u - phi_v which is added to both potentials. Unwinding the stack greedily gives a (1/2 - epsilon)
+ * approximation of the maximum weight matching. The stack holds O(n log(W) / epsilon) arcs.</li>
+ * </ul>
+ * 
+ * @author Lincoln
+ */
+public class StreamingMatching {
+	private static final int	UNMATCHED	= - 1;
+	
+	private final int					numVertices;
+	private final boolean			weighted;
+	private final float				epsilon;
+	
+	/** cardinality state: the greedy matching so far */
+	private final int[]				mate;
+	private final int[]				mateWeight;
+	private int								matches;
+	
+	/** weighted state: vertex potentials and the stack of arcs as (left, right, weight) triples */
+	private final double[]		phi;
+	private int[]							stack;
+	private int								stackSize;
+	
+	private long							numEdges;
+	
+	/**
+	 * Greedy maximal matching for cardinality
+	 * 
+	 * @param numVertices vertices of the streamed graph are numbered 0..numVertices-1
+	 */
+	public StreamingMatching(int numVertices) {
+		this(numVertices, false, 0);
+	}
+	
+	/**
+	 * Stack based approximation for maximum weight
+	 * 
+	 * @param numVertices vertices of the streamed graph are numbered 0..numVertices-1
+	 * @param epsilon arcs that don't improve the potentials of their ends by more than this factor are dropped
+	 */
+	public StreamingMatching(int numVertices, float epsilon) {
+		this(numVertices, true, epsilon);
+	}
+	
+	private StreamingMatching(int numVertices, boolean weighted, float epsilon) {
+		if (epsilon < 0) {
+			throw new RuntimeException("epsilon must not be negative");
+		}
+		this.numVertices = numVertices;
+		this.weighted = weighted;
+		this.epsilon = epsilon;
+		if (weighted) {
+			mate = null;
+			mateWeight = null;
+			phi = new double[numVertices];
+			stack = new int[3 * 64];
+		} else {
+			mate = new int[numVertices];
+			mateWeight = new int[numVertices];
+			Arrays.fill(mate, UNMATCHED);
+			phi = null;
+		}
+	}
+	
+	/**
+	 * Consume every remaining arc of a stream
+	 * 
+	 * @param edges arcs of the graph, both arcs of an edge may appear
+	 */
+	public void addAll(Iterator<Edge> edges) {
+		while (edges.hasNext()) {
+			Edge e = edges.next();
+			add(e.left, e.right, e.weight);
+		}
+	}
+	
+	/**
+	 * Process a single arc
+	 * 
+	 * @param left vertex index
+	 * @param right vertex index
+	 * @param weight arc weight
+	 */
+	public void add(int left, int right, int weight) {
+		if (left < 0 || right < 0 || left >= numVertices || right >= numVertices) {
+			throw new RuntimeException(String.format("arc %d->%d is outside of the %d vertices", left, right, numVertices));
+		}
+		numEdges++ ;
+		if (left == right) {
+			return;
+		}
+		if ( ! weighted) {
+			if (mate[left] == UNMATCHED && mate[right] == UNMATCHED) {
+				mate[left] = right;
+				mate[right] = left;
+				mateWeight[left] = mateWeight[right] = weight;
+				matches++ ;
+			}
+		} else if (weight > (1 + epsilon) * (phi[left] + phi[right])) {
+			double gain = weight - phi[left] - phi[right];
+			phi[left] += gain;
+			phi[right] += gain;
+			push(left, right, weight);
+		}
+	}
+	
+	private void push(int left, int right, int weight) {
+		if (stackSize + 3 > stack.length) {
+			stack = Arrays.copyOf(stack, stack.length * 2);
+		}
+		stack[stackSize++ ] = left;
+		stack[stackSize++ ] = right;
+		stack[stackSize++ ] = weight;
+	}
+	
+	/**
+	 * The matching of the arcs seen so far, more arcs may still be added afterwards
+	 * 
+	 * @return matching over numVertices vertices
+	 */
+	public Matching matching() {
+		Matching m = new Matching(numVertices);
+		if ( ! weighted) {
+			for (int v = 0; v < numVertices; v++ ) {
+				if (mate[v] != UNMATCHED && v < mate[v]) {
+					m.add(new Edge(v, mate[v], mateWeight[v]));
+				}
+			}
+			return m;
+		}
+		
+		// unwind the stack, later arcs first, keeping every arc whose ends are still free
+		boolean[] taken = new boolean[numVertices];
+		for (int top = stackSize - 3; top >= 0; top -= 3) {
+			int left = stack[top], right = stack[top + 1];
+			if ( ! taken[left] && ! taken[right]) {
+				taken[left] = taken[right] = true;
+				m.add(new Edge(left, right, stack[top + 2]));
+			}
+		}
+		return m;
+	}
+	
+	/**
+	 * @return number of arcs consumed
+	 */
+	public long numEdges() {
+		return numEdges;
+	}
+	
+	/**
+	 * @return number of arcs on the stack (weighted) or in the greedy matching (cardinality)
+	 */
+	public int stored() {
+		return weighted ? stackSize / 3 : matches;
+	}
+}
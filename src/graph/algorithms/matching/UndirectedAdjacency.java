@@ -0,0 +1,91 @@
+package graph.algorithms.matching;
+
+import java.util.Arrays;
+
+import graph.Edge;
+import graph.WeightedDigraph;
+
+/**
+ * Undirected adjacency of a graph in compressed arrays: every arc is listed at both of its ends and the neighbors of v are
+ * neighbors[first[v]..first[v+1]). Built in two linear passes over the arcs for the splitters that walk a graph breadth first and the reusable
+ * Edmonds search of {@link BatchMatching.Workspace}.
+ *
+ * @author Lincoln
+ */
+class UndirectedAdjacency implements EdmondsSearch.Adjacency {
+	int[]					first;
+	int[]					neighbors;
+	private int[]	next;
+
+	UndirectedAdjacency(WeightedDigraph g) {
+		reset(g);
+	}
+
+	/**
+	 * Rebuild the adjacency for another graph, the arrays only grow
+	 */
+	void reset(WeightedDigraph g) {
+		int n = g.numVertices();
+		if (first == null || first.length < n + 1) {
+			first = new int[n + 1];
+			next = new int[n];
+		} else {
+			Arrays.fill(first, 0, n + 1, 0);
+		}
+		for (int v = 0; v < n; v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				first[e.left + 1]++ ;
+				first[e.right + 1]++ ;
+			}
+		}
+		for (int v = 0; v < n; v++ ) {
+			first[v + 1] += first[v];
+		}
+		System.arraycopy(first, 0, next, 0, n);
+		if (neighbors == null || neighbors.length < first[n]) {
+			neighbors = new int[first[n]];
+		}
+		for (int v = 0; v < n; v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				neighbors[next[e.left]++ ] = e.right;
+				neighbors[next[e.right]++ ] = e.left;
+			}
+		}
+	}
+
+	@Override
+	public int degree(int v) {
+		return first[v + 1] - first[v];
+	}
+
+	@Override
+	public int neighbor(int v, int i) {
+		return neighbors[first[v] + i];
+	}
+
+	/**
+	 * Breadth first search from {@link s} over the vertices not seen yet, the output array doubles as the queue
+	 *
+	 * @param s start vertex, not seen yet
+	 * @param seen vertices already visited, the ones reached are added
+	 * @param order receives the vertices reached in breadth first order from index {@link tail} on
+	 * @param tail first free index of {@link order}
+	 * @return the new tail, one past the last vertex reached
+	 */
+	int breadthFirst(int s, boolean[] seen, int[] order, int tail) {
+		int head = tail;
+		order[tail++ ] = s;
+		seen[s] = true;
+		while (head < tail) {
+			int v = order[head++ ];
+			for (int ii = first[v]; ii < first[v + 1]; ii++ ) {
+				int w = neighbors[ii];
+				if ( ! seen[w]) {
+					seen[w] = true;
+					order[tail++ ] = w;
+				}
+			}
+		}
+		return tail;
+	}
+}
@@ -0,0 +1,56 @@
+package graph.bench;
+
+/**
+ * A measured operation. {@link #setup(Params)} prepares the input outside of the measurement, {@link #run()} is timed and returns a result which is
+ * consumed so the work can't be optimized away.
+ * 
+ * @author Lincoln
+ */
+public abstract class Benchmark {
+	
+	/**
+	 * The parameters of one benchmark configuration
+	 */
+	public static class Params {
+		public final GraphFamily	family;
+		public final int					size;
+		public final double				density;
+		public final long					seed;
+		
+		public Params(GraphFamily family, int size, double density, long seed) {
+			this.family = family;
+			this.size = size;
+			this.density = density;
+			this.seed = seed;
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("%s n=%d d=%.2f", family, size, density);
+		}
+	}
+	
+	private final String	name;
+	
+	protected Benchmark(String name) {
+		this.name = name;
+	}
+	
+	public String name() {
+		return name;
+	}
+	
+	/**
+	 * @return whether the benchmark makes sense for the configuration, exponential solvers limit the size
+	 */
+	public boolean accepts(Params params) {
+		return true;
+	}
+	
+	/**
+	 * Called before every measured invocation
+	 */
+	public abstract void setup(Params params);
+	
+	public abstract Object run();
+}
@@ -0,0 +1,143 @@
+package graph.bench;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+/**
+ * Runs a benchmark for a number of warmup and measured invocations and reports the time, the bytes allocated by the benchmark thread and the
+ * garbage collections per invocation. Allocation is read from the HotSpot ThreadMXBean extension and reported as -1 where it is not available.
+ * 
+ * @author Lincoln
+ */
+public class BenchmarkRunner {
+	
+	/**
+	 * Measurements of one benchmark configuration
+	 */
+	public static class Result {
+		public final String	benchmark;
+		public final String	params;
+		public final int		invocations;
+		public final double	meanNanos;
+		public final double	stdevNanos;
+		public final double	bytesPerOp;
+		public final double	gcPerOp;
+		public final double	gcMillisPerOp;
+		public final String	error;
+		
+		Result(String benchmark, String params, int invocations, double meanNanos, double stdevNanos, double bytesPerOp, double gcPerOp,
+				double gcMillisPerOp, String error) {
+			this.benchmark = benchmark;
+			this.params = params;
+			this.invocations = invocations;
+			this.meanNanos = meanNanos;
+			this.stdevNanos = stdevNanos;
+			this.bytesPerOp = bytesPerOp;
+			this.gcPerOp = gcPerOp;
+			this.gcMillisPerOp = gcMillisPerOp;
+			this.error = error;
+		}
+		
+		@Override
+		public String toString() {
+			if (error != null) {
+				return String.format("%-28s %-30s failed: %s", benchmark, params, error);
+			}
+			return String.format("%-28s %-30s %12.1f us/op +- %8.1f %14.0f B/op %6.3f gc/op %8.3f gc ms/op", benchmark, params, meanNanos / 1e3,
+					stdevNanos / 1e3, bytesPerOp, gcPerOp, gcMillisPerOp);
+		}
+	}
+	
+	private final int			warmup;
+	private final int			iterations;
+	/** results are folded in here so the JIT can't drop the work */
+	private int						sink;
+	private final Method	allocatedBytes;
+	
+	/**
+	 * @param warmup invocations before measuring
+	 * @param iterations measured invocations
+	 */
+	public BenchmarkRunner(int warmup, int iterations) {
+		this.warmup = warmup;
+		this.iterations = iterations;
+		Method m = null;
+		try {
+			m = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+		} catch (Exception e) {
+			// allocation is reported as unavailable
+		}
+		allocatedBytes = m;
+	}
+	
+	public Result run(Benchmark b, Benchmark.Params params) {
+		try {
+			for (int ii = 0; ii < warmup; ii++ ) {
+				b.setup(params);
+				consume(b.run());
+			}
+			double sum = 0, sumSquares = 0;
+			long bytes = 0, gcCount = 0, gcMillis = 0;
+			for (int ii = 0; ii < iterations; ii++ ) {
+				b.setup(params);
+				long gcCountBefore = gcCount(), gcMillisBefore = gcMillis();
+				long bytesBefore = allocated();
+				long start = System.nanoTime();
+				consume(b.run());
+				long nanos = System.nanoTime() - start;
+				bytes += allocated() - bytesBefore;
+				gcCount += gcCount() - gcCountBefore;
+				gcMillis += gcMillis() - gcMillisBefore;
+				sum += nanos;
+				sumSquares += (double) nanos * nanos;
+			}
+			double mean = sum / iterations;
+			double stdev = Math.sqrt(Math.max(0, sumSquares / iterations - mean * mean));
+			return new Result(b.name(), params.toString(), iterations, mean, stdev, allocatedBytes == null ? - 1 : (double) bytes / iterations,
+					(double) gcCount / iterations, (double) gcMillis / iterations, null);
+		} catch (RuntimeException e) {
+			return new Result(b.name(), params.toString(), 0, 0, 0, 0, 0, 0, String.valueOf(e.getMessage()));
+		}
+	}
+	
+	private void consume(Object result) {
+		sink += System.identityHashCode(result);
+	}
+	
+	/**
+	 * @return bytes allocated by the current thread so far, 0 if unavailable
+	 */
+	long allocated() {
+		if (allocatedBytes == null) {
+			return 0;
+		}
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		try {
+			return (Long) allocatedBytes.invoke(threads, Thread.currentThread().getId());
+		} catch (Exception e) {
+			return 0;
+		}
+	}
+	
+	static long gcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gc.getCollectionCount());
+		}
+		return count;
+	}
+	
+	static long gcMillis() {
+		long millis = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			millis += Math.max(0, gc.getCollectionTime());
+		}
+		return millis;
+	}
+	
+	public int sink() {
+		return sink;
+	}
+}
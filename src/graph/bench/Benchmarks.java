@@ -0,0 +1,282 @@
+package graph.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import graph.Edge;
+import graph.Matching;
+import graph.PseudoVertex;
+import graph.Vertex;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.BruteForceMaxWeightedMatching;
+import graph.algorithms.matching.ComponentMatching;
+import graph.algorithms.matching.DynamicMatching;
+import graph.algorithms.matching.ExactMaxWeightedMatching;
+import graph.algorithms.matching.MaxWeightedMatching;
+import graph.algorithms.matching.MinMatchingAlg;
+import graph.algorithms.matching.StreamingMatching;
+
+/**
+ * The benchmark suite: graph loading and structure operations and every solver over a grid of graph families, sizes and densities. Arguments are
+ * key=value pairs, lists are comma separated:
+ * <ul>
+ * <li>families: graph families, default all of {@link GraphFamily}</li>
+ * <li>sizes: numbers of vertices, default 16,64,256</li>
+ * <li>densities: default 0.1,0.5</li>
+ * <li>filter: only benchmarks whose name contains this</li>
+ * <li>warmup, iterations: invocations per configuration, default 5 and 20</li>
+ * <li>seed: seed of the generated graphs, default 1</li>
+ * </ul>
+ * 
+ * @author Lincoln
+ */
+public class Benchmarks {
+	/** the exponential solvers are only run up to these sizes */
+	private static final int	BRUTE_FORCE_MAX_VERTICES	= 20;
+	
+	public static List<Benchmark> all() {
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		
+		benchmarks.add(new Benchmark("WeightedDigraph.parse") {
+			private String[]	lines;
+			private int				n;
+			
+			@Override
+			public void setup(Params params) {
+				WeightedDigraph g = generate(params);
+				List<String> arcs = new ArrayList<String>();
+				for (int v = 0; v < g.numVertices(); v++ ) {
+					for (Edge e : g.eOuts(v)) {
+						arcs.add(e.left + " " + e.right + " " + e.weight);
+					}
+				}
+				lines = arcs.toArray(new String[arcs.size()]);
+				n = g.numVertices();
+			}
+			
+			@Override
+			public Object run() {
+				WeightedDigraph g = new WeightedDigraph(n);
+				for (String line : lines) {
+					g.parse(line);
+				}
+				return g;
+			}
+		});
+		
+		benchmarks.add(new Benchmark("WeightedDigraph.contract+lift") {
+			private WeightedDigraph		g;
+			private ArrayList<Vertex>	cycle;
+			
+			@Override
+			public boolean accepts(Params params) {
+				return params.size >= 3;
+			}
+			
+			@Override
+			public void setup(Params params) {
+				g = generate(params);
+				// make sure 0,1,2 is an odd cycle
+				for (int v = 0; v < 3; v++ ) {
+					if (g.heaviestArc(v, (v + 1) % 3) == null) {
+						g.insertEdge(v, (v + 1) % 3, 1);
+					}
+				}
+				cycle = new ArrayList<Vertex>();
+				for (int v = 0; v < 3; v++ ) {
+					cycle.add(g.vertex(v));
+				}
+			}
+			
+			@Override
+			public Object run() {
+				WeightedDigraph contracted = g.contractCycle(cycle.get(0), cycle);
+				return contracted.liftCycle((PseudoVertex) contracted.vertex(0));
+			}
+		});
+		
+		benchmarks.add(new Benchmark("Matching.augment") {
+			private Matching		m;
+			private List<Edge>	path;
+			
+			@Override
+			public void setup(Params params) {
+				// the path 0-1-...-(n-1) with every second arc matched, augmenting flips it
+				int n = params.size - params.size % 2;
+				m = new Matching(params.size);
+				path = new ArrayList<Edge>(n);
+				for (int v = 0; v + 1 < n; v++ ) {
+					Edge e = new Edge(v, v + 1, 1);
+					path.add(e);
+					if (v % 2 == 1) {
+						m.add(e);
+					}
+				}
+			}
+			
+			@Override
+			public Object run() {
+				m.augment(path);
+				return m;
+			}
+		});
+		
+		benchmarks.add(new SolverBenchmark("MinMatchingAlg.run") {
+			@Override
+			public Object run() {
+				MinMatchingAlg mma = new MinMatchingAlg(g);
+				mma.run();
+				return mma.matching();
+			}
+		});
+		
+		benchmarks.add(new SolverBenchmark("MaxWeightedMatching.run") {
+			@Override
+			public Object run() {
+				MaxWeightedMatching mwm = new MaxWeightedMatching(g);
+				mwm.run();
+				return mwm.matching();
+			}
+		});
+		
+		benchmarks.add(new SolverBenchmark("BruteForceMaxWeightedMatching") {
+			@Override
+			public boolean accepts(Params params) {
+				return params.size <= BRUTE_FORCE_MAX_VERTICES;
+			}
+			
+			@Override
+			public Object run() {
+				return new BruteForceMaxWeightedMatching(g).runWeighted();
+			}
+		});
+		
+		benchmarks.add(new SolverBenchmark("ExactMaxWeightedMatching") {
+			@Override
+			public boolean accepts(Params params) {
+				return params.size <= ExactMaxWeightedMatching.MAX_VERTICES;
+			}
+			
+			@Override
+			public Object run() {
+				return new ExactMaxWeightedMatching(g).runWeighted();
+			}
+		});
+		
+		benchmarks.add(new SolverBenchmark("ComponentMatching") {
+			@Override
+			public Object run() {
+				return new ComponentMatching(g, false).run();
+			}
+		});
+		
+		benchmarks.add(new SolverBenchmark("DynamicMatching") {
+			@Override
+			public Object run() {
+				return new DynamicMatching(g).matching();
+			}
+		});
+		
+		benchmarks.add(new SolverBenchmark("StreamingMatching.weighted") {
+			@Override
+			public Object run() {
+				StreamingMatching sm = new StreamingMatching(g.numVertices(), 0.1f);
+				for (int v = 0; v < g.numVertices(); v++ ) {
+					sm.addAll(g.eOuts(v).iterator());
+				}
+				return sm.matching();
+			}
+		});
+		return benchmarks;
+	}
+	
+	/**
+	 * A solver run on a freshly generated graph
+	 */
+	private static abstract class SolverBenchmark extends Benchmark {
+		protected WeightedDigraph	g;
+		
+		SolverBenchmark(String name) {
+			super(name);
+		}
+		
+		@Override
+		public void setup(Params params) {
+			g = generate(params);
+		}
+	}
+	
+	static WeightedDigraph generate(Benchmark.Params params) {
+		return params.family.generate(params.size, params.density, params.seed);
+	}
+	
+	public static void main(String[] args) {
+		List<GraphFamily> families = new ArrayList<GraphFamily>();
+		List<Integer> sizes = new ArrayList<Integer>();
+		List<Double> densities = new ArrayList<Double>();
+		String filter = "";
+		int warmup = 5, iterations = 20;
+		long seed = 1;
+		for (String arg : args) {
+			String[] kv = arg.split("=", 2);
+			if (kv.length != 2) {
+				throw new RuntimeException("expected key=value but found " + arg);
+			}
+			String key = kv[0], value = kv[1];
+			if (key.equals("families")) {
+				for (String f : value.split(",")) {
+					families.add(GraphFamily.valueOf(f.toUpperCase()));
+				}
+			} else if (key.equals("sizes")) {
+				for (String s : value.split(",")) {
+					sizes.add(Integer.parseInt(s));
+				}
+			} else if (key.equals("densities")) {
+				for (String d : value.split(",")) {
+					densities.add(Double.parseDouble(d));
+				}
+			} else if (key.equals("filter")) {
+				filter = value;
+			} else if (key.equals("warmup")) {
+				warmup = Integer.parseInt(value);
+			} else if (key.equals("iterations")) {
+				iterations = Integer.parseInt(value);
+			} else if (key.equals("seed")) {
+				seed = Long.parseLong(value);
+			} else {
+				throw new RuntimeException("unknown option " + key);
+			}
+		}
+		if (families.isEmpty()) {
+			for (GraphFamily f : GraphFamily.values()) {
+				families.add(f);
+			}
+		}
+		if (sizes.isEmpty()) {
+			sizes.add(16);
+			sizes.add(64);
+			sizes.add(256);
+		}
+		if (densities.isEmpty()) {
+			densities.add(0.1);
+			densities.add(0.5);
+		}
+		
+		BenchmarkRunner runner = new BenchmarkRunner(warmup, iterations);
+		for (Benchmark b : all()) {
+			if ( ! b.name().contains(filter)) {
+				continue;
+			}
+			for (GraphFamily family : families) {
+				for (int size : sizes) {
+					for (double density : densities) {
+						Benchmark.Params params = new Benchmark.Params(family, size, density, seed);
+						if (b.accepts(params)) {
+							System.out.println(runner.run(b, params));
+						}
+					}
+				}
+			}
+		}
+	}
+}
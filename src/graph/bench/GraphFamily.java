@@ -0,0 +1,115 @@
+package graph.bench;
+
+import java.util.Random;
+
+import graph.WeightedDigraph;
+
+/**
+ * Seeded generators for the graph families used by the benchmarks and the regression corpus. The same family, size, density and seed always give
+ * the same graph. Every edge is added as a pair of opposite arcs with a weight in 1..{@link #MAX_WEIGHT}.
+ * 
+ * @author Lincoln
+ */
+public enum GraphFamily {
+	/** every pair is an edge with probability density */
+	RANDOM,
+	/** a random spanning path plus about density * n further edges, average degree stays constant as n grows */
+	SPARSE,
+	/** every pair is an edge with probability max(density, 0.5) */
+	DENSE,
+	/** two sides of n/2 vertices, pairs across are edges with probability density */
+	BIPARTITE,
+	/** a square grid of side sqrt(n), density is ignored */
+	GRID,
+	/**
+	 * chained 5-cycles each with a chord closing an inner triangle, the nested odd cycles force blossoms inside blossoms. Density is the probability of
+	 * an extra edge between consecutive cycles
+	 */
+	BLOSSOM;
+	
+	public static final int	MAX_WEIGHT	= 100;
+	
+	/**
+	 * @param numVertices number of vertices
+	 * @param density family specific edge density in [0,1]
+	 * @param seed seed of the generator
+	 * @return a new graph
+	 */
+	public WeightedDigraph generate(int numVertices, double density, long seed) {
+		Random random = new Random(seed);
+		WeightedDigraph g = new WeightedDigraph(numVertices);
+		int n = numVertices;
+		switch( this ) {
+			case RANDOM:
+			case DENSE:
+				double p = this == DENSE ? Math.max(density, 0.5) : density;
+				for (int v = 0; v < n; v++ ) {
+					for (int w = v + 1; w < n; w++ ) {
+						if (random.nextDouble() < p) {
+							edge(g, random, v, w);
+						}
+					}
+				}
+				break;
+			case SPARSE:
+				for (int v = 1; v < n; v++ ) {
+					edge(g, random, v - 1, v);
+				}
+				for (long ii = Math.round(density * n); ii > 0; ii-- ) {
+					int v = random.nextInt(n), w = random.nextInt(n);
+					if (v != w && g.heaviestArc(v, w) == null) {
+						edge(g, random, v, w);
+					}
+				}
+				break;
+			case BIPARTITE:
+				int half = n / 2;
+				for (int v = 0; v < half; v++ ) {
+					for (int w = half; w < n; w++ ) {
+						if (random.nextDouble() < density) {
+							edge(g, random, v, w);
+						}
+					}
+				}
+				break;
+			case GRID:
+				int side = Math.max(1, (int) Math.sqrt(n));
+				for (int v = 0; v < n; v++ ) {
+					if ((v + 1) % side != 0 && v + 1 < n) {
+						edge(g, random, v, v + 1);
+					}
+					if (v + side < n) {
+						edge(g, random, v, v + side);
+					}
+				}
+				break;
+			case BLOSSOM:
+				int cycles = n / 5;
+				for (int c = 0; c < cycles; c++ ) {
+					int base = 5 * c;
+					for (int ii = 0; ii < 5; ii++ ) {
+						edge(g, random, base + ii, base + (ii + 1) % 5);
+					}
+					edge(g, random, base, base + 2);
+					if (c > 0) {
+						edge(g, random, base - 5 + 3, base);
+						if (random.nextDouble() < density) {
+							edge(g, random, base - 5 + 1, base + 4);
+						}
+					}
+				}
+				// leftover vertices form a stem hanging off the first cycle
+				for (int v = 5 * cycles; v < n; v++ ) {
+					edge(g, random, v == 5 * cycles ? 0 : v - 1, v);
+				}
+				break;
+		}
+		return g;
+	}
+	
+	private static void edge(WeightedDigraph g, Random random, int v, int w) {
+		if (v != w) {
+			g.insertEdge(v, w, random.nextInt(MAX_WEIGHT) + 1);
+		}
+	}
+}
@@ -0,0 +1,166 @@
+package graph.bench;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough JSON for the benchmark baselines: objects become LinkedHashMaps, arrays Lists, numbers Doubles, and true, false and null their Java
+ * counterparts.
+ * 
+ * @author Lincoln
+ */
+class Json {
+	private final String	s;
+	private int						pos;
+	
+	private Json(String s) {
+		this.s = s;
+	}
+	
+	static Object parse(String s) {
+		Json json = new Json(s);
+		Object value = json.value();
+		json.skipSpace();
+		if (json.pos != s.length()) {
+			throw json.error("trailing characters");
+		}
+		return value;
+	}
+	
+	private Object value() {
+		skipSpace();
+		if (pos >= s.length()) {
+			throw error("unexpected end");
+		}
+		char c = s.charAt(pos);
+		switch( c ) {
+			case '{':
+				Map<String, Object> object = new LinkedHashMap<String, Object>();
+				pos++ ;
+				if ( ! consume('}')) {
+					do {
+						skipSpace();
+						String key = string();
+						expect(':');
+						object.put(key, value());
+					} while (consume(','));
+					expect('}');
+				}
+				return object;
+			case '[':
+				List<Object> array = new ArrayList<Object>();
+				pos++ ;
+				if ( ! consume(']')) {
+					do {
+						array.add(value());
+					} while (consume(','));
+					expect(']');
+				}
+				return array;
+			case '"':
+				return string();
+			default:
+				if (s.startsWith("true", pos)) {
+					pos += 4;
+					return Boolean.TRUE;
+				} else if (s.startsWith("false", pos)) {
+					pos += 5;
+					return Boolean.FALSE;
+				} else if (s.startsWith("null", pos)) {
+					pos += 4;
+					return null;
+				}
+				int start = pos;
+				while (pos < s.length() && "+-0123456789.eE".indexOf(s.charAt(pos)) >= 0) {
+					pos++ ;
+				}
+				if (start == pos) {
+					throw error("unexpected character " + c);
+				}
+				return Double.parseDouble(s.substring(start, pos));
+		}
+	}
+	
+	private String string() {
+		if (pos >= s.length() || s.charAt(pos) != '"') {
+			throw error("expected a string");
+		}
+		StringBuilder b = new StringBuilder();
+		for (pos++ ; pos < s.length(); pos++ ) {
+			char c = s.charAt(pos);
+			if (c == '"') {
+				pos++ ;
+				return b.toString();
+			} else if (c == '\\') {
+				c = s.charAt( ++pos);
+				switch( c ) {
+					case 'n':
+						b.append('\n');
+						break;
+					case 't':
+						b.append('\t');
+						break;
+					case 'r':
+						b.append('\r');
+						break;
+					case 'u':
+						b.append((char) Integer.parseInt(s.substring(pos + 1, pos + 5), 16));
+						pos += 4;
+						break;
+					default:
+						b.append(c);
+				}
+			} else {
+				b.append(c);
+			}
+		}
+		throw error("unterminated string");
+	}
+	
+	private void skipSpace() {
+		while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) {
+			pos++ ;
+		}
+	}
+	
+	private boolean consume(char c) {
+		skipSpace();
+		if (pos < s.length() && s.charAt(pos) == c) {
+			pos++ ;
+			return true;
+		}
+		return false;
+	}
+	
+	private void expect(char c) {
+		if ( ! consume(c)) {
+			throw error("expected " + c);
+		}
+	}
+	
+	private RuntimeException error(String message) {
+		return new RuntimeException("json: " + message + " at " + pos);
+	}
+	
+	/**
+	 * @return {@link s} as a quoted JSON string
+	 */
+	static String quote(String s) {
+		StringBuilder b = new StringBuilder("\"");
+		for (int ii = 0; ii < s.length(); ii++ ) {
+			char c = s.charAt(ii);
+			if (c == '"' || c == '\\') {
+				b.append('\\').append(c);
+			} else if (c == '\n') {
+				b.append("\\n");
+			} else if (c < ' ') {
+				b.append(String.format("\\u%04x", (int) c));
+			} else {
+				b.append(c);
+			}
+		}
+		return b.append('"').toString();
+	}
+}
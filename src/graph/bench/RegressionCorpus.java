@@ -0,0 +1,77 @@
+package graph.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import graph.WeightedDigraph;
+
+/**
+ * A fixed list of seeded instances that every engine is run against to catch performance regressions. The instances are regenerated from their
+ * parameters so the corpus never has to be stored, changing an instance changes its name and so invalidates its baseline entries.
+ * 
+ * @author Lincoln
+ */
+public class RegressionCorpus {
+	
+	/**
+	 * One generated graph of the corpus
+	 */
+	public static class Instance {
+		public final GraphFamily	family;
+		public final int					size;
+		public final double				density;
+		public final long					seed;
+		
+		public Instance(GraphFamily family, int size, double density, long seed) {
+			this.family = family;
+			this.size = size;
+			this.density = density;
+			this.seed = seed;
+		}
+		
+		/**
+		 * @return a key identifying the instance in a baseline
+		 */
+		public String name() {
+			return String.format("%s-n%d-d%.2f-s%d", family.toString().toLowerCase(), size, density, seed);
+		}
+		
+		public WeightedDigraph graph() {
+			return family.generate(size, density, seed);
+		}
+		
+		@Override
+		public String toString() {
+			return name();
+		}
+	}
+	
+	private final List<Instance>	instances	= new ArrayList<Instance>();
+	
+	public RegressionCorpus add(GraphFamily family, int size, double density, long seed) {
+		instances.add(new Instance(family, size, density, seed));
+		return this;
+	}
+	
+	public List<Instance> instances() {
+		return Collections.unmodifiableList(instances);
+	}
+	
+	/**
+	 * @return the standard corpus: sparse, dense, bipartite, blossom heavy and grid graphs, each at a size small enough for the exact solver and a
+	 *         larger one
+	 */
+	public static RegressionCorpus standard() {
+		RegressionCorpus corpus = new RegressionCorpus();
+		for (long seed = 1; seed <= 2; seed++ ) {
+			corpus.add(GraphFamily.SPARSE, 32, 0.5, seed).add(GraphFamily.SPARSE, 1000, 1, seed);
+			corpus.add(GraphFamily.RANDOM, 32, 0.2, seed).add(GraphFamily.RANDOM, 200, 0.05, seed);
+			corpus.add(GraphFamily.DENSE, 32, 0.5, seed).add(GraphFamily.DENSE, 120, 0.8, seed);
+			corpus.add(GraphFamily.BIPARTITE, 32, 0.3, seed).add(GraphFamily.BIPARTITE, 300, 0.05, seed);
+			corpus.add(GraphFamily.BLOSSOM, 35, 0.5, seed).add(GraphFamily.BLOSSOM, 500, 0.5, seed);
+			corpus.add(GraphFamily.GRID, 36, 0, seed).add(GraphFamily.GRID, 900, 0, seed);
+		}
+		return corpus;
+	}
+}
@@ -0,0 +1,348 @@
+package graph.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.MatchingEngine;
+
+/**
+ * Solves every instance of a {@link RegressionCorpus} with every {@link MatchingEngine} and compares wall time, allocation and peak heap against a
+ * stored JSON baseline. A measurement regresses when it exceeds the baseline by more than the tolerance, the matching size and weight have to match
+ * the baseline exactly since the corpus is deterministic. Arguments are key=value pairs:
+ * <ul>
+ * <li>baseline: baseline file to compare against</li>
+ * <li>write: file to store the measurements in as a new baseline</li>
+ * <li>tolerance: allowed relative slowdown and growth, default 0.25</li>
+ * <li>warmup, repetitions: solves per instance and engine, default 2 and 5</li>
+ * <li>filter: only instances or engines whose name contains this</li>
+ * </ul>
+ * The exit status is 1 if anything regressed.
+ * 
+ * @author Lincoln
+ */
+public class RegressionRunner {
+	public static final double	DEFAULT_TOLERANCE	= 0.25;
+	/** differences below these are noise whatever the tolerance */
+	static final double					NANOS_FLOOR				= 1e6;
+	static final double					BYTES_FLOOR				= 1 << 16;
+	
+	private static final Charset	UTF8							= Charset.forName("UTF-8");
+	
+	/**
+	 * One engine on one instance
+	 */
+	public static class Measurement {
+		public final String	instance;
+		public final String	engine;
+		/** median wall time of a solve */
+		public final double	nanos;
+		/** fewest bytes allocated by a solve, -1 if unavailable */
+		public final double	bytes;
+		/** smallest peak heap growth over a solve */
+		public final double	peakHeap;
+		public final int		size;
+		public final long		weight;
+		public final String	error;
+		
+		public Measurement(String instance, String engine, double nanos, double bytes, double peakHeap, int size, long weight, String error) {
+			this.instance = instance;
+			this.engine = engine;
+			this.nanos = nanos;
+			this.bytes = bytes;
+			this.peakHeap = peakHeap;
+			this.size = size;
+			this.weight = weight;
+			this.error = error;
+		}
+		
+		String key() {
+			return instance + "/" + engine;
+		}
+		
+		@Override
+		public String toString() {
+			if (error != null) {
+				return String.format("%-28s %-22s failed: %s", instance, engine, error);
+			}
+			return String.format("%-28s %-22s %12.1f us %14.0f B %14.0f B peak  size %d weight %d", instance, engine, nanos / 1e3, bytes, peakHeap, size,
+					weight);
+		}
+	}
+	
+	/**
+	 * A measurement that got worse than its baseline
+	 */
+	public static class Regression {
+		public final Measurement	baseline;
+		public final Measurement	current;
+		public final String				reason;
+		
+		Regression(Measurement baseline, Measurement current, String reason) {
+			this.baseline = baseline;
+			this.current = current;
+			this.reason = reason;
+		}
+		
+		@Override
+		public String toString() {
+			Measurement m = current != null ? current : baseline;
+			return m.instance + " " + m.engine + ": " + reason;
+		}
+	}
+	
+	private final int							warmup;
+	private final int							repetitions;
+	private final BenchmarkRunner	allocation	= new BenchmarkRunner(0, 0);
+	private String								filter			= "";
+	private int										sink;
+	
+	/**
+	 * @param warmup solves before measuring
+	 * @param repetitions measured solves per instance and engine
+	 */
+	public RegressionRunner(int warmup, int repetitions) {
+		if (repetitions < 1) {
+			throw new RuntimeException("at least one repetition is needed");
+		}
+		this.warmup = warmup;
+		this.repetitions = repetitions;
+	}
+	
+	/**
+	 * @param filter only instances or engines whose name contains this are run
+	 */
+	public void setFilter(String filter) {
+		this.filter = filter;
+	}
+	
+	public List<Measurement> run(RegressionCorpus corpus, MatchingEngine... engines) {
+		List<Measurement> measurements = new ArrayList<Measurement>();
+		for (RegressionCorpus.Instance instance : corpus.instances()) {
+			for (MatchingEngine engine : engines) {
+				if (engine.accepts(instance.size) && (instance.name().contains(filter) || engine.toString().contains(filter))) {
+					measurements.add(measure(instance, engine));
+				}
+			}
+		}
+		return measurements;
+	}
+	
+	public Measurement measure(RegressionCorpus.Instance instance, MatchingEngine engine) {
+		WeightedDigraph g = instance.graph();
+		try {
+			for (int ii = 0; ii < warmup; ii++ ) {
+				consume(engine.solve(g));
+			}
+			long[] nanos = new long[repetitions];
+			double bytes = Double.MAX_VALUE, peak = Double.MAX_VALUE;
+			Matching m = null;
+			for (int ii = 0; ii < repetitions; ii++ ) {
+				System.gc();
+				long heapBefore = resetPeakHeap();
+				long bytesBefore = allocation.allocated();
+				long start = System.nanoTime();
+				m = engine.solve(g);
+				nanos[ii] = System.nanoTime() - start;
+				bytes = Math.min(bytes, allocation.allocated() - bytesBefore);
+				peak = Math.min(peak, Math.max(0, peakHeap() - heapBefore));
+				consume(m);
+			}
+			Arrays.sort(nanos);
+			if (allocation.allocated() == 0) {
+				bytes = - 1;
+			}
+			return new Measurement(instance.name(), engine.toString(), nanos[repetitions / 2], bytes, peak, m.matches(), m.weight(), null);
+		} catch (RuntimeException e) {
+			return new Measurement(instance.name(), engine.toString(), 0, 0, 0, 0, 0, String.valueOf(e.getMessage()));
+		} catch (StackOverflowError e) {
+			return new Measurement(instance.name(), engine.toString(), 0, 0, 0, 0, 0, "stack overflow");
+		}
+	}
+	
+	private void consume(Matching m) {
+		sink += m.matches();
+	}
+	
+	public int sink() {
+		return sink;
+	}
+	
+	/**
+	 * Reset the peak usage of the heap pools
+	 * 
+	 * @return heap in use now
+	 */
+	private static long resetPeakHeap() {
+		long used = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+				pool.resetPeakUsage();
+				used += pool.getUsage().getUsed();
+			}
+		}
+		return used;
+	}
+	
+	/**
+	 * @return the sum of the heap pool peaks since the last reset, an upper bound on the peak heap
+	 */
+	private static long peakHeap() {
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		return peak;
+	}
+	
+	/**
+	 * @param baseline stored measurements
+	 * @param current new measurements
+	 * @param tolerance allowed relative growth of time, allocation and peak heap
+	 * @return every current measurement that is worse than its baseline, measurements missing from either side are ignored
+	 */
+	public static List<Regression> compare(List<Measurement> baseline, List<Measurement> current, double tolerance) {
+		Map<String, Measurement> byKey = new HashMap<String, Measurement>();
+		for (Measurement m : baseline) {
+			byKey.put(m.key(), m);
+		}
+		List<Regression> regressions = new ArrayList<Regression>();
+		for (Measurement now : current) {
+			Measurement base = byKey.get(now.key());
+			if (base == null) {
+				continue;
+			}
+			String reason = null;
+			if (now.error != null) {
+				if (base.error == null) {
+					reason = "now fails: " + now.error;
+				}
+			} else if (base.error != null) {
+				// fixed, nothing to compare against
+			} else if (now.size != base.size || now.weight != base.weight) {
+				reason = String.format("matching changed from size %d weight %d to size %d weight %d", base.size, base.weight, now.size, now.weight);
+			} else if (exceeds(base.nanos, now.nanos, tolerance, NANOS_FLOOR)) {
+				reason = String.format("time %.1f us -> %.1f us", base.nanos / 1e3, now.nanos / 1e3);
+			} else if (base.bytes >= 0 && now.bytes >= 0 && exceeds(base.bytes, now.bytes, tolerance, BYTES_FLOOR)) {
+				reason = String.format("allocation %.0f B -> %.0f B", base.bytes, now.bytes);
+			} else if (exceeds(base.peakHeap, now.peakHeap, tolerance, BYTES_FLOOR)) {
+				reason = String.format("peak heap %.0f B -> %.0f B", base.peakHeap, now.peakHeap);
+			}
+			if (reason != null) {
+				regressions.add(new Regression(base, now, reason));
+			}
+		}
+		return regressions;
+	}
+	
+	private static boolean exceeds(double base, double now, double tolerance, double floor) {
+		return now > Math.max(base, floor) * (1 + tolerance);
+	}
+	
+	public static String toJson(List<Measurement> measurements) {
+		StringBuilder s = new StringBuilder("[\n");
+		for (int ii = 0; ii < measurements.size(); ii++ ) {
+			Measurement m = measurements.get(ii);
+			s.append(String.format("  {\"instance\": %s, \"engine\": %s, \"nanos\": %.0f, \"bytes\": %.0f, \"peakHeap\": %.0f, \"size\": %d, \"weight\": %d",
+					Json.quote(m.instance), Json.quote(m.engine), m.nanos, m.bytes, m.peakHeap, m.size, m.weight));
+			if (m.error != null) {
+				s.append(", \"error\": ").append(Json.quote(m.error));
+			}
+			s.append(ii + 1 < measurements.size() ? "},\n" : "}\n");
+		}
+		return s.append("]\n").toString();
+	}
+	
+	@SuppressWarnings("unchecked")
+	public static List<Measurement> fromJson(String json) {
+		Object parsed = Json.parse(json);
+		if ( ! (parsed instanceof List)) {
+			throw new RuntimeException("a baseline is a list of measurements");
+		}
+		List<Measurement> measurements = new ArrayList<Measurement>();
+		for (Object o : (List<Object>) parsed) {
+			Map<String, Object> m = (Map<String, Object>) o;
+			measurements.add(new Measurement((String) m.get("instance"), (String) m.get("engine"), number(m, "nanos"), number(m, "bytes"), number(m,
+					"peakHeap"), (int) number(m, "size"), (long) number(m, "weight"), (String) m.get("error")));
+		}
+		return measurements;
+	}
+	
+	private static double number(Map<String, Object> m, String key) {
+		Object value = m.get(key);
+		if ( ! (value instanceof Double)) {
+			throw new RuntimeException("measurement without " + key + ": " + m);
+		}
+		return (Double) value;
+	}
+	
+	public static void write(List<Measurement> measurements, File file) throws IOException {
+		Files.write(file.toPath(), toJson(measurements).getBytes(UTF8));
+	}
+	
+	public static List<Measurement> read(File file) throws IOException {
+		return fromJson(new String(Files.readAllBytes(file.toPath()), UTF8));
+	}
+	
+	public static void main(String[] args) throws IOException {
+		File baseline = null, write = null;
+		double tolerance = DEFAULT_TOLERANCE;
+		int warmup = 2, repetitions = 5;
+		String filter = "";
+		for (String arg : args) {
+			String[] kv = arg.split("=", 2);
+			if (kv.length != 2) {
+				throw new RuntimeException("expected key=value but found " + arg);
+			}
+			String key = kv[0], value = kv[1];
+			if (key.equals("baseline")) {
+				baseline = new File(value);
+			} else if (key.equals("write")) {
+				write = new File(value);
+			} else if (key.equals("tolerance")) {
+				tolerance = Double.parseDouble(value);
+			} else if (key.equals("warmup")) {
+				warmup = Integer.parseInt(value);
+			} else if (key.equals("repetitions")) {
+				repetitions = Integer.parseInt(value);
+			} else if (key.equals("filter")) {
+				filter = value;
+			} else {
+				throw new RuntimeException("unknown option " + key);
+			}
+		}
+		
+		RegressionRunner runner = new RegressionRunner(warmup, repetitions);
+		runner.setFilter(filter);
+		List<Measurement> measurements = runner.run(RegressionCorpus.standard(), MatchingEngine.values());
+		for (Measurement m : measurements) {
+			System.out.println(m);
+		}
+		if (write != null) {
+			write(measurements, write);
+		}
+		if (baseline != null) {
+			List<Regression> regressions = compare(read(baseline), measurements, tolerance);
+			for (Regression r : regressions) {
+				System.out.println("REGRESSION " + r);
+			}
+			System.out.println(regressions.size() + " regressions against " + baseline + " with tolerance " + tolerance);
+			if ( ! regressions.isEmpty()) {
+				System.exit(1);
+			}
+		}
+	}
+}
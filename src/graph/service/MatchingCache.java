@@ -0,0 +1,266 @@
+package graph.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import graph.BinaryGraphFormat;
+import graph.GraphFingerprint;
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.MatchingEngine;
+
+/**
+ * Content addressed cache of solved graphs. Results are keyed by the {@link GraphFingerprint} of the graph and the engine that solved it, so the same
+ * graph loaded twice is solved once. The memory tier is an LRU bounded by the estimated size of the cached matchings; with a directory set, entries
+ * evicted from memory are written there in {@link BinaryGraphFormat} and the directory is trimmed oldest first to its own bound.
+ * 
+ * Matchings are copied in and out, callers may modify what they get back. A matching read from disk holds the same pairs but takes its arcs from
+ * the graph being looked up, so arc directions may differ. The disk tier is best effort: a file that cannot be written or read is dropped and the
+ * lookup counts as a miss.
+ * 
+ * @author Lincoln
+ */
+public class MatchingCache {
+	private static final String								SUFFIX		= ".matching";
+	/** object headers and map entry */
+	private static final long									OVERHEAD	= 96;
+	
+	private final long												maxBytes;
+	private final File												dir;
+	private final long												maxDiskBytes;
+	/** access ordered, eldest first */
+	private final LinkedHashMap<String, Matching>	memory		= new LinkedHashMap<String, Matching>(16, 0.75f, true);
+	private final LinkedHashMap<String, Long>		disk			= new LinkedHashMap<String, Long>(16, 0.75f, true);
+	private long															bytes, diskBytes;
+	private long															hits, diskHits, misses, evictions;
+	
+	/**
+	 * Memory only cache
+	 * 
+	 * @param maxBytes bound on the estimated size of the cached matchings
+	 */
+	public MatchingCache(long maxBytes) {
+		this(maxBytes, null, 0);
+	}
+	
+	/**
+	 * @param maxBytes bound on the estimated size of the matchings held in memory
+	 * @param dir directory of the disk tier, created if missing, or null for none. Files left by an earlier cache are picked up
+	 * @param maxDiskBytes bound on the size of the files in {@link dir}
+	 */
+	public MatchingCache(long maxBytes, File dir, long maxDiskBytes) {
+		this.maxBytes = maxBytes;
+		this.dir = dir;
+		this.maxDiskBytes = maxDiskBytes;
+		if (dir != null) {
+			if ( ! dir.isDirectory() && ! dir.mkdirs()) {
+				throw new RuntimeException("cannot create cache directory " + dir);
+			}
+			File[] files = dir.listFiles();
+			for (File f : files != null ? files : new File[0]) {
+				if (f.getName().endsWith(SUFFIX)) {
+					String key = f.getName().substring(0, f.getName().length() - SUFFIX.length());
+					disk.put(key, f.length());
+					diskBytes += f.length();
+				}
+			}
+			trimDisk();
+		}
+	}
+	
+	private static String key(GraphFingerprint fingerprint, MatchingEngine engine) {
+		return fingerprint + "-" + engine.name().toLowerCase();
+	}
+	
+	/**
+	 * @return estimated heap size of a cached matching
+	 */
+	static long size(Matching m) {
+		return OVERHEAD + 4L * (m.numVertices() + 1);
+	}
+	
+	/**
+	 * Look a graph up, solving and caching it on a miss
+	 * 
+	 * @param g graph to match
+	 * @param engine solver used on a miss
+	 * @return a copy of the cached matching
+	 */
+	public Matching solve(WeightedDigraph g, MatchingEngine engine) {
+		GraphFingerprint fingerprint = GraphFingerprint.of(g);
+		Matching m = get(fingerprint, engine, g);
+		if (m == null) {
+			m = engine.solve(g);
+			put(fingerprint, engine, m);
+		}
+		return m;
+	}
+	
+	/**
+	 * @param fingerprint fingerprint of {@link g}
+	 * @param engine engine the result was computed with
+	 * @param g the graph, a matching read from disk takes its arcs from it
+	 * @return a copy of the cached matching or null
+	 */
+	public synchronized Matching get(GraphFingerprint fingerprint, MatchingEngine engine, WeightedDigraph g) {
+		String key = key(fingerprint, engine);
+		Matching m = memory.get(key);
+		if (m != null) {
+			hits++ ;
+			return new Matching(m);
+		}
+		if (disk.containsKey(key)) {
+			m = readDisk(key, g);
+			if (m != null) {
+				diskHits++ ;
+				// promote, the file stays so a later eviction need not write it again
+				store(key, new Matching(m));
+				return m;
+			}
+		}
+		misses++ ;
+		return null;
+	}
+	
+	public synchronized void put(GraphFingerprint fingerprint, MatchingEngine engine, Matching m) {
+		store(key(fingerprint, engine), new Matching(m));
+	}
+	
+	private void store(String key, Matching m) {
+		Matching old = memory.put(key, m);
+		if (old != null) {
+			bytes -= size(old);
+		}
+		bytes += size(m);
+		Iterator<Map.Entry<String, Matching>> eldest = memory.entrySet().iterator();
+		while (bytes > maxBytes && eldest.hasNext()) {
+			Map.Entry<String, Matching> entry = eldest.next();
+			eldest.remove();
+			bytes -= size(entry.getValue());
+			evictions++ ;
+			if (dir != null && ! disk.containsKey(entry.getKey())) {
+				writeDisk(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+	
+	private File file(String key) {
+		return new File(dir, key + SUFFIX);
+	}
+	
+	private void writeDisk(String key, Matching m) {
+		File f = file(key), tmp = new File(dir, key + ".tmp");
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+			try {
+				BinaryGraphFormat.write(m, null, out);
+			} finally {
+				out.close();
+			}
+			if ( ! tmp.renameTo(f)) {
+				throw new IOException("cannot rename " + tmp);
+			}
+		} catch (IOException e) {
+			tmp.delete();
+			return;
+		}
+		disk.put(key, f.length());
+		diskBytes += f.length();
+		trimDisk();
+	}
+	
+	private Matching readDisk(String key, WeightedDigraph g) {
+		File f = file(key);
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+			try {
+				Matching pairs = BinaryGraphFormat.readMatching(in, g.numVertices());
+				// the file holds no weights, take the arcs from the graph
+				Matching m = new Matching(pairs.numVertices());
+				for (int v = 0; v < pairs.numVertices(); v++ ) {
+					int w = pairs.mate(v);
+					if (pairs.isMatched(v) && v < w) {
+						m.add(g.heaviestArc(v, w));
+					}
+				}
+				return m;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			diskBytes -= disk.remove(key);
+			f.delete();
+			return null;
+		}
+	}
+	
+	private void trimDisk() {
+		Iterator<Map.Entry<String, Long>> eldest = disk.entrySet().iterator();
+		while (diskBytes > maxDiskBytes && eldest.hasNext()) {
+			Map.Entry<String, Long> entry = eldest.next();
+			eldest.remove();
+			diskBytes -= entry.getValue();
+			file(entry.getKey()).delete();
+		}
+	}
+	
+	/**
+	 * Drop the memory tier, the disk tier is kept
+	 */
+	public synchronized void clear() {
+		memory.clear();
+		bytes = 0;
+	}
+	
+	/**
+	 * @return matchings held in memory
+	 */
+	public synchronized int size() {
+		return memory.size();
+	}
+	
+	/**
+	 * @return estimated size of the matchings held in memory
+	 */
+	public synchronized long bytes() {
+		return bytes;
+	}
+	
+	/**
+	 * @return matchings held on disk
+	 */
+	public synchronized int diskSize() {
+		return disk.size();
+	}
+	
+	public synchronized long hits() {
+		return hits;
+	}
+	
+	/**
+	 * @return lookups answered from the disk tier
+	 */
+	public synchronized long diskHits() {
+		return diskHits;
+	}
+	
+	public synchronized long misses() {
+		return misses;
+	}
+	
+	/**
+	 * @return entries evicted from memory
+	 */
+	public synchronized long evictions() {
+		return evictions;
+	}
+}
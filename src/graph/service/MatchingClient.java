@@ -0,0 +1,162 @@
+package graph.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import graph.BinaryGraphFormat;
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.MatchingEngine;
+
+/**
+ * Client of a {@link MatchingServer}. Requests are pipelined over one connection, {@link #submit} returns at once and a reader thread completes the
+ * futures as responses arrive. The client is thread safe.
+ * 
+ * @author Lincoln
+ */
+public class MatchingClient implements Closeable {
+	
+	/**
+	 * Answer of the server to one request
+	 */
+	public static class Response {
+		/** the matching, null on error */
+		public final Matching	matching;
+		/** time the server took from receiving the request to answering it */
+		public final long			serverNanos;
+		/** message of a failed solve, null on success */
+		public final String		error;
+		/** whether the server turned the request away because its queue was full, the request may be sent again later */
+		public final boolean	busy;
+		
+		Response(Matching matching, long serverNanos, String error, boolean busy) {
+			this.matching = matching;
+			this.serverNanos = serverNanos;
+			this.error = error;
+			this.busy = busy;
+		}
+	}
+	
+	private final Socket																			socket;
+	private final DataOutputStream														out;
+	private final DataInputStream															in;
+	private final Map<Integer, CompletableFuture<Response>>	pending	= new ConcurrentHashMap<Integer, CompletableFuture<Response>>();
+	private final AtomicInteger																nextId	= new AtomicInteger();
+	private volatile IOException															failure;
+	
+	/**
+	 * Connect to a server on the loopback interface
+	 */
+	public MatchingClient(int port) throws IOException {
+		socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		socket.setTcpNoDelay(true);
+		out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		Thread reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				read();
+			}
+		}, "matching-client");
+		reader.setDaemon(true);
+		reader.start();
+	}
+	
+	private void read() {
+		try {
+			while (true) {
+				int id = in.readInt();
+				byte status = in.readByte();
+				long nanos = in.readLong();
+				Response r = status == MatchingServer.OK ? new Response(BinaryGraphFormat.readMatching(in, MatchingServer.MAX_VERTICES), nanos, null, false)
+						: new Response(null, nanos, in.readUTF(), status == MatchingServer.BUSY);
+				CompletableFuture<Response> future = pending.remove(id);
+				if (future != null) {
+					future.complete(r);
+				}
+			}
+		} catch (IOException e) {
+			failure = e;
+			for (Integer id : pending.keySet()) {
+				CompletableFuture<Response> future = pending.remove(id);
+				if (future != null) {
+					future.completeExceptionally(e);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Send a graph without waiting for the answer
+	 * 
+	 * @param g graph to match
+	 * @param engine {@link MatchingServer#POOLED_CARDINALITY}, {@link MatchingServer#POOLED_WEIGHTED} or a {@link MatchingEngine#code()}
+	 * @return the future answer
+	 */
+	public CompletableFuture<Response> submit(WeightedDigraph g, byte engine) throws IOException {
+		if (failure != null) {
+			throw new IOException("connection lost", failure);
+		}
+		int id = nextId.getAndIncrement();
+		CompletableFuture<Response> future = new CompletableFuture<Response>();
+		pending.put(id, future);
+		try {
+			synchronized (out) {
+				out.writeInt(id);
+				out.writeByte(engine);
+				BinaryGraphFormat.write(g, out);
+				out.flush();
+			}
+		} catch (IOException e) {
+			pending.remove(id);
+			throw e;
+		}
+		if (failure != null && pending.remove(id) != null) {
+			// the reader gave up before this request was registered
+			future.completeExceptionally(failure);
+		}
+		return future;
+	}
+	
+	public CompletableFuture<Response> submit(WeightedDigraph g, MatchingEngine engine) throws IOException {
+		return submit(g, engine.code());
+	}
+	
+	/**
+	 * Solve a graph on the server's warm pooled solvers and wait for the matching
+	 * 
+	 * @param g graph to match
+	 * @param weighted maximize weight instead of cardinality
+	 */
+	public Matching solve(WeightedDigraph g, boolean weighted) throws IOException {
+		Response r;
+		try {
+			r = submit(g, weighted ? MatchingServer.POOLED_WEIGHTED : MatchingServer.POOLED_CARDINALITY).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while waiting for the server", e);
+		} catch (ExecutionException e) {
+			throw new IOException("request failed", e.getCause());
+		}
+		if (r.error != null) {
+			throw new RuntimeException(r.error);
+		}
+		return r.matching;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+}
@@ -0,0 +1,342 @@
+package graph.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import graph.BinaryGraphFormat;
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.BatchMatching;
+import graph.algorithms.matching.MatchingEngine;
+
+/**
+ * A long running solver on a loopback TCP port so the JIT stays warm between solves. Requests from all connections go into one queue, every worker
+ * takes what is waiting (up to a batch limit) at once and solves it on its own warm {@link BatchMatching.Workspace}. Connections are pipelined,
+ * responses carry the id of their request and may come back out of order. The queue is bounded, a request that finds it full is answered
+ * {@link #BUSY} at once.
+ * <p>
+ * Protocol, big endian:
+ * <ul>
+ * <li>request: int id, byte engine, graph in {@link BinaryGraphFormat}. The engine is {@link #POOLED_CARDINALITY}, {@link #POOLED_WEIGHTED} or the
+ * {@link MatchingEngine#code()} of an engine, unknown codes are answered with an {@link #ERROR}</li>
+ * <li>response: int id, byte status, long nanoseconds from receiving the request to answering it, then the matching in {@link BinaryGraphFormat} if
+ * the status is {@link #OK} or a UTF message if it is {@link #ERROR} or {@link #BUSY}</li>
+ * </ul>
+ * 
+ * @author Lincoln
+ */
+public class MatchingServer implements Closeable {
+	/** solved on the worker's reusable cardinality solvers */
+	public static final byte									POOLED_CARDINALITY	= - 1;
+	/** solved on the worker's reusable weighted solvers */
+	public static final byte									POOLED_WEIGHTED			= - 2;
+	public static final byte									OK									= 0;
+	public static final byte									ERROR								= 1;
+	/** the request was not queued, the server has too many waiting */
+	public static final byte									BUSY								= 2;
+	/** default number of requests that may wait for a worker */
+	public static final int										MAX_QUEUED					= 4096;
+	/** largest graph a request may carry */
+	public static final int										MAX_VERTICES				= 1 << 24;
+	
+	private final ServerSocket								socket;
+	private final int													maxBatch;
+	private final BlockingQueue<Request>			requests;
+	private final ExecutorService							threads;
+	private final Set<Connection>							connections					= ConcurrentHashMap.newKeySet();
+	private volatile boolean									closed;
+	
+	private final AtomicLong									served							= new AtomicLong();
+	private final AtomicLong									batches							= new AtomicLong();
+	private final AtomicLong									totalLatency				= new AtomicLong();
+	private final AtomicLong									maxLatency					= new AtomicLong();
+	private final AtomicLong									rejected						= new AtomicLong();
+	
+	/**
+	 * One decoded request waiting for a worker
+	 */
+	private static class Request {
+		final Connection			from;
+		final int							id;
+		final byte						engine;
+		final WeightedDigraph	g;
+		final long						received;
+		
+		Request(Connection from, int id, byte engine, WeightedDigraph g, long received) {
+			this.from = from;
+			this.id = id;
+			this.engine = engine;
+			this.g = g;
+			this.received = received;
+		}
+	}
+	
+	/**
+	 * A client connection, read by its own thread and written by the workers
+	 */
+	private class Connection implements Runnable {
+		final Socket						client;
+		final DataInputStream		in;
+		final DataOutputStream	out;
+		
+		Connection(Socket client) throws IOException {
+			this.client = client;
+			client.setTcpNoDelay(true);
+			in = new DataInputStream(new BufferedInputStream(client.getInputStream()));
+			out = new DataOutputStream(new BufferedOutputStream(client.getOutputStream()));
+		}
+		
+		@Override
+		public void run() {
+			try {
+				while ( ! closed) {
+					int id;
+					try {
+						id = in.readInt();
+					} catch (EOFException e) {
+						break;
+					}
+					byte engine = in.readByte();
+					WeightedDigraph g = BinaryGraphFormat.read(in, MAX_VERTICES);
+					Request r = new Request(this, id, engine, g, System.nanoTime());
+					if ( ! requests.offer(r)) {
+						rejected.incrementAndGet();
+						write(r, BUSY, null, "server busy, " + requests.size() + " requests queued");
+					}
+				}
+			} catch (IOException e) {
+				// a broken or malformed stream ends the connection
+			} finally {
+				close();
+			}
+		}
+		
+		void respond(Request r, Matching m, String error) {
+			long latency = System.nanoTime() - r.received;
+			served.incrementAndGet();
+			totalLatency.addAndGet(latency);
+			long max;
+			do {
+				max = maxLatency.get();
+			} while (latency > max && ! maxLatency.compareAndSet(max, latency));
+			write(r, error == null ? OK : ERROR, m, error);
+		}
+		
+		private void write(Request r, byte status, Matching m, String message) {
+			try {
+				synchronized (out) {
+					out.writeInt(r.id);
+					out.writeByte(status);
+					out.writeLong(System.nanoTime() - r.received);
+					if (status == OK) {
+						BinaryGraphFormat.write(m, r.g, out);
+					} else {
+						out.writeUTF(message);
+					}
+					out.flush();
+				}
+			} catch (IOException e) {
+				close();
+			}
+		}
+		
+		void close() {
+			connections.remove(this);
+			try {
+				client.close();
+			} catch (IOException e) {
+				// already gone
+			}
+		}
+	}
+	
+	/**
+	 * Takes the waiting requests in batches and solves them on warm solvers
+	 */
+	private class Worker implements Runnable {
+		private final BatchMatching.Workspace	cardinality	= new BatchMatching.Workspace(false);
+		private final BatchMatching.Workspace	weighted		= new BatchMatching.Workspace(true);
+		private final List<Request>						batch				= new ArrayList<Request>();
+		
+		@Override
+		public void run() {
+			try {
+				while ( ! closed) {
+					batch.add(requests.take());
+					requests.drainTo(batch, maxBatch - 1);
+					batches.incrementAndGet();
+					for (Request r : batch) {
+						solve(r);
+					}
+					batch.clear();
+				}
+			} catch (InterruptedException e) {
+				// closed
+			}
+		}
+		
+		private void solve(Request r) {
+			Matching m;
+			try {
+				if (r.engine == POOLED_CARDINALITY) {
+					m = cardinality.solve(r.g);
+				} else if (r.engine == POOLED_WEIGHTED) {
+					m = weighted.solve(r.g);
+				} else {
+					m = MatchingEngine.forCode(r.engine).solve(r.g);
+				}
+			} catch (Throwable e) {
+				// errors too, a solver running out of stack or memory must not take the worker and the waiting client with it
+				r.from.respond(r, null, e.getMessage() != null ? e.getMessage() : e.toString());
+				return;
+			}
+			r.from.respond(r, m, null);
+		}
+	}
+	
+	/**
+	 * Start serving on the loopback interface with a queue of {@link #MAX_QUEUED}
+	 * 
+	 * @param port port to listen on, 0 picks a free one, see {@link #port()}
+	 * @param numWorkers solver threads
+	 * @param maxBatch most requests a worker takes at once
+	 */
+	public MatchingServer(int port, int numWorkers, int maxBatch) throws IOException {
+		this(port, numWorkers, maxBatch, MAX_QUEUED);
+	}
+	
+	/**
+	 * Start serving on the loopback interface
+	 * 
+	 * @param port port to listen on, 0 picks a free one, see {@link #port()}
+	 * @param numWorkers solver threads
+	 * @param maxBatch most requests a worker takes at once
+	 * @param maxQueued requests that may wait for a worker, further ones are answered {@link #BUSY}
+	 */
+	public MatchingServer(int port, int numWorkers, int maxBatch, int maxQueued) throws IOException {
+		if (numWorkers < 1 || maxBatch < 1 || maxQueued < 1) {
+			throw new RuntimeException("need at least one worker, a batch of at least one and room for one request");
+		}
+		this.maxBatch = maxBatch;
+		requests = new ArrayBlockingQueue<Request>(maxQueued);
+		socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		final AtomicInteger count = new AtomicInteger();
+		threads = Executors.newCachedThreadPool(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "matching-server-" + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		for (int w = 0; w < numWorkers; w++ ) {
+			threads.execute(new Worker());
+		}
+		threads.execute(new Runnable() {
+			@Override
+			public void run() {
+				accept();
+			}
+		});
+	}
+	
+	private void accept() {
+		while ( ! closed) {
+			try {
+				Connection c = new Connection(socket.accept());
+				connections.add(c);
+				threads.execute(c);
+			} catch (IOException e) {
+				// a failed accept only loses that client, closing the socket ends the loop
+			}
+		}
+	}
+	
+	public int port() {
+		return socket.getLocalPort();
+	}
+	
+	/**
+	 * @return requests answered so far
+	 */
+	public long served() {
+		return served.get();
+	}
+	
+	/**
+	 * @return batches taken by the workers, served() / batches() is the mean batch size
+	 */
+	public long batches() {
+		return batches.get();
+	}
+	
+	public long meanLatencyNanos() {
+		long n = served.get();
+		return n == 0 ? 0 : totalLatency.get() / n;
+	}
+	
+	public long maxLatencyNanos() {
+		return maxLatency.get();
+	}
+	
+	/**
+	 * @return requests answered {@link #BUSY} because the queue was full, they do not count as served
+	 */
+	public long rejected() {
+		return rejected.get();
+	}
+	
+	/**
+	 * @return requests waiting for a worker
+	 */
+	public int queued() {
+		return requests.size();
+	}
+	
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		socket.close();
+		for (Connection c : connections) {
+			c.close();
+		}
+		threads.shutdownNow();
+	}
+	
+	/**
+	 * Run a server until the process is killed. Arguments: port, workers, batch size, queue depth, default 7373, number of cores, 32
+	 * and {@link #MAX_QUEUED}.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 7373;
+		int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int batch = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+		int queued = args.length > 3 ? Integer.parseInt(args[3]) : MAX_QUEUED;
+		MatchingServer server = new MatchingServer(port, workers, batch, queued);
+		System.out.println("serving on 127.0.0.1:" + server.port());
+		while (true) {
+			Thread.sleep(60000);
+			System.out.println(String.format("served %d in %d batches, %d rejected, mean latency %.1f us, max %.1f us", server.served(),
+					server.batches(), server.rejected(), server.meanLatencyNanos() / 1e3, server.maxLatencyNanos() / 1e3));
+		}
+	}
+}
@@ -0,0 +1,248 @@
+package graph.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import graph.GraphFingerprint;
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.Deadline;
+import graph.algorithms.matching.DeadlineResult;
+import graph.algorithms.matching.MatchingEngine;
+
+/**
+ * Asynchronous front end to the solvers. Solves run on a fixed pool of platform threads behind a bounded queue, {@link #solveAsync} never blocks the
+ * calling thread: when the queue is full the returned future fails with a RejectedExecutionException right away. Cancelling a future cancels the
+ * {@link Deadline} the solver polls, a queued solve is dropped and a running one stops at its next deadline check.
+ * 
+ * {@link #solveAsync} completes with the matching alone, {@link #solveResultAsync} with the {@link DeadlineResult} so callers with a timeout can
+ * tell a matching cut short by it from an optimal one.
+ * 
+ * @author Lincoln
+ */
+public class MatchingService {
+	
+	/**
+	 * How a graph is solved
+	 */
+	public static class Options {
+		private MatchingEngine	engine		= MatchingEngine.DYNAMIC;
+		private long						timeout		= 0;
+		private TimeUnit				unit			= TimeUnit.MILLISECONDS;
+		private MatchingCache		cache;
+		
+		/**
+		 * @param engine solver to use, default {@link MatchingEngine#DYNAMIC}
+		 */
+		public Options engine(MatchingEngine engine) {
+			this.engine = engine;
+			return this;
+		}
+		
+		/**
+		 * Time budget of a solve counted from the moment a thread starts it, time spent waiting in the queue does not count. When it runs out the
+		 * future completes with the best matching so far, see {@link MatchingEngine#solve(WeightedDigraph, Deadline)}. Default no limit.
+		 */
+		public Options timeout(long timeout, TimeUnit unit) {
+			this.timeout = timeout;
+			this.unit = unit;
+			return this;
+		}
+		
+		/**
+		 * @param cache consulted before solving, complete results are added to it. Default none
+		 */
+		public Options cache(MatchingCache cache) {
+			this.cache = cache;
+			return this;
+		}
+		
+		public MatchingEngine engine() {
+			return engine;
+		}
+	}
+	
+	private final ThreadPoolExecutor	pool;
+	private final AtomicLong					submitted	= new AtomicLong();
+	private final AtomicLong					rejected	= new AtomicLong();
+	private final AtomicLong					cancelled	= new AtomicLong();
+	
+	/**
+	 * @param numThreads number of solver threads
+	 * @param queueDepth solves that may wait for a thread, further submissions are rejected
+	 */
+	public MatchingService(int numThreads, int queueDepth) {
+		final AtomicInteger count = new AtomicInteger();
+		pool = new ThreadPoolExecutor(numThreads, numThreads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueDepth), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "matching-service-" + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		}, new ThreadPoolExecutor.AbortPolicy());
+	}
+	
+	/**
+	 * @param g graph to match, it is not modified
+	 * @param options how to solve it
+	 * @return completes with the matching, whether the timeout cut it short and the gap to the optimum
+	 */
+	public CompletableFuture<DeadlineResult> solveResultAsync(WeightedDigraph g, Options options) {
+		final CompletableFuture<DeadlineResult> future = new CompletableFuture<DeadlineResult>();
+		final Solve solve = new Solve(g, options.engine, options.cache, options.unit.toNanos(options.timeout), future);
+		submitted.incrementAndGet();
+		try {
+			pool.execute(solve);
+		} catch (RejectedExecutionException e) {
+			rejected.incrementAndGet();
+			future.completeExceptionally(e);
+			return future;
+		}
+		future.whenComplete(new BiConsumer<DeadlineResult, Throwable>() {
+			@Override
+			public void accept(DeadlineResult result, Throwable error) {
+				if (future.isCancelled()) {
+					cancelled.incrementAndGet();
+					// null if the solve did not start, it then sees the cancelled future
+					Deadline deadline = solve.deadline;
+					if (deadline != null) {
+						deadline.cancel();
+					}
+					// free the queue slot if it did not start yet
+					pool.remove(solve);
+				}
+			}
+		});
+		return future;
+	}
+	
+	/**
+	 * @param g graph to match, it is not modified
+	 * @param options how to solve it
+	 * @return completes with the matching, the best so far if the timeout cut the solve short. Cancelling it cancels the solve
+	 */
+	public CompletableFuture<Matching> solveAsync(WeightedDigraph g, Options options) {
+		final CompletableFuture<DeadlineResult> result = solveResultAsync(g, options);
+		final CompletableFuture<Matching> future = new CompletableFuture<Matching>();
+		result.whenComplete(new BiConsumer<DeadlineResult, Throwable>() {
+			@Override
+			public void accept(DeadlineResult r, Throwable error) {
+				if (error != null) {
+					future.completeExceptionally(error);
+				} else {
+					future.complete(r.matching);
+				}
+			}
+		});
+		future.whenComplete(new BiConsumer<Matching, Throwable>() {
+			@Override
+			public void accept(Matching m, Throwable error) {
+				if (future.isCancelled()) {
+					result.cancel(true);
+				}
+			}
+		});
+		return future;
+	}
+	
+	public CompletableFuture<Matching> solveAsync(WeightedDigraph g) {
+		return solveAsync(g, new Options());
+	}
+	
+	/**
+	 * One queued solve
+	 */
+	private static class Solve implements Runnable {
+		final WeightedDigraph										g;
+		final MatchingEngine										engine;
+		final MatchingCache											cache;
+		/** time budget, 0 for none */
+		final long															timeoutNanos;
+		final CompletableFuture<DeadlineResult>	future;
+		/** created when the solve starts so the timeout does not count the queue, null before */
+		volatile Deadline												deadline;
+		
+		Solve(WeightedDigraph g, MatchingEngine engine, MatchingCache cache, long timeoutNanos, CompletableFuture<DeadlineResult> future) {
+			this.g = g;
+			this.engine = engine;
+			this.cache = cache;
+			this.timeoutNanos = timeoutNanos;
+			this.future = future;
+		}
+		
+		@Override
+		public void run() {
+			// published before the check, a cancel that comes later finds the deadline
+			deadline = timeoutNanos > 0 ? Deadline.after(timeoutNanos, TimeUnit.NANOSECONDS) : new Deadline();
+			if (future.isDone()) {
+				return;
+			}
+			try {
+				GraphFingerprint fingerprint = cache != null ? GraphFingerprint.of(g) : null;
+				Matching cached = cache != null ? cache.get(fingerprint, engine, g) : null;
+				if (cached != null) {
+					future.complete(new DeadlineResult(cached, false, 0, null));
+					return;
+				}
+				DeadlineResult result = engine.solve(g, deadline);
+				if (deadline.isCancelled()) {
+					future.completeExceptionally(new CancellationException());
+				} else {
+					if (cache != null && ! result.timedOut) {
+						cache.put(fingerprint, engine, result.matching);
+					}
+					future.complete(result);
+				}
+			} catch (Throwable t) {
+				future.completeExceptionally(t);
+			}
+		}
+	}
+	
+	/**
+	 * @return solves waiting for a thread
+	 */
+	public int queued() {
+		return pool.getQueue().size();
+	}
+	
+	/**
+	 * @return solves running now
+	 */
+	public int running() {
+		return pool.getActiveCount();
+	}
+	
+	public long submitted() {
+		return submitted.get();
+	}
+	
+	/**
+	 * @return submissions turned away because the queue was full
+	 */
+	public long rejected() {
+		return rejected.get();
+	}
+	
+	public long cancelled() {
+		return cancelled.get();
+	}
+	
+	/**
+	 * Stop accepting solves and cancel the queued ones, running solves are interrupted through their deadline only if their future is cancelled
+	 */
+	public void shutdown() {
+		for (Runnable r : pool.shutdownNow()) {
+			((Solve) r).future.cancel(false);
+		}
+	}
+}
@@ -6,7 +6,7 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses({ GraphLoadingTest.class , BruteForceMaxWeightMatchingTest.class, BlossomTest.class, MatchingTest.class})
+@SuiteClasses({ GraphLoadingTest.class , BruteForceMaxWeightMatchingTest.class, BlossomTest.class, MatchingTest.class, ExactMaxWeightedMatchingTest.class, ComponentMatchingTest.class, MatchingKernelTest.class, DynamicMatchingTest.class, WarmStartTest.class, StreamingMatchingTest.class, ExternalMemoryMatchingTest.class, PartitionedMatchingTest.class, DualKernelsTest.class, IntQueueTest.class, MatchingListenerTest.class, SolverStatsTest.class, GraphFamilyTest.class, RegressionRunnerTest.class, DeadlineTest.class, BatchMatchingTest.class, MatchingServiceTest.class, MatchingServerTest.class, CommandLineTest.class, MatchingCacheTest.class, CheckpointTest.class, GraphViewTest.class, CompleteGraphMatchingTest.class, AutoMatchingTest.class})
 public class AllTests {
 	
 }
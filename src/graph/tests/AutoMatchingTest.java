@@ -0,0 +1,233 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import graph.Edge;
+import graph.GraphStats;
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.AutoMatching;
+import graph.algorithms.matching.BipartiteMatching;
+import graph.algorithms.matching.Deadline;
+import graph.algorithms.matching.DynamicMatching;
+import graph.algorithms.matching.ExactMaxWeightedMatching;
+import graph.algorithms.matching.MatchingEngine;
+import graph.algorithms.matching.PrimalDualMatching;
+import graph.bench.GraphFamily;
+
+import org.junit.Test;
+
+public class AutoMatchingTest {
+
+	private static WeightedDigraph cycle(int n, int weight) {
+		WeightedDigraph g = new WeightedDigraph(n);
+		for (int v = 0; v < n; v++ ) {
+			g.addEdge(new Edge(v, (v + 1) % n, weight));
+		}
+		return g;
+	}
+
+	@Test
+	public void testStats() {
+		GraphStats even = new GraphStats(cycle(6, 3));
+		assertTrue(even.bipartite());
+		assertTrue(even.uniformWeights());
+		assertEquals(1, even.numComponents());
+		assertEquals(6, even.numActive());
+		assertEquals(2, even.minDegree());
+		assertEquals(2, even.maxDegree());
+		assertEquals(12.0 / 30, even.density(), 1e-9);
+		for (int v = 0; v < 6; v++ ) {
+			assertTrue(even.side(v) != even.side((v + 1) % 6));
+		}
+
+		WeightedDigraph g = new WeightedDigraph(9);
+		for (int v = 0; v < 5; v++ ) {
+			g.addEdge(new Edge(v, (v + 1) % 5, 1));
+		}
+		g.addEdge(new Edge(5, 6, 7));
+		g.addEdge(new Edge(8, 8, 2));
+		GraphStats odd = new GraphStats(g);
+		assertFalse(odd.bipartite());
+		assertFalse(odd.uniformWeights());
+		assertEquals(1, odd.minWeight());
+		assertEquals(7, odd.maxWeight());
+		assertEquals(2, odd.numComponents());
+		assertEquals(5, odd.largestComponent());
+		assertEquals(7, odd.numActive());
+		assertEquals(1, odd.numLoops());
+		assertEquals(7, odd.numArcs());
+		int[] histogram = odd.degreeHistogram();
+		assertEquals(2, histogram[0]);
+		assertEquals(2, histogram[1]);
+		assertEquals(5, histogram[2]);
+		assertEquals(7, odd.numLowDegree(3));
+		assertFalse(odd.symmetric());
+
+		// both arcs of every edge stored, degrees count edges
+		WeightedDigraph both = new WeightedDigraph(4);
+		for (int v = 0; v < 3; v++ ) {
+			both.insertEdge(v, v + 1, 2);
+		}
+		GraphStats path = new GraphStats(both);
+		assertTrue(path.symmetric());
+		assertEquals(3, path.numEdges());
+		assertEquals(6, path.numArcs());
+		assertEquals(2, path.numLowDegree(1));
+		assertEquals(2, path.maxDegree());
+		assertTrue(path.bipartite());
+	}
+
+	@Test
+	public void testChoice() {
+		assertEquals(MatchingEngine.EXACT_CARDINALITY, AutoMatching.choose(new GraphStats(cycle(9, 1)), true, null));
+		WeightedDigraph small = WeightedDigraph.random(12);
+		assertEquals(MatchingEngine.EXACT_WEIGHTED, AutoMatching.choose(new GraphStats(small), true, null));
+
+		WeightedDigraph grid = GraphFamily.GRID.generate(400, 0, 1);
+		StringBuilder reason = new StringBuilder();
+		assertEquals(MatchingEngine.BIPARTITE, AutoMatching.choose(new GraphStats(grid), false, reason));
+		assertEquals("bipartite", reason.toString());
+		assertEquals(MatchingEngine.PRIMAL_DUAL, AutoMatching.choose(new GraphStats(grid), true, null));
+
+		WeightedDigraph blossoms = GraphFamily.BLOSSOM.generate(200, 0.3, 1);
+		assertEquals(MatchingEngine.DYNAMIC, AutoMatching.choose(new GraphStats(blossoms), false, null));
+
+		// uniform weights turn maximum weight into maximum cardinality
+		reason = new StringBuilder();
+		assertEquals(MatchingEngine.DYNAMIC, AutoMatching.choose(new GraphStats(cycle(41, 5)), true, reason));
+		assertTrue(reason.toString().startsWith("uniform weights"));
+
+		WeightedDigraph pieces = new WeightedDigraph(100);
+		for (int c = 0; c < 10; c++ ) {
+			for (int ii = 0; ii < 10; ii++ ) {
+				pieces.addEdge(new Edge(10 * c + ii, 10 * c + (ii + 3) % 10, 1 + ii));
+			}
+		}
+		GraphStats stats = new GraphStats(pieces);
+		assertEquals(10, stats.numComponents());
+		assertEquals(MatchingEngine.COMPONENT_WEIGHTED, AutoMatching.choose(stats, true, null));
+	}
+
+	@Test
+	public void testBipartiteMatching() {
+		for (int seed = 0; seed < 20; seed++ ) {
+			WeightedDigraph g = GraphFamily.BIPARTITE.generate(60 + seed, 0.05, seed);
+			Matching hk = new BipartiteMatching(g).run();
+			assertEquals(new DynamicMatching(copy(g)).size(), hk.matches());
+			for (int v = 0; v < g.numVertices(); v++ ) {
+				if (hk.isMatched(v)) {
+					assertNotNull(g.heaviestArc(v, hk.mate(v)));
+				}
+			}
+		}
+		try {
+			new BipartiteMatching(cycle(5, 1));
+			fail("odd cycle accepted");
+		} catch (RuntimeException e) {
+			assertEquals("graph is not bipartite", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testExactEngines() {
+		// every engine that claims to be exact has to be on graphs it accepts, odd cycles and all
+		for (int seed = 0; seed < 3; seed++ ) {
+			WeightedDigraph g = GraphFamily.BLOSSOM.generate(60 + 7 * seed, 0.3, seed);
+			long weight = new PrimalDualMatching(g).weight();
+			int size = new DynamicMatching(g).size();
+			for (MatchingEngine engine : MatchingEngine.values()) {
+				if ( ! engine.exact() || ! engine.accepts(g.numVertices()) || engine == MatchingEngine.BIPARTITE) {
+					continue;
+				}
+				Matching m = engine.solve(g);
+				if (engine.weighted()) {
+					assertEquals(engine.toString(), weight, m.weight());
+				} else {
+					assertEquals(engine.toString(), size, m.matches());
+				}
+			}
+		}
+	}
+	
+	private static WeightedDigraph copy(WeightedDigraph g) {
+		WeightedDigraph copy = new WeightedDigraph(g.numVertices());
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				copy.addEdge(new Edge(e));
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * @return a deadline that passes at its second clock read, after the check before the engine starts
+	 */
+	private static Deadline passesInsideTheEngine() {
+		return new Deadline(System.nanoTime() + TimeUnit.HOURS.toNanos(1), 1) {
+			private int	reads;
+
+			@Override
+			public boolean expired() {
+				if ( ++ reads == 2) {
+					cancel();
+				}
+				return super.expired();
+			}
+		};
+	}
+
+	@Test
+	public void testDeadlineReachesEveryBranch() {
+		WeightedDigraph grid = GraphFamily.GRID.generate(400, 0, 1);
+		AutoMatching.Result r = new AutoMatching(false).solve(grid, passesInsideTheEngine());
+		assertEquals(MatchingEngine.BIPARTITE, r.engine);
+		assertTrue(r.timedOut);
+		assertTrue(r.matching.matches() + r.gap >= new BipartiteMatching(grid).run().matches());
+
+		WeightedDigraph g = caterpillar();
+		r = new AutoMatching(true).solve(g, passesInsideTheEngine());
+		assertTrue(r.kernelized);
+		assertTrue(r.timedOut);
+		assertTrue(r.matching.weight() + r.gap >= new PrimalDualMatching(g).weight());
+	}
+
+	/**
+	 * @return a random core with a leaf hanging off every vertex
+	 */
+	private static WeightedDigraph caterpillar() {
+		WeightedDigraph g = GraphFamily.RANDOM.generate(80, 0.1, 7);
+		WeightedDigraph caterpillar = new WeightedDigraph(160);
+		for (Edge e : g.edges()) {
+			caterpillar.addEdge(new Edge(e));
+		}
+		for (int v = 0; v < 80; v++ ) {
+			caterpillar.insertEdge(v, 80 + v, 1 + v % 7);
+		}
+		return caterpillar;
+	}
+
+	@Test
+	public void testSolveMatchesReference() {
+		for (int ii = 0; ii < 6; ii++ ) {
+			WeightedDigraph g = WeightedDigraph.random(21 + ii % 3);
+			AutoMatching.Result r = new AutoMatching(true).solve(g);
+			assertEquals(new ExactMaxWeightedMatching(g).runWeighted().weight(), r.matching.weight());
+			assertFalse(r.timedOut);
+			assertEquals(r.stats.numVertices(), g.numVertices());
+
+			AutoMatching.Result c = new AutoMatching(false).solve(g);
+			assertEquals(new ExactMaxWeightedMatching(g).runUnweighted().matches(), c.matching.matches());
+		}
+
+		// the kernel matches the leaves before the cubic solve
+		WeightedDigraph g = caterpillar();
+		AutoMatching.Result r = new AutoMatching(true).solve(g);
+		assertEquals(MatchingEngine.PRIMAL_DUAL, r.engine);
+		assertTrue(r.kernelized);
+		assertEquals(new PrimalDualMatching(g).weight(), r.matching.weight());
+		assertEquals(r.matching.weight(), MatchingEngine.AUTO_WEIGHTED.solve(g).weight());
+	}
+}
@@ -0,0 +1,111 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.BatchMatching;
+import graph.algorithms.matching.DynamicMatching;
+import graph.algorithms.matching.MinMatchingAlg;
+import graph.algorithms.matching.PrimalDualMatching;
+import graph.bench.GraphFamily;
+
+import org.junit.Test;
+
+public class BatchMatchingTest {
+	
+	private String outcome(MinMatchingAlg alg) {
+		try {
+			alg.run();
+			return alg.matching().toString();
+		} catch (RuntimeException e) {
+			return "failed: " + e.getMessage();
+		}
+	}
+	
+	@Test
+	public void testResetMatchesFreshInstance() {
+		int[] sizes = { 60, 12, 80, 30, 8, 50 };
+		MinMatchingAlg reused = null;
+		for (int ii = 0; ii < sizes.length; ii++ ) {
+			WeightedDigraph g = GraphFamily.SPARSE.generate(sizes[ii], 0.5, ii);
+			if (reused == null) {
+				reused = new MinMatchingAlg(g);
+			} else {
+				reused.reset(g);
+			}
+			assertEquals("size " + sizes[ii], outcome(new MinMatchingAlg(g)), outcome(reused));
+		}
+	}
+	
+	@Test
+	public void testWorkspaceReuse() {
+		int[] sizes = { 60, 12, 80, 30, 8, 50, 2, 45 };
+		BatchMatching.Workspace weighted = new BatchMatching.Workspace(true);
+		BatchMatching.Workspace cardinality = new BatchMatching.Workspace(false);
+		for (int ii = 0; ii < sizes.length; ii++ ) {
+			WeightedDigraph g = GraphFamily.values()[ii % GraphFamily.values().length].generate(sizes[ii], 0.3, ii);
+			Matching w = weighted.solve(g);
+			Matching c = cardinality.solve(g);
+			assertEquals("size " + sizes[ii], new PrimalDualMatching(g).weight(), w.weight());
+			assertEquals("size " + sizes[ii], new DynamicMatching(g).size(), c.matches());
+			for (Matching m : new Matching[] { w, c }) {
+				for (int v = 0; v < g.numVertices(); v++ ) {
+					if (m.isMatched(v)) {
+						assertNotNull(g.heaviestArc(v, m.mate(v)));
+					}
+				}
+			}
+		}
+	}
+	
+	private void solveTwice(boolean weighted, final List<WeightedDigraph> graphs, final Matching[] results) {
+		final List<Integer> failed = new ArrayList<Integer>();
+		BatchMatching batch = new BatchMatching(weighted, 3);
+		try {
+			for (int round = 0; round < 2; round++ ) {
+				int count = batch.solve(graphs, new BatchMatching.Callback() {
+					@Override
+					public void solved(int index, WeightedDigraph g, Matching matching) {
+						assertSame(graphs.get(index), g);
+						synchronized (results) {
+							results[index] = matching;
+						}
+					}
+					
+					@Override
+					public void failed(int index, WeightedDigraph g, RuntimeException error) {
+						synchronized (failed) {
+							failed.add(index);
+						}
+					}
+				});
+				assertEquals(graphs.size(), count);
+			}
+		} finally {
+			batch.shutdown();
+		}
+		assertTrue(failed.isEmpty());
+	}
+	
+	@Test
+	public void testBatch() {
+		List<WeightedDigraph> graphs = new ArrayList<WeightedDigraph>();
+		for (int ii = 0; ii < 60; ii++ ) {
+			graphs.add(GraphFamily.values()[ii % GraphFamily.values().length].generate(10 + ii % 70, 0.3, ii));
+		}
+		Matching[] results = new Matching[graphs.size()];
+		solveTwice(false, graphs, results);
+		for (int ii = 0; ii < graphs.size(); ii++ ) {
+			assertEquals(new DynamicMatching(graphs.get(ii)).size(), results[ii].matches());
+		}
+		
+		solveTwice(true, graphs, results);
+		for (int ii = 0; ii < graphs.size(); ii++ ) {
+			assertEquals(new PrimalDualMatching(graphs.get(ii)).weight(), results[ii].weight());
+		}
+	}
+}
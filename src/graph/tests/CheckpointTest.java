@@ -0,0 +1,159 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import graph.MatchingAdapter;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.Checkpointer;
+import graph.algorithms.matching.Deadline;
+import graph.algorithms.matching.MinMatchingAlg;
+import graph.algorithms.matching.PrimalDualMatching;
+import graph.bench.GraphFamily;
+
+import org.junit.Test;
+
+public class CheckpointTest {
+	
+	private static File tempFile() throws IOException {
+		File f = File.createTempFile("checkpoint", ".bin");
+		f.deleteOnExit();
+		return f;
+	}
+	
+	/**
+	 * Thrown to cut a solve short like a killed process would
+	 */
+	private static class Evicted extends RuntimeException {
+		private static final long	serialVersionUID	= 1L;
+	}
+	
+	@Test
+	public void testCardinalityResume() throws IOException {
+		WeightedDigraph g = GraphFamily.GRID.generate(400, 0, 3);
+		MinMatchingAlg fresh = new MinMatchingAlg(g);
+		fresh.run();
+		
+		File file = tempFile();
+		Checkpointer checkpointer = new Checkpointer(file, 0, TimeUnit.SECONDS);
+		MinMatchingAlg evicted = new MinMatchingAlg(g);
+		evicted.setCheckpointer(checkpointer);
+		evicted.setListener(new MatchingAdapter() {
+			@Override
+			public void onStageStart(int stage, int root) {
+				if (stage == 40) {
+					throw new Evicted();
+				}
+			}
+		});
+		try {
+			evicted.run();
+			fail("the solve should have been cut short");
+		} catch (Evicted e) {
+		}
+		checkpointer.close();
+		assertTrue(checkpointer.written() > 0);
+		
+		MinMatchingAlg resumed = new MinMatchingAlg(g);
+		DataInputStream in = Checkpointer.open(file);
+		try {
+			resumed.resume(in);
+		} finally {
+			in.close();
+		}
+		resumed.run();
+		assertEquals(fresh.matching().matches(), resumed.matching().matches());
+		assertEquals(fresh.stats().getStages() - 40, resumed.stats().getStages());
+	}
+	
+	/**
+	 * Deadline that never passes and counts the stages polling it, the solve is evicted at the given stage
+	 */
+	private static class StageCounter extends Deadline {
+		final int	evictAt;
+		int				stages;
+		
+		StageCounter(int evictAt) {
+			super(System.nanoTime() + TimeUnit.HOURS.toNanos(1), 1);
+			this.evictAt = evictAt;
+		}
+		
+		@Override
+		public boolean expired() {
+			if (stages++ == evictAt) {
+				throw new Evicted();
+			}
+			return super.expired();
+		}
+	}
+	
+	@Test
+	public void testPrimalDualResume() throws IOException {
+		// blossoms are in use when the last snapshot is taken
+		WeightedDigraph g = GraphFamily.BLOSSOM.generate(100, 0.05, 3);
+		PrimalDualMatching fresh = new PrimalDualMatching(g);
+		StageCounter all = new StageCounter( - 1);
+		fresh.run(all);
+		
+		File file = tempFile();
+		Checkpointer checkpointer = new Checkpointer(file, 0, TimeUnit.SECONDS);
+		PrimalDualMatching evicted = new PrimalDualMatching(g);
+		evicted.setCheckpointer(checkpointer);
+		try {
+			evicted.run(new StageCounter(40));
+			fail("the solve should have been cut short");
+		} catch (Evicted e) {
+		}
+		checkpointer.close();
+		assertTrue(checkpointer.written() > 0);
+		
+		PrimalDualMatching resumed = new PrimalDualMatching(g);
+		DataInputStream in = Checkpointer.open(file);
+		try {
+			resumed.resume(in);
+		} finally {
+			in.close();
+		}
+		StageCounter rest = new StageCounter( - 1);
+		resumed.run(rest);
+		assertEquals(fresh.weight(), resumed.weight());
+		assertTrue(Arrays.equals(fresh.scaledDuals(), resumed.scaledDuals()));
+		// the last snapshot was taken at the start of stage 39, the stages before it are not run again
+		assertEquals(all.stages - 39, rest.stages);
+		
+		in = Checkpointer.open(file);
+		try {
+			new MinMatchingAlg(g).resume(in);
+			fail("a snapshot of another solver should be rejected");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("solver kind"));
+		} finally {
+			in.close();
+		}
+	}
+	
+	@Test
+	public void testSnapshotOfAnotherGraphIsRejected() throws IOException {
+		File file = tempFile();
+		Checkpointer checkpointer = new Checkpointer(file, 0, TimeUnit.SECONDS);
+		MinMatchingAlg alg = new MinMatchingAlg(GraphFamily.GRID.generate(36, 0, 1));
+		alg.setCheckpointer(checkpointer);
+		alg.run();
+		checkpointer.close();
+		
+		DataInputStream in = Checkpointer.open(file);
+		try {
+			new MinMatchingAlg(GraphFamily.GRID.generate(36, 0, 2)).resume(in);
+			fail("a snapshot of another graph should be rejected");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("another graph"));
+		} finally {
+			in.close();
+		}
+	}
+}
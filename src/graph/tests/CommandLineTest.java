@@ -0,0 +1,85 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import graph.BinaryGraphFormat;
+import graph.Edge;
+import graph.WeightedDigraph;
+import graph.bench.GraphFamily;
+import mwm.MWMAlg;
+
+import org.junit.Test;
+
+public class CommandLineTest {
+	private static final Charset	UTF8	= Charset.forName("UTF-8");
+	
+	private String text(WeightedDigraph g) {
+		StringBuilder s = new StringBuilder();
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				s.append(e.left).append(' ').append(e.right).append(' ').append(e.weight).append('\n');
+			}
+		}
+		return s.toString();
+	}
+	
+	private void delete(File f) {
+		File[] children = f.listFiles();
+		if (children != null) {
+			for (File c : children) {
+				delete(c);
+			}
+		}
+		f.delete();
+	}
+	
+	@Test
+	public void testStdin() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(), err = new ByteArrayOutputStream();
+		String path = "0 1 4\n1 0 4\n1 2 1\n2 1 1\n2 3 4\n3 2 4\n";
+		MWMAlg cli = new MWMAlg(new ByteArrayInputStream(path.getBytes(UTF8)), new PrintStream(out), new PrintStream(err));
+		assertEquals(0, cli.run(new String[] { "--engine=exact-weighted" }));
+		assertEquals("# stdin 2 8\n0 1 4\n2 3 4\n", new String(out.toByteArray(), UTF8));
+		
+		assertEquals(2, new MWMAlg(null, new PrintStream(out), new PrintStream(err)).run(new String[] { "--engine=nope" }));
+	}
+	
+	@Test
+	public void testDirectory() throws Exception {
+		Path dir = Files.createTempDirectory("graphs"), outDir = Files.createTempDirectory("matchings");
+		try {
+			WeightedDigraph grid = GraphFamily.GRID.generate(36, 0, 1), blossom = GraphFamily.BLOSSOM.generate(25, 0.5, 2);
+			Files.write(dir.resolve("a.txt"), text(grid).getBytes(UTF8));
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			BinaryGraphFormat.write(blossom, new DataOutputStream(bytes));
+			Files.write(dir.resolve("b.bin"), bytes.toByteArray());
+			Files.write(dir.resolve("c.txt"), "0 1 x\n".getBytes(UTF8));
+			
+			ByteArrayOutputStream out = new ByteArrayOutputStream(), err = new ByteArrayOutputStream();
+			MWMAlg cli = new MWMAlg(null, new PrintStream(out), new PrintStream(err));
+			assertEquals(1, cli.run(new String[] { "--threads=3", dir.toString() }));
+			String[] lines = new String(out.toByteArray(), UTF8).split("\n");
+			assertEquals("# a.txt 18 " + lines[0].split(" ")[3], lines[0]);
+			assertEquals(1 + 18 + 1 + 12, lines.length);
+			assertTrue(lines[19].startsWith("# b.bin 12 "));
+			assertTrue(new String(err.toByteArray(), UTF8).contains("c.txt"));
+			
+			out.reset();
+			assertEquals(0, cli.run(new String[] { "--out=" + outDir, "--format=binary", dir.resolve("b.bin").toString() }));
+			assertEquals(0, out.size());
+			assertEquals(12, Files.readAllLines(outDir.resolve("b.bin.matching"), UTF8).size());
+		} finally {
+			delete(dir.toFile());
+			delete(outDir.toFile());
+		}
+	}
+}
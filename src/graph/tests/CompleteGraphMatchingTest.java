@@ -0,0 +1,185 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import graph.WeightedDigraph;
+import graph.algorithms.matching.CompleteGraphMatching;
+import graph.algorithms.matching.CompleteGraphMatching.CandidateGenerator;
+import graph.algorithms.matching.CompleteGraphMatching.WeightOracle;
+import graph.algorithms.matching.ExactMaxWeightedMatching;
+import graph.algorithms.matching.GeometricPairing;
+import graph.algorithms.matching.KdTree;
+import graph.algorithms.matching.PrimalDualMatching;
+
+import org.junit.Test;
+
+public class CompleteGraphMatchingTest {
+
+	private static final int	NUM_TESTS	= 50;
+
+	@Test
+	public void testPrimalDualAgainstExact() {
+		for (int ii = 0; ii < NUM_TESTS; ii++ ) {
+			WeightedDigraph g = WeightedDigraph.random((int) (Math.random() * 14) + 2);
+			int expected = new ExactMaxWeightedMatching(g).runWeighted().weight();
+			PrimalDualMatching pd = new PrimalDualMatching(g);
+			assertEquals("primal-dual solver is not optimal on " + g, expected, pd.weight());
+			assertEquals(expected, pd.run().weight());
+			for (int v = 0; v < g.numVertices(); v++ ) {
+				// exposed vertices end with a zero dual, that is what makes the duals a certificate
+				if (pd.mate(v) < 0) {
+					assertEquals(0, pd.scaledDuals()[v]);
+				} else {
+					assertEquals(v, pd.mate(pd.mate(v)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testPrimalDualLarger() {
+		for (int ii = 0; ii < 5; ii++ ) {
+			WeightedDigraph g = WeightedDigraph.random(24);
+			assertEquals(new ExactMaxWeightedMatching(g).runWeighted().weight(), new PrimalDualMatching(g).weight());
+		}
+	}
+
+	/**
+	 * Symmetric pseudo random weights
+	 */
+	private static WeightOracle hashed(final long seed) {
+		return new WeightOracle() {
+			@Override
+			public long weight(int i, int j) {
+				long h = seed + Math.min(i, j) * 0x9e3779b97f4a7c15L + Math.max(i, j);
+				h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+				return (h >>> 40) % 1000;
+			}
+		};
+	}
+
+	private static long fullSolve(int n, WeightOracle oracle) {
+		int m = n * (n - 1) / 2;
+		int[] left = new int[m], right = new int[m];
+		long[] weight = new long[m];
+		int k = 0;
+		for (int i = 0; i < n; i++ ) {
+			for (int j = i + 1; j < n; j++ ) {
+				left[k] = i;
+				right[k] = j;
+				weight[k++ ] = oracle.weight(i, j);
+			}
+		}
+		return new PrimalDualMatching(n, left, right, weight, m).weight();
+	}
+
+	@Test
+	public void testPricingReachesCompleteOptimum() {
+		for (int ii = 0; ii < 10; ii++ ) {
+			final int n = 40 + ii;
+			WeightOracle oracle = hashed(ii);
+			// a sparse ring is a poor start, pricing has to bring in the rest
+			CompleteGraphMatching cgm = new CompleteGraphMatching(n, oracle, new CandidateGenerator() {
+				@Override
+				public int[] candidates(int v) {
+					return new int[] { (v + 1) % n };
+				}
+			});
+			cgm.run();
+			assertEquals(fullSolve(n, oracle), cgm.weight());
+			assertTrue(cgm.rounds() > 1);
+			assertTrue(cgm.numPriced() > 0);
+			assertTrue(cgm.numCandidates() < n * (n - 1) / 2);
+
+			long[] duals = cgm.scaledDuals();
+			long matched = 0;
+			for (int v = 0; v < n; v++ ) {
+				int w = cgm.mate(v);
+				if (w > v) {
+					matched += oracle.weight(v, w);
+				}
+			}
+			assertEquals(matched, cgm.weight());
+			for (int v = 0; v < n; v++ ) {
+				assertTrue(duals[v] >= 0);
+			}
+		}
+	}
+
+	@Test
+	public void testKdTree() {
+		Random random = new Random(3);
+		double[][] points = new double[500][3];
+		for (double[] p : points) {
+			for (int d = 0; d < 3; d++ ) {
+				p[d] = random.nextInt(50);
+			}
+		}
+		KdTree tree = new KdTree(points);
+		for (int p = 0; p < points.length; p += 7) {
+			int[] nearest = tree.nearest(p, 5);
+			assertEquals(5, nearest.length);
+			// the fifth distance splits the points: exactly those strictly closer must all be in the result
+			double fifth = distance(points[p], points[nearest[4]]);
+			int closer = 0;
+			for (int q = 0; q < points.length; q++ ) {
+				if (q != p && distance(points[p], points[q]) < fifth) {
+					closer++ ;
+				}
+			}
+			assertTrue(closer <= 4);
+			for (int ii = 1; ii < 5; ii++ ) {
+				assertTrue(distance(points[p], points[nearest[ii - 1]]) <= distance(points[p], points[nearest[ii]]));
+			}
+
+			int[] within = tree.within(points[p], 10);
+			int expected = 0;
+			for (int q = 0; q < points.length; q++ ) {
+				if (distance(points[p], points[q]) <= 10) {
+					expected++ ;
+				}
+			}
+			assertEquals(expected, within.length);
+			for (int q : within) {
+				assertTrue(distance(points[p], points[q]) <= 10);
+			}
+		}
+	}
+
+	private static double distance(double[] a, double[] b) {
+		double sum = 0;
+		for (int d = 0; d < a.length; d++ ) {
+			sum += (a[d] - b[d]) * (a[d] - b[d]);
+		}
+		return Math.sqrt(sum);
+	}
+
+	@Test
+	public void testGeometricPairing() {
+		Random random = new Random(11);
+		final double[][] points = new double[120][2];
+		for (double[] p : points) {
+			p[0] = random.nextDouble();
+			p[1] = random.nextDouble();
+		}
+		final GeometricPairing pairing = new GeometricPairing(points, 3, 1000);
+		pairing.run();
+		for (int v = 0; v < points.length; v++ ) {
+			assertTrue("point " + v + " left unpaired", pairing.mate(v) >= 0);
+			assertEquals(v, pairing.mate(pairing.mate(v)));
+		}
+
+		// minimum cost perfect matching of the complete graph for reference
+		final long big = 1L << 30;
+		long weight = fullSolve(points.length, new WeightOracle() {
+			@Override
+			public long weight(int i, int j) {
+				return big - pairing.cost(i, j);
+			}
+		});
+		assertEquals(points.length / 2 * big - weight, pairing.cost());
+		assertTrue(pairing.matching().numCandidates() < points.length * 4);
+	}
+}
@@ -0,0 +1,75 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import graph.Edge;
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.ComponentMatching;
+import graph.algorithms.matching.ConnectedComponents;
+import graph.algorithms.matching.DynamicMatching;
+import graph.algorithms.matching.ExactMaxWeightedMatching;
+import graph.algorithms.matching.PrimalDualMatching;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ComponentMatchingTest {
+	
+	private static final int	NUM_COMPONENTS	= 500;
+	
+	@Test
+	public void test() {
+		// glue many random graphs side by side, every one of them is connected
+		List<WeightedDigraph> parts = new ArrayList<WeightedDigraph>();
+		int numVertices = 0;
+		for (int ii = 0; ii < NUM_COMPONENTS; ii++ ) {
+			WeightedDigraph part = WeightedDigraph.random((int) (Math.random() * 10) + 2);
+			parts.add(part);
+			numVertices += part.numVertices();
+		}
+		WeightedDigraph g = new WeightedDigraph(numVertices);
+		int offset = 0;
+		int expectedWeight = 0;
+		for (WeightedDigraph part : parts) {
+			for (Edge e : part.edges()) {
+				g.addEdge(new Edge(e.left + offset, e.right + offset, e.weight));
+			}
+			offset += part.numVertices();
+			expectedWeight += new ExactMaxWeightedMatching(part).runWeighted().weight();
+		}
+		
+		ConnectedComponents cc = new ConnectedComponents(g);
+		assertEquals(NUM_COMPONENTS, cc.count());
+		assertEquals(cc.component(0), cc.component(parts.get(0).numVertices() - 1));
+		
+		Matching m = new ComponentMatching(g, true).run();
+		assertEquals(expectedWeight, m.weight());
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			if (m.isMatched(v)) {
+				assertEquals("matched across components", cc.component(v), cc.component(m.mate(v)));
+			}
+		}
+	}
+	
+	@Test
+	public void testLargeComponents() {
+		// components past the exact solver go to the primal-dual and Edmonds solvers
+		WeightedDigraph g = new WeightedDigraph(200);
+		for (int c = 0; c < 4; c++ ) {
+			WeightedDigraph part = WeightedDigraph.random(50);
+			for (Edge e : part.edges()) {
+				g.addEdge(new Edge(e.left + 50 * c, e.right + 50 * c, e.weight));
+			}
+			for (int v = 0; v < 49; v++ ) {
+				g.addEdge(new Edge(50 * c + v, 50 * c + v + 1, 1));
+			}
+		}
+		assertEquals(4, new ConnectedComponents(g).count());
+		assertEquals(new PrimalDualMatching(g).weight(), new ComponentMatching(g, true).run().weight());
+		assertEquals(new DynamicMatching(g).size(), new ComponentMatching(g, false).run().matches());
+	}
+	
+}
@@ -0,0 +1,223 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import graph.Edge;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.Deadline;
+import graph.algorithms.matching.DeadlineResult;
+import graph.algorithms.matching.DynamicMatching;
+import graph.algorithms.matching.ExactMaxWeightedMatching;
+import graph.algorithms.matching.MatchingEngine;
+import graph.algorithms.matching.MaxWeightedMatching;
+import graph.algorithms.matching.MinMatchingAlg;
+import graph.algorithms.matching.PrimalDualMatching;
+import graph.bench.GraphFamily;
+
+import org.junit.Test;
+
+public class DeadlineTest {
+	
+	/**
+	 * The path 0-1-2-3-4-5 with both arcs of every edge
+	 */
+	private WeightedDigraph path() {
+		WeightedDigraph g = new WeightedDigraph(6);
+		for (int v = 0; v < 5; v++ ) {
+			g.addEdge(new Edge(v, v + 1, 1));
+			g.addEdge(new Edge(v + 1, v, 1));
+		}
+		return g;
+	}
+	
+	/**
+	 * @return a deadline that reads the clock on every tick and is cancelled at the given read
+	 */
+	private Deadline cancelAfter(final int reads) {
+		return new Deadline(System.nanoTime() + TimeUnit.HOURS.toNanos(1), 1) {
+			private int	count;
+			
+			@Override
+			public boolean expired() {
+				if ( ++ count == reads) {
+					cancel();
+				}
+				return super.expired();
+			}
+		};
+	}
+	
+	/**
+	 * Cut the engine off at every clock read in turn, the matching must stay valid and the gap must bound the optimum
+	 * 
+	 * @return whether a solve was cut off after it had matched something
+	 */
+	private boolean cutEverywhere(MatchingEngine engine, WeightedDigraph g, int optimum, int maxReads) {
+		boolean cut = false;
+		for (int k = 1; k <= maxReads; k++ ) {
+			DeadlineResult result = engine.solve(g, cancelAfter(k));
+			for (int v = 0; v < g.numVertices(); v++ ) {
+				if (result.matching.isMatched(v)) {
+					assertEquals(v, result.matching.mate(result.matching.mate(v)));
+				}
+			}
+			int value = engine.weighted() ? result.matching.weight() : result.matching.matches();
+			assertTrue(engine.name(), value <= optimum);
+			assertTrue(engine.name(), value + result.gap >= optimum);
+			if (result.timedOut) {
+				cut |= value > 0;
+			} else {
+				assertEquals(engine.name(), 0, result.gap, 0);
+				assertEquals(engine.name(), optimum, value);
+			}
+		}
+		return cut;
+	}
+	
+	@Test
+	public void testTickReadsClockEveryInterval() {
+		Deadline passed = new Deadline(System.nanoTime() - 1, 4);
+		assertFalse(passed.tick(1));
+		assertFalse(passed.tick(2));
+		assertTrue(passed.tick(1));
+		assertTrue(passed.tick(0));
+		assertEquals(0, passed.remaining(TimeUnit.NANOSECONDS));
+		
+		Deadline later = Deadline.after(1, TimeUnit.HOURS);
+		assertFalse(later.tick(Deadline.CHECK_INTERVAL));
+		assertFalse(later.expired());
+		assertTrue(later.remaining(TimeUnit.MINUTES) > 50);
+		assertTrue(Deadline.after(Duration.ofHours(1)).remaining(TimeUnit.MINUTES) > 50);
+	}
+	
+	@Test
+	public void testCardinalityFinishesInTime() {
+		DeadlineResult result = new MinMatchingAlg(path()).run(1, TimeUnit.MINUTES);
+		assertFalse(result.timedOut);
+		assertEquals(0, result.gap, 0);
+		assertEquals(3, result.matching.matches());
+	}
+	
+	@Test
+	public void testCardinalityTimesOut() {
+		DeadlineResult result = new MinMatchingAlg(path()).run(new Deadline(System.nanoTime() - 1, 1));
+		assertTrue(result.timedOut);
+		assertEquals(0, result.matching.matches());
+		// six exposed vertices, at most three augmentations
+		assertEquals(3, result.gap, 0);
+	}
+	
+	@Test
+	public void testCardinalityExpiresMidRun() {
+		WeightedDigraph g = GraphFamily.RANDOM.generate(19, 0.3, 11);
+		int optimum = new DynamicMatching(g).size();
+		boolean cutAfterBlossom = false;
+		// expire after the clock was read k times, every stage, arc batch and queue pop reads it
+		for (int k = 1; k < 200; k++ ) {
+			final int reads = k;
+			Deadline deadline = new Deadline(System.nanoTime() + TimeUnit.HOURS.toNanos(1), 1) {
+				private int	count;
+				
+				@Override
+				public boolean expired() {
+					if ( ++ count == reads) {
+						cancel();
+					}
+					return super.expired();
+				}
+			};
+			DeadlineResult result = MatchingEngine.MIN_MATCHING.solve(g, deadline);
+			for (int v = 0; v < g.numVertices(); v++ ) {
+				if (result.matching.isMatched(v)) {
+					int w = result.matching.mate(v);
+					assertTrue(g.heaviestArc(v, w) != null || g.heaviestArc(w, v) != null);
+				}
+			}
+			assertTrue(result.matching.matches() + result.gap >= optimum);
+			// every augmentation adds a pair to the empty start, none may be missing
+			assertEquals(result.stats.getAugmentations(), result.matching.matches());
+			if (result.timedOut) {
+				cutAfterBlossom |= result.stats.getBlossomsShrunk() > 0;
+			} else {
+				assertEquals(optimum, result.matching.matches());
+			}
+		}
+		// the blossoms of a stage that was cut short put their pairs back
+		assertTrue(cutAfterBlossom);
+	}
+	
+	@Test
+	public void testWeightedGapBoundsOptimum() {
+		for (long seed = 1; seed <= 5; seed++ ) {
+			WeightedDigraph g = GraphFamily.RANDOM.generate(14, 0.4, seed);
+			int optimum = new ExactMaxWeightedMatching(g).runWeighted().weight();
+			DeadlineResult result = new MaxWeightedMatching(g).run(new Deadline(System.nanoTime() - 1, 1));
+			assertTrue(result.timedOut);
+			assertNotNull(result.stats);
+			assertTrue(result.matching.weight() + result.gap >= optimum);
+		}
+	}
+	
+	@Test
+	public void testPrimalDualGapBoundsOptimum() {
+		for (long seed = 1; seed <= 5; seed++ ) {
+			WeightedDigraph g = GraphFamily.RANDOM.generate(14, 0.4, seed);
+			int optimum = new ExactMaxWeightedMatching(g).runWeighted().weight();
+			boolean cut = false;
+			// the clock is read once per stage, expire at every stage in turn
+			for (int k = 1; k <= g.numVertices() / 2 + 1; k++ ) {
+				PrimalDualMatching solver = new PrimalDualMatching(g);
+				DeadlineResult result = solver.run(cancelAfter(k));
+				assertTrue(result.matching.weight() <= optimum);
+				assertTrue(result.matching.weight() + result.gap >= optimum);
+				if (result.timedOut) {
+					cut |= result.matching.matches() > 0;
+					// the next call picks up where the deadline stopped
+					assertEquals(optimum, solver.run().weight());
+				} else {
+					assertEquals(0, result.gap, 0);
+					assertEquals(optimum, result.matching.weight());
+				}
+			}
+			assertTrue(cut);
+		}
+	}
+	
+	@Test
+	public void testDynamicCancelledPartWay() {
+		WeightedDigraph g = GraphFamily.RANDOM.generate(2000, 0.002, 7);
+		DynamicMatching full = new DynamicMatching(g);
+		int searched = 0;
+		for (int k = 1; k <= 4096; k *= 2) {
+			DynamicMatching dm = new DynamicMatching(g, null, cancelAfter(k));
+			assertTrue(dm.size() <= full.size());
+			assertTrue(dm.size() + dm.gap() >= full.size());
+			assertEquals(dm.size(), dm.matching().matches());
+			if (dm.timedOut()) {
+				searched = Math.max(searched, dm.size());
+			} else {
+				assertEquals(full.size(), dm.size());
+			}
+		}
+		// some solve was cancelled after its searches had added pairs to the greedy start
+		assertTrue(searched > new DynamicMatching(g, null, cancelAfter(1)).size());
+		assertTrue(cutEverywhere(MatchingEngine.DYNAMIC, g, full.size(), 64));
+	}
+	
+	@Test
+	public void testEnginesPollTheDeadline() {
+		WeightedDigraph g = GraphFamily.RANDOM.generate(30, 0.15, 5);
+		int weight = new ExactMaxWeightedMatching(g).runWeighted().weight();
+		int cardinality = new ExactMaxWeightedMatching(g).runUnweighted().matches();
+		MatchingEngine[] engines = { MatchingEngine.PRIMAL_DUAL, MatchingEngine.EXACT_WEIGHTED, MatchingEngine.EXACT_CARDINALITY,
+				MatchingEngine.COMPONENT_WEIGHTED, MatchingEngine.COMPONENT_CARDINALITY, MatchingEngine.PARTITIONED };
+		for (MatchingEngine engine : engines) {
+			assertTrue(engine.name(), cutEverywhere(engine, g, engine.weighted() ? weight : cardinality, 40));
+		}
+		WeightedDigraph grid = GraphFamily.GRID.generate(400, 0, 1);
+		assertTrue(cutEverywhere(MatchingEngine.BIPARTITE, grid, new DynamicMatching(grid).size(), 40));
+	}
+}
@@ -0,0 +1,142 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import graph.ArcArrays;
+import graph.Edge;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.DualKernels;
+import graph.algorithms.matching.ExactMaxWeightedMatching;
+import graph.algorithms.matching.PrimalDualMatching;
+
+import org.junit.Test;
+
+public class DualKernelsTest {
+	
+	@Test
+	public void test() {
+		WeightedDigraph g = WeightedDigraph.random(30);
+		ArcArrays arcs = new ArcArrays(g);
+		long[] u2 = new long[g.numVertices()];
+		for (int v = 0; v < u2.length; v++ ) {
+			u2[v] = (long) (Math.random() * 20);
+		}
+		
+		int k = 0, max = 0;
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				assertEquals(e.left, arcs.left[k]);
+				assertEquals(e.right, arcs.right[k]);
+				assertEquals(e.weight, arcs.weight[k++ ]);
+				max = Math.max(max, e.weight);
+			}
+		}
+		assertEquals(arcs.count, k);
+		assertEquals(max, DualKernels.maxWeight(arcs));
+		
+		DualKernels.lowerToFeasible(u2, 2, arcs);
+		for (long s : slacks(u2, arcs)) {
+			assertTrue(s <= 0);
+		}
+		
+		long before = u2[3];
+		DualKernels.add(u2, new int[] { 3, 5, 3 }, 2, 3);
+		assertEquals(before + 3, u2[3]);
+	}
+	
+	/**
+	 * @return 2u_l + 2u_r - 2w_lr of every arc
+	 */
+	private static long[] slacks(long[] u2, ArcArrays arcs) {
+		long[] slack2 = new long[arcs.count];
+		for (int k = 0; k < arcs.count; k++ ) {
+			slack2[k] = u2[arcs.left[k]] + u2[arcs.right[k]] - 2L * arcs.weight[k];
+		}
+		return slack2;
+	}
+	
+	@Test
+	public void testScaledDualsAreExact() {
+		// weights far above 2^24 where floats can no longer hold every integer, let alone halves
+		WeightedDigraph g = new WeightedDigraph(4);
+		int[][] edges = { { 0, 1, 1000000007 }, { 1, 2, 999999937 }, { 2, 3, 1000000009 }, { 3, 0, 33554433 } };
+		for (int[] e : edges) {
+			g.addEdge(new Edge(e[0], e[1], e[2]));
+			g.addEdge(new Edge(e[1], e[0], e[2]));
+		}
+		ArcArrays arcs = new ArcArrays(g);
+		long[] u2 = new long[g.numVertices()];
+		for (int v = 0; v < u2.length; v++ ) {
+			u2[v] = DualKernels.maxWeight(arcs) - 2 * v - 1;
+		}
+		DualKernels.lowerToFeasible(u2, 2, arcs);
+		long[] slack2 = slacks(u2, arcs);
+		boolean tight = false;
+		for (int k = 0; k < arcs.count; k++ ) {
+			assertTrue(slack2[k] <= 0);
+			tight |= slack2[k] == 0;
+		}
+		assertTrue(tight);
+		
+		// half a unit on a dual near 2^29 moves the slack of its arcs by exactly half a unit
+		long before = slack2[0];
+		DualKernels.add(u2, new int[] { arcs.left[0] }, 1, 1);
+		assertEquals(before + 1, slacks(u2, arcs)[0]);
+		DualKernels.add(u2, 0, u2.length, - 1);
+		assertEquals(before - 1, slacks(u2, arcs)[0]);
+	}
+	
+	@Test
+	public void testHalfSlackOfOddDualSums() {
+		// a_0 = 1.5 and a_1 = 2 leave the slack 1.5 on an arc of weight 5, doubled that is 3 and its half would be truncated
+		WeightedDigraph g = new WeightedDigraph(3);
+		g.addEdge(new Edge(0, 1, 5));
+		g.addEdge(new Edge(1, 2, 4));
+		long[] alpha4 = { 6, 8, 6 };
+		long step = DualKernels.halfSlack(alpha4, 0, 1, 5);
+		assertEquals(3, step);
+		// both ends move by the step and the arc becomes tight exactly
+		DualKernels.add(alpha4, new int[] { 0, 1 }, 2, step);
+		assertEquals(4L * 5, alpha4[0] + alpha4[1]);
+		
+		// the feasibility repair in the same scale: 11 + 6 > 4 * 4 lowers the right end by 1
+		DualKernels.lowerToFeasible(alpha4, 4, new ArcArrays(g));
+		assertEquals(5, alpha4[2]);
+		assertEquals(4L * 4, alpha4[1] + alpha4[2]);
+		
+		// ends of different parity, not even a scale of 4 holds the half
+		try {
+			DualKernels.halfSlack(new long[] { 6, 7 }, 0, 1, 5);
+			fail("the half of an odd slack was rounded");
+		} catch (RuntimeException e) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void testSolveIsExactAboveFloatPrecision() {
+		// weights just above 2^26 that differ in their low bits, a float dual rounds them to multiples of 8
+		for (int seed = 0; seed < 10; seed++ ) {
+			Random random = new Random(seed);
+			WeightedDigraph g = new WeightedDigraph(16);
+			for (int v = 0; v < 16; v++ ) {
+				for (int w = v + 1; w < 16; w++ ) {
+					if (random.nextInt(3) == 0) {
+						g.addEdge(new Edge(v, w, (1 << 26) + random.nextInt(64)));
+					}
+				}
+			}
+			PrimalDualMatching solver = new PrimalDualMatching(g);
+			assertEquals(new ExactMaxWeightedMatching(g).runWeighted().weight(), solver.weight());
+			long[] u2 = solver.scaledDuals();
+			for (int v = 0; v < 16; v++ ) {
+				assertTrue(u2[v] >= 0);
+				if (solver.mate(v) == - 1) {
+					assertEquals(0, u2[v]);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import graph.Edge;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.DynamicMatching;
+import graph.algorithms.matching.ExactMaxWeightedMatching;
+
+import org.junit.Test;
+
+public class DynamicMatchingTest {
+	
+	private static final int	NUM_VERTICES	= 30;
+	private static final int	NUM_UPDATES		= 2000;
+	
+	@Test
+	public void test() {
+		WeightedDigraph g = WeightedDigraph.random(NUM_VERTICES);
+		DynamicMatching dm = new DynamicMatching(g);
+		assertEquals(new ExactMaxWeightedMatching(g).runUnweighted().matches(), dm.size());
+		
+		for (int ii = 0; ii < NUM_UPDATES; ii++ ) {
+			int u = (int) (Math.random() * NUM_VERTICES);
+			int v = (int) (Math.random() * NUM_VERTICES);
+			// keep the graph sparse so the matching is rarely perfect
+			if (g.eOuts(u).size() > 2 || Math.random() < 0.5) {
+				dm.deleteEdge(u, g.eOuts(u).isEmpty() ? v : g.eOuts(u).get(0).right);
+			} else {
+				dm.insertEdge(u, v, 1);
+			}
+			for (int w = 0; w < NUM_VERTICES; w++ ) {
+				if (dm.mate(w) >= 0) {
+					assertEquals(w, dm.mate(dm.mate(w)));
+					assertNotNull("matched vertices are not adjacent", g.heaviestArc(w, dm.mate(w)));
+				}
+			}
+			assertEquals("matching is not maximum after update " + ii, new ExactMaxWeightedMatching(g).runUnweighted().matches(), dm.size());
+		}
+		assertEquals(dm.size(), dm.matching().matches());
+	}
+	
+	@Test
+	public void testGraphIsNotModified() {
+		WeightedDigraph g = new WeightedDigraph(6);
+		for (int v = 0; v < 5; v++ ) {
+			g.addEdge(new Edge(v + 1, v, 1));
+		}
+		DynamicMatching dm = new DynamicMatching(g);
+		assertEquals(3, dm.size());
+		int arcs = 0;
+		for (int v = 0; v < 6; v++ ) {
+			arcs += g.eOuts(v).size();
+		}
+		assertEquals("constructor added arcs to the graph", 5, arcs);
+		assertEquals(3, dm.matching().matches());
+	}
+	
+}
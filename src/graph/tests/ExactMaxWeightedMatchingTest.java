@@ -0,0 +1,108 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import graph.Edge;
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.ExactMaxWeightedMatching;
+import graph.algorithms.matching.ParallelExactMaxWeightedMatching;
+import graph.algorithms.matching.PrimalDualMatching;
+
+import org.junit.Test;
+
+public class ExactMaxWeightedMatchingTest {
+	
+	private static final int	NUM_TESTS	= 50;
+	
+	@Test
+	public void testSmallAgainstEnumeration() {
+		for (int ii = 0; ii < NUM_TESTS; ii++ ) {
+			WeightedDigraph g = WeightedDigraph.random((int) (Math.random() * 9) + 2);
+			List<Edge> edges = g.edges();
+			int expected = enumerate(edges, 0, new boolean[g.numVertices()]);
+			
+			Matching m = new ExactMaxWeightedMatching(g).runWeighted();
+			assertEquals("exact solver is not optimal on " + g, expected, m.weight());
+			assertEquals(expected, new ParallelExactMaxWeightedMatching(g).runWeighted().weight());
+		}
+	}
+	
+	@Test
+	public void testAllOptimalMatchings() {
+		for (int ii = 0; ii < NUM_TESTS; ii++ ) {
+			WeightedDigraph g = WeightedDigraph.random((int) (Math.random() * 9) + 2);
+			List<Matching> sequential = new ExactMaxWeightedMatching(g).allWeighted();
+			List<Matching> parallel = new ParallelExactMaxWeightedMatching(g).allWeighted();
+			assertEquals(sequential.size(), parallel.size());
+			for (Matching m : sequential) {
+				assertTrue("matching missing from parallel enumeration", parallel.contains(m));
+				assertEquals(sequential.get(0).weight(), m.weight());
+			}
+		}
+	}
+	
+	@Test
+	public void testBranchAndBound() {
+		// 30 vertices is beyond the subset table so this goes through the branch and bound search
+		WeightedDigraph g = new WeightedDigraph(30);
+		for (int v = 0; v < 30; v++ ) {
+			g.addEdge(new Edge(v, (v + 1) % 30, 1 + v % 2));
+			g.addEdge(new Edge(v, (v + 7) % 30, 1));
+		}
+		assertEquals(30, new ExactMaxWeightedMatching(g).runWeighted().weight());
+		assertEquals(15, new ExactMaxWeightedMatching(g).runUnweighted().matches());
+		assertEquals(30, new ParallelExactMaxWeightedMatching(g).runWeighted().weight());
+		
+		for (int ii = 0; ii < 5; ii++ ) {
+			WeightedDigraph r = WeightedDigraph.random(24);
+			assertEquals(new ExactMaxWeightedMatching(r).runWeighted().weight(), new ParallelExactMaxWeightedMatching(r).runWeighted().weight());
+		}
+	}
+	
+	@Test
+	public void testLargestGraphs() {
+		// complete bipartite and odd dense graphs near the size limit, both were out of reach with a bound from the vertices alone
+		java.util.Random random = new java.util.Random(26);
+		int[][] shapes = { { 6, 26 }, { 10, 30 } };
+		for (int[] shape : shapes) {
+			WeightedDigraph g = new WeightedDigraph(shape[0] + shape[1]);
+			for (int v = 0; v < shape[0]; v++ ) {
+				for (int w = shape[0]; w < g.numVertices(); w++ ) {
+					g.addEdge(new Edge(v, w, 1 + random.nextInt(100)));
+				}
+			}
+			assertEquals(new PrimalDualMatching(g).weight(), new ExactMaxWeightedMatching(g).runWeighted().weight());
+		}
+		for (int n = 27; n <= ExactMaxWeightedMatching.MAX_VERTICES; n += 6) {
+			WeightedDigraph g = new WeightedDigraph(n);
+			for (int v = 0; v < n; v++ ) {
+				for (int w = v + 1; w < n; w++ ) {
+					g.addEdge(new Edge(v, w, 1 + random.nextInt(n)));
+				}
+			}
+			assertEquals(new PrimalDualMatching(g).weight(), new ExactMaxWeightedMatching(g).runWeighted().weight());
+			assertEquals(n / 2, new ExactMaxWeightedMatching(g).runUnweighted().matches());
+		}
+	}
+	
+	/**
+	 * Plain recursive enumeration of edge subsets for reference
+	 */
+	private int enumerate(List<Edge> edges, int index, boolean[] used) {
+		if (index == edges.size()) {
+			return 0;
+		}
+		int best = enumerate(edges, index + 1, used);
+		Edge e = edges.get(index);
+		if ( ! used[e.left] && ! used[e.right] && ! e.isLoop()) {
+			used[e.left] = used[e.right] = true;
+			best = Math.max(best, e.weight + enumerate(edges, index + 1, used));
+			used[e.left] = used[e.right] = false;
+		}
+		return best;
+	}
+	
+}
@@ -0,0 +1,61 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import graph.Edge;
+import graph.MappedGraph;
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.ExactMaxWeightedMatching;
+import graph.algorithms.matching.ExternalMemoryMatching;
+
+import org.junit.Test;
+
+public class ExternalMemoryMatchingTest {
+	
+	private static final int	NUM_TESTS	= 100;
+	
+	@Test
+	public void test() throws IOException {
+		File file = File.createTempFile("adjacency", ".bin");
+		file.deleteOnExit();
+		for (int ii = 0; ii < NUM_TESTS; ii++ ) {
+			WeightedDigraph g = WeightedDigraph.random((int) (Math.random() * 30) + 2);
+			MappedGraph mg = MappedGraph.build(g, file);
+			Matching m = new ExternalMemoryMatching(mg).run();
+			mg.close();
+			for (int v = 0; v < g.numVertices(); v++ ) {
+				if (m.isMatched(v)) {
+					assertEquals(v, m.mate(m.mate(v)));
+					assertNotNull(g.heaviestArc(v, m.mate(v)));
+				}
+			}
+			assertEquals(new ExactMaxWeightedMatching(g).runUnweighted().matches(), m.matches());
+		}
+	}
+	
+	@Test
+	public void testReopen() throws IOException {
+		File arcs = File.createTempFile("arcs", ".txt");
+		File file = File.createTempFile("adjacency", ".bin");
+		arcs.deleteOnExit();
+		file.deleteOnExit();
+		FileWriter out = new FileWriter(arcs);
+		out.write("0 1 2\n1 2 7\n2 3 1\n3 0 4\n");
+		out.close();
+		MappedGraph.build(4, arcs, file).close();
+		
+		MappedGraph mg = MappedGraph.open(file);
+		assertEquals(4, mg.numVertices());
+		assertEquals(8, mg.numEntries());
+		assertEquals(2, mg.degree(1));
+		Matching m = new ExternalMemoryMatching(mg).run();
+		mg.close();
+		assertEquals(2, m.matches());
+		assertTrue(m.weight() == 3 || m.weight() == 11);
+	}
+}
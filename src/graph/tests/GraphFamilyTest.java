@@ -0,0 +1,52 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import graph.Edge;
+import graph.WeightedDigraph;
+import graph.bench.GraphFamily;
+
+import org.junit.Test;
+
+public class GraphFamilyTest {
+	
+	private String arcs(WeightedDigraph g) {
+		StringBuilder s = new StringBuilder();
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				s.append(e).append(' ');
+			}
+		}
+		return s.toString();
+	}
+	
+	@Test
+	public void testDeterministic() {
+		for (GraphFamily family : GraphFamily.values()) {
+			WeightedDigraph a = family.generate(50, 0.2, 7), b = family.generate(50, 0.2, 7);
+			assertEquals(family.toString(), arcs(a), arcs(b));
+			for (int v = 0; v < a.numVertices(); v++ ) {
+				for (Edge e : a.eOuts(v)) {
+					assertFalse(e.isLoop());
+					assertNotNull("edges are undirected", a.heaviestArc(e.right, e.left));
+					assertTrue(e.weight >= 1 && e.weight <= GraphFamily.MAX_WEIGHT);
+				}
+			}
+		}
+		assertFalse(arcs(GraphFamily.RANDOM.generate(50, 0.2, 7)).equals(arcs(GraphFamily.RANDOM.generate(50, 0.2, 8))));
+	}
+	
+	@Test
+	public void testShapes() {
+		WeightedDigraph bipartite = GraphFamily.BIPARTITE.generate(40, 0.5, 1);
+		for (int v = 0; v < 40; v++ ) {
+			for (Edge e : bipartite.eOuts(v)) {
+				assertTrue((e.left < 20) != (e.right < 20));
+			}
+		}
+		WeightedDigraph grid = GraphFamily.GRID.generate(36, 0, 1);
+		for (int v = 0; v < 36; v++ ) {
+			assertTrue(grid.eOuts(v).size() >= 2 && grid.eOuts(v).size() <= 4);
+		}
+	}
+}
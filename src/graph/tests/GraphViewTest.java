@@ -0,0 +1,111 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.BitSet;
+
+import graph.ArcArrays;
+import graph.Edge;
+import graph.GraphView;
+import graph.WeightedDigraph;
+import graph.bench.GraphFamily;
+
+import org.junit.Test;
+
+public class GraphViewTest {
+	
+	/**
+	 * Arcs of {@link g} with both ends in {@link vertices} and at least {@link minWeight}, built edge by edge
+	 */
+	private static WeightedDigraph expected(WeightedDigraph g, BitSet vertices, int minWeight) {
+		WeightedDigraph sub = new WeightedDigraph(g.numVertices());
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			for (Edge e : g.eOuts(v)) {
+				if (vertices.get(e.left) && vertices.get(e.right) && e.weight >= minWeight) {
+					sub.addEdge(new Edge(e.left, e.right, e.weight));
+				}
+			}
+		}
+		return sub;
+	}
+	
+	private static int numArcs(WeightedDigraph g) {
+		int count = 0;
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			count += g.eOuts(v).size();
+		}
+		return count;
+	}
+	
+	private static void assertSameArcs(WeightedDigraph expected, GraphView view) {
+		WeightedDigraph actual = view.toDigraph();
+		assertEquals(numArcs(expected), numArcs(actual));
+		assertEquals(numArcs(expected), view.numArcs());
+		assertTrue(expected.equals(actual) && actual.equals(expected));
+	}
+	
+	@Test
+	public void testFullView() {
+		WeightedDigraph g = GraphFamily.RANDOM.generate(50, 0.2, 1);
+		GraphView view = new GraphView(g);
+		assertEquals(numArcs(g), view.numArcs());
+		assertSameArcs(g, view);
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			assertEquals(g.eOuts(v).size(), view.degree(v));
+		}
+	}
+	
+	@Test
+	public void testVertexMaskAndFilter() {
+		WeightedDigraph g = GraphFamily.RANDOM.generate(60, 0.3, 2);
+		BitSet odd = new BitSet();
+		for (int v = 1; v < g.numVertices(); v += 2) {
+			odd.set(v);
+		}
+		BitSet all = new BitSet();
+		all.set(0, g.numVertices());
+		GraphView base = new GraphView(g);
+		
+		GraphView masked = base.withVertices(odd);
+		assertSameArcs(expected(g, odd, 0), masked);
+		assertEquals(- 1, masked.firstArc(0));
+		assertEquals(1, masked.nextVertex(0));
+		
+		GraphView heavy = base.withFilter(GraphView.minWeight(50));
+		assertSameArcs(expected(g, all, 50), heavy);
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			for (int k = heavy.firstArc(v); k >= 0; k = heavy.nextArc(v, k)) {
+				assertEquals(v, heavy.left(k));
+				assertTrue(heavy.weight(k) >= 50);
+			}
+		}
+		
+		GraphView both = heavy.withVertices(odd);
+		assertSameArcs(expected(g, odd, 50), both);
+		
+		// the mask is shared, not copied
+		odd.clear(1);
+		assertFalse(both.contains(1));
+		assertSameArcs(expected(g, odd, 50), both);
+		
+		// deriving views leaves the others alone
+		assertSameArcs(expected(g, all, 50), heavy);
+		assertEquals(numArcs(g), base.numArcs());
+	}
+	
+	@Test
+	public void testArcMask() {
+		WeightedDigraph g = GraphFamily.SPARSE.generate(40, 0.3, 3);
+		ArcArrays arcs = new ArcArrays(g);
+		BitSet even = new BitSet();
+		WeightedDigraph sub = new WeightedDigraph(g.numVertices());
+		for (int k = 0; k < arcs.count; k += 2) {
+			even.set(k);
+			sub.addEdge(new Edge(arcs.left[k], arcs.right[k], arcs.weight[k]));
+		}
+		GraphView view = new GraphView(arcs).withArcs(even);
+		assertSameArcs(sub, view);
+		assertEquals((arcs.count + 1) / 2, view.numArcs());
+		assertEquals(numArcs(g), view.withArcs(null).numArcs());
+	}
+}
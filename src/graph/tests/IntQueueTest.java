@@ -0,0 +1,44 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.LinkedList;
+
+import graph.algorithms.matching.IntQueue;
+
+import org.junit.Test;
+
+public class IntQueueTest {
+	
+	private static final int	NUM_OPERATIONS	= 100000;
+	private static final int	NUM_IDS					= 200;
+	
+	/**
+	 * Random operations checked against a LinkedList used the way the solvers used to
+	 */
+	@Test
+	public void test() {
+		IntQueue q = new IntQueue(4);
+		LinkedList<Integer> reference = new LinkedList<Integer>();
+		for (int ii = 0; ii < NUM_OPERATIONS; ii++ ) {
+			int id = (int) (Math.random() * NUM_IDS);
+			double op = Math.random();
+			if (op < 0.5) {
+				assertEquals( ! reference.contains(id), q.add(id));
+				if ( ! reference.contains(id)) {
+					reference.add(id);
+				}
+			} else if (op < 0.8) {
+				assertEquals(reference.isEmpty() ? IntQueue.NONE : reference.poll(), q.poll());
+			} else if (op < 0.99) {
+				assertEquals(reference.remove((Integer) id), q.remove(id));
+			} else {
+				reference.clear();
+				q.clear();
+			}
+			assertEquals(reference.size(), q.size());
+			assertEquals(reference.isEmpty(), q.isEmpty());
+			assertEquals(reference.contains(id), q.contains(id));
+		}
+	}
+}
@@ -2,11 +2,8 @@ package graph.tests;
 
 import static org.junit.Assert.*;
 
-import java.util.List;
-
-import graph.Matching;
 import graph.WeightedDigraph;
-import graph.algorithms.matching.BruteForceMaxWeightedMatching;
+import graph.algorithms.matching.ExactMaxWeightedMatching;
 import graph.algorithms.matching.MinMatchingAlg;
 
 import org.junit.Test;
@@ -27,12 +24,11 @@ public class LargeUnweightedMatchingCalcTest {
 			if(mma.matching().matches() == numVertices/2){
 				System.out.printf("TEST PASSED (mm:%d)\n", mma.matching().matches());
 			}else{
-				BruteForceMaxWeightedMatching bfTest = new BruteForceMaxWeightedMatching(g);
-				List<Matching> possibleMatchings = bfTest.runUnweighted();
-				int bruteForceMatches = possibleMatchings.get(0).matches();
+				ExactMaxWeightedMatching exact = new ExactMaxWeightedMatching(g);
+				int bruteForceMatches = exact.runUnweighted().matches();
 				int minMatchMatches = mma.matching().matches();
 				System.out.printf("TEST %s (bf:%d,mm:%d)\n", bruteForceMatches==minMatchMatches? "PASSED" : "FAILED", bruteForceMatches,minMatchMatches);
-				assertTrue(possibleMatchings.get(0).matches()<=mma.matching().matches());
+				assertTrue(bruteForceMatches<=minMatchMatches);
 			}
 		}
 	}
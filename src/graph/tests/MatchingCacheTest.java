@@ -0,0 +1,143 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import graph.Edge;
+import graph.GraphFingerprint;
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.MatchingEngine;
+import graph.bench.GraphFamily;
+import graph.service.MatchingCache;
+import graph.service.MatchingService;
+
+import org.junit.Test;
+
+public class MatchingCacheTest {
+	
+	private static WeightedDigraph shuffled(WeightedDigraph g, long seed) {
+		List<Edge> arcs = new ArrayList<Edge>();
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			arcs.addAll(g.eOuts(v));
+		}
+		Collections.shuffle(arcs, new Random(seed));
+		WeightedDigraph copy = new WeightedDigraph(g.numVertices());
+		for (Edge e : arcs) {
+			copy.addEdge(new Edge(e.left, e.right, e.weight));
+		}
+		return copy;
+	}
+	
+	@Test
+	public void testFingerprint() {
+		WeightedDigraph g = GraphFamily.RANDOM.generate(60, 0.2, 1);
+		GraphFingerprint f = GraphFingerprint.of(g);
+		assertEquals(f, GraphFingerprint.of(shuffled(g, 7)));
+		assertEquals(32, f.toString().length());
+		
+		WeightedDigraph heavier = shuffled(g, 3);
+		Edge e = heavier.eOuts(firstWithArcs(heavier)).get(0);
+		heavier.addEdge(new Edge(e.left, e.right, e.weight + 1));
+		assertFalse(f.equals(GraphFingerprint.of(heavier)));
+		assertFalse(f.equals(GraphFingerprint.of(GraphFamily.RANDOM.generate(60, 0.2, 2))));
+		assertFalse(GraphFingerprint.of(new WeightedDigraph(4)).equals(GraphFingerprint.of(new WeightedDigraph(5))));
+	}
+	
+	private static int firstWithArcs(WeightedDigraph g) {
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			if ( ! g.eOuts(v).isEmpty()) {
+				return v;
+			}
+		}
+		throw new RuntimeException("graph without arcs");
+	}
+	
+	@Test
+	public void testHitAndEviction() {
+		WeightedDigraph a = GraphFamily.GRID.generate(100, 0, 1), b = GraphFamily.GRID.generate(144, 0, 1);
+		Matching m = MatchingEngine.DYNAMIC.solve(a);
+		// room for a single matching
+		MatchingCache cache = new MatchingCache(1000);
+		assertEquals(m, cache.solve(a, MatchingEngine.DYNAMIC));
+		assertEquals(m, cache.solve(shuffled(a, 5), MatchingEngine.DYNAMIC));
+		assertEquals(1, cache.hits());
+		assertEquals(1, cache.misses());
+		
+		// other engines are cached separately
+		cache.solve(a, MatchingEngine.COMPONENT_CARDINALITY);
+		assertEquals(2, cache.misses());
+		cache.solve(b, MatchingEngine.DYNAMIC);
+		assertTrue(cache.evictions() >= 2);
+		assertTrue(cache.bytes() <= 1000);
+		cache.solve(a, MatchingEngine.DYNAMIC);
+		assertEquals(4, cache.misses());
+		
+		// callers own what they get
+		Matching got = cache.solve(a, MatchingEngine.DYNAMIC);
+		got.clear();
+		assertEquals(m, cache.solve(a, MatchingEngine.DYNAMIC));
+	}
+	
+	@Test
+	public void testDiskTier() {
+		File dir = new File(System.getProperty("java.io.tmpdir"), "matching-cache-" + System.nanoTime());
+		try {
+			List<WeightedDigraph> graphs = new ArrayList<WeightedDigraph>();
+			for (int ii = 0; ii < 6; ii++ ) {
+				graphs.add(GraphFamily.RANDOM.generate(40, 0.2, ii));
+			}
+			MatchingCache cache = new MatchingCache(500, dir, 1 << 20);
+			List<Matching> expected = new ArrayList<Matching>();
+			for (WeightedDigraph g : graphs) {
+				expected.add(cache.solve(g, MatchingEngine.COMPONENT_WEIGHTED));
+			}
+			assertTrue(cache.diskSize() >= 4);
+			
+			// a new cache over the same directory answers from disk with the weights of the graph
+			MatchingCache reopened = new MatchingCache(1 << 20, dir, 1 << 20);
+			for (int ii = 0; ii < 4; ii++ ) {
+				Matching m = reopened.solve(graphs.get(ii), MatchingEngine.COMPONENT_WEIGHTED);
+				// the file keeps pairs, not arc directions
+				for (int v = 0; v < m.numVertices(); v++ ) {
+					assertEquals(expected.get(ii).isMatched(v), m.isMatched(v));
+					assertEquals(expected.get(ii).mate(v), m.mate(v));
+				}
+				assertEquals(expected.get(ii).weight(), m.weight());
+			}
+			assertEquals(4, reopened.diskHits());
+			assertEquals(0, reopened.misses());
+			
+			// the disk tier is trimmed to its bound
+			new MatchingCache(0, dir, 0);
+			assertEquals(0, dir.listFiles().length);
+		} finally {
+			for (File f : dir.listFiles()) {
+				f.delete();
+			}
+			dir.delete();
+		}
+	}
+	
+	@Test
+	public void testService() throws Exception {
+		MatchingCache cache = new MatchingCache(1 << 20);
+		MatchingService service = new MatchingService(2, 4);
+		try {
+			WeightedDigraph g = GraphFamily.GRID.generate(400, 0, 1);
+			MatchingService.Options options = new MatchingService.Options().engine(MatchingEngine.DYNAMIC).cache(cache);
+			Matching first = service.solveAsync(g, options).get(30, TimeUnit.SECONDS);
+			Matching second = service.solveAsync(shuffled(g, 1), options).get(30, TimeUnit.SECONDS);
+			assertEquals(first, second);
+			assertEquals(1, cache.hits());
+		} finally {
+			service.shutdown();
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import graph.Edge;
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.ExactMaxWeightedMatching;
+import graph.algorithms.matching.MatchingKernel;
+
+import org.junit.Test;
+
+public class MatchingKernelTest {
+	
+	private static final int	NUM_TESTS	= 200;
+	
+	/**
+	 * A random sparse graph, a tree with a few additional edges
+	 */
+	private WeightedDigraph sparse(int numVertices) {
+		WeightedDigraph g = new WeightedDigraph(numVertices);
+		for (int v = 1; v < numVertices; v++ ) {
+			int w = (int) (Math.random() * v);
+			int weight = (int) (Math.random() * 10) + 1;
+			g.addEdge(new Edge(v, w, weight));
+			g.addEdge(new Edge(w, v, weight));
+		}
+		for (int ii = 0; ii < numVertices / 4; ii++ ) {
+			int v = (int) (Math.random() * numVertices);
+			int w = (int) (Math.random() * numVertices);
+			if (v != w) {
+				g.addEdge(new Edge(v, w, (int) (Math.random() * 10) + 1));
+			}
+		}
+		return g;
+	}
+	
+	private void assertValid(WeightedDigraph g, Matching m) {
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			if (m.isMatched(v)) {
+				assertEquals(v, m.mate(m.mate(v)));
+				assertNotNull("matched vertices are not adjacent", g.heaviestArc(v, m.mate(v)));
+			}
+		}
+	}
+	
+	@Test
+	public void testCardinality() {
+		for (int ii = 0; ii < NUM_TESTS; ii++ ) {
+			WeightedDigraph g = sparse((int) (Math.random() * 38) + 2);
+			MatchingKernel kernel = new MatchingKernel(g, false);
+			Matching lifted = kernel.lift(new ExactMaxWeightedMatching(kernel.kernel()).runUnweighted());
+			assertValid(g, lifted);
+			assertEquals(new ExactMaxWeightedMatching(g).runUnweighted().matches(), lifted.matches());
+			assertTrue(kernel.kernel().numVertices() < g.numVertices());
+		}
+	}
+	
+	@Test
+	public void testWeighted() {
+		for (int ii = 0; ii < NUM_TESTS; ii++ ) {
+			WeightedDigraph g = sparse((int) (Math.random() * 18) + 2);
+			MatchingKernel kernel = new MatchingKernel(g, true);
+			Matching lifted = kernel.lift(new ExactMaxWeightedMatching(kernel.kernel()).runWeighted());
+			assertValid(g, lifted);
+			assertEquals(new ExactMaxWeightedMatching(g).runWeighted().weight(), lifted.weight());
+		}
+	}
+	
+}
@@ -0,0 +1,64 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import graph.Edge;
+import graph.Matching;
+import graph.MatchingAdapter;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.MinMatchingAlg;
+
+import org.junit.Test;
+
+public class MatchingListenerTest {
+	
+	private static class Counter extends MatchingAdapter {
+		int	stages, augments, pathVertices, conflicts;
+		
+		@Override
+		public void onStageStart(int stage, int root) {
+			assertEquals(stages++ , stage);
+		}
+		
+		@Override
+		public void onAugment(int[] path) {
+			augments++ ;
+			pathVertices += path.length;
+		}
+		
+		@Override
+		public void onMatchConflict(int left, int right) {
+			conflicts++ ;
+		}
+	}
+	
+	@Test
+	public void testSearchEvents() {
+		// the path 0-1-2-3
+		WeightedDigraph g = new WeightedDigraph(4);
+		for (int v = 0; v < 3; v++ ) {
+			g.addEdge(new Edge(v, v + 1, 1));
+			g.addEdge(new Edge(v + 1, v, 1));
+		}
+		MinMatchingAlg mma = new MinMatchingAlg(g);
+		Counter counter = new Counter();
+		mma.setListener(counter);
+		mma.run();
+		assertEquals(2, mma.matching().matches());
+		assertTrue(counter.stages > 0);
+		assertTrue(counter.augments > 0);
+		assertTrue(counter.pathVertices >= 2 * counter.augments);
+	}
+	
+	@Test
+	public void testConflict() {
+		Matching m = new Matching(4);
+		Counter counter = new Counter();
+		m.setListener(counter);
+		m.add(new Edge(0, 1, 1));
+		m.add(new Edge(1, 2, 1));
+		assertEquals(1, counter.conflicts);
+		assertEquals(1, m.matches());
+		assertFalse(m.isMatched(0));
+	}
+}
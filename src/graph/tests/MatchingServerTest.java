@@ -0,0 +1,166 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import graph.BinaryGraphFormat;
+import graph.Edge;
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.DynamicMatching;
+import graph.algorithms.matching.MatchingEngine;
+import graph.algorithms.matching.PrimalDualMatching;
+import graph.bench.GraphFamily;
+import graph.service.MatchingClient;
+import graph.service.MatchingServer;
+
+import org.junit.Test;
+
+public class MatchingServerTest {
+	
+	@Test
+	public void testBinaryFormat() throws IOException {
+		WeightedDigraph g = GraphFamily.SPARSE.generate(30, 0.5, 4);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BinaryGraphFormat.write(g, new DataOutputStream(bytes));
+		WeightedDigraph read = BinaryGraphFormat.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 100);
+		assertEquals(g.numVertices(), read.numVertices());
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			assertEquals(g.eOuts(v).toString(), read.eOuts(v).toString());
+		}
+		
+		Matching m = new Matching(30);
+		m.add(new Edge(0, 1, 5));
+		m.add(new Edge(7, 3, 2));
+		bytes.reset();
+		BinaryGraphFormat.write(m, null, new DataOutputStream(bytes));
+		Matching back = BinaryGraphFormat.readMatching(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 100);
+		assertEquals(2, back.matches());
+		assertEquals(7, back.mate(3));
+		
+		try {
+			BinaryGraphFormat.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 100);
+			fail("a matching is not a graph");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void testEngineCodes() {
+		boolean[] used = new boolean[Byte.MAX_VALUE + 1];
+		for (MatchingEngine engine : MatchingEngine.values()) {
+			assertTrue(engine.code() >= 0);
+			assertFalse(engine.toString(), used[engine.code()]);
+			used[engine.code()] = true;
+			assertSame(engine, MatchingEngine.forCode(engine.code()));
+		}
+		// the codes are the wire protocol, they must not move with the declaration order
+		assertEquals(5, MatchingEngine.DYNAMIC.code());
+		assertEquals(9, MatchingEngine.PRIMAL_DUAL.code());
+		try {
+			MatchingEngine.forCode(100);
+			fail("an unknown code was accepted");
+		} catch (RuntimeException e) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void testPipelinedRequests() throws Exception {
+		MatchingServer server = new MatchingServer(0, 2, 8);
+		MatchingClient client = new MatchingClient(server.port());
+		try {
+			List<CompletableFuture<MatchingClient.Response>> responses = new ArrayList<CompletableFuture<MatchingClient.Response>>();
+			for (int ii = 0; ii < 40; ii++ ) {
+				responses.add(client.submit(GraphFamily.GRID.generate(20 + 2 * ii, 0, ii), MatchingServer.POOLED_CARDINALITY));
+			}
+			for (int ii = 0; ii < 40; ii++ ) {
+				MatchingClient.Response r = responses.get(ii).get(10, TimeUnit.SECONDS);
+				assertNull(r.error);
+				assertTrue(r.serverNanos > 0);
+				assertEquals(new DynamicMatching(GraphFamily.GRID.generate(20 + 2 * ii, 0, ii)).size(), r.matching.matches());
+			}
+			
+			Matching exact = client.submit(GraphFamily.RANDOM.generate(12, 0.5, 1), MatchingEngine.EXACT_WEIGHTED).get(10, TimeUnit.SECONDS).matching;
+			assertEquals(new graph.algorithms.matching.ExactMaxWeightedMatching(GraphFamily.RANDOM.generate(12, 0.5, 1)).runWeighted().weight(), exact
+					.weight());
+			
+			WeightedDigraph large = GraphFamily.RANDOM.generate(60, 0.2, 3);
+			MatchingClient.Response pooled = client.submit(large, MatchingServer.POOLED_WEIGHTED).get(10, TimeUnit.SECONDS);
+			assertNull(pooled.error);
+			assertEquals(new PrimalDualMatching(large).weight(), pooled.matching.weight());
+			
+			MatchingClient.Response bad = client.submit(GraphFamily.RANDOM.generate(12, 0.5, 1), (byte) 100).get(10, TimeUnit.SECONDS);
+			assertNotNull(bad.error);
+			assertEquals(43, server.served());
+			assertTrue(server.batches() <= 43);
+			assertTrue(server.maxLatencyNanos() >= server.meanLatencyNanos());
+		} finally {
+			client.close();
+			server.close();
+		}
+	}
+	
+	@Test
+	public void testFullQueueAnswersBusy() throws Exception {
+		MatchingServer server = new MatchingServer(0, 1, 1, 1);
+		MatchingClient client = new MatchingClient(server.port());
+		try {
+			WeightedDigraph g = GraphFamily.RANDOM.generate(600, 0.05, 2);
+			List<CompletableFuture<MatchingClient.Response>> responses = new ArrayList<CompletableFuture<MatchingClient.Response>>();
+			for (int ii = 0; ii < 8; ii++ ) {
+				responses.add(client.submit(g, MatchingEngine.PRIMAL_DUAL));
+			}
+			long weight = new PrimalDualMatching(g).weight();
+			int busy = 0;
+			for (CompletableFuture<MatchingClient.Response> response : responses) {
+				MatchingClient.Response r = response.get(60, TimeUnit.SECONDS);
+				if (r.busy) {
+					assertNotNull(r.error);
+					busy++ ;
+				} else {
+					assertNull(r.error);
+					assertEquals(weight, r.matching.weight());
+				}
+			}
+			// one request is solved and one waits, the ones sent meanwhile find the queue full
+			assertTrue(busy > 0);
+			assertEquals(busy, server.rejected());
+			assertEquals(8 - busy, server.served());
+		} finally {
+			client.close();
+			server.close();
+		}
+	}
+	
+	@Test
+	public void testClosedServerFailsRequests() throws Exception {
+		MatchingServer server = new MatchingServer(0, 1, 1);
+		MatchingClient client = new MatchingClient(server.port());
+		try {
+			assertEquals(8, client.solve(GraphFamily.GRID.generate(16, 0, 1), false).matches());
+		} finally {
+			server.close();
+		}
+		try {
+			for (int ii = 0; ii < 100; ii++ ) {
+				client.solve(GraphFamily.GRID.generate(16, 0, 1), false);
+			}
+			fail("the server is gone");
+		} catch (IOException e) {
+			// expected
+		} finally {
+			client.close();
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.DeadlineResult;
+import graph.algorithms.matching.DynamicMatching;
+import graph.algorithms.matching.MatchingEngine;
+import graph.bench.GraphFamily;
+import graph.service.MatchingService;
+
+import org.junit.Test;
+
+public class MatchingServiceTest {
+	
+	@Test
+	public void testSolve() throws Exception {
+		MatchingService service = new MatchingService(2, 8);
+		try {
+			WeightedDigraph g = GraphFamily.BLOSSOM.generate(50, 0.5, 3);
+			Matching m = service.solveAsync(g).get(10, TimeUnit.SECONDS);
+			assertEquals(new DynamicMatching(GraphFamily.BLOSSOM.generate(50, 0.5, 3)).size(), m.matches());
+			
+			Matching exact = service.solveAsync(GraphFamily.RANDOM.generate(16, 0.4, 1), new MatchingService.Options().engine(MatchingEngine.EXACT_WEIGHTED))
+					.get(10, TimeUnit.SECONDS);
+			assertTrue(exact.weight() > 0);
+			assertEquals(2, service.submitted());
+		} finally {
+			service.shutdown();
+		}
+	}
+	
+	@Test
+	public void testAdmissionAndCancellation() throws Exception {
+		MatchingService service = new MatchingService(1, 1);
+		try {
+			// takes seconds, long enough to hold the only thread
+			MatchingService.Options slow = new MatchingService.Options().engine(MatchingEngine.MIN_MATCHING);
+			CompletableFuture<Matching> running = service.solveAsync(GraphFamily.GRID.generate(20000, 0, 1), slow);
+			CompletableFuture<Matching> queued = service.solveAsync(GraphFamily.GRID.generate(16, 0, 1));
+			CompletableFuture<Matching> rejected = service.solveAsync(GraphFamily.GRID.generate(16, 0, 1));
+			assertTrue(rejected.isCompletedExceptionally());
+			try {
+				rejected.get();
+				fail("the queue is full");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof RejectedExecutionException);
+			}
+			assertEquals(1, service.rejected());
+			assertFalse(queued.isDone());
+			
+			Thread.sleep(100);
+			assertTrue(running.cancel(true));
+			// the solver notices the cancelled deadline and frees the thread for the queued solve
+			assertEquals(8, queued.get(2, TimeUnit.SECONDS).matches());
+			assertEquals(1, service.cancelled());
+		} finally {
+			service.shutdown();
+		}
+	}
+	
+	@Test
+	public void testTimeoutReturnsBestSoFar() throws Exception {
+		MatchingService service = new MatchingService(1, 1);
+		try {
+			MatchingService.Options budget = new MatchingService.Options().engine(MatchingEngine.MIN_MATCHING).timeout(50, TimeUnit.MILLISECONDS);
+			long start = System.nanoTime();
+			DeadlineResult result = service.solveResultAsync(GraphFamily.GRID.generate(20000, 0, 1), budget).get(5, TimeUnit.SECONDS);
+			assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+			assertTrue(result.timedOut);
+			assertTrue(result.matching.matches() < 10000);
+			assertTrue(result.gap > 0);
+		} finally {
+			service.shutdown();
+		}
+	}
+	
+	@Test
+	public void testTimeoutStartsWithTheSolve() throws Exception {
+		MatchingService service = new MatchingService(1, 1);
+		try {
+			MatchingService.Options slow = new MatchingService.Options().engine(MatchingEngine.MIN_MATCHING);
+			CompletableFuture<Matching> running = service.solveAsync(GraphFamily.GRID.generate(20000, 0, 1), slow);
+			MatchingService.Options budget = new MatchingService.Options().engine(MatchingEngine.MIN_MATCHING).timeout(50, TimeUnit.MILLISECONDS);
+			CompletableFuture<DeadlineResult> queued = service.solveResultAsync(GraphFamily.GRID.generate(16, 0, 1), budget);
+			
+			// waits in the queue for longer than its budget
+			Thread.sleep(200);
+			assertFalse(queued.isDone());
+			running.cancel(true);
+			DeadlineResult result = queued.get(2, TimeUnit.SECONDS);
+			assertFalse(result.timedOut);
+			assertEquals(0, result.gap, 0);
+			assertEquals(8, result.matching.matches());
+			assertEquals(1, service.cancelled());
+		} finally {
+			service.shutdown();
+		}
+	}
+}
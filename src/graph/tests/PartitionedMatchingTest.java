@@ -0,0 +1,113 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.Deadline;
+import graph.algorithms.matching.DynamicMatching;
+import graph.algorithms.matching.ExactMaxWeightedMatching;
+import graph.algorithms.matching.PartitionedMatching;
+import graph.algorithms.matching.PrimalDualMatching;
+import graph.bench.GraphFamily;
+
+import org.junit.Test;
+
+public class PartitionedMatchingTest {
+	
+	private static final int	NUM_TESTS	= 50;
+	
+	private void assertValid(WeightedDigraph g, Matching m) {
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			if (m.isMatched(v)) {
+				assertEquals(v, m.mate(m.mate(v)));
+				assertNotNull(g.heaviestArc(v, m.mate(v)));
+			}
+		}
+	}
+	
+	@Test
+	public void testCardinality() {
+		for (int ii = 0; ii < NUM_TESTS; ii++ ) {
+			WeightedDigraph g = WeightedDigraph.random((int) (Math.random() * 38) + 2);
+			int numParts = (int) (Math.random() * 4) + 1;
+			PartitionedMatching pm = new PartitionedMatching(g, false, numParts);
+			Matching m = pm.run();
+			assertValid(g, m);
+			assertTrue(pm.stitched() <= m.matches());
+			assertEquals(new ExactMaxWeightedMatching(g).runUnweighted().matches(), m.matches());
+		}
+	}
+	
+	@Test
+	public void testWeighted() {
+		for (int ii = 0; ii < NUM_TESTS; ii++ ) {
+			WeightedDigraph g = WeightedDigraph.random((int) (Math.random() * 22) + 2);
+			int numParts = (int) (Math.random() * 4) + 1;
+			PartitionedMatching pm = new PartitionedMatching(g, true, numParts);
+			Matching m = pm.run();
+			assertValid(g, m);
+			int optimal = new ExactMaxWeightedMatching(g).runWeighted().weight();
+			assertTrue(m.weight() <= optimal);
+			assertTrue(optimal + " is above the bound " + pm.upperBound(), optimal <= pm.upperBound());
+			if (numParts == 1) {
+				assertEquals(optimal, m.weight());
+			}
+		}
+	}
+	
+	/**
+	 * @return a deadline whose first clock read throws, in one worker only, the others go on to wait for its proposals
+	 */
+	private Deadline failOnce() {
+		final AtomicBoolean thrown = new AtomicBoolean();
+		return new Deadline(System.nanoTime() + TimeUnit.HOURS.toNanos(1), 1) {
+			@Override
+			public boolean expired() {
+				if (thrown.compareAndSet(false, true)) {
+					throw new IllegalStateException("worker failed on purpose");
+				}
+				return super.expired();
+			}
+		};
+	}
+	
+	@Test(timeout = 10000)
+	public void testFailedWorkerDoesNotHang() {
+		for (boolean weighted : new boolean[] { false, true }) {
+			Deadline failing = failOnce();
+			try {
+				new PartitionedMatching(GraphFamily.RANDOM.generate(200, 0.05, 1), weighted, 4).run(failing);
+				fail("the worker failure was swallowed");
+			} catch (RuntimeException e) {
+				assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+		}
+	}
+	
+	@Test
+	public void testLargeParts() {
+		// parts of 50 to 150 vertices, beyond the exact solver
+		for (int ii = 0; ii < 6; ii++ ) {
+			GraphFamily family = GraphFamily.values()[ii % GraphFamily.values().length];
+			WeightedDigraph g = family.generate(300, 0.05, ii);
+			int numParts = 2 + ii % 5;
+			
+			PartitionedMatching pm = new PartitionedMatching(g, true, numParts);
+			Matching m = pm.run();
+			assertValid(g, m);
+			long optimal = new PrimalDualMatching(g).weight();
+			assertTrue(family + ": " + m.weight() + " above the optimum " + optimal, m.weight() <= optimal);
+			assertTrue(family + ": " + optimal + " is above the bound " + pm.upperBound(), optimal <= pm.upperBound());
+			
+			pm = new PartitionedMatching(g, false, numParts);
+			m = pm.run();
+			assertValid(g, m);
+			assertEquals(family.toString(), new DynamicMatching(g).size(), m.matches());
+			assertEquals(m.matches(), pm.stitched() + pm.repaired());
+		}
+	}
+}
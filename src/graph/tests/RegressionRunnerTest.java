@@ -0,0 +1,74 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import graph.algorithms.matching.MatchingEngine;
+import graph.bench.GraphFamily;
+import graph.bench.RegressionCorpus;
+import graph.bench.RegressionRunner;
+import graph.bench.RegressionRunner.Measurement;
+
+import org.junit.Test;
+
+public class RegressionRunnerTest {
+	
+	private List<Measurement> small() {
+		RegressionCorpus corpus = new RegressionCorpus().add(GraphFamily.BLOSSOM, 20, 0.5, 1).add(GraphFamily.BIPARTITE, 24, 0.3, 2);
+		return new RegressionRunner(0, 1).run(corpus, MatchingEngine.EXACT_CARDINALITY, MatchingEngine.DYNAMIC, MatchingEngine.STREAMING_GREEDY);
+	}
+	
+	@Test
+	public void testEnginesAgree() {
+		List<Measurement> measurements = small();
+		assertEquals(6, measurements.size());
+		for (int ii = 0; ii < measurements.size(); ii += 3) {
+			Measurement exact = measurements.get(ii), dynamic = measurements.get(ii + 1), greedy = measurements.get(ii + 2);
+			assertNull(exact.error);
+			assertEquals(exact.instance, dynamic.instance);
+			assertEquals(exact.size, dynamic.size);
+			assertTrue(2 * greedy.size >= exact.size);
+			assertTrue(exact.nanos > 0);
+		}
+	}
+	
+	@Test
+	public void testBaselineRoundTrip() throws Exception {
+		List<Measurement> measurements = small();
+		File file = File.createTempFile("baseline", ".json");
+		file.deleteOnExit();
+		RegressionRunner.write(measurements, file);
+		List<Measurement> read = RegressionRunner.read(file);
+		assertEquals(measurements.size(), read.size());
+		for (int ii = 0; ii < read.size(); ii++ ) {
+			assertEquals(measurements.get(ii).toString(), read.get(ii).toString());
+		}
+		assertTrue(RegressionRunner.compare(read, measurements, 0).isEmpty());
+	}
+	
+	@Test
+	public void testDetectsRegressions() {
+		List<Measurement> baseline = new ArrayList<Measurement>();
+		baseline.add(new Measurement("a", "E", 10e6, 1e6, 1e6, 5, 50, null));
+		baseline.add(new Measurement("b", "E", 10e6, 1e6, 1e6, 5, 50, null));
+		baseline.add(new Measurement("c", "E", 10e6, 1e6, 1e6, 5, 50, null));
+		baseline.add(new Measurement("d", "E", 10e6, 1e6, 1e6, 5, 50, null));
+		baseline.add(new Measurement("e", "E", 10, 10, 10, 5, 50, null));
+		List<Measurement> current = new ArrayList<Measurement>();
+		current.add(new Measurement("a", "E", 12e6, 1e6, 1e6, 5, 50, null));
+		current.add(new Measurement("b", "E", 10e6, 2e6, 1e6, 5, 50, null));
+		current.add(new Measurement("c", "E", 10e6, 1e6, 1e6, 4, 40, null));
+		current.add(new Measurement("d", "E", 0, 0, 0, 0, 0, "broken"));
+		// tiny times and allocations stay below the noise floor
+		current.add(new Measurement("e", "E", 1000, 1000, 1000, 5, 50, null));
+		current.add(new Measurement("new", "E", 10e6, 1e6, 1e6, 5, 50, null));
+		
+		assertEquals(3, RegressionRunner.compare(baseline, current, 0.25).size());
+		List<RegressionRunner.Regression> strict = RegressionRunner.compare(baseline, current, 0.1);
+		assertEquals(4, strict.size());
+		assertEquals("a", strict.get(0).current.instance);
+	}
+}
@@ -0,0 +1,72 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import graph.Edge;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.MinMatchingAlg;
+import graph.algorithms.matching.SolverStats;
+
+import org.junit.Test;
+
+public class SolverStatsTest {
+	
+	private SolverStats solvePath() {
+		// the path 0-1-2-3-4-5
+		WeightedDigraph g = new WeightedDigraph(6);
+		for (int v = 0; v < 5; v++ ) {
+			g.addEdge(new Edge(v, v + 1, 1));
+			g.addEdge(new Edge(v + 1, v, 1));
+		}
+		MinMatchingAlg mma = new MinMatchingAlg(g);
+		SolverStats stats = mma.run();
+		assertSame(stats, mma.stats());
+		assertEquals(3, mma.matching().matches());
+		return stats;
+	}
+	
+	@Test
+	public void testCounters() {
+		SolverStats stats = solvePath();
+		assertEquals(1, stats.getSolves());
+		assertTrue(stats.getStages() > 0);
+		assertTrue(stats.getAugmentations() > 0);
+		assertTrue(stats.getLongestAugmentingPath() >= 2);
+		assertTrue(stats.getArcsScanned() >= 10);
+		assertArrayEquals(new String[] { "auxiliary", "search", "blossom", "augment" }, stats.getStepNames());
+		assertTrue(stats.stepNanos("auxiliary") > 0);
+		
+		long total = 0;
+		for (long nanos : stats.getStepNanos()) {
+			assertTrue(nanos >= 0);
+			total += nanos;
+		}
+		assertEquals(total, stats.getTotalNanos());
+	}
+	
+	@Test
+	public void testAggregateOverJmx() throws Exception {
+		SolverStats total = new SolverStats("auxiliary", "search", "blossom", "augment");
+		total.register("test");
+		try {
+			SolverStats first = solvePath();
+			total.add(first);
+			total.add(solvePath());
+			assertEquals(2, total.getSolves());
+			
+			ObjectName name = new ObjectName(SolverStats.DOMAIN + ":type=SolverStats,name=" + ObjectName.quote("test"));
+			assertEquals(2L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Solves"));
+			assertEquals(2 * first.getAugmentations(), ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Augmentations"));
+			
+			total.reset();
+			assertEquals(0, total.getSolves());
+			assertEquals(0, total.getTotalNanos());
+		} finally {
+			SolverStats.unregister("test");
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import graph.Edge;
+import graph.EdgeReader;
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.ExactMaxWeightedMatching;
+import graph.algorithms.matching.StreamingMatching;
+
+import org.junit.Test;
+
+public class StreamingMatchingTest {
+	
+	private static final int	NUM_TESTS	= 100;
+	private static final float	EPSILON		= 0.1f;
+	
+	/**
+	 * All arcs of a random graph in random order
+	 */
+	private List<Edge> shuffledArcs(WeightedDigraph g) {
+		List<Edge> arcs = new ArrayList<Edge>();
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			arcs.addAll(g.eOuts(v));
+		}
+		Collections.shuffle(arcs);
+		return arcs;
+	}
+	
+	private void assertValid(WeightedDigraph g, Matching m) {
+		for (int v = 0; v < g.numVertices(); v++ ) {
+			if (m.isMatched(v)) {
+				assertEquals(v, m.mate(m.mate(v)));
+				assertNotNull(g.heaviestArc(v, m.mate(v)));
+			}
+		}
+	}
+	
+	@Test
+	public void testGreedy() {
+		for (int ii = 0; ii < NUM_TESTS; ii++ ) {
+			WeightedDigraph g = WeightedDigraph.random((int) (Math.random() * 20) + 2);
+			List<Edge> arcs = shuffledArcs(g);
+			StreamingMatching sm = new StreamingMatching(g.numVertices());
+			sm.addAll(arcs.iterator());
+			Matching m = sm.matching();
+			assertValid(g, m);
+			assertEquals(arcs.size(), sm.numEdges());
+			
+			// maximal: no arc has both ends exposed
+			for (Edge e : arcs) {
+				assertTrue("matching is not maximal", e.isLoop() || m.isMatched(e.left) || m.isMatched(e.right));
+			}
+			assertTrue(2 * m.matches() >= new ExactMaxWeightedMatching(g).runUnweighted().matches());
+		}
+	}
+	
+	@Test
+	public void testWeighted() {
+		for (int ii = 0; ii < NUM_TESTS; ii++ ) {
+			WeightedDigraph g = WeightedDigraph.random((int) (Math.random() * 20) + 2);
+			StreamingMatching sm = new StreamingMatching(g.numVertices(), EPSILON);
+			sm.addAll(shuffledArcs(g).iterator());
+			Matching m = sm.matching();
+			assertValid(g, m);
+			int optimal = new ExactMaxWeightedMatching(g).runWeighted().weight();
+			assertTrue(m.weight() + " is below the approximation bound of " + optimal, m.weight() * 2 * (1 + EPSILON) >= optimal);
+		}
+	}
+	
+	@Test
+	public void testEdgeReader() {
+		String text = "0 1 5\n\n1 2 3\n2 3 4\n";
+		StreamingMatching sm = new StreamingMatching(4, 0);
+		sm.addAll(new EdgeReader(new BufferedReader(new StringReader(text))));
+		assertEquals(3, sm.numEdges());
+		Matching m = sm.matching();
+		assertEquals(9, m.weight());
+		assertEquals(1, m.mate(0));
+		assertEquals(3, m.mate(2));
+	}
+}
@@ -0,0 +1,102 @@
+package graph.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import graph.Edge;
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.ExactMaxWeightedMatching;
+import graph.algorithms.matching.MinMatchingAlg;
+import graph.algorithms.matching.PrimalDualMatching;
+import graph.bench.GraphFamily;
+
+import org.junit.Test;
+
+public class WarmStartTest {
+	
+	/**
+	 * The path 0-1-2-3-4-5 with both arcs of every edge
+	 */
+	private WeightedDigraph path() {
+		WeightedDigraph g = new WeightedDigraph(6);
+		for (int v = 0; v < 5; v++ ) {
+			g.addEdge(new Edge(v, v + 1, 1));
+			g.addEdge(new Edge(v + 1, v, 1));
+		}
+		return g;
+	}
+	
+	@Test
+	public void testPerfectMatchingIsKept() {
+		WeightedDigraph g = path();
+		Matching m = new Matching(6);
+		m.add(new Edge(0, 1, 1));
+		m.add(new Edge(2, 3, 1));
+		m.add(new Edge(4, 5, 1));
+		MinMatchingAlg alg = new MinMatchingAlg(g, m);
+		alg.run();
+		assertSame(m, alg.matching());
+		assertEquals(3, alg.matching().matches());
+		assertEquals(3, alg.matching().mate(2));
+	}
+	
+	@Test
+	public void testStalePairsAreDropped() {
+		WeightedDigraph g = path();
+		Matching m = new Matching(6);
+		m.add(new Edge(0, 1, 1));
+		m.add(new Edge(2, 5, 1)); // not an edge of the path
+		MinMatchingAlg alg = new MinMatchingAlg(g, m);
+		assertEquals(1, alg.matching().matches());
+		assertTrue(alg.matching().isMatched(0));
+		assertFalse(alg.matching().isMatched(2));
+		assertFalse(alg.matching().isMatched(5));
+	}
+	
+	@Test
+	public void testPrimalDualWarmStart() {
+		for (int seed = 0; seed < 40; seed++ ) {
+			Random random = new Random(seed);
+			WeightedDigraph g = GraphFamily.RANDOM.generate(12 + seed % 10, 0.4, seed);
+			PrimalDualMatching first = new PrimalDualMatching(g);
+			Matching previous = first.run();
+			long[] duals = first.scaledDuals();
+
+			// unchanged graph: the previous solve is optimal as it is
+			PrimalDualMatching again = new PrimalDualMatching(g);
+			again.warmStart(previous, duals);
+			assertEquals(previous, again.run());
+
+			// drop some edges, reweigh others and add a few vertices with new edges
+			int n = g.numVertices() + seed % 3;
+			WeightedDigraph changed = new WeightedDigraph(n);
+			for (Edge e : g.edges()) {
+				int coin = random.nextInt(10);
+				if (coin > 2) {
+					changed.addEdge(new Edge(e));
+				} else if (coin > 0) {
+					changed.addEdge(new Edge(e.left, e.right, 1 + random.nextInt(100)));
+				}
+			}
+			for (int ii = 0; ii < 5; ii++ ) {
+				int v = random.nextInt(n), w = random.nextInt(n);
+				changed.addEdge(new Edge(v, w, 1 + random.nextInt(100)));
+			}
+			PrimalDualMatching warm = new PrimalDualMatching(changed);
+			warm.warmStart(previous, duals);
+			assertEquals(new ExactMaxWeightedMatching(changed).runWeighted().weight(), warm.run().weight());
+		}
+	}
+	
+	@Test
+	public void testMatchingTooSmall() {
+		try {
+			new MinMatchingAlg(path(), new Matching(4));
+			fail("a matching over fewer vertices than the graph was accepted");
+		} catch (RuntimeException e) {
+			// expected
+		}
+	}
+}
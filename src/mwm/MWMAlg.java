@@ -1,5 +1,300 @@
 package mwm;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import graph.BinaryGraphFormat;
+import graph.Edge;
+import graph.EdgeReader;
+import graph.Matching;
+import graph.WeightedDigraph;
+import graph.algorithms.matching.MatchingEngine;
+
+/**
+ * Command line driver: reads graphs, matches them and writes the matchings.
+ * 
+ * <pre>
+ * java mwm.MWMAlg [--engine=NAME] [--format=auto|text|binary] [--threads=N] [--out=DIR] [FILE|DIR|-]...
+ * </pre>
+ * <ul>
+ * <li>inputs are files, directories (every regular file in them) or - for stdin, stdin is read when no input is given</li>
+ * <li>text input has one arc per line in the X Y W format of {@link WeightedDigraph#parse(String)}, binary input is {@link BinaryGraphFormat}. With
+ * auto the format is told by the magic number</li>
+ * <li>the engine is a {@link MatchingEngine} name, default DYNAMIC</li>
+ * <li>inputs are solved concurrently on a pool of threads, default one per core</li>
+ * <li>each matching is written as X Y W lines of its matched arcs, to DIR/NAME.matching with --out or to stdout in input order, each preceded by a
+ * line # NAME PAIRS WEIGHT</li>
+ * </ul>
+ * The exit status is 1 if any input failed, 2 on bad arguments.
+ * 
+ * @author Lincoln
+ */
 public class MWMAlg {
+	private static final Charset	UTF8					= Charset.forName("UTF-8");
+	/** largest binary graph read, guards against allocating for a corrupt header */
+	private static final int			MAX_VERTICES	= 1 << 26;
+	private static final String		STDIN					= "-";
+	
+	enum Format {
+		AUTO, TEXT, BINARY
+	}
+	
+	/** options of the current run */
+	private MatchingEngine	engine;
+	private Format					format;
+	private int							threads;
+	private Path						outDir;
+	private List<String>		inputs;
+	
+	private final InputStream	stdin;
+	private final PrintStream	stdout, stderr;
+	
+	/**
+	 * @param stdin read for the input -
+	 * @param stdout receives the matchings unless --out is given
+	 * @param stderr receives errors
+	 */
+	public MWMAlg(InputStream stdin, PrintStream stdout, PrintStream stderr) {
+		this.stdin = stdin;
+		this.stdout = stdout;
+		this.stderr = stderr;
+	}
+	
+	public static void main(String[] args) {
+		System.exit(new MWMAlg(System.in, System.out, System.err).run(args));
+	}
+	
+	/**
+	 * @param args command line
+	 * @return the exit status
+	 */
+	public int run(String[] args) {
+		try {
+			parseArguments(args);
+		} catch (RuntimeException e) {
+			stderr.println(e.getMessage());
+			stderr.println("usage: mwm.MWMAlg [--engine=NAME] [--format=auto|text|binary] [--threads=N] [--out=DIR] [FILE|DIR|-]...");
+			return 2;
+		}
+		
+		List<String> names;
+		try {
+			names = expand(inputs);
+		} catch (IOException e) {
+			stderr.println(e.getMessage());
+			return 1;
+		}
+		
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<String>> results = new ArrayList<Future<String>>(names.size());
+		for (final String name : names) {
+			results.add(pool.submit(new Callable<String>() {
+				@Override
+				public String call() throws IOException {
+					return solve(name);
+				}
+			}));
+		}
+		pool.shutdown();
+		
+		// results go out in input order, each as soon as it and its predecessors are done
+		int status = 0;
+		WritableByteChannel out = Channels.newChannel(stdout);
+		for (int ii = 0; ii < results.size(); ii++ ) {
+			try {
+				String text = results.get(ii).get();
+				if (text != null) {
+					out.write(ByteBuffer.wrap(text.getBytes(UTF8)));
+				}
+			} catch (ExecutionException e) {
+				stderr.println(names.get(ii) + ": " + e.getCause().getMessage());
+				status = 1;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				pool.shutdownNow();
+				return 1;
+			} catch (IOException e) {
+				stderr.println("failed writing the output: " + e.getMessage());
+				pool.shutdownNow();
+				return 1;
+			}
+		}
+		stdout.flush();
+		return status;
+	}
+	
+	private void parseArguments(String[] args) {
+		engine = MatchingEngine.DYNAMIC;
+		format = Format.AUTO;
+		threads = Runtime.getRuntime().availableProcessors();
+		outDir = null;
+		inputs = new ArrayList<String>();
+		for (String arg : args) {
+			if ( ! arg.startsWith("--")) {
+				inputs.add(arg);
+				continue;
+			}
+			String[] kv = arg.substring(2).split("=", 2);
+			if (kv.length != 2) {
+				throw new RuntimeException("expected --option=value but found " + arg);
+			}
+			String key = kv[0], value = kv[1];
+			if (key.equals("engine")) {
+				try {
+					engine = MatchingEngine.valueOf(value.toUpperCase().replace('-', '_'));
+				} catch (IllegalArgumentException e) {
+					throw new RuntimeException("unknown engine " + value);
+				}
+			} else if (key.equals("format")) {
+				try {
+					format = Format.valueOf(value.toUpperCase());
+				} catch (IllegalArgumentException e) {
+					throw new RuntimeException("unknown format " + value);
+				}
+			} else if (key.equals("threads")) {
+				threads = Integer.parseInt(value);
+				if (threads < 1) {
+					throw new RuntimeException("need at least one thread");
+				}
+			} else if (key.equals("out")) {
+				outDir = Paths.get(value);
+			} else {
+				throw new RuntimeException("unknown option " + key);
+			}
+		}
+		if (inputs.isEmpty()) {
+			inputs.add(STDIN);
+		}
+	}
+	
+	/**
+	 * Replace directories by the regular files in them, sorted by name
+	 */
+	private static List<String> expand(List<String> inputs) throws IOException {
+		List<String> names = new ArrayList<String>();
+		for (String input : inputs) {
+			Path path = Paths.get(input);
+			if ( ! input.equals(STDIN) && Files.isDirectory(path)) {
+				List<String> files = new ArrayList<String>();
+				try (DirectoryStream<Path> dir = Files.newDirectoryStream(path)) {
+					for (Path file : dir) {
+						if (Files.isRegularFile(file)) {
+							files.add(file.toString());
+						}
+					}
+				}
+				Collections.sort(files);
+				names.addAll(files);
+			} else {
+				names.add(input);
+			}
+		}
+		return names;
+	}
+	
+	/**
+	 * Read, match and write one input
+	 * 
+	 * @return the text for stdout or null if it was written to a file
+	 */
+	private String solve(String name) throws IOException {
+		WeightedDigraph g;
+		if (name.equals(STDIN)) {
+			g = read(stdin, format);
+		} else {
+			try (InputStream in = Files.newInputStream(Paths.get(name))) {
+				g = read(in, format);
+			}
+		}
+		if ( ! engine.accepts(g.numVertices())) {
+			throw new IOException(engine + " does not accept graphs of " + g.numVertices() + " vertices");
+		}
+		Matching m = engine.solve(g);
+		
+		String label = name.equals(STDIN) ? "stdin" : Paths.get(name).getFileName().toString();
+		if (outDir != null) {
+			try (Writer w = Files.newBufferedWriter(outDir.resolve(label + ".matching"), UTF8)) {
+				write(m, g, w);
+			}
+			return null;
+		}
+		StringBuilder s = new StringBuilder();
+		s.append("# ").append(label).append(' ').append(m.matches()).append(' ').append(m.weight()).append('\n');
+		write(m, g, s);
+		return s.toString();
+	}
+	
+	/**
+	 * @param in graph in text or binary format
+	 * @param format format of the input, AUTO looks for the binary magic number
+	 */
+	static WeightedDigraph read(InputStream in, Format format) throws IOException {
+		BufferedInputStream buffered = new BufferedInputStream(in);
+		if (format == Format.AUTO) {
+			buffered.mark(4);
+			DataInputStream peek = new DataInputStream(buffered);
+			int magic;
+			try {
+				magic = peek.readInt();
+			} catch (IOException e) {
+				magic = 0;
+			}
+			buffered.reset();
+			format = magic == BinaryGraphFormat.GRAPH_MAGIC ? Format.BINARY : Format.TEXT;
+		}
+		if (format == Format.BINARY) {
+			return BinaryGraphFormat.read(new DataInputStream(buffered), MAX_VERTICES);
+		}
+		
+		// the number of vertices is only known once every arc was read
+		List<Edge> arcs = new ArrayList<Edge>();
+		int n = 0;
+		EdgeReader reader = new EdgeReader(new BufferedReader(new InputStreamReader(buffered, UTF8)));
+		while (reader.hasNext()) {
+			Edge e = reader.next();
+			if (e.left < 0 || e.right < 0 || e.weight < 0) {
+				throw new IOException("bad arc " + e);
+			}
+			arcs.add(e);
+			n = Math.max(n, Math.max(e.left, e.right) + 1);
+		}
+		WeightedDigraph g = new WeightedDigraph(n);
+		for (Edge e : arcs) {
+			g.addEdge(e);
+		}
+		return g;
+	}
 	
+	private static void write(Matching m, WeightedDigraph g, Appendable out) throws IOException {
+		for (int v = 0; v < m.numVertices(); v++ ) {
+			int w = m.mate(v);
+			if (m.isMatched(v) && v < w) {
+				Edge e = g.heaviestArc(v, w);
+				out.append(Integer.toString(v)).append(' ').append(Integer.toString(w)).append(' ').append(Integer.toString(e != null ? e.weight : 0))
+						.append('\n');
+			}
+		}
+	}
 }